@@ -69,6 +69,8 @@ public class BDDPacket implements Serializable {
   private final BDDFactory _factory;
   private int _nextFreeBDDVarIdxBeforePacketVars = 0;
   private int _nextFreeBDDVarIdx = FIRST_PACKET_VAR;
+  // The first variable after those used to encode packet headers.
+  private final int _firstVarAfterPacketVars;
 
   // Packet bits
   private final @Nonnull ImmutableBDDInteger _dscp;
@@ -167,9 +169,20 @@ public class BDDPacket implements Serializable {
             BDDUtils.concatBitvectors(_dstIp.getVar()._bitvec, _dstPort.getVar()._bitvec),
             BDDUtils.concatBitvectors(_srcIp.getVar()._bitvec, _srcPort.getVar()._bitvec));
 
+    _firstVarAfterPacketVars = _nextFreeBDDVarIdx;
     initTransientFields();
   }
 
+  /**
+   * Releases all variables allocated by clients via {@code allocate*} methods, so that they are
+   * allocated again by subsequent calls. BDDs over released variables must no longer be used.
+   */
+  void releaseAllocatedVariables() {
+    _bitNames.keySet().removeIf(i -> i < FIRST_PACKET_VAR || i >= _firstVarAfterPacketVars);
+    _nextFreeBDDVarIdxBeforePacketVars = 0;
+    _nextFreeBDDVarIdx = _firstVarAfterPacketVars;
+  }
+
   private void initTransientFields() {
     _flowConstraintGeneratorSupplier =
         Suppliers.memoize(() -> new BDDFlowConstraintGenerator(this));
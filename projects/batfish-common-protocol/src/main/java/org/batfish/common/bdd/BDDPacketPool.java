@@ -0,0 +1,237 @@
+package org.batfish.common.bdd;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.lang.ref.SoftReference;
+import java.time.Duration;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+/**
+ * A pool of {@link BDDPacket BDDPackets} that can be reused across question answers.
+ *
+ * <p>Creating a {@link BDDPacket} allocates a large BDD node table and operation caches and
+ * allocates the packet header variables. Answerers that create many short-lived packets (e.g., one
+ * per filter) spend much of their time doing this. A packet leased from the pool keeps its node
+ * table, caches, and header variables from previous leases; only variables allocated by clients are
+ * released (see {@link BDDPacket#releaseAllocatedVariables()}), so that they are reallocated with
+ * the same indices by the next lessee.
+ *
+ * <p>BDD nodes are reference counted, so nodes still referenced by BDDs from previous leases are
+ * not reclaimed by garbage collection. A returned packet whose node table holds more than {@link
+ * #getMaxLiveNodes()} live nodes after garbage collection is discarded rather than pooled.
+ *
+ * <p>Idle packets are evicted once they have been idle longer than the maximum idle time, checked
+ * whenever a packet is leased or returned. They are also only softly referenced, so that a pool
+ * that is no longer used does not keep them after the garbage collector needs the memory.
+ *
+ * <p>A lease must be closed by the thread that acquired it, and no BDD created from a leased packet
+ * may be used after the lease is closed.
+ */
+@ParametersAreNonnullByDefault
+public final class BDDPacketPool {
+
+  /** Default maximum number of live nodes a packet may have to be returned to the pool. */
+  private static final int DEFAULT_MAX_LIVE_NODES = 250_000;
+
+  /** Default time after which an idle packet is evicted from the pool. */
+  private static final Duration DEFAULT_MAX_IDLE_TIME = Duration.ofMinutes(5);
+
+  private static final BDDPacketPool INSTANCE =
+      new BDDPacketPool(
+          BDDPacket::new, Runtime.getRuntime().availableProcessors(), DEFAULT_MAX_LIVE_NODES);
+
+  /** Returns the pool shared by all question answerers. */
+  public static @Nonnull BDDPacketPool getInstance() {
+    return INSTANCE;
+  }
+
+  /** A {@link BDDPacket} leased from a {@link BDDPacketPool}. */
+  public final class Lease implements AutoCloseable {
+    private final @Nonnull BDDPacket _pkt;
+    private final @Nonnull Thread _owner;
+    private boolean _closed;
+
+    private Lease(BDDPacket pkt) {
+      _pkt = pkt;
+      _owner = Thread.currentThread();
+    }
+
+    public @Nonnull BDDPacket getPacket() {
+      checkState(!_closed, "Lease is already closed");
+      return _pkt;
+    }
+
+    /** Returns the leased packet to the pool. */
+    @Override
+    public void close() {
+      checkState(
+          Thread.currentThread() == _owner,
+          "Lease acquired by thread %s must be closed by the same thread",
+          _owner.getName());
+      if (_closed) {
+        return;
+      }
+      _closed = true;
+      release(_pkt);
+    }
+  }
+
+  /** An idle packet, and the time at which it was returned to the pool. */
+  private static final class IdlePacket extends SoftReference<BDDPacket> {
+    private final long _idleSinceNanos;
+
+    private IdlePacket(BDDPacket pkt, long idleSinceNanos) {
+      super(pkt);
+      _idleSinceNanos = idleSinceNanos;
+    }
+  }
+
+  private final @Nonnull Supplier<BDDPacket> _packetFactory;
+  private final int _maxIdlePackets;
+  private final int _maxLiveNodes;
+  private final long _maxIdleNanos;
+  private final @Nonnull LongSupplier _nanoTime;
+  private final @Nonnull Deque<IdlePacket> _idle;
+  private final @Nonnull AtomicInteger _numIdle;
+
+  // metrics
+  private final @Nonnull AtomicLong _hits;
+  private final @Nonnull AtomicLong _misses;
+  private final @Nonnull AtomicLong _discards;
+  private final @Nonnull AtomicLong _evictions;
+  private final @Nonnull AtomicInteger _peakLiveNodes;
+
+  @VisibleForTesting
+  BDDPacketPool(Supplier<BDDPacket> packetFactory, int maxIdlePackets, int maxLiveNodes) {
+    this(packetFactory, maxIdlePackets, maxLiveNodes, DEFAULT_MAX_IDLE_TIME, System::nanoTime);
+  }
+
+  @VisibleForTesting
+  BDDPacketPool(
+      Supplier<BDDPacket> packetFactory,
+      int maxIdlePackets,
+      int maxLiveNodes,
+      Duration maxIdleTime,
+      LongSupplier nanoTime) {
+    checkArgument(maxIdlePackets >= 0, "maxIdlePackets must be non-negative");
+    checkArgument(maxLiveNodes > 0, "maxLiveNodes must be positive");
+    checkArgument(!maxIdleTime.isNegative(), "maxIdleTime must be non-negative");
+    _packetFactory = packetFactory;
+    _maxIdlePackets = maxIdlePackets;
+    _maxLiveNodes = maxLiveNodes;
+    _maxIdleNanos = maxIdleTime.toNanos();
+    _nanoTime = nanoTime;
+    _idle = new ConcurrentLinkedDeque<>();
+    _numIdle = new AtomicInteger();
+    _hits = new AtomicLong();
+    _misses = new AtomicLong();
+    _discards = new AtomicLong();
+    _evictions = new AtomicLong();
+    _peakLiveNodes = new AtomicInteger();
+  }
+
+  /**
+   * Leases a packet from the pool, creating a new one if none is idle. The most recently returned
+   * packet is leased first, since its node table and caches are most likely to be warm.
+   */
+  public @Nonnull Lease lease() {
+    evictExpired();
+    for (IdlePacket idle = _idle.pollFirst(); idle != null; idle = _idle.pollFirst()) {
+      _numIdle.decrementAndGet();
+      BDDPacket pkt = idle.get();
+      if (pkt != null) {
+        _hits.incrementAndGet();
+        return new Lease(pkt);
+      }
+      // reclaimed by the garbage collector
+      _evictions.incrementAndGet();
+    }
+    _misses.incrementAndGet();
+    return new Lease(_packetFactory.get());
+  }
+
+  private void release(BDDPacket pkt) {
+    pkt.releaseAllocatedVariables();
+    int liveNodes = pkt.getFactory().getNodeNum();
+    if (liveNodes > _maxLiveNodes) {
+      pkt.getFactory().runGC();
+      liveNodes = pkt.getFactory().getNodeNum();
+    }
+    _peakLiveNodes.accumulateAndGet(liveNodes, Math::max);
+    if (liveNodes > _maxLiveNodes) {
+      _discards.incrementAndGet();
+      return;
+    }
+    if (_numIdle.incrementAndGet() > _maxIdlePackets) {
+      _numIdle.decrementAndGet();
+      _discards.incrementAndGet();
+      return;
+    }
+    _idle.offerFirst(new IdlePacket(pkt, _nanoTime.getAsLong()));
+    evictExpired();
+  }
+
+  /**
+   * Evicts the least recently returned idle packets while they have been idle longer than the
+   * maximum idle time or have been reclaimed by the garbage collector.
+   */
+  private void evictExpired() {
+    long now = _nanoTime.getAsLong();
+    for (IdlePacket idle = _idle.peekLast(); idle != null; idle = _idle.peekLast()) {
+      if (idle.get() != null && now - idle._idleSinceNanos <= _maxIdleNanos) {
+        return;
+      }
+      if (_idle.removeLastOccurrence(idle)) {
+        _numIdle.decrementAndGet();
+        _evictions.incrementAndGet();
+      }
+    }
+  }
+
+  /** Maximum number of live nodes a packet may have to be returned to the pool. */
+  public int getMaxLiveNodes() {
+    return _maxLiveNodes;
+  }
+
+  /** Number of leases served by an idle packet. */
+  public long getHits() {
+    return _hits.get();
+  }
+
+  /** Number of leases that required creating a new packet. */
+  public long getMisses() {
+    return _misses.get();
+  }
+
+  /** Number of returned packets that were discarded rather than pooled. */
+  public long getDiscards() {
+    return _discards.get();
+  }
+
+  /**
+   * Number of idle packets evicted because they were idle for too long or were reclaimed by the
+   * garbage collector.
+   */
+  public long getEvictions() {
+    return _evictions.get();
+  }
+
+  /** Largest number of live nodes observed in a returned packet. */
+  public int getPeakLiveNodes() {
+    return _peakLiveNodes.get();
+  }
+
+  /** Number of packets currently idle in the pool. */
+  public int getNumIdle() {
+    return _numIdle.get();
+  }
+}
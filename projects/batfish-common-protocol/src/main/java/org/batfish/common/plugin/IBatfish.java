@@ -142,6 +142,32 @@ public interface IBatfish extends IPluginConsumer {
   InputStream getSnapshotInputObject(NetworkSnapshot snapshot, String key)
       throws FileNotFoundException, IOException;
 
+  /**
+   * Get the data plane computation checkpoint for the given snapshot and key
+   *
+   * @throws FileNotFoundException if no checkpoint is stored under the given key
+   * @throws IOException if there is an error reading the checkpoint
+   */
+  @MustBeClosed
+  @Nonnull
+  InputStream getDataPlaneCheckpoint(NetworkSnapshot snapshot, String key)
+      throws FileNotFoundException, IOException;
+
+  /**
+   * Put a data plane computation checkpoint for the given snapshot and key
+   *
+   * @throws IOException if there is an error writing the checkpoint
+   */
+  void putDataPlaneCheckpoint(NetworkSnapshot snapshot, String key, InputStream stream)
+      throws IOException;
+
+  /**
+   * Delete all data plane computation checkpoints for the given snapshot
+   *
+   * @throws IOException if there is an error deleting the checkpoints
+   */
+  void deleteDataPlaneCheckpoints(NetworkSnapshot snapshot) throws IOException;
+
   String getTaskId();
 
   InitInfoAnswerElement initInfo(NetworkSnapshot snapshot, boolean summary, boolean verboseError);
@@ -185,9 +211,6 @@ public interface IBatfish extends IPluginConsumer {
    */
   TracerouteEngine getTracerouteEngine(NetworkSnapshot snapshot);
 
-  @Nullable
-  String readExternalBgpAnnouncementsFile(NetworkSnapshot snapshot);
-
   void registerAnswerer(
       String questionName,
       String questionClassName,
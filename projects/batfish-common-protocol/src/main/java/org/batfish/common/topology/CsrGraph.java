@@ -0,0 +1,366 @@
+package org.batfish.common.topology;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkElementIndex;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.graph.EndpointPair;
+import com.google.common.graph.Graph;
+import java.util.AbstractList;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+/**
+ * An immutable directed graph in compressed sparse row (CSR) form.
+ *
+ * <p>Nodes are interned to dense {@code int} IDs in the order given by a comparator, and the
+ * successors (and predecessors) of all nodes are stored as consecutive sorted ranges of a single
+ * {@code int} array. Iterating over the neighbors of a node does not allocate, and the whole graph
+ * takes a few words per node and per edge.
+ *
+ * <p>Since IDs are assigned in comparator order, two graphs with the same nodes and edges have
+ * identical arrays. Equality is therefore a linear scan of primitive arrays plus one {@link
+ * Object#equals(Object)} call per node, and the hash code is computed once at construction. The
+ * comparator must be consistent with {@link Object#equals(Object)}.
+ *
+ * <p>Looking up the ID of a node is a binary search over the sorted nodes.
+ */
+@ParametersAreNonnullByDefault
+public final class CsrGraph<N> {
+
+  /** Builds a {@link CsrGraph}. Duplicate nodes and edges are ignored. */
+  public static final class Builder<N> {
+    private final @Nonnull Comparator<? super N> _comparator;
+    private final @Nonnull List<N> _nodes;
+    private final @Nonnull List<N> _sources;
+    private final @Nonnull List<N> _targets;
+
+    private Builder(Comparator<? super N> comparator) {
+      _comparator = comparator;
+      _nodes = new ArrayList<>();
+      _sources = new ArrayList<>();
+      _targets = new ArrayList<>();
+    }
+
+    public @Nonnull Builder<N> addNode(N node) {
+      _nodes.add(node);
+      return this;
+    }
+
+    public @Nonnull Builder<N> putEdge(N source, N target) {
+      _sources.add(source);
+      _targets.add(target);
+      return this;
+    }
+
+    public @Nonnull CsrGraph<N> build() {
+      List<N> allNodes = new ArrayList<>(_nodes.size() + 2 * _sources.size());
+      allNodes.addAll(_nodes);
+      allNodes.addAll(_sources);
+      allNodes.addAll(_targets);
+      allNodes.sort(_comparator);
+      List<N> distinct = new ArrayList<>();
+      for (N node : allNodes) {
+        N last = distinct.isEmpty() ? null : distinct.get(distinct.size() - 1);
+        if (last != null && _comparator.compare(last, node) == 0) {
+          checkArgument(
+              last.equals(node), "Comparator is inconsistent with equals: %s, %s", last, node);
+          continue;
+        }
+        distinct.add(node);
+      }
+      @SuppressWarnings("unchecked")
+      N[] nodes = (N[]) distinct.toArray();
+
+      int numEdges = _sources.size();
+      int[] sources = new int[numEdges];
+      int[] targets = new int[numEdges];
+      for (int i = 0; i < numEdges; i++) {
+        sources[i] = Arrays.binarySearch(nodes, _sources.get(i), _comparator);
+        targets[i] = Arrays.binarySearch(nodes, _targets.get(i), _comparator);
+      }
+      int[] outOffsets = new int[nodes.length + 1];
+      int[] outTargets = group(nodes.length, sources, targets, outOffsets);
+      // Deduplicate edges, compacting each sorted row in place.
+      int numDistinct = 0;
+      int rowStart = 0;
+      for (int u = 0; u < nodes.length; u++) {
+        int rowEnd = outOffsets[u + 1];
+        outOffsets[u] = numDistinct;
+        for (int i = rowStart; i < rowEnd; i++) {
+          if (i == rowStart || outTargets[i] != outTargets[i - 1]) {
+            outTargets[numDistinct++] = outTargets[i];
+          }
+        }
+        rowStart = rowEnd;
+      }
+      outOffsets[nodes.length] = numDistinct;
+      outTargets = Arrays.copyOf(outTargets, numDistinct);
+      return new CsrGraph<>(_comparator, nodes, outOffsets, outTargets);
+    }
+  }
+
+  public static <N> Builder<N> builder(Comparator<? super N> comparator) {
+    return new Builder<>(comparator);
+  }
+
+  /** Returns a {@link CsrGraph} with the nodes and directed edges of the given graph. */
+  public static <N> CsrGraph<N> copyOf(Graph<N> graph, Comparator<? super N> comparator) {
+    Builder<N> builder = builder(comparator);
+    graph.nodes().forEach(builder::addNode);
+    graph.edges().forEach(edge -> builder.putEdge(edge.source(), edge.target()));
+    return builder.build();
+  }
+
+  private final @Nonnull Comparator<? super N> _comparator;
+  private final @Nonnull N[] _nodes;
+  private final @Nonnull int[] _outOffsets;
+  private final @Nonnull int[] _outTargets;
+  private final @Nonnull int[] _inOffsets;
+  private final @Nonnull int[] _inSources;
+  private final int _hashCode;
+
+  private CsrGraph(
+      Comparator<? super N> comparator, N[] nodes, int[] outOffsets, int[] outTargets) {
+    _comparator = comparator;
+    _nodes = nodes;
+    _outOffsets = outOffsets;
+    _outTargets = outTargets;
+    int[] sources = new int[outTargets.length];
+    for (int u = 0; u < nodes.length; u++) {
+      Arrays.fill(sources, outOffsets[u], outOffsets[u + 1], u);
+    }
+    _inOffsets = new int[nodes.length + 1];
+    _inSources = group(nodes.length, outTargets, sources, _inOffsets);
+    _hashCode =
+        31 * (31 * Arrays.hashCode(_nodes) + Arrays.hashCode(_outOffsets))
+            + Arrays.hashCode(_outTargets);
+  }
+
+  /**
+   * Groups {@code values} by {@code keys} with a counting sort, filling {@code offsets} with the
+   * start of each key's range. Values within a range are sorted.
+   */
+  private static int[] group(int numKeys, int[] keys, int[] values, int[] offsets) {
+    for (int key : keys) {
+      offsets[key + 1]++;
+    }
+    for (int k = 0; k < numKeys; k++) {
+      offsets[k + 1] += offsets[k];
+    }
+    int[] next = Arrays.copyOf(offsets, numKeys);
+    int[] grouped = new int[values.length];
+    for (int i = 0; i < keys.length; i++) {
+      grouped[next[keys[i]]++] = values[i];
+    }
+    for (int k = 0; k < numKeys; k++) {
+      Arrays.sort(grouped, offsets[k], offsets[k + 1]);
+    }
+    return grouped;
+  }
+
+  public int numNodes() {
+    return _nodes.length;
+  }
+
+  public int numEdges() {
+    return _outTargets.length;
+  }
+
+  /** Returns the ID of the given node, or {@code -1} if it is not in the graph. */
+  public int id(N node) {
+    int id = Arrays.binarySearch(_nodes, node, _comparator);
+    return id >= 0 ? id : -1;
+  }
+
+  /** Returns the node with the given ID. */
+  public @Nonnull N node(int id) {
+    return _nodes[id];
+  }
+
+  /** Returns the nodes of this graph, in ID order. */
+  public @Nonnull Set<N> nodes() {
+    return new NodeSet();
+  }
+
+  public int outDegree(int id) {
+    return _outOffsets[id + 1] - _outOffsets[id];
+  }
+
+  public int inDegree(int id) {
+    return _inOffsets[id + 1] - _inOffsets[id];
+  }
+
+  /** Calls {@code action} on the ID of each successor of node {@code id}, in ID order. */
+  public void forEachSuccessor(int id, IntConsumer action) {
+    for (int i = _outOffsets[id]; i < _outOffsets[id + 1]; i++) {
+      action.accept(_outTargets[i]);
+    }
+  }
+
+  /** Calls {@code action} on the ID of each predecessor of node {@code id}, in ID order. */
+  public void forEachPredecessor(int id, IntConsumer action) {
+    for (int i = _inOffsets[id]; i < _inOffsets[id + 1]; i++) {
+      action.accept(_inSources[i]);
+    }
+  }
+
+  /** Returns a view of the successors of the given node, or an empty list if it is absent. */
+  public @Nonnull List<N> successors(N node) {
+    int id = id(node);
+    return id < 0
+        ? ImmutableList.of()
+        : new Range(_outTargets, _outOffsets[id], _outOffsets[id + 1]);
+  }
+
+  /** Returns a view of the predecessors of the given node, or an empty list if it is absent. */
+  public @Nonnull List<N> predecessors(N node) {
+    int id = id(node);
+    return id < 0 ? ImmutableList.of() : new Range(_inSources, _inOffsets[id], _inOffsets[id + 1]);
+  }
+
+  /**
+   * Returns the nodes that are successors or predecessors of the given node, in ID order, or an
+   * empty set if it is absent.
+   */
+  public @Nonnull Set<N> adjacentNodes(N node) {
+    int id = id(node);
+    if (id < 0) {
+      return ImmutableSet.of();
+    }
+    ImmutableSet.Builder<N> ret = ImmutableSet.builder();
+    int i = _outOffsets[id];
+    int j = _inOffsets[id];
+    while (i < _outOffsets[id + 1] || j < _inOffsets[id + 1]) {
+      int next;
+      if (j == _inOffsets[id + 1]
+          || i < _outOffsets[id + 1] && _outTargets[i] <= _inSources[j]) {
+        next = _outTargets[i++];
+      } else {
+        next = _inSources[j++];
+      }
+      ret.add(_nodes[next]);
+    }
+    return ret.build();
+  }
+
+  public boolean hasEdge(N source, N target) {
+    int u = id(source);
+    int v = id(target);
+    return u >= 0 && v >= 0 && hasEdge(u, v);
+  }
+
+  private boolean hasEdge(int u, int v) {
+    return Arrays.binarySearch(_outTargets, _outOffsets[u], _outOffsets[u + 1], v) >= 0;
+  }
+
+  /** Returns the edges of this graph, ordered by source ID and then target ID. */
+  public @Nonnull Stream<EndpointPair<N>> edgeStream() {
+    return IntStream.range(0, _nodes.length)
+        .boxed()
+        .flatMap(
+            u ->
+                Arrays.stream(_outTargets, _outOffsets[u], _outOffsets[u + 1])
+                    .mapToObj(v -> EndpointPair.ordered(_nodes[u], _nodes[v])));
+  }
+
+  /**
+   * Returns the edges of this graph that are not edges of {@code other}, ordered by source ID and
+   * then target ID. Edges are matched by their endpoints, so the two graphs need not share IDs.
+   */
+  public @Nonnull List<EndpointPair<N>> edgesNotIn(CsrGraph<N> other) {
+    ImmutableList.Builder<EndpointPair<N>> ret = ImmutableList.builder();
+    for (int u = 0; u < _nodes.length; u++) {
+      int otherU = other.id(_nodes[u]);
+      for (int i = _outOffsets[u]; i < _outOffsets[u + 1]; i++) {
+        N target = _nodes[_outTargets[i]];
+        int otherV = otherU < 0 ? -1 : other.id(target);
+        if (otherV < 0 || !other.hasEdge(otherU, otherV)) {
+          ret.add(EndpointPair.ordered(_nodes[u], target));
+        }
+      }
+    }
+    return ret.build();
+  }
+
+  @Override
+  public boolean equals(@Nullable Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof CsrGraph)) {
+      return false;
+    }
+    CsrGraph<?> other = (CsrGraph<?>) obj;
+    return _hashCode == other._hashCode
+        && Arrays.equals(_outOffsets, other._outOffsets)
+        && Arrays.equals(_outTargets, other._outTargets)
+        && Arrays.equals(_nodes, other._nodes);
+  }
+
+  @Override
+  public int hashCode() {
+    return _hashCode;
+  }
+
+  /** A view of a range of node IDs as a list of nodes. */
+  private final class Range extends AbstractList<N> {
+    private final @Nonnull int[] _ids;
+    private final int _start;
+    private final int _end;
+
+    private Range(int[] ids, int start, int end) {
+      _ids = ids;
+      _start = start;
+      _end = end;
+    }
+
+    @Override
+    public N get(int index) {
+      checkElementIndex(index, size());
+      return _nodes[_ids[_start + index]];
+    }
+
+    @Override
+    public int size() {
+      return _end - _start;
+    }
+  }
+
+  private final class NodeSet extends AbstractSet<N> {
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean contains(@Nullable Object o) {
+      if (o == null) {
+        return false;
+      }
+      try {
+        return id((N) o) >= 0;
+      } catch (ClassCastException e) {
+        return false;
+      }
+    }
+
+    @Override
+    public @Nonnull Iterator<N> iterator() {
+      return Arrays.asList(_nodes).iterator();
+    }
+
+    @Override
+    public int size() {
+      return _nodes.length;
+    }
+  }
+}
@@ -5,12 +5,10 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedSet;
 import com.google.common.collect.Ordering;
-import com.google.common.graph.GraphBuilder;
-import com.google.common.graph.ImmutableGraph;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.stream.Stream;
@@ -31,7 +29,7 @@ public final class Layer1Topology {
     return new Layer1Topology(edges != null ? edges : ImmutableSortedSet.of());
   }
 
-  private final ImmutableGraph<Layer1Node> _graph;
+  private final CsrGraph<Layer1Node> _graph;
 
   @VisibleForTesting
   public Layer1Topology(@Nonnull Layer1Edge... edges) {
@@ -43,8 +41,7 @@ public final class Layer1Topology {
   }
 
   public Layer1Topology(@Nonnull Stream<Layer1Edge> edges) {
-    ImmutableGraph.Builder<Layer1Node> graph =
-        GraphBuilder.directed().allowsSelfLoops(false).immutable();
+    CsrGraph.Builder<Layer1Node> graph = CsrGraph.builder(Comparator.naturalOrder());
     edges.forEach(
         edge -> {
           if (edge.getNode1().equals(edge.getNode2())) {
@@ -58,14 +55,11 @@ public final class Layer1Topology {
 
   @JsonIgnore
   public @Nonnull Stream<Layer1Edge> edgeStream() {
-    return _graph.edges().stream().map(ep -> new Layer1Edge(ep.nodeU(), ep.nodeV()));
+    return _graph.edgeStream().map(ep -> new Layer1Edge(ep.source(), ep.target()));
   }
 
   @JsonIgnore
   public @Nonnull Set<Layer1Node> adjacentNodes(Layer1Node node) {
-    if (!_graph.nodes().contains(node)) {
-      return ImmutableSet.of();
-    }
     return _graph.adjacentNodes(node);
   }
 
@@ -77,7 +71,7 @@ public final class Layer1Topology {
   /** Returns true if this {@link Layer1Topology} has no edges (it may have nodes). */
   @JsonIgnore
   public boolean isEmpty() {
-    return _graph.edges().isEmpty();
+    return _graph.numEdges() == 0;
   }
 
   @JsonProperty(PROP_EDGES)
@@ -0,0 +1,243 @@
+package org.batfish.common.topology.broadcast;
+
+import com.google.common.collect.ImmutableMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.batfish.datamodel.collections.NodeInterfacePair;
+
+/**
+ * Computes broadcast domains by compiling the broadcast {@link Node} graph into integer states and
+ * merging adjacent states with a {@link ConcurrentUnionFind}.
+ *
+ * <p>The states are every {@link L3Interface}, every {@link DeviceBroadcastDomain} in every
+ * candidate VLAN, every {@link EthernetHub} with every candidate {@link EthernetTag}, and every
+ * {@link L2VNIHub}. The edges out of each state are found by running the node's own broadcast logic
+ * with a {@link BroadcastVisitor} that stops at the first stateful node reached, so the compiled
+ * graph has exactly the semantics of {@link L3Interface#originate(Set, BroadcastVisitor)}. States
+ * are expanded in parallel.
+ *
+ * <p>The candidate VLANs must include every VLAN in which a frame can exist: the VLANs of IRB
+ * interfaces, access ports, trunk native VLANs, L2 VNIs, and dot1q encapsulation. A frame can only
+ * enter any other VLAN if it is already in that VLAN, so no L3 interface can reach one.
+ *
+ * <p>This relies on broadcast adjacency being symmetric, which holds for all edges created by
+ * {@link Edges}.
+ */
+final class BroadcastDomainCompiler {
+  private static final Logger LOGGER = LogManager.getLogger(BroadcastDomainCompiler.class);
+
+  /** Maximum number of states to compile, to bound memory use. */
+  private static final int MAX_STATES = 1 << 24;
+
+  /**
+   * Returns the broadcast domain of each L3 interface, as in {@link
+   * L3AdjacencyComputer#findAllBroadcastDomainsByFlooding()}, or {@link Optional#empty()} if the
+   * graph is too large to compile or reaches a VLAN that is not a candidate.
+   */
+  static @Nonnull Optional<Map<NodeInterfacePair, Integer>> compute(
+      Collection<L3Interface> l3Interfaces,
+      Collection<DeviceBroadcastDomain> domains,
+      Collection<EthernetHub> hubs,
+      Collection<L2VNIHub> l2vniHubs,
+      int[] candidateVlans) {
+    long numDomains = domains.stream().filter(domain -> !domain.isIsolated()).count();
+    long numStates =
+        l3Interfaces.size()
+            + numDomains * candidateVlans.length
+            + (long) hubs.size() * (candidateVlans.length + 1)
+            + l2vniHubs.size();
+    if (numStates > MAX_STATES) {
+      LOGGER.info("Not compiling {} broadcast states: too many", numStates);
+      return Optional.empty();
+    }
+    BroadcastDomainCompiler compiler =
+        new BroadcastDomainCompiler(l3Interfaces, domains, hubs, l2vniHubs, candidateVlans);
+    return compiler.compute();
+  }
+
+  private BroadcastDomainCompiler(
+      Collection<L3Interface> l3Interfaces,
+      Collection<DeviceBroadcastDomain> domains,
+      Collection<EthernetHub> hubs,
+      Collection<L2VNIHub> l2vniHubs,
+      int[] candidateVlans) {
+    _l3Interfaces = l3Interfaces.toArray(new L3Interface[0]);
+    // Isolated domains, e.g. of devices without L2 interfaces, cannot join any states.
+    _domains =
+        domains.stream()
+            .filter(domain -> !domain.isIsolated())
+            .toArray(DeviceBroadcastDomain[]::new);
+    _hubs = hubs.toArray(new EthernetHub[0]);
+    _l2vniHubs = l2vniHubs.toArray(new L2VNIHub[0]);
+    _l3InterfaceIndex = indexOf(_l3Interfaces);
+    _domainIndex = indexOf(_domains);
+    _hubIndex = indexOf(_hubs);
+    _l2vniHubIndex = indexOf(_l2vniHubs);
+
+    _vlans = candidateVlans.clone();
+    _vlanPosition = new int[MAX_VLAN + 1];
+    Arrays.fill(_vlanPosition, -1);
+    _tags = new EthernetTag[_vlans.length + 1];
+    for (int i = 0; i < _vlans.length; i++) {
+      _vlanPosition[_vlans[i]] = i;
+      _tags[i] = EthernetTag.tagged(_vlans[i]);
+    }
+    _tags[_vlans.length] = EthernetTag.untagged();
+
+    _firstDomainState = _l3Interfaces.length;
+    _firstHubState = _firstDomainState + _domains.length * _vlans.length;
+    _firstL2vniHubState = _firstHubState + _hubs.length * _tags.length;
+    _numStates = _firstL2vniHubState + _l2vniHubs.length;
+    _unionFind = new ConcurrentUnionFind(_numStates);
+    _failed = new AtomicBoolean();
+  }
+
+  private @Nonnull Optional<Map<NodeInterfacePair, Integer>> compute() {
+    ThreadLocal<Probe> probes = ThreadLocal.withInitial(Probe::new);
+    IntStream.range(0, _numStates).parallel().forEach(state -> expand(state, probes.get()));
+    if (_failed.get()) {
+      return Optional.empty();
+    }
+    ImmutableMap.Builder<NodeInterfacePair, Integer> ret =
+        ImmutableMap.builderWithExpectedSize(_l3Interfaces.length);
+    for (int i = 0; i < _l3Interfaces.length; i++) {
+      ret.put(_l3Interfaces[i].getIface(), _unionFind.find(i));
+    }
+    return Optional.of(ret.build());
+  }
+
+  /** Merges {@code state} with every state one broadcast hop away from it. */
+  private void expand(int state, Probe probe) {
+    probe.reset(null);
+    if (state < _firstDomainState) {
+      _l3Interfaces[state].originate(probe._reachedInterfaces, probe);
+    } else if (state < _firstHubState) {
+      int offset = state - _firstDomainState;
+      DeviceBroadcastDomain domain = _domains[offset / _vlans.length];
+      int vlan = _vlans[offset % _vlans.length];
+      probe.reset(new NodeAndData<>(domain, vlan));
+      domain.broadcast(vlan, probe._reachedInterfaces, probe);
+    } else if (state < _firstL2vniHubState) {
+      int offset = state - _firstHubState;
+      EthernetHub hub = _hubs[offset / _tags.length];
+      EthernetTag tag = _tags[offset % _tags.length];
+      probe.reset(new NodeAndData<>(hub, tag));
+      hub.broadcast(tag, probe._reachedInterfaces, probe);
+    } else {
+      L2VNIHub hub = _l2vniHubs[state - _firstL2vniHubState];
+      probe.reset(new NodeAndData<>(hub, L2VNI.Unit.VALUE));
+      hub.broadcast(L2VNI.Unit.VALUE, probe._reachedInterfaces, probe);
+    }
+    for (L3Interface iface : probe._reachedInterfaces) {
+      Integer other = _l3InterfaceIndex.get(iface);
+      if (other == null) {
+        LOGGER.warn(
+            "Cannot compile broadcast domains: unexpected L3 interface {}", iface.getIface());
+        _failed.set(true);
+        return;
+      }
+      _unionFind.union(state, other);
+    }
+    for (NodeAndData<?, ?> reached : probe._reachedStates) {
+      int other = stateOf(reached);
+      if (other < 0) {
+        LOGGER.warn("Cannot compile broadcast domains: unexpected state {}", reached);
+        _failed.set(true);
+        return;
+      }
+      _unionFind.union(state, other);
+    }
+  }
+
+  private int stateOf(NodeAndData<?, ?> nodeAndData) {
+    Node<?> node = nodeAndData.getNode();
+    Object data = nodeAndData.getData();
+    if (node instanceof DeviceBroadcastDomain) {
+      int vlan = (Integer) data;
+      int vlanPosition = vlan >= 0 && vlan <= MAX_VLAN ? _vlanPosition[vlan] : -1;
+      Integer domain = _domainIndex.get(node);
+      if (vlanPosition < 0 || domain == null) {
+        return -1;
+      }
+      return _firstDomainState + domain * _vlans.length + vlanPosition;
+    } else if (node instanceof EthernetHub) {
+      EthernetTag tag = (EthernetTag) data;
+      int tagPosition = tag.hasTag() ? _vlanPosition[tag.getTag()] : _vlans.length;
+      Integer hub = _hubIndex.get(node);
+      if (tagPosition < 0 || hub == null) {
+        return -1;
+      }
+      return _firstHubState + hub * _tags.length + tagPosition;
+    } else if (node instanceof L2VNIHub) {
+      Integer hub = _l2vniHubIndex.get(node);
+      return hub == null ? -1 : _firstL2vniHubState + hub;
+    }
+    return -1;
+  }
+
+  private static <T> Map<T, Integer> indexOf(T[] elements) {
+    ImmutableMap.Builder<T, Integer> ret = ImmutableMap.builderWithExpectedSize(elements.length);
+    for (int i = 0; i < elements.length; i++) {
+      ret.put(elements[i], i);
+    }
+    return ret.build();
+  }
+
+  /**
+   * A visitor that lets the broadcast of its source state proceed, but records and stops at every
+   * other stateful node reached.
+   */
+  private static final class Probe implements BroadcastVisitor {
+    private @Nullable NodeAndData<?, ?> _source;
+    private final List<NodeAndData<?, ?>> _reachedStates = new ArrayList<>();
+    private final Set<L3Interface> _reachedInterfaces = new HashSet<>();
+
+    void reset(@Nullable NodeAndData<?, ?> source) {
+      _source = source;
+      _reachedStates.clear();
+      _reachedInterfaces.clear();
+    }
+
+    @Override
+    public boolean visit(NodeAndData<?, ?> state) {
+      if (_source != null && _source.equals(state)) {
+        _source = null;
+        return true;
+      }
+      _reachedStates.add(state);
+      return false;
+    }
+  }
+
+  private static final int MAX_VLAN = 4095;
+
+  private final @Nonnull L3Interface[] _l3Interfaces;
+  private final @Nonnull DeviceBroadcastDomain[] _domains;
+  private final @Nonnull EthernetHub[] _hubs;
+  private final @Nonnull L2VNIHub[] _l2vniHubs;
+  private final @Nonnull Map<L3Interface, Integer> _l3InterfaceIndex;
+  private final @Nonnull Map<DeviceBroadcastDomain, Integer> _domainIndex;
+  private final @Nonnull Map<EthernetHub, Integer> _hubIndex;
+  private final @Nonnull Map<L2VNIHub, Integer> _l2vniHubIndex;
+  private final @Nonnull int[] _vlans;
+  private final @Nonnull int[] _vlanPosition;
+  private final @Nonnull EthernetTag[] _tags;
+  private final int _firstDomainState;
+  private final int _firstHubState;
+  private final int _firstL2vniHubState;
+  private final int _numStates;
+  private final @Nonnull ConcurrentUnionFind _unionFind;
+  private final @Nonnull AtomicBoolean _failed;
+}
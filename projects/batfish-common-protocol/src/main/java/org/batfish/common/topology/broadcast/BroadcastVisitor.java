@@ -0,0 +1,15 @@
+package org.batfish.common.topology.broadcast;
+
+/**
+ * Called when a broadcast reaches a stateful {@link NodeAndData}, to decide whether the broadcast
+ * continues from there.
+ */
+@FunctionalInterface
+public interface BroadcastVisitor {
+
+  /**
+   * Returns {@code true} if the broadcast should continue from {@code state}, e.g. because it has
+   * not been visited yet.
+   */
+  boolean visit(NodeAndData<?, ?> state);
+}
@@ -0,0 +1,62 @@
+package org.batfish.common.topology.broadcast;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * A lock-free union-find over the integers {@code [0, size)}, safe for concurrent {@link
+ * #union(int, int)} and {@link #find(int)} calls.
+ *
+ * <p>Roots are always linked under the smaller root, so the parent links never form a cycle
+ * regardless of how concurrent unions interleave. {@link #find(int)} compresses paths by halving.
+ */
+final class ConcurrentUnionFind {
+
+  ConcurrentUnionFind(int size) {
+    checkArgument(size >= 0, "Size must be non-negative: %s", size);
+    _parent = new AtomicIntegerArray(size);
+    for (int i = 0; i < size; i++) {
+      _parent.lazySet(i, i);
+    }
+  }
+
+  /** Returns the representative of the set containing {@code x}. */
+  int find(int x) {
+    while (true) {
+      int parent = _parent.get(x);
+      if (parent == x) {
+        return x;
+      }
+      int grandparent = _parent.get(parent);
+      if (parent != grandparent) {
+        // Path halving: it does not matter if this fails, some other thread made progress.
+        _parent.compareAndSet(x, parent, grandparent);
+      }
+      x = grandparent;
+    }
+  }
+
+  /** Merges the sets containing {@code x} and {@code y}. */
+  void union(int x, int y) {
+    while (true) {
+      int rootX = find(x);
+      int rootY = find(y);
+      if (rootX == rootY) {
+        return;
+      }
+      int child = Math.max(rootX, rootY);
+      int root = Math.min(rootX, rootY);
+      if (_parent.compareAndSet(child, child, root)) {
+        return;
+      }
+      // child is no longer a root: another thread linked it concurrently. Retry.
+    }
+  }
+
+  int size() {
+    return _parent.length();
+  }
+
+  private final AtomicIntegerArray _parent;
+}
@@ -44,19 +44,24 @@ public final class DeviceBroadcastDomain extends Node<Integer> {
     return _hostname;
   }
 
+  /** Returns whether this domain has no edges, e.g. because the device has no L2 interfaces. */
+  boolean isIsolated() {
+    return _l2VNIs.isEmpty() && _l3Interfaces.isEmpty() && _physicalInterfaces.isEmpty();
+  }
+
   // Internal implementation details.
-  public void broadcast(int vlan, Set<L3Interface> domain, Set<NodeAndData<?, ?>> visited) {
-    if (!visited.add(new NodeAndData<>(this, vlan))) {
+  public void broadcast(int vlan, Set<L3Interface> domain, BroadcastVisitor visitor) {
+    if (!visitor.visit(new NodeAndData<>(this, vlan))) {
       return;
     }
 
     _physicalInterfaces.forEach(
         (iface, edge) ->
-            edge.traverse(vlan).ifPresent(tag -> iface.transmit(tag, domain, visited)));
+            edge.traverse(vlan).ifPresent(tag -> iface.transmit(tag, domain, visitor)));
     _l2VNIs.forEach(
-        (vni, edge) -> edge.traverse(vlan).ifPresent(unit -> vni.exit(unit, domain, visited)));
+        (vni, edge) -> edge.traverse(vlan).ifPresent(unit -> vni.exit(unit, domain, visitor)));
     _l3Interfaces.forEach(
-        (iface, edge) -> edge.traverse(vlan).ifPresent(v -> iface.reached(domain, visited)));
+        (iface, edge) -> edge.traverse(vlan).ifPresent(v -> iface.reached(domain, visitor)));
   }
 
   @Override
@@ -27,14 +27,14 @@ public final class EthernetHub extends Node<EthernetTag> {
     assert oldEdge == null;
   }
 
-  public void broadcast(EthernetTag tag, Set<L3Interface> domain, Set<NodeAndData<?, ?>> visited) {
-    if (!visited.add(new NodeAndData<>(this, tag))) {
+  public void broadcast(EthernetTag tag, Set<L3Interface> domain, BroadcastVisitor visitor) {
+    if (!visitor.visit(new NodeAndData<>(this, tag))) {
       return;
     }
 
     _attachedInterfaces.forEach(
         (iface, edge) ->
-            edge.traverse(tag).ifPresent(newTag -> iface.receive(newTag, domain, visited)));
+            edge.traverse(tag).ifPresent(newTag -> iface.receive(newTag, domain, visitor)));
   }
 
   // Internal implementation details.
@@ -49,19 +49,19 @@ public final class L2VNI extends Node<L2VNI.Unit> {
     _attachedHubEdge = edge;
   }
 
-  public void enter(Unit unit, Set<L3Interface> domain, Set<NodeAndData<?, ?>> visited) {
+  public void enter(Unit unit, Set<L3Interface> domain, BroadcastVisitor visitor) {
     if (_connectedVlan != null) {
       assert _connectedVlanEdge != null; // contract
       _connectedVlanEdge
           .traverse(unit)
-          .ifPresent(vlan -> _connectedVlan.broadcast(vlan, domain, visited));
+          .ifPresent(vlan -> _connectedVlan.broadcast(vlan, domain, visitor));
     }
   }
 
-  public void exit(Unit unit, Set<L3Interface> domain, Set<NodeAndData<?, ?>> visited) {
+  public void exit(Unit unit, Set<L3Interface> domain, BroadcastVisitor visitor) {
     if (_attachedHub != null) {
       assert _attachedHubEdge != null; // contract
-      _attachedHubEdge.traverse(unit).ifPresent(u -> _attachedHub.broadcast(u, domain, visited));
+      _attachedHubEdge.traverse(unit).ifPresent(u -> _attachedHub.broadcast(u, domain, visitor));
     }
   }
 
@@ -26,13 +26,13 @@ public final class L2VNIHub extends Node<L2VNI.Unit> {
     checkArgument(previous == null, "Cannot connect the same L2VNI %s twice", vni.getNode());
   }
 
-  public void broadcast(L2VNI.Unit unit, Set<L3Interface> domain, Set<NodeAndData<?, ?>> visited) {
-    if (!visited.add(new NodeAndData<>(this, L2VNI.Unit.VALUE))) {
+  public void broadcast(L2VNI.Unit unit, Set<L3Interface> domain, BroadcastVisitor visitor) {
+    if (!visitor.visit(new NodeAndData<>(this, L2VNI.Unit.VALUE))) {
       return;
     }
 
     _attachedVNIs.forEach(
-        (vni, edge) -> edge.traverse(unit).ifPresent(u -> vni.enter(u, domain, visited)));
+        (vni, edge) -> edge.traverse(unit).ifPresent(u -> vni.enter(u, domain, visitor)));
   }
 
   // Internal details
@@ -14,6 +14,7 @@ import com.google.common.graph.EndpointPair;
 import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.TreeSet;
@@ -44,16 +45,11 @@ public class L3AdjacencyComputer {
   private final @Nonnull Layer1Topologies _layer1Topologies;
   private final @Nonnull Map<NodeInterfacePair, PhysicalInterface> _physicalInterfaces;
   private final @Nonnull Map<NodeInterfacePair, L3Interface> _layer3Interfaces;
-
-  @SuppressWarnings("unused")
   private final @Nonnull Map<String, EthernetHub> _ethernetHubs;
-
   private final @Nonnull Map<VxlanNode, L2VNI> _l2vnis;
-
-  @SuppressWarnings("unused")
   private final @Nonnull Map<String, L2VNIHub> _l2vniHubs;
-
   private final @Nonnull Map<String, DeviceBroadcastDomain> _deviceBroadcastDomains;
+  private final @Nonnull int[] _candidateVlans;
 
   private static final EnumSet<InterfaceType> PHYSICAL_INTERFACE_TYPES =
       EnumSet.of(InterfaceType.PHYSICAL, InterfaceType.AGGREGATED);
@@ -72,6 +68,29 @@ public class L3AdjacencyComputer {
     _l2vniHubs = computeL2VNIHubs(_l2vnis, vxlanTopology);
     _layer3Interfaces =
         computeLayer3Interfaces(configs, _deviceBroadcastDomains, _physicalInterfaces);
+    _candidateVlans = computeCandidateVlans(configs);
+  }
+
+  /**
+   * Returns every VLAN in which an L3 interface can originate or receive a frame, sorted: VLANs of
+   * IRB interfaces, access ports, trunk native VLANs, L2 VNIs, and dot1q encapsulation.
+   */
+  @VisibleForTesting
+  static int[] computeCandidateVlans(Map<String, Configuration> configs) {
+    Set<Integer> vlans = new TreeSet<>();
+    for (Configuration c : configs.values()) {
+      for (Interface i : c.getAllInterfaces().values()) {
+        Stream.of(i.getVlan(), i.getAccessVlan(), i.getNativeVlan(), i.getEncapsulationVlan())
+            .filter(Objects::nonNull)
+            .forEach(vlans::add);
+      }
+      for (Vrf vrf : c.getVrfs().values()) {
+        for (Layer2Vni vniSettings : vrf.getLayer2Vnis().values()) {
+          vlans.add(vniSettings.getVlan());
+        }
+      }
+    }
+    return vlans.stream().mapToInt(Integer::intValue).filter(v -> v >= 0 && v <= 4095).toArray();
   }
 
   private static Map<String, DeviceBroadcastDomain> computeDeviceBroadcastDomains(
@@ -511,7 +530,33 @@ public class L3AdjacencyComputer {
     return ret.build();
   }
 
+  /**
+   * Returns a map from each L3 interface to an identifier of its broadcast domain. Two interfaces
+   * are in the same broadcast domain if and only if they have the same identifier.
+   *
+   * <p>Domains are computed by {@link BroadcastDomainCompiler} when the network is small enough to
+   * compile, and by {@link #findAllBroadcastDomainsByFlooding()} otherwise.
+   */
   public Map<NodeInterfacePair, Integer> findAllBroadcastDomains() {
+    Optional<Map<NodeInterfacePair, Integer>> compiled =
+        BroadcastDomainCompiler.compute(
+            _layer3Interfaces.values(),
+            _deviceBroadcastDomains.values(),
+            _ethernetHubs.values(),
+            _l2vniHubs.values(),
+            _candidateVlans);
+    if (compiled.isPresent()) {
+      return compiled.get();
+    }
+    LOGGER.info("Falling back to flooding to compute broadcast domains");
+    return findAllBroadcastDomainsByFlooding();
+  }
+
+  /**
+   * Like {@link #findAllBroadcastDomains()}, but floods from one L3 interface at a time. Kept as
+   * the reference implementation.
+   */
+  public Map<NodeInterfacePair, Integer> findAllBroadcastDomainsByFlooding() {
     ImmutableMap.Builder<NodeInterfacePair, Integer> ret = ImmutableMap.builder();
     TreeSet<NodeInterfacePair> unchecked = new TreeSet<>(_layer3Interfaces.keySet());
     while (!unchecked.isEmpty()) {
@@ -527,7 +572,7 @@ public class L3AdjacencyComputer {
     L3Interface originator = _layer3Interfaces.get(first);
     Set<L3Interface> domain = new HashSet<>();
     Set<NodeAndData<?, ?>> visited = new HashSet<>();
-    originator.originate(domain, visited);
+    originator.originate(domain, visited::add);
     return domain.stream().map(L3Interface::getIface).collect(ImmutableSet.toImmutableSet());
   }
 
@@ -32,8 +32,8 @@ public final class L3Interface extends Node<L3Interface.Unit> {
     return _iface;
   }
 
-  public void originate(Set<L3Interface> domain, Set<NodeAndData<?, ?>> visited) {
-    // No need to check or add this to visited, we'll never come back here.
+  public void originate(Set<L3Interface> domain, BroadcastVisitor visitor) {
+    // No need to visit this, we'll never come back here.
 
     domain.add(this);
 
@@ -42,17 +42,17 @@ public final class L3Interface extends Node<L3Interface.Unit> {
       assert _sendToInterfaceEdge != null; // contract
       _sendToInterfaceEdge
           .traverse(Unit.VALUE)
-          .ifPresent(tag -> _sendToInterface.transmit(tag, domain, visited));
+          .ifPresent(tag -> _sendToInterface.transmit(tag, domain, visitor));
     }
     if (_sendToSwitch != null) {
       assert _sendToSwitchEdge != null; // contract
       _sendToSwitchEdge
           .traverse(Unit.VALUE)
-          .ifPresent(vlan -> _sendToSwitch.broadcast(vlan, domain, visited));
+          .ifPresent(vlan -> _sendToSwitch.broadcast(vlan, domain, visitor));
     }
   }
 
-  public void reached(Set<L3Interface> domain, Set<NodeAndData<?, ?>> visited) {
+  public void reached(Set<L3Interface> domain, BroadcastVisitor visitor) {
     domain.add(this);
   }
 
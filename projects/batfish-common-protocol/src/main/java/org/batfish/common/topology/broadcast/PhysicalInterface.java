@@ -70,23 +70,23 @@ public final class PhysicalInterface extends Node<EthernetTag> {
     _transmitToHub = edge;
   }
 
-  public void transmit(EthernetTag tag, Set<L3Interface> domain, Set<NodeAndData<?, ?>> visited) {
+  public void transmit(EthernetTag tag, Set<L3Interface> domain, BroadcastVisitor visitor) {
     if (_attachedHub != null) {
       assert _transmitToHub != null;
       _transmitToHub
           .traverse(tag)
-          .ifPresent(wireTag -> _attachedHub.broadcast(wireTag, domain, visited));
+          .ifPresent(wireTag -> _attachedHub.broadcast(wireTag, domain, visitor));
     }
   }
 
-  public void receive(EthernetTag tag, Set<L3Interface> domain, Set<NodeAndData<?, ?>> visited) {
+  public void receive(EthernetTag tag, Set<L3Interface> domain, BroadcastVisitor visitor) {
     assert _l3Interfaces.isEmpty() || _switch == null; // mutually exclusive.
     if (!_l3Interfaces.isEmpty()) {
       _l3Interfaces.forEach(
-          (iface, edge) -> edge.traverse(tag).ifPresent(unit -> iface.reached(domain, visited)));
+          (iface, edge) -> edge.traverse(tag).ifPresent(unit -> iface.reached(domain, visitor)));
     } else if (_switch != null) {
       assert _deliverToSwitch != null; // contract
-      _deliverToSwitch.traverse(tag).ifPresent(vlan -> _switch.broadcast(vlan, domain, visited));
+      _deliverToSwitch.traverse(tag).ifPresent(vlan -> _switch.broadcast(vlan, domain, visitor));
     }
   }
 
@@ -0,0 +1,58 @@
+package org.batfish.common.util;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+/**
+ * Interns the names of nodes, VRFs, interfaces, and other structures.
+ *
+ * <p>The same names are repeated in configurations, topology edges, data plane objects, and traces,
+ * and each deserialized or lower-cased copy is otherwise a separate string. Names are held weakly,
+ * so the names of snapshots that are no longer loaded can still be garbage collected.
+ */
+@ParametersAreNonnullByDefault
+public final class NameInterner {
+
+  /** Strings longer than this are unlikely to be names, and are not interned when deserialized. */
+  @VisibleForTesting static final int MAX_NAME_LENGTH = 256;
+
+  private static final Interner<String> INTERNER = Interners.newWeakInterner();
+
+  /** Returns the canonical instance of the given name. */
+  public static @Nonnull String intern(String name) {
+    return INTERNER.intern(name);
+  }
+
+  /**
+   * Returns an {@link ObjectInputStream} reading from {@code in} that interns every deserialized
+   * string of at most {@link #MAX_NAME_LENGTH} characters.
+   */
+  public static @Nonnull ObjectInputStream newInterningObjectInputStream(InputStream in)
+      throws IOException {
+    return new InterningObjectInputStream(in);
+  }
+
+  private static final class InterningObjectInputStream extends ObjectInputStream {
+    private InterningObjectInputStream(InputStream in) throws IOException {
+      super(in);
+      enableResolveObject(true);
+    }
+
+    @Override
+    protected @Nullable Object resolveObject(@Nullable Object obj) {
+      if (obj instanceof String && ((String) obj).length() <= MAX_NAME_LENGTH) {
+        return INTERNER.intern((String) obj);
+      }
+      return obj;
+    }
+  }
+
+  private NameInterner() {}
+}
@@ -0,0 +1,699 @@
+package org.batfish.common.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import dk.brics.automaton.Automaton;
+import dk.brics.automaton.RunAutomaton;
+import dk.brics.automaton.State;
+import dk.brics.automaton.Transition;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+/**
+ * Finds the first of a list of Java regexes that {@link Matcher#find() finds} a match in a string,
+ * using a single deterministic finite automaton (DFA) for the whole list.
+ *
+ * <p>Each regex is translated into a DFA recognizing the strings it finds a match in, where {@code
+ * ^} and {@code $} consume runs of sentinel characters assumed to surround the input. The DFAs of
+ * all regexes are combined into one product DFA, each state of which records the first regex that
+ * matches an input ending there. A string is thus matched against every regex of the list in one
+ * pass, without backtracking.
+ *
+ * <p>Regexes that use constructs without a DFA translation (e.g. backreferences, lookaround, or
+ * flags), lists whose product DFA would be too large, and inputs that are empty or not single-line
+ * ASCII are matched by {@link Pattern} instead, so results are always those of {@link
+ * Matcher#find()}.
+ */
+@ParametersAreNonnullByDefault
+public final class RegexListMatcher {
+
+  /**
+   * Returns a matcher for {@code regexes}, shared with all other users of the same list.
+   *
+   * @throws java.util.regex.PatternSyntaxException if any regex is invalid
+   */
+  public static @Nonnull RegexListMatcher of(List<String> regexes) {
+    try {
+      return CACHE.getUnchecked(ImmutableList.copyOf(regexes));
+    } catch (UncheckedExecutionException e) {
+      Throwables.throwIfUnchecked(e.getCause());
+      throw e;
+    }
+  }
+
+  /**
+   * Returns the index of the first regex that finds a match in {@code input}, or {@code -1} if no
+   * regex does.
+   */
+  public int firstMatch(String input) {
+    if (_transitions == null || !isDfaInput(input)) {
+      return firstMatchByPatterns(input);
+    }
+    int state = 0;
+    for (int i = 0; i < input.length(); i++) {
+      state = _transitions[state * ALPHABET_SIZE + input.charAt(i)];
+    }
+    return _firstMatches[state];
+  }
+
+  /** Returns {@code true} if any regex finds a match in {@code input}. */
+  public boolean anyMatch(String input) {
+    return firstMatch(input) >= 0;
+  }
+
+  /** Returns {@code true} if {@code input} is matched by the product DFA, not by patterns. */
+  @VisibleForTesting
+  boolean usesDfa(String input) {
+    return _transitions != null && isDfaInput(input);
+  }
+
+  private RegexListMatcher(List<String> regexes) {
+    _patterns = regexes.stream().map(Pattern::compile).collect(ImmutableList.toImmutableList());
+    int[] transitions = null;
+    int[] firstMatches = null;
+    List<Component> components = new ArrayList<>(regexes.size());
+    for (String regex : regexes) {
+      Component component = Component.of(regex);
+      if (component == null) {
+        components = null;
+        break;
+      }
+      components.add(component);
+    }
+    if (components != null) {
+      ProductDfa product = ProductDfa.of(components);
+      if (product != null) {
+        transitions = product._transitions;
+        firstMatches = product._firstMatches;
+      }
+    }
+    _transitions = transitions;
+    _firstMatches = firstMatches;
+  }
+
+  private int firstMatchByPatterns(String input) {
+    for (int i = 0; i < _patterns.size(); i++) {
+      if (_patterns.get(i).matcher(input).find()) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Returns {@code true} if {@code input} can be matched by the product DFA: it is non-empty,
+   * ASCII, and free of line terminators, so {@code ^} and {@code $} only match at its ends and are
+   * never both matched at the same position.
+   */
+  private static boolean isDfaInput(String input) {
+    if (input.isEmpty()) {
+      return false;
+    }
+    for (int i = 0; i < input.length(); i++) {
+      char c = input.charAt(i);
+      if (c >= ALPHABET_SIZE || c == '\n' || c == '\r') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** The minimized DFA of a single regex, with its sentinel runs pre-applied. */
+  private static final class Component {
+
+    /** Returns the component for {@code regex}, or {@code null} if it has no DFA translation. */
+    static @Nullable Component of(String regex) {
+      Automaton translated = new Translator(regex).translate();
+      if (translated == null) {
+        return null;
+      }
+      Automaton found = sigmaStar().concatenate(translated).concatenate(sigmaStar());
+      // Minimization starts with the subset construction, which can blow up exponentially even for
+      // short regexes, e.g. 1.{60}.
+      if (!determinizesWithin(found, MAX_DETERMINIZED_STATES)) {
+        return null;
+      }
+      found.minimize();
+      if (found.getNumberOfStates() > MAX_COMPONENT_STATES) {
+        return null;
+      }
+      // Components are only stepped while building the product, so skip the per-char lookup table.
+      return new Component(new RunAutomaton(found, false));
+    }
+
+    /**
+     * Returns whether the subset construction yields at most {@code maxStates} states for {@code
+     * nfa}, giving up as soon as it exceeds them.
+     */
+    private static boolean determinizesWithin(Automaton nfa, int maxStates) {
+      Set<Set<State>> seen = new HashSet<>();
+      Deque<Set<State>> queue = new ArrayDeque<>();
+      Set<State> initial = ImmutableSet.of(nfa.getInitialState());
+      seen.add(initial);
+      queue.add(initial);
+      while (!queue.isEmpty()) {
+        Set<State> states = queue.remove();
+        List<Transition> transitions = new ArrayList<>();
+        SortedSet<Integer> points = new TreeSet<>();
+        for (State state : states) {
+          for (Transition transition : state.getTransitions()) {
+            transitions.add(transition);
+            points.add((int) transition.getMin());
+            points.add(transition.getMax() + 1);
+          }
+        }
+        // The successor subset is the same for all characters between consecutive points.
+        for (int point : points) {
+          Set<State> successor = new HashSet<>();
+          for (Transition transition : transitions) {
+            if (transition.getMin() <= point && point <= transition.getMax()) {
+              successor.add(transition.getDest());
+            }
+          }
+          if (!successor.isEmpty() && seen.add(successor)) {
+            if (seen.size() > maxStates) {
+              return false;
+            }
+            queue.add(successor);
+          }
+        }
+      }
+      return true;
+    }
+
+    /** Returns the state reached from {@code state} on {@code c}, or {@code -1} if dead. */
+    int step(int state, char c) {
+      return state == -1 ? -1 : _dfa.step(state, c);
+    }
+
+    private Component(RunAutomaton dfa) {
+      _dfa = dfa;
+      int size = dfa.getSize();
+      // After as many sentinels as there are states, the run is on its final cycle. Membership in
+      // the find language only grows as sentinels are added, so every state on the cycle gives
+      // the limit answer; the minimized DFA cannot tell them apart for any later input.
+      int start = dfa.getInitialState();
+      for (int i = 0; i < size && start != -1; i++) {
+        start = dfa.step(start, START);
+      }
+      _start = start;
+      _matchesAtEnd = new boolean[size];
+      for (int state = 0; state < size; state++) {
+        int end = state;
+        for (int i = 0; i < size && end != -1; i++) {
+          end = dfa.step(end, END);
+        }
+        _matchesAtEnd[state] = end != -1 && dfa.isAccept(end);
+      }
+    }
+
+    private final @Nonnull RunAutomaton _dfa;
+    /** The state after the start sentinel run, or {@code -1} if no input can match. */
+    private final int _start;
+    /** Whether an input ending in each state matches, once the end sentinel run is consumed. */
+    private final @Nonnull boolean[] _matchesAtEnd;
+  }
+
+  /** The product of the {@link Component} DFAs of a regex list, over the ASCII alphabet. */
+  private static final class ProductDfa {
+
+    /** Returns the product of {@code components}, or {@code null} if it is too large. */
+    static @Nullable ProductDfa of(List<Component> components) {
+      Map<List<Integer>, Integer> ids = new HashMap<>();
+      List<int[]> states = new ArrayList<>();
+      int[] initial = components.stream().mapToInt(component -> component._start).toArray();
+      ids.put(Ints.asList(initial), 0);
+      states.add(initial);
+      int[] transitions = new int[INITIAL_PRODUCT_STATES * ALPHABET_SIZE];
+      for (int id = 0; id < states.size(); id++) {
+        if ((id + 1) * ALPHABET_SIZE > transitions.length) {
+          transitions = Arrays.copyOf(transitions, transitions.length * 2);
+        }
+        int[] state = states.get(id);
+        for (char c = 0; c < ALPHABET_SIZE; c++) {
+          int[] next = new int[state.length];
+          for (int i = 0; i < next.length; i++) {
+            next[i] = components.get(i).step(state[i], c);
+          }
+          Integer nextId = ids.get(Ints.asList(next));
+          if (nextId == null) {
+            if (states.size() == MAX_PRODUCT_STATES) {
+              return null;
+            }
+            nextId = states.size();
+            ids.put(Ints.asList(next), nextId);
+            states.add(next);
+          }
+          transitions[id * ALPHABET_SIZE + c] = nextId;
+        }
+      }
+      int[] firstMatches = new int[states.size()];
+      for (int id = 0; id < firstMatches.length; id++) {
+        firstMatches[id] = firstMatch(components, states.get(id));
+      }
+      return new ProductDfa(
+          Arrays.copyOf(transitions, states.size() * ALPHABET_SIZE), firstMatches);
+    }
+
+    private static int firstMatch(List<Component> components, int[] state) {
+      for (int i = 0; i < state.length; i++) {
+        if (state[i] != -1 && components.get(i)._matchesAtEnd[state[i]]) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    private ProductDfa(int[] transitions, int[] firstMatches) {
+      _transitions = transitions;
+      _firstMatches = firstMatches;
+    }
+
+    private final @Nonnull int[] _transitions;
+    private final @Nonnull int[] _firstMatches;
+  }
+
+  /**
+   * Translates the DFA-compatible subset of Java regex syntax into an {@link Automaton} over ASCII
+   * plus the {@link #START} and {@link #END} sentinels, which {@code ^} and {@code $} consume.
+   */
+  private static final class Translator {
+
+    Translator(String regex) {
+      _regex = regex;
+    }
+
+    /** Returns the translation, or {@code null} if the regex uses an unsupported construct. */
+    @Nullable
+    Automaton translate() {
+      try {
+        Fragment fragment = alternation();
+        return _pos == _regex.length() ? fragment._automaton : null;
+      } catch (UnsupportedRegexException e) {
+        return null;
+      }
+    }
+
+    private Fragment alternation() throws UnsupportedRegexException {
+      Fragment fragment = concatenation();
+      while (hasNext() && peek() == '|') {
+        _pos++;
+        Fragment branch = concatenation();
+        fragment =
+            new Fragment(
+                fragment._automaton.union(branch._automaton),
+                fragment._zeroWidth || branch._zeroWidth);
+      }
+      return fragment;
+    }
+
+    private Fragment concatenation() throws UnsupportedRegexException {
+      Fragment fragment = new Fragment(Automaton.makeEmptyString(), true);
+      while (hasNext() && peek() != '|' && peek() != ')') {
+        Fragment piece = quantified();
+        fragment =
+            new Fragment(
+                fragment._automaton.concatenate(piece._automaton),
+                fragment._zeroWidth && piece._zeroWidth);
+      }
+      return fragment;
+    }
+
+    private Fragment quantified() throws UnsupportedRegexException {
+      Fragment fragment = atom();
+      if (!hasNext() || "*+?{".indexOf(peek()) < 0) {
+        return fragment;
+      }
+      if (fragment._zeroWidth) {
+        // Java stops repeating a group once an iteration matches the empty string, so it does not
+        // find every match an automaton would, e.g. none for (^| ){2}x in " x".
+        throw new UnsupportedRegexException();
+      }
+      Automaton atom = fragment._automaton;
+      boolean zeroWidth = false;
+      Automaton quantified;
+      switch (peek()) {
+        case '*':
+          _pos++;
+          quantified = atom.repeat();
+          zeroWidth = true;
+          break;
+        case '+':
+          _pos++;
+          quantified = atom.repeat(1);
+          break;
+        case '?':
+          _pos++;
+          quantified = atom.optional();
+          zeroWidth = true;
+          break;
+        default:
+          _pos++;
+          zeroWidth = hasNext() && peek() == '0';
+          quantified = bounded(atom);
+          break;
+      }
+      if (hasNext() && peek() == '?') {
+        // reluctant quantifiers find the same strings
+        _pos++;
+      }
+      if (hasNext() && "*+?{".indexOf(peek()) >= 0) {
+        // possessive or stacked quantifiers
+        throw new UnsupportedRegexException();
+      }
+      return new Fragment(quantified, zeroWidth);
+    }
+
+    private Automaton bounded(Automaton atom) throws UnsupportedRegexException {
+      int min = number();
+      if (hasNext() && peek() == '}') {
+        _pos++;
+        return atom.repeat(min, min);
+      }
+      expect(',');
+      if (hasNext() && peek() == '}') {
+        _pos++;
+        return atom.repeat(min);
+      }
+      int max = number();
+      expect('}');
+      if (max < min) {
+        throw new UnsupportedRegexException();
+      }
+      return atom.repeat(min, max);
+    }
+
+    private int number() throws UnsupportedRegexException {
+      int start = _pos;
+      while (hasNext() && peek() >= '0' && peek() <= '9' && _pos - start < 3) {
+        _pos++;
+      }
+      if (start == _pos) {
+        throw new UnsupportedRegexException();
+      }
+      int number = Integer.parseInt(_regex.substring(start, _pos));
+      if (number > MAX_REPETITIONS) {
+        throw new UnsupportedRegexException();
+      }
+      return number;
+    }
+
+    private Fragment atom() throws UnsupportedRegexException {
+      char c = next();
+      switch (c) {
+        case '(':
+          if (hasNext() && peek() == '?') {
+            _pos++;
+            // only non-capturing groups; not lookaround, named groups, or flags
+            expect(':');
+          }
+          Fragment group = alternation();
+          expect(')');
+          return group;
+        case '[':
+          return new Fragment(charSet(charClass()), false);
+        case '.':
+          return new Fragment(dot(), false);
+        case '^':
+          return new Fragment(Automaton.makeChar(START), true);
+        case '$':
+          return new Fragment(Automaton.makeChar(END), true);
+        case '\\':
+          boolean[] escapedClass = escapedClass();
+          return new Fragment(
+              escapedClass != null ? charSet(escapedClass) : Automaton.makeChar(escapedChar()),
+              false);
+        case '*':
+        case '+':
+        case '?':
+        case '{':
+        case ')':
+        case '|':
+          throw new UnsupportedRegexException();
+        default:
+          return new Fragment(Automaton.makeChar(c), false);
+      }
+    }
+
+    private boolean[] charClass() throws UnsupportedRegexException {
+      boolean negated = hasNext() && peek() == '^';
+      if (negated) {
+        _pos++;
+      }
+      if (hasNext() && peek() == ']') {
+        throw new UnsupportedRegexException();
+      }
+      boolean[] chars = new boolean[ALPHABET_SIZE];
+      boolean first = true;
+      while (true) {
+        char c = next();
+        if (c == ']') {
+          break;
+        }
+        if (c == '[' || (c == '&' && hasNext() && peek() == '&')) {
+          // nested classes, unions, and intersections
+          throw new UnsupportedRegexException();
+        }
+        if (c == '-' && !first && peek() != ']') {
+          throw new UnsupportedRegexException();
+        }
+        first = false;
+        char low;
+        if (c == '\\') {
+          boolean[] escapedClass = escapedClass();
+          if (escapedClass != null) {
+            for (int i = 0; i < ALPHABET_SIZE; i++) {
+              chars[i] |= escapedClass[i];
+            }
+            continue;
+          }
+          low = escapedChar();
+        } else {
+          low = c;
+        }
+        char high = low;
+        if (peek() == '-' && peekAfter() != ']') {
+          _pos++;
+          char end = next();
+          if (end == '\\') {
+            if (escapedClass() != null) {
+              throw new UnsupportedRegexException();
+            }
+            high = escapedChar();
+          } else if (end == '[') {
+            throw new UnsupportedRegexException();
+          } else {
+            high = end;
+          }
+          if (high < low) {
+            throw new UnsupportedRegexException();
+          }
+        }
+        for (char i = low; i <= high; i++) {
+          chars[i] = true;
+        }
+      }
+      if (negated) {
+        for (int i = 0; i < ALPHABET_SIZE; i++) {
+          chars[i] = !chars[i];
+        }
+      }
+      return chars;
+    }
+
+    /**
+     * If the escape at the current position is a predefined character class, consumes it and
+     * returns its characters; otherwise returns {@code null}.
+     */
+    private @Nullable boolean[] escapedClass() throws UnsupportedRegexException {
+      if (!hasNext()) {
+        throw new UnsupportedRegexException();
+      }
+      boolean[] chars;
+      switch (Character.toLowerCase(peek())) {
+        case 'd':
+          chars = charsOf("0123456789");
+          break;
+        case 's':
+          chars = charsOf(" \t\n\u000B\f\r");
+          break;
+        case 'w':
+          chars = charsOf("abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ_0123456789");
+          break;
+        default:
+          return null;
+      }
+      if (Character.isUpperCase(next())) {
+        for (int i = 0; i < ALPHABET_SIZE; i++) {
+          chars[i] = !chars[i];
+        }
+      }
+      return chars;
+    }
+
+    /** Consumes an escaped literal character and returns it. */
+    private char escapedChar() throws UnsupportedRegexException {
+      char c = next();
+      switch (c) {
+        case 't':
+          return '\t';
+        case 'n':
+          return '\n';
+        case 'r':
+          return '\r';
+        case 'f':
+          return '\f';
+        default:
+          // Java reserves escaped letters and digits; any other escaped character is a literal.
+          if (Character.isLetterOrDigit(c)) {
+            throw new UnsupportedRegexException();
+          }
+          return c;
+      }
+    }
+
+    private void expect(char c) throws UnsupportedRegexException {
+      if (next() != c) {
+        throw new UnsupportedRegexException();
+      }
+    }
+
+    private boolean hasNext() {
+      return _pos < _regex.length();
+    }
+
+    /** Consumes and returns the next ASCII character. */
+    private char next() throws UnsupportedRegexException {
+      char c = peek();
+      _pos++;
+      return c;
+    }
+
+    /** Returns the next ASCII character without consuming it. */
+    private char peek() throws UnsupportedRegexException {
+      if (!hasNext() || _regex.charAt(_pos) >= ALPHABET_SIZE) {
+        throw new UnsupportedRegexException();
+      }
+      return _regex.charAt(_pos);
+    }
+
+    /** Returns the character after the next one without consuming either, or {@code 0} if none. */
+    private char peekAfter() {
+      return _pos + 1 < _regex.length() ? _regex.charAt(_pos + 1) : 0;
+    }
+
+    private final @Nonnull String _regex;
+    private int _pos;
+  }
+
+  /** A translated part of a regex. */
+  private static final class Fragment {
+
+    Fragment(Automaton automaton, boolean zeroWidth) {
+      _automaton = automaton;
+      _zeroWidth = zeroWidth;
+    }
+
+    private final @Nonnull Automaton _automaton;
+    /** Whether Java can match the part without consuming input. */
+    private final boolean _zeroWidth;
+  }
+
+  /** Thrown by {@link Translator} on a construct without a DFA translation. */
+  private static final class UnsupportedRegexException extends Exception {
+    private static final long serialVersionUID = 1L;
+  }
+
+  private static boolean[] charsOf(String chars) {
+    boolean[] set = new boolean[ALPHABET_SIZE];
+    for (int i = 0; i < chars.length(); i++) {
+      set[chars.charAt(i)] = true;
+    }
+    return set;
+  }
+
+  /** Returns what Java's {@code .} matches in a single-line ASCII input. */
+  private static Automaton dot() {
+    boolean[] chars = new boolean[ALPHABET_SIZE];
+    Arrays.fill(chars, true);
+    chars['\n'] = false;
+    chars['\r'] = false;
+    return charSet(chars);
+  }
+
+  /** Returns an automaton accepting any string over ASCII and the sentinels. */
+  private static Automaton sigmaStar() {
+    return Automaton.makeCharRange((char) 0, (char) (ALPHABET_SIZE - 1))
+        .union(Automaton.makeChar(START))
+        .union(Automaton.makeChar(END))
+        .repeat();
+  }
+
+  private static Automaton charSet(boolean[] chars) {
+    checkArgument(chars.length == ALPHABET_SIZE);
+    Automaton automaton = Automaton.makeEmpty();
+    for (char c = 0; c < ALPHABET_SIZE; c++) {
+      if (chars[c]) {
+        char high = c;
+        while (high + 1 < ALPHABET_SIZE && chars[high + 1]) {
+          high++;
+        }
+        automaton = automaton.union(Automaton.makeCharRange(c, high));
+        c = high;
+      }
+    }
+    return automaton;
+  }
+
+  /** Inputs matched by DFA are ASCII. */
+  private static final int ALPHABET_SIZE = 128;
+
+  /** Consumed by {@code ^}; conceptually repeated before the input. */
+  private static final char START = '\uE000';
+
+  /** Consumed by {@code $}; conceptually repeated after the input. */
+  private static final char END = '\uE001';
+
+  private static final int MAX_REPETITIONS = 100;
+  private static final int MAX_COMPONENT_STATES = 1 << 12;
+  private static final int MAX_DETERMINIZED_STATES = 1 << 14;
+  private static final int INITIAL_PRODUCT_STATES = 1 << 4;
+  private static final int MAX_PRODUCT_STATES = 1 << 10;
+
+  private final @Nonnull List<Pattern> _patterns;
+  /** Product DFA transitions, indexed by state times alphabet size plus character. */
+  private final @Nullable int[] _transitions;
+  /** The first matching regex of inputs ending in each product DFA state, or {@code -1}. */
+  private final @Nullable int[] _firstMatches;
+
+  // Soft values: let it be garbage collected in times of pressure.
+  // Maximum size 2^12: product DFAs are up to a few hundred KiB, but are usually far smaller.
+  private static final LoadingCache<List<String>, RegexListMatcher> CACHE =
+      CacheBuilder.newBuilder()
+          .softValues()
+          .maximumSize(1 << 12)
+          .build(CacheLoader.from(RegexListMatcher::new));
+}
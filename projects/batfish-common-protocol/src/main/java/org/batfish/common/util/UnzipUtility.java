@@ -2,13 +2,24 @@ package org.batfish.common.util;
 
 import static com.google.common.io.MoreFiles.createParentDirectories;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.io.ByteStreams;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
@@ -90,6 +101,102 @@ public final class UnzipUtility {
     }
   }
 
+  /**
+   * Extracts {@code zipStream} to a directory specified by {@code destDirectory}, writing file
+   * entries on {@code executor} while later entries are still being decompressed. At most {@code
+   * maxPendingBytes} of decompressed data are buffered in memory awaiting a write, besides the
+   * entry being decompressed; larger entries are written on the calling thread as they are
+   * decompressed. Entries with the same name are written in order. Returns once every entry has
+   * been written. The caller is responsible for ensuring that the directory exists and is empty. If
+   * the directory is not empty, behavior of this function is undefined.
+   *
+   * @throws IOException if {@code destDirectory} does not exist or there is any other errror
+   */
+  public static void unzip(
+      InputStream zipStream, Path destDirectory, ExecutorService executor, int maxPendingBytes)
+      throws IOException {
+    if (!destDirectory.toFile().isDirectory()) {
+      throw new IOException(
+          String.format(
+              "Output directory does not exist or is not a directory: %s", destDirectory));
+    }
+    Semaphore pendingBytes = new Semaphore(maxPendingBytes);
+    List<Future<?>> writes = new ArrayList<>();
+    Map<Path, Future<?>> lastWrites = new HashMap<>();
+    try (ZipInputStream zipIn = new ZipInputStream(zipStream)) {
+      for (ZipEntry entry = zipIn.getNextEntry(); entry != null; entry = zipIn.getNextEntry()) {
+        Path outputPath =
+            validatePath(
+                new File(destDirectory.toFile(), new File(entry.getName()).getPath()).toPath(),
+                destDirectory);
+        if (entry.isDirectory()) {
+          if (!outputPath.toFile().exists()) {
+            if (!outputPath.toFile().mkdirs()) {
+              throw new IOException("Unable to make directory " + outputPath);
+            }
+          }
+        } else {
+          createParentDirectories(outputPath);
+          Future<?> lastWrite = lastWrites.get(outputPath);
+          if (lastWrite != null) {
+            // the last entry with the same name wins, as when extracting sequentially
+            awaitAll(ImmutableList.of(lastWrite));
+          }
+          byte[] contents =
+              ByteStreams.toByteArray(ByteStreams.limit(zipIn, maxPendingBytes + 1L));
+          if (contents.length > maxPendingBytes) {
+            try (OutputStream out = Files.newOutputStream(outputPath)) {
+              out.write(contents);
+              ByteStreams.copy(zipIn, out);
+            }
+          } else {
+            pendingBytes.acquireUninterruptibly(contents.length);
+            Future<?> write =
+                executor.submit(
+                    () -> {
+                      try {
+                        Files.write(outputPath, contents);
+                      } catch (IOException e) {
+                        throw new BatfishException(
+                            "Error unzipping to output file: '" + outputPath + "'", e);
+                      } finally {
+                        pendingBytes.release(contents.length);
+                      }
+                    });
+            writes.add(write);
+            lastWrites.put(outputPath, write);
+          }
+        }
+        zipIn.closeEntry();
+      }
+    } catch (Throwable t) {
+      try {
+        awaitAll(writes);
+      } catch (IOException | RuntimeException e) {
+        t.addSuppressed(e);
+      }
+      throw t;
+    }
+    awaitAll(writes);
+  }
+
+  private static void awaitAll(List<Future<?>> futures) throws IOException {
+    for (Future<?> future : futures) {
+      try {
+        future.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted while unzipping", e);
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        }
+        throw new IOException(cause);
+      }
+    }
+  }
+
   /**
    * Extracts {@code zipFile} to a directory specified by {@code destDirectory}. The caller is
    * responsible for ensuring that the directory exists and is empty. If the directory is not empty,
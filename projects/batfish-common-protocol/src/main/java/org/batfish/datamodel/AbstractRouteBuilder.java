@@ -113,6 +113,11 @@ public abstract class AbstractRouteBuilder<
     return LegacyNextHops.getNextHopInterface(_nextHop).orElse(Route.UNSET_NEXT_HOP_INTERFACE);
   }
 
+  /** Returns the next hop, or {@code null} if it is not set. */
+  public final @Nullable NextHop getNextHop() {
+    return _nextHop;
+  }
+
   /**
    * Set the next hop. Overrides any data set by {@link #setNextHopIp} or {@link
    * #setNextHopInterface(String)}}
@@ -10,6 +10,8 @@ import com.fasterxml.jackson.annotation.JsonValue;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import java.io.Serializable;
 import java.util.Map;
 import java.util.Objects;
@@ -17,6 +19,7 @@ import java.util.SortedSet;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import org.batfish.common.BatfishException;
+import org.batfish.common.util.NameInterner;
 import org.batfish.datamodel.bgp.community.Community;
 
 /**
@@ -269,6 +272,15 @@ public class BgpAdvertisement implements Comparable<BgpAdvertisement>, Serializa
 
   public static final int UNSET_WEIGHT = 0;
 
+  /*
+   * Advertisements loaded from full tables share few distinct attribute values, so share a single
+   * instance of each. AS paths are already interned by AsPath itself.
+   */
+  private static final Interner<SortedSet<Community>> COMMUNITIES_INTERNER =
+      Interners.newWeakInterner();
+  private static final Interner<SortedSet<Long>> CLUSTER_LIST_INTERNER =
+      Interners.newWeakInterner();
+
   private final AsPath _asPath;
 
   private final SortedSet<Long> _clusterList;
@@ -377,11 +389,11 @@ public class BgpAdvertisement implements Comparable<BgpAdvertisement>, Serializa
     _type = type;
     _network = network;
     _nextHopIp = nextHopIp;
-    _srcNode = srcNode == null ? null : srcNode.toLowerCase(); // canonicalize node name
-    _srcVrf = srcVrf;
+    _srcNode = srcNode == null ? null : NameInterner.intern(srcNode.toLowerCase()); // canonicalize
+    _srcVrf = NameInterner.intern(srcVrf);
     _srcIp = srcIp;
-    _dstNode = dstNode.toLowerCase(); // canonicalize node name
-    _dstVrf = dstVrf;
+    _dstNode = NameInterner.intern(dstNode.toLowerCase()); // canonicalize node name
+    _dstVrf = NameInterner.intern(dstVrf);
     _dstIp = dstIp;
     _srcProtocol = srcProtocol;
     _originType = originType;
@@ -389,8 +401,8 @@ public class BgpAdvertisement implements Comparable<BgpAdvertisement>, Serializa
     _med = med;
     _originatorIp = originatorIp;
     _asPath = asPath;
-    _communities = ImmutableSortedSet.copyOf(communities);
-    _clusterList = ImmutableSortedSet.copyOf(clusterList);
+    _communities = COMMUNITIES_INTERNER.intern(ImmutableSortedSet.copyOf(communities));
+    _clusterList = CLUSTER_LIST_INTERNER.intern(ImmutableSortedSet.copyOf(clusterList));
     _weight = weight;
   }
 
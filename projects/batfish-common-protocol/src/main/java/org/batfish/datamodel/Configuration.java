@@ -29,6 +29,7 @@ import java.util.stream.Stream;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import org.batfish.common.Warnings;
+import org.batfish.common.util.NameInterner;
 import org.batfish.datamodel.bgp.AddressFamily;
 import org.batfish.datamodel.bgp.BgpAggregate;
 import org.batfish.datamodel.ospf.OspfProcess;
@@ -332,7 +333,7 @@ public final class Configuration implements Serializable {
   }
 
   public Configuration(@Nonnull String hostname, @Nonnull ConfigurationFormat configurationFormat) {
-    _name = hostname.toLowerCase();
+    _name = NameInterner.intern(hostname.toLowerCase());
     _asPathAccessLists = new TreeMap<>();
     _asPathExprs = new HashMap<>();
     _asPathMatchExprs = new HashMap<>();
@@ -6,17 +6,24 @@ import static org.batfish.datamodel.Names.generatedTenantVniInterfaceName;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableCollection;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSet.Builder;
+import com.google.common.collect.Sets;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.Stack;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.function.Supplier;
+import java.util.stream.Stream;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
@@ -91,20 +98,236 @@ public final class FibImpl implements Fib {
   /** This trie is the source of truth for all resolved FIB routes */
   private final @Nonnull PrefixTrieMultiMap<FibEntry> _root;
 
+  /**
+   * The next hop IPs looked up while resolving the routes for each network, used by {@link
+   * #update}. Not serialized, since the FIBs of a computed data plane are not updated.
+   */
+  private transient @Nullable Map<Prefix, Set<Ip>> _nextHopIps;
+
   private transient Supplier<Set<FibEntry>> _entries;
+  private transient Supplier<Map<Prefix, IpSpace>> _matchingIps;
 
   public <R extends AbstractRouteDecorator> FibImpl(
       GenericRib<R> rib, ResolutionRestriction<R> restriction) {
     _root = new PrefixTrieMultiMap<>();
-    rib.getRoutes().stream()
+    _nextHopIps = new HashMap<>();
+    resolveAll(rib, restriction, forwardingRoutes(rib.getRoutes().stream()), _nextHopIps);
+    initSuppliers();
+  }
+
+  /** Copies {@code previous}, except for the entries for {@code removedNetworks}. */
+  private FibImpl(
+      FibImpl previous, Map<Prefix, Set<Ip>> previousNextHopIps, Set<Prefix> removedNetworks) {
+    _root = new PrefixTrieMultiMap<>();
+    previous._root.traverseEntries(
+        (prefix, entries) -> {
+          if (!entries.isEmpty() && !removedNetworks.contains(prefix)) {
+            _root.putAll(prefix, entries);
+          }
+        });
+    _nextHopIps = new HashMap<>(previousNextHopIps);
+    _nextHopIps.keySet().removeAll(removedNetworks);
+  }
+
+  /**
+   * Returns the FIB of {@code rib}, given that {@code previous} is the FIB of the same RIB with the
+   * same {@code restriction} before the routes for {@code changedNetworks} changed.
+   *
+   * <p>Only the routes for the changed networks, and the routes whose next hop resolution looked up
+   * an IP in a changed network, are resolved again. If there are none, returns {@code previous}.
+   */
+  public static @Nonnull <R extends AbstractRouteDecorator> FibImpl update(
+      FibImpl previous,
+      GenericRib<R> rib,
+      ResolutionRestriction<R> restriction,
+      Set<Prefix> changedNetworks) {
+    Map<Prefix, Set<Ip>> previousNextHopIps = previous._nextHopIps;
+    if (previousNextHopIps == null) {
+      // Deserialized, so the dependencies of its entries are unknown.
+      return new FibImpl(rib, restriction);
+    } else if (changedNetworks.isEmpty()) {
+      return previous;
+    }
+    PrefixTrieMultiMap<Prefix> changed = new PrefixTrieMultiMap<>();
+    changedNetworks.forEach(network -> changed.put(network, network));
+    Set<Prefix> affectedNetworks = new HashSet<>(changedNetworks);
+    previousNextHopIps.forEach(
+        (network, nextHopIps) -> {
+          if (nextHopIps.stream().anyMatch(ip -> !changed.longestPrefixMatch(ip).isEmpty())) {
+            affectedNetworks.add(network);
+          }
+        });
+    FibImpl fib = new FibImpl(previous, previousNextHopIps, affectedNetworks);
+    assert fib._nextHopIps != null;
+    fib.resolveAll(
+        rib,
+        restriction,
+        forwardingRoutes(affectedNetworks.stream().flatMap(p -> rib.getRoutes(p).stream())),
+        fib._nextHopIps);
+    fib.initSuppliers();
+    return fib;
+  }
+
+  private static @Nonnull List<AbstractRoute> forwardingRoutes(
+      Stream<? extends AbstractRouteDecorator> routes) {
+    return routes
         .map(AbstractRouteDecorator::getAbstractRoute)
         .filter(r -> !r.getNonForwarding())
-        .forEach(r -> _root.putAll(r.getNetwork(), resolveRoute(rib, r, restriction)));
-    initSuppliers();
+        .collect(ImmutableList.toImmutableList());
+  }
+
+  /**
+   * Resolves {@code routes}, adding their entries to {@link #_root} and the next hop IPs looked up
+   * for them to {@code nextHopIpsByNetwork}.
+   */
+  private <R extends AbstractRouteDecorator> void resolveAll(
+      GenericRib<R> rib,
+      ResolutionRestriction<R> restriction,
+      List<AbstractRoute> routes,
+      Map<Prefix, Set<Ip>> nextHopIpsByNetwork) {
+    // Routes with the same next hop IP resolve the same way: resolve each distinct next hop once,
+    // in parallel.
+    Map<NextHopKey, List<Integer>> routesByNextHop = new HashMap<>();
+    List<Integer> otherRoutes = new ArrayList<>();
+    for (int i = 0; i < routes.size(); i++) {
+      NextHopKey key = NextHopKey.of(routes.get(i));
+      if (key == null) {
+        otherRoutes.add(i);
+      } else {
+        routesByNextHop.computeIfAbsent(key, k -> new ArrayList<>()).add(i);
+      }
+    }
+    AtomicReferenceArray<Set<FibEntry>> entries = new AtomicReferenceArray<>(routes.size());
+    AtomicReferenceArray<Set<Ip>> nextHopIps = new AtomicReferenceArray<>(routes.size());
+    Stream.concat(routesByNextHop.values().stream(), otherRoutes.stream().map(ImmutableList::of))
+        .parallel()
+        .forEach(
+            group -> {
+              NextHopResolution resolution = null;
+              for (int i : group) {
+                AbstractRoute route = routes.get(i);
+                if (resolution != null && resolution.appliesTo(route)) {
+                  entries.set(i, resolution.entriesFor(route));
+                  nextHopIps.set(i, resolution._nextHopIps);
+                  continue;
+                }
+                ResolutionDependencies dependencies = new ResolutionDependencies();
+                Set<FibEntry> routeEntries = resolveRoute(rib, route, restriction, dependencies);
+                entries.set(i, routeEntries);
+                nextHopIps.set(i, ImmutableSet.copyOf(dependencies._nextHopIps));
+                if (resolution == null && !dependencies._lpmNetworks.contains(route.getNetwork())) {
+                  resolution =
+                      new NextHopResolution(
+                          routeEntries, dependencies._lpmNetworks, nextHopIps.get(i));
+                }
+              }
+            });
+    // Insert in RIB order, so that the FIB does not depend on the order of resolution.
+    for (int i = 0; i < routes.size(); i++) {
+      Prefix network = routes.get(i).getNetwork();
+      _root.putAll(network, entries.get(i));
+      if (!nextHopIps.get(i).isEmpty()) {
+        nextHopIpsByNetwork.merge(
+            network, nextHopIps.get(i), (a, b) -> ImmutableSet.copyOf(Sets.union(a, b)));
+      }
+    }
+  }
+
+  /** The longest prefix match lookups done while resolving a route. */
+  private static final class ResolutionDependencies {
+    /** The IPs that were looked up */
+    private final @Nonnull Set<Ip> _nextHopIps = new HashSet<>();
+
+    /** The networks of the longest prefix matches that were found */
+    private final @Nonnull Set<Prefix> _lpmNetworks = new HashSet<>();
+  }
+
+  /**
+   * Identifies the routes whose next hops resolve the same way: routes with the same next hop IP
+   * and the same rules for which routes may resolve it.
+   */
+  private static final class NextHopKey {
+    private final @Nonnull Ip _nextHopIp;
+    private final boolean _static;
+    private final boolean _recursive;
+
+    private NextHopKey(Ip nextHopIp, boolean isStatic, boolean recursive) {
+      _nextHopIp = nextHopIp;
+      _static = isStatic;
+      _recursive = recursive;
+    }
+
+    /** Returns the key of the given route, or {@code null} if it has no next hop IP. */
+    static @Nullable NextHopKey of(AbstractRoute route) {
+      if (!(route.getNextHop() instanceof NextHopIp)) {
+        return null;
+      }
+      Ip nextHopIp = ((NextHopIp) route.getNextHop()).getIp();
+      // Only static routes have their own resolution rules, see buildResolutionTree.
+      if (route.getProtocol() == RoutingProtocol.STATIC) {
+        return new NextHopKey(nextHopIp, true, ((StaticRoute) route).getRecursive());
+      }
+      return new NextHopKey(nextHopIp, false, true);
+    }
+
+    @Override
+    public boolean equals(@Nullable Object o) {
+      if (this == o) {
+        return true;
+      } else if (!(o instanceof NextHopKey)) {
+        return false;
+      }
+      NextHopKey that = (NextHopKey) o;
+      return _nextHopIp.equals(that._nextHopIp)
+          && _static == that._static
+          && _recursive == that._recursive;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(_nextHopIp, _static, _recursive);
+    }
+  }
+
+  /**
+   * The resolution of a next hop IP, computed for one route and reusable for other routes with the
+   * same {@link NextHopKey}.
+   *
+   * <p>A route's own network only affects the resolution of its next hop if the resolution reaches
+   * a route for that network, which is then treated as a loop. So the resolution can be reused for
+   * any route whose network is not among the longest prefix matches encountered while resolving.
+   */
+  private static final class NextHopResolution {
+    private final @Nonnull List<FibAction> _actions;
+    private final @Nonnull Set<Prefix> _lpmNetworks;
+    private final @Nonnull Set<Ip> _nextHopIps;
+
+    NextHopResolution(Set<FibEntry> entries, Set<Prefix> lpmNetworks, Set<Ip> nextHopIps) {
+      _actions =
+          entries.stream().map(FibEntry::getAction).collect(ImmutableList.toImmutableList());
+      _lpmNetworks = lpmNetworks;
+      _nextHopIps = nextHopIps;
+    }
+
+    boolean appliesTo(AbstractRoute route) {
+      return !_lpmNetworks.contains(route.getNetwork());
+    }
+
+    @Nonnull
+    Set<FibEntry> entriesFor(AbstractRoute route) {
+      List<AbstractRoute> steps = ImmutableList.of(route);
+      ImmutableSet.Builder<FibEntry> entries =
+          ImmutableSet.builderWithExpectedSize(_actions.size());
+      for (FibAction action : _actions) {
+        entries.add(new FibEntry(action, steps));
+      }
+      return entries.build();
+    }
   }
 
   private void initSuppliers() {
     _entries = Suppliers.memoize(this::computeEntries);
+    _matchingIps = Suppliers.memoize(this::computeMatchingIps);
   }
 
   private Set<FibEntry> computeEntries() {
@@ -130,8 +353,21 @@ public final class FibImpl implements Fib {
   @VisibleForTesting
   <R extends AbstractRouteDecorator> Set<FibEntry> resolveRoute(
       GenericRib<R> rib, AbstractRoute route, ResolutionRestriction<R> restriction) {
+    return resolveRoute(rib, route, restriction, new ResolutionDependencies());
+  }
+
+  /**
+   * Like {@link #resolveRoute(GenericRib, AbstractRoute, ResolutionRestriction)}, and records the
+   * longest prefix match lookups done in {@code dependencies}.
+   */
+  private <R extends AbstractRouteDecorator> Set<FibEntry> resolveRoute(
+      GenericRib<R> rib,
+      AbstractRoute route,
+      ResolutionRestriction<R> restriction,
+      ResolutionDependencies dependencies) {
     ResolutionTreeNode resolutionRoot = ResolutionTreeNode.root(route);
-    buildResolutionTree(rib, route, null, new HashSet<>(), 0, resolutionRoot, restriction);
+    buildResolutionTree(
+        rib, route, null, new HashSet<>(), 0, resolutionRoot, restriction, dependencies);
     Builder<FibEntry> collector = ImmutableSet.builder();
     collectEntries(resolutionRoot, new Stack<>(), collector);
     return collector.build();
@@ -203,7 +439,8 @@ public final class FibImpl implements Fib {
       Set<Prefix> seenNetworks,
       int depth,
       ResolutionTreeNode treeNode,
-      ResolutionRestriction<R> restriction) {
+      ResolutionRestriction<R> restriction,
+      ResolutionDependencies dependencies) {
     assert !route.getNonForwarding();
     Prefix network = route.getNetwork();
     checkState(!seenNetworks.contains(network), "Unexpected resolution loop resolving %s", route);
@@ -240,6 +477,10 @@ public final class FibImpl implements Fib {
                   return restriction.test(r);
                 });
 
+        dependencies._nextHopIps.add(nextHopIp.getIp());
+        if (!lpmRoutes.isEmpty()) {
+          dependencies._lpmNetworks.add(lpmRoutes.iterator().next().getNetwork());
+        }
         if (lpmRoutes.isEmpty()
             || newSeenNetworks.contains(lpmRoutes.iterator().next().getNetwork())) {
           // The next hop IP does not resolve or resolves in a loop, so this route becomes a
@@ -260,7 +501,8 @@ public final class FibImpl implements Fib {
               newSeenNetworks,
               depth + 1,
               ResolutionTreeNode.withParent(genericRoute, treeNode, null),
-              restriction);
+              restriction,
+              dependencies);
         }
         return null;
       }
@@ -300,6 +542,10 @@ public final class FibImpl implements Fib {
 
   @Override
   public @Nonnull Map<Prefix, IpSpace> getMatchingIps() {
+    return _matchingIps.get();
+  }
+
+  private @Nonnull Map<Prefix, IpSpace> computeMatchingIps() {
     ImmutableMap.Builder<Prefix, IpSpace> builder = ImmutableMap.builder();
 
     /* Do a fold over the trie. At each node, create the matching Ips for that prefix (adding it
@@ -36,6 +36,7 @@ import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
 import org.batfish.common.BatfishException;
 import org.batfish.common.util.ComparableStructure;
+import org.batfish.common.util.NameInterner;
 import org.batfish.datamodel.collections.NodeInterfacePair;
 import org.batfish.datamodel.eigrp.EigrpInterfaceSettings;
 import org.batfish.datamodel.hsrp.HsrpGroup;
@@ -114,7 +115,7 @@ public final class Interface extends ComparableStructure<String> {
 
     public Interface build() {
       checkArgument(_name != null || _nameGenerator != null, "Must set name before building");
-      String name = _name != null ? _name : _nameGenerator.get();
+      String name = NameInterner.intern(_name != null ? _name : _nameGenerator.get());
       Interface iface =
           _type == null ? new Interface(name, _owner) : new Interface(name, _owner, _type);
       if (_owner != null) {
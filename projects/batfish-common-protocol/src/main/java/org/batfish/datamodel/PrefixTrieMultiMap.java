@@ -318,16 +318,25 @@ public final class PrefixTrieMultiMap<T> implements Serializable {
 
   private void traverseEntriesImpl(
       BiConsumer<Prefix, Set<T>> consumer, @Nullable BiPredicate<Prefix, Set<T>> visitNode) {
-    Consumer<Node<T>> nodeConsumer =
-        node -> {
-          if (!node._elements.isEmpty()) {
-            consumer.accept(node._prefix, node._elements);
-          }
-        };
-    if (visitNode == null) {
-      traverseNodes(nodeConsumer);
-    } else {
-      traverseNodes(nodeConsumer, node -> visitNode.test(node._prefix, node._elements));
+    traverseEntries(_root, consumer, visitNode);
+  }
+
+  /**
+   * A depth-first post-order traversal of the entries of the tree rooted at {@code node}, stopping
+   * early if {@code visitNode} returns {@code false}. Unlike {@link #traverseNodes(Node, Consumer,
+   * Predicate)}, does not allocate wrappers around the callbacks.
+   */
+  private static <T> void traverseEntries(
+      @Nullable Node<T> node,
+      BiConsumer<Prefix, Set<T>> consumer,
+      @Nullable BiPredicate<Prefix, Set<T>> visitNode) {
+    if (node == null || (visitNode != null && !visitNode.test(node._prefix, node._elements))) {
+      return;
+    }
+    traverseEntries(node._left, consumer, visitNode);
+    traverseEntries(node._right, consumer, visitNode);
+    if (!node._elements.isEmpty()) {
+      consumer.accept(node._prefix, node._elements);
     }
   }
 
@@ -448,6 +457,44 @@ public final class PrefixTrieMultiMap<T> implements Serializable {
     return node == null ? ImmutableSet.of() : node._elements;
   }
 
+  /**
+   * Find the elements associated with the longest matching prefix of a given IP address, up to the
+   * given maximum length, among those whose elements satisfy {@code accept}. Returns the empty set
+   * if there is no such prefix.
+   *
+   * <p>This walks the trie once, from the longest match back to the shortest, and does not
+   * allocate. The extra argument to {@code accept} lets callers use a non-capturing predicate.
+   */
+  public @Nonnull <A> Set<T> longestPrefixMatch(
+      Ip address, int maxPrefixLength, BiPredicate<? super Set<T>, ? super A> accept, A arg) {
+    if (_root == null || !_root._prefix.containsPrefix(address, maxPrefixLength)) {
+      return ImmutableSet.of();
+    }
+    Node<T> node = longestAcceptedNode(_root, address, maxPrefixLength, accept, arg);
+    return node == null ? ImmutableSet.of() : node._elements;
+  }
+
+  /**
+   * Returns the node with the longest prefix in the subtree rooted at {@code node} that matches
+   * {@code ip} up to {@code maxPrefixLength} and whose elements are non-empty and accepted. {@code
+   * node} itself must match.
+   */
+  private static <T, A> @Nullable Node<T> longestAcceptedNode(
+      Node<T> node,
+      Ip ip,
+      int maxPrefixLength,
+      BiPredicate<? super Set<T>, ? super A> accept,
+      A arg) {
+    Node<T> child = node.matchingChild(ip, maxPrefixLength);
+    if (child != null) {
+      Node<T> longer = longestAcceptedNode(child, ip, maxPrefixLength, accept, arg);
+      if (longer != null) {
+        return longer;
+      }
+    }
+    return !node._elements.isEmpty() && accept.test(node._elements, arg) ? node : null;
+  }
+
   /**
    * Return all values whose keys intersect with the input {@link RangeSet}. Values are returned as
    * a {@link Stream} in post-order, so if prefix p1 contains p2, values for p2 will be returned
@@ -24,6 +24,7 @@ import java.util.stream.Stream;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import org.batfish.common.util.ComparableStructure;
+import org.batfish.common.util.NameInterner;
 import org.batfish.datamodel.dataplane.rib.RibGroup;
 import org.batfish.datamodel.eigrp.EigrpProcess;
 import org.batfish.datamodel.flow.OriginatingSessionScope;
@@ -53,7 +54,7 @@ public class Vrf extends ComparableStructure<String> {
       String name = _name != null ? _name : _nameGenerator.get();
       Vrf vrf = new Vrf(name);
       if (_owner != null) {
-        _owner.getVrfs().put(name, vrf);
+        _owner.getVrfs().put(vrf.getName(), vrf);
       }
       vrf.setEigrpProcesses(_eigrpProcesses);
       vrf.setVrfLeakConfig(_vrfLeakConfig);
@@ -129,7 +130,7 @@ public class Vrf extends ComparableStructure<String> {
   private @Nonnull SourceIpInference _sourceIpInference;
 
   public Vrf(@Nonnull String name) {
-    super(name);
+    super(NameInterner.intern(name));
     _appliedRibGroups = ImmutableSortedMap.of();
     _eigrpProcesses = ImmutableSortedMap.of();
     _generatedRoutes = new TreeSet<>();
@@ -50,6 +50,9 @@ public final class BgpTopology {
 
   private final ValueGraph<BgpPeerConfigId, BgpSessionProperties> _graph;
 
+  /* Cache the hashcode */
+  private int _hashCode;
+
   public BgpTopology(ValueGraph<BgpPeerConfigId, BgpSessionProperties> graph) {
     _graph = ImmutableValueGraph.copyOf(graph);
   }
@@ -84,12 +87,19 @@ public final class BgpTopology {
     if (!(obj instanceof BgpTopology)) {
       return false;
     }
-    return _graph.equals(((BgpTopology) obj)._graph);
+    BgpTopology other = (BgpTopology) obj;
+    // The cached hash codes usually differ when a topology changes between iterations.
+    return hashCode() == other.hashCode() && _graph.equals(other._graph);
   }
 
   @Override
   public int hashCode() {
-    return _graph.hashCode();
+    int h = _hashCode;
+    if (h == 0) {
+      h = _graph.hashCode();
+      _hashCode = h;
+    }
+    return h;
   }
 
   /** Directional, reversible BGP edge pointing to two {@link BgpPeerConfigId}. */
@@ -14,6 +14,7 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
 import org.batfish.common.util.InterfaceNameComparator;
+import org.batfish.common.util.NameInterner;
 import org.batfish.datamodel.Interface;
 
 /** Combination of node name and interface name */
@@ -49,8 +50,8 @@ public final class NodeInterfacePair implements Serializable, Comparable<NodeInt
   }
 
   private NodeInterfacePair(String hostname, String interfaceName) {
-    _hostname = hostname.toLowerCase();
-    _interfaceName = interfaceName;
+    _hostname = NameInterner.intern(hostname.toLowerCase());
+    _interfaceName = NameInterner.intern(interfaceName);
   }
 
   /** Return node name */
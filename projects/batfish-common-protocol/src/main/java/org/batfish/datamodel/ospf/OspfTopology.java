@@ -52,6 +52,9 @@ public final class OspfTopology {
 
   private final @Nonnull ValueGraph<OspfNeighborConfigId, OspfSessionProperties> _graph;
 
+  /* Cache the hashcode */
+  private int _hashCode;
+
   public OspfTopology(ValueGraph<OspfNeighborConfigId, OspfSessionProperties> graph) {
     _graph = ImmutableValueGraph.copyOf(graph);
   }
@@ -131,7 +134,7 @@ public final class OspfTopology {
       return false;
     }
     OspfTopology topology = (OspfTopology) o;
-    return _graph.equals(topology._graph);
+    return hashCode() == topology.hashCode() && _graph.equals(topology._graph);
   }
 
   /** Return the graph backing this topology */
@@ -142,7 +145,12 @@ public final class OspfTopology {
 
   @Override
   public int hashCode() {
-    return Objects.hashCode(_graph);
+    int h = _hashCode;
+    if (h == 0) {
+      h = _graph.hashCode();
+      _hashCode = h;
+    }
+    return h;
   }
 
   /** Directed OSPF edge representing a link between two {@link OspfNeighborConfigId} */
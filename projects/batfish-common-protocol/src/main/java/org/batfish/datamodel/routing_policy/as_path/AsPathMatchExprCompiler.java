@@ -0,0 +1,158 @@
+package org.batfish.datamodel.routing_policy.as_path;
+
+import com.google.common.collect.ImmutableList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiPredicate;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.batfish.common.util.RegexListMatcher;
+import org.batfish.datamodel.AsPath;
+
+/**
+ * A visitor that compiles an {@link AsPathMatchExpr} into a predicate on an {@link AsPath} and the
+ * {@link AsPathContext} it is evaluated under.
+ *
+ * <p>References to named {@link AsPathMatchExpr}s are resolved and regexes are compiled once, at
+ * compile time. A disjunction of regexes is matched by a single {@link RegexListMatcher}, in one
+ * pass over the AS-path string. Expressions without a compiled form are evaluated by the {@link
+ * AsPathMatchExprEvaluator} of the context. A compiled predicate returns the same result as {@link
+ * AsPathMatchExprEvaluator} under any context with the named structures it was compiled against.
+ */
+final class AsPathMatchExprCompiler
+    implements AsPathMatchExprVisitor<BiPredicate<AsPath, AsPathContext>, Void> {
+
+  /** Compiles {@code expr} against the named {@link AsPathMatchExpr}s of {@code ctx}. */
+  static @Nonnull BiPredicate<AsPath, AsPathContext> compile(
+      AsPathMatchExpr expr, AsPathContext ctx) {
+    return compile(expr, ctx, new HashMap<>());
+  }
+
+  /**
+   * Compiles {@code expr} against the named {@link AsPathMatchExpr}s of {@code ctx}, putting the
+   * name of each one it refers to into {@code resolvedReferences}, mapped to the expression it
+   * resolved to, or {@code null} if there was none. The compiled predicate remains valid for any
+   * context that resolves those names the same way.
+   */
+  static @Nonnull BiPredicate<AsPath, AsPathContext> compile(
+      AsPathMatchExpr expr,
+      AsPathContext ctx,
+      Map<String, AsPathMatchExpr> resolvedReferences) {
+    return new AsPathMatchExprCompiler(ctx.getAsPathMatchExprs(), resolvedReferences)
+        .compile(expr);
+  }
+
+  private AsPathMatchExprCompiler(
+      Map<String, AsPathMatchExpr> asPathMatchExprs,
+      Map<String, AsPathMatchExpr> resolvedReferences) {
+    _asPathMatchExprs = asPathMatchExprs;
+    _resolvedReferences = resolvedReferences;
+    _compiledReferences = new HashMap<>();
+  }
+
+  private @Nonnull BiPredicate<AsPath, AsPathContext> compile(AsPathMatchExpr expr) {
+    return expr.accept(this, null);
+  }
+
+  @Override
+  public @Nonnull BiPredicate<AsPath, AsPathContext> visitAsPathMatchAny(
+      AsPathMatchAny asPathMatchAny, Void arg) {
+    List<String> regexes = regexes(asPathMatchAny.getDisjuncts());
+    if (regexes != null) {
+      BiPredicate<AsPath, AsPathContext> compiled = compileRegexes(regexes);
+      if (compiled != null) {
+        return compiled;
+      }
+    }
+    List<BiPredicate<AsPath, AsPathContext>> disjuncts =
+        asPathMatchAny.getDisjuncts().stream()
+            .map(this::compile)
+            .collect(ImmutableList.toImmutableList());
+    return (asPath, ctx) -> {
+      for (BiPredicate<AsPath, AsPathContext> disjunct : disjuncts) {
+        if (disjunct.test(asPath, ctx)) {
+          return true;
+        }
+      }
+      return false;
+    };
+  }
+
+  @Override
+  public @Nonnull BiPredicate<AsPath, AsPathContext> visitAsPathMatchExprReference(
+      AsPathMatchExprReference asPathMatchExprReference, Void arg) {
+    String name = asPathMatchExprReference.getName();
+    BiPredicate<AsPath, AsPathContext> compiled = _compiledReferences.get(name);
+    if (compiled != null) {
+      return compiled;
+    }
+    AsPathMatchExpr expr = _asPathMatchExprs.get(name);
+    _resolvedReferences.put(name, expr);
+    // conversion to VI should guarantee expr is not null; if not, fail as the evaluator does.
+    compiled = expr != null ? compile(expr) : interpret(asPathMatchExprReference);
+    _compiledReferences.put(name, compiled);
+    return compiled;
+  }
+
+  @Override
+  public @Nonnull BiPredicate<AsPath, AsPathContext> visitAsPathMatchRegex(
+      AsPathMatchRegex asPathMatchRegex, Void arg) {
+    BiPredicate<AsPath, AsPathContext> compiled =
+        compileRegexes(ImmutableList.of(asPathMatchRegex.getRegex()));
+    return compiled != null ? compiled : interpret(asPathMatchRegex);
+  }
+
+  @Override
+  public @Nonnull BiPredicate<AsPath, AsPathContext> visitAsSetsMatchingRanges(
+      AsSetsMatchingRanges asSetsMatchingRanges, Void arg) {
+    return interpret(asSetsMatchingRanges);
+  }
+
+  @Override
+  public @Nonnull BiPredicate<AsPath, AsPathContext> visitHasAsPathLength(
+      HasAsPathLength hasAsPathLength, Void arg) {
+    return interpret(hasAsPathLength);
+  }
+
+  /**
+   * Returns the regexes of {@code exprs} if they are all {@link AsPathMatchRegex}es, or {@code
+   * null} otherwise.
+   */
+  private static @Nullable List<String> regexes(Collection<AsPathMatchExpr> exprs) {
+    ImmutableList.Builder<String> regexes = ImmutableList.builder();
+    for (AsPathMatchExpr expr : exprs) {
+      if (!(expr instanceof AsPathMatchRegex)) {
+        return null;
+      }
+      regexes.add(((AsPathMatchRegex) expr).getRegex());
+    }
+    return regexes.build();
+  }
+
+  /**
+   * Returns a predicate that is true if any of {@code regexes} finds a match in the AS-path
+   * string, or {@code null} if any regex is invalid.
+   */
+  private static @Nullable BiPredicate<AsPath, AsPathContext> compileRegexes(
+      List<String> regexes) {
+    RegexListMatcher matcher;
+    try {
+      matcher = RegexListMatcher.of(regexes);
+    } catch (RuntimeException e) {
+      // Fail only if the regex is evaluated, as the evaluator does.
+      return null;
+    }
+    return (asPath, ctx) -> matcher.anyMatch(asPath.getAsPathString());
+  }
+
+  /** Returns a predicate that evaluates {@code expr} by the evaluator of the context. */
+  private static @Nonnull BiPredicate<AsPath, AsPathContext> interpret(AsPathMatchExpr expr) {
+    return (asPath, ctx) -> expr.accept(ctx.getAsPathMatchExprEvaluator(), asPath);
+  }
+
+  private final @Nonnull Map<String, AsPathMatchExpr> _asPathMatchExprs;
+  private final @Nonnull Map<String, AsPathMatchExpr> _resolvedReferences;
+  private final @Nonnull Map<String, BiPredicate<AsPath, AsPathContext>> _compiledReferences;
+}
@@ -4,8 +4,11 @@ import static com.google.common.base.Preconditions.checkArgument;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.function.BiPredicate;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import org.batfish.datamodel.AsPath;
@@ -37,7 +40,20 @@ public final class MatchAsPath extends BooleanExpr {
     }
     AsPathContext ctx = maybeCtx.get();
     AsPath asPath = _asPathExpr.accept(AsPathExprEvaluator.instance(), ctx);
-    return new Result(_asPathMatchExpr.accept(ctx.getAsPathMatchExprEvaluator(), asPath));
+    return new Result(compiledMatchExpr(ctx).test(asPath, ctx));
+  }
+
+  /**
+   * Returns {@link #_asPathMatchExpr} compiled against the named structures of {@code ctx},
+   * compiling it only when those it refers to differ from the previous compilation.
+   */
+  private @Nonnull BiPredicate<AsPath, AsPathContext> compiledMatchExpr(AsPathContext ctx) {
+    CompiledMatchExpr compiled = _compiledMatchExpr;
+    if (compiled == null || !compiled.isValidFor(ctx)) {
+      compiled = new CompiledMatchExpr(ctx, _asPathMatchExpr);
+      _compiledMatchExpr = compiled;
+    }
+    return compiled._matcher;
   }
 
   @JsonProperty(PROP_AS_PATH_EXPR)
@@ -93,4 +109,34 @@ public final class MatchAsPath extends BooleanExpr {
     _asPathExpr = asPathExpr;
     _asPathMatchExpr = asPathMatchExpr;
   }
+
+  /** An {@link AsPathMatchExpr} compiled against the named structures of a context. */
+  private static final class CompiledMatchExpr {
+    private CompiledMatchExpr(AsPathContext ctx, AsPathMatchExpr expr) {
+      Map<String, AsPathMatchExpr> resolvedReferences = new HashMap<>();
+      _matcher = AsPathMatchExprCompiler.compile(expr, ctx, resolvedReferences);
+      _resolvedReferences = resolvedReferences;
+    }
+
+    /**
+     * Returns whether {@code ctx} resolves every reference the same way as the context compiled
+     * against. The named structures are mutable, so this is checked on every evaluation.
+     */
+    private boolean isValidFor(AsPathContext ctx) {
+      Map<String, AsPathMatchExpr> asPathMatchExprs = ctx.getAsPathMatchExprs();
+      for (Map.Entry<String, AsPathMatchExpr> reference : _resolvedReferences.entrySet()) {
+        if (asPathMatchExprs.get(reference.getKey()) != reference.getValue()) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /** Each name the expression refers to, mapped to what it resolved to, or {@code null} */
+    private final @Nonnull Map<String, AsPathMatchExpr> _resolvedReferences;
+    private final @Nonnull BiPredicate<AsPath, AsPathContext> _matcher;
+  }
+
+  // Compiled on first evaluation, when the named structures it refers to are known.
+  private transient volatile @Nullable CompiledMatchExpr _compiledMatchExpr;
 }
@@ -0,0 +1,317 @@
+package org.batfish.datamodel.routing_policy.communities;
+
+import com.google.common.collect.ImmutableList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiPredicate;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.batfish.common.util.RegexListMatcher;
+import org.batfish.datamodel.LineAction;
+import org.batfish.datamodel.bgp.community.Community;
+import org.batfish.datamodel.bgp.community.ExtendedCommunity;
+import org.batfish.datamodel.bgp.community.LargeCommunity;
+import org.batfish.datamodel.bgp.community.StandardCommunity;
+
+/**
+ * A visitor that compiles a {@link CommunityMatchExpr} into a predicate on a {@link Community} and
+ * the {@link CommunityContext} it is evaluated under.
+ *
+ * <p>References to named {@link CommunityMatchExpr}s are resolved once, at compile time, and
+ * composite expressions become flat lists of compiled operands. An ACL or disjunction of regexes
+ * over the same rendering is matched by a single {@link RegexListMatcher}, in one pass over the
+ * rendered community. Expressions without a compiled form are evaluated by the {@link
+ * CommunityMatchExprEvaluator} of the context. A compiled predicate returns the same result as
+ * {@link CommunityMatchExprEvaluator} under any context with the named structures it was compiled
+ * against.
+ */
+final class CommunityMatchExprCompiler
+    implements CommunityMatchExprVisitor<BiPredicate<Community, CommunityContext>, Void> {
+
+  /**
+   * Creates a compiler against the given named {@link CommunityMatchExpr}s, which puts the name of
+   * each one it refers to into {@code resolvedReferences}, mapped to the expression it resolved to,
+   * or {@code null} if there was none.
+   */
+  CommunityMatchExprCompiler(
+      Map<String, CommunityMatchExpr> communityMatchExprs,
+      Map<String, CommunityMatchExpr> resolvedReferences) {
+    _communityMatchExprs = communityMatchExprs;
+    _resolvedReferences = resolvedReferences;
+    _compiledReferences = new HashMap<>();
+  }
+
+  @Nonnull
+  BiPredicate<Community, CommunityContext> compile(CommunityMatchExpr expr) {
+    return expr.accept(this, null);
+  }
+
+  @Override
+  public @Nonnull BiPredicate<Community, CommunityContext> visitAllExtendedCommunities(
+      AllExtendedCommunities allExtendedCommunities, Void arg) {
+    return (community, ctx) -> community instanceof ExtendedCommunity;
+  }
+
+  @Override
+  public @Nonnull BiPredicate<Community, CommunityContext> visitAllLargeCommunities(
+      AllLargeCommunities allLargeCommunities, Void arg) {
+    return (community, ctx) -> community instanceof LargeCommunity;
+  }
+
+  @Override
+  public @Nonnull BiPredicate<Community, CommunityContext> visitAllStandardCommunities(
+      AllStandardCommunities allStandardCommunities, Void arg) {
+    return (community, ctx) -> community instanceof StandardCommunity;
+  }
+
+  @Override
+  public @Nonnull BiPredicate<Community, CommunityContext> visitCommunityAcl(
+      CommunityAcl communityAcl, Void arg) {
+    List<CommunityAclLine> lines = communityAcl.getLines();
+    boolean[] permits = new boolean[lines.size()];
+    for (int i = 0; i < permits.length; i++) {
+      permits[i] = lines.get(i).getAction() == LineAction.PERMIT;
+    }
+    RegexMatcher regexMatcher =
+        RegexMatcher.of(
+            lines.stream()
+                .map(CommunityAclLine::getCommunityMatchExpr)
+                .collect(ImmutableList.toImmutableList()));
+    if (regexMatcher != null) {
+      return (community, ctx) -> {
+        int line = regexMatcher.firstMatch(community);
+        return line >= 0 && permits[line];
+      };
+    }
+    List<BiPredicate<Community, CommunityContext>> matchers =
+        lines.stream()
+            .map(line -> compile(line.getCommunityMatchExpr()))
+            .collect(ImmutableList.toImmutableList());
+    return (community, ctx) -> {
+      for (int i = 0; i < permits.length; i++) {
+        if (matchers.get(i).test(community, ctx)) {
+          return permits[i];
+        }
+      }
+      return false;
+    };
+  }
+
+  @Override
+  public @Nonnull BiPredicate<Community, CommunityContext> visitCommunityIn(
+      CommunityIn communityIn, Void arg) {
+    // The community set may depend on the input communities, so it is evaluated each time.
+    return interpret(communityIn);
+  }
+
+  @Override
+  public @Nonnull BiPredicate<Community, CommunityContext> visitCommunityIs(
+      CommunityIs communityIs, Void arg) {
+    Community expected = communityIs.getCommunity();
+    return (community, ctx) -> community.equals(expected);
+  }
+
+  @Override
+  public @Nonnull BiPredicate<Community, CommunityContext> visitCommunityMatchAll(
+      CommunityMatchAll communityMatchAll, Void arg) {
+    List<BiPredicate<Community, CommunityContext>> conjuncts =
+        compileAll(communityMatchAll.getExprs());
+    return (community, ctx) -> {
+      for (BiPredicate<Community, CommunityContext> conjunct : conjuncts) {
+        if (!conjunct.test(community, ctx)) {
+          return false;
+        }
+      }
+      return true;
+    };
+  }
+
+  @Override
+  public @Nonnull BiPredicate<Community, CommunityContext> visitCommunityMatchAny(
+      CommunityMatchAny communityMatchAny, Void arg) {
+    RegexMatcher regexMatcher = RegexMatcher.of(communityMatchAny.getExprs());
+    if (regexMatcher != null) {
+      return (community, ctx) -> regexMatcher.firstMatch(community) >= 0;
+    }
+    List<BiPredicate<Community, CommunityContext>> disjuncts =
+        compileAll(communityMatchAny.getExprs());
+    return (community, ctx) -> {
+      for (BiPredicate<Community, CommunityContext> disjunct : disjuncts) {
+        if (disjunct.test(community, ctx)) {
+          return true;
+        }
+      }
+      return false;
+    };
+  }
+
+  @Override
+  public @Nonnull BiPredicate<Community, CommunityContext> visitCommunityMatchExprReference(
+      CommunityMatchExprReference communityMatchExprReference, Void arg) {
+    String name = communityMatchExprReference.getName();
+    BiPredicate<Community, CommunityContext> compiled = _compiledReferences.get(name);
+    if (compiled != null) {
+      return compiled;
+    }
+    CommunityMatchExpr expr = _communityMatchExprs.get(name);
+    _resolvedReferences.put(name, expr);
+    // conversion to VI should guarantee expr is not null; if not, fail as the evaluator does.
+    compiled = expr != null ? compile(expr) : interpret(communityMatchExprReference);
+    _compiledReferences.put(name, compiled);
+    return compiled;
+  }
+
+  @Override
+  public @Nonnull BiPredicate<Community, CommunityContext> visitCommunityMatchRegex(
+      CommunityMatchRegex communityMatchRegex, Void arg) {
+    RegexMatcher regexMatcher = RegexMatcher.of(ImmutableList.of(communityMatchRegex));
+    if (regexMatcher != null) {
+      return (community, ctx) -> regexMatcher.firstMatch(community) >= 0;
+    }
+    return interpret(communityMatchRegex);
+  }
+
+  @Override
+  public @Nonnull BiPredicate<Community, CommunityContext> visitCommunityNot(
+      CommunityNot communityNot, Void arg) {
+    return compile(communityNot.getExpr()).negate();
+  }
+
+  @Override
+  public @Nonnull BiPredicate<Community, CommunityContext>
+      visitExtendedCommunityGlobalAdministratorHighMatch(
+          ExtendedCommunityGlobalAdministratorHighMatch
+              extendedCommunityGlobalAdministratorHighMatch,
+          Void arg) {
+    return interpret(extendedCommunityGlobalAdministratorHighMatch);
+  }
+
+  @Override
+  public @Nonnull BiPredicate<Community, CommunityContext>
+      visitExtendedCommunityGlobalAdministratorLowMatch(
+          ExtendedCommunityGlobalAdministratorLowMatch extendedCommunityGlobalAdministratorLowMatch,
+          Void arg) {
+    return interpret(extendedCommunityGlobalAdministratorLowMatch);
+  }
+
+  @Override
+  public @Nonnull BiPredicate<Community, CommunityContext>
+      visitExtendedCommunityGlobalAdministratorMatch(
+          ExtendedCommunityGlobalAdministratorMatch extendedCommunityGlobalAdministratorMatch,
+          Void arg) {
+    return interpret(extendedCommunityGlobalAdministratorMatch);
+  }
+
+  @Override
+  public @Nonnull BiPredicate<Community, CommunityContext>
+      visitExtendedCommunityLocalAdministratorMatch(
+          ExtendedCommunityLocalAdministratorMatch extendedCommunityLocalAdministratorMatch,
+          Void arg) {
+    return interpret(extendedCommunityLocalAdministratorMatch);
+  }
+
+  @Override
+  public @Nonnull BiPredicate<Community, CommunityContext> visitOpaqueExtendedCommunities(
+      OpaqueExtendedCommunities opaqueExtendedCommunities, Void arg) {
+    return interpret(opaqueExtendedCommunities);
+  }
+
+  @Override
+  public @Nonnull BiPredicate<Community, CommunityContext> visitRouteTargetExtendedCommunities(
+      RouteTargetExtendedCommunities routeTargetExtendedCommunities, Void arg) {
+    return (community, ctx) ->
+        community instanceof ExtendedCommunity && ((ExtendedCommunity) community).isRouteTarget();
+  }
+
+  @Override
+  public @Nonnull BiPredicate<Community, CommunityContext> visitSiteOfOriginExtendedCommunities(
+      SiteOfOriginExtendedCommunities siteOfOriginExtendedCommunities, Void arg) {
+    return (community, ctx) ->
+        community instanceof ExtendedCommunity && ((ExtendedCommunity) community).isRouteOrigin();
+  }
+
+  @Override
+  public @Nonnull BiPredicate<Community, CommunityContext> visitStandardCommunityHighMatch(
+      StandardCommunityHighMatch standardCommunityHighMatch, Void arg) {
+    return interpret(standardCommunityHighMatch);
+  }
+
+  @Override
+  public @Nonnull BiPredicate<Community, CommunityContext> visitStandardCommunityLowMatch(
+      StandardCommunityLowMatch standardCommunityLowMatch, Void arg) {
+    return interpret(standardCommunityLowMatch);
+  }
+
+  @Override
+  public @Nonnull BiPredicate<Community, CommunityContext> visitVpnDistinguisherExtendedCommunities(
+      VpnDistinguisherExtendedCommunities vpnDistinguisherExtendedCommunities, Void arg) {
+    return (community, ctx) ->
+        community instanceof ExtendedCommunity
+            && ((ExtendedCommunity) community).isVpnDistinguisher();
+  }
+
+  private @Nonnull List<BiPredicate<Community, CommunityContext>> compileAll(
+      Collection<CommunityMatchExpr> exprs) {
+    return exprs.stream().map(this::compile).collect(ImmutableList.toImmutableList());
+  }
+
+  /** Matches communities against a list of regexes over the same {@link CommunityRendering}. */
+  private static final class RegexMatcher {
+
+    /**
+     * Returns a matcher for {@code exprs} if they are all {@link CommunityMatchRegex}es over the
+     * same rendering with valid regexes, or {@code null} otherwise.
+     */
+    static @Nullable RegexMatcher of(Collection<? extends CommunityMatchExpr> exprs) {
+      CommunityRendering rendering = null;
+      ImmutableList.Builder<String> regexes = ImmutableList.builder();
+      for (CommunityMatchExpr expr : exprs) {
+        if (!(expr instanceof CommunityMatchRegex)) {
+          return null;
+        }
+        CommunityMatchRegex regex = (CommunityMatchRegex) expr;
+        if (rendering == null) {
+          rendering = regex.getCommunityRendering();
+        } else if (!rendering.equals(regex.getCommunityRendering())) {
+          return null;
+        }
+        regexes.add(regex.getRegex());
+      }
+      if (rendering == null) {
+        return null;
+      }
+      try {
+        return new RegexMatcher(rendering, RegexListMatcher.of(regexes.build()));
+      } catch (RuntimeException e) {
+        // Fail only if the regex is evaluated, as the evaluator does.
+        return null;
+      }
+    }
+
+    /** Returns the index of the first regex matching {@code community}, or {@code -1}. */
+    int firstMatch(Community community) {
+      return _matcher.firstMatch(
+          _rendering.accept(CommunityToRegexInputString.instance(), community));
+    }
+
+    private RegexMatcher(CommunityRendering rendering, RegexListMatcher matcher) {
+      _rendering = rendering;
+      _matcher = matcher;
+    }
+
+    private final @Nonnull CommunityRendering _rendering;
+    private final @Nonnull RegexListMatcher _matcher;
+  }
+
+  /** Returns a predicate that evaluates {@code expr} by the evaluator of the context. */
+  private static @Nonnull BiPredicate<Community, CommunityContext> interpret(
+      CommunityMatchExpr expr) {
+    return (community, ctx) -> expr.accept(ctx.getCommunityMatchExprEvaluator(), community);
+  }
+
+  private final @Nonnull Map<String, CommunityMatchExpr> _communityMatchExprs;
+  private final @Nonnull Map<String, CommunityMatchExpr> _resolvedReferences;
+  private final @Nonnull Map<String, BiPredicate<Community, CommunityContext>> _compiledReferences;
+}
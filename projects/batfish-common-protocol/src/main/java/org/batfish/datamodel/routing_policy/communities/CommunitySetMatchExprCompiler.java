@@ -0,0 +1,260 @@
+package org.batfish.datamodel.routing_policy.communities;
+
+import com.google.common.collect.ImmutableList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiPredicate;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.batfish.common.util.RegexListMatcher;
+import org.batfish.datamodel.LineAction;
+import org.batfish.datamodel.bgp.community.Community;
+
+/**
+ * A visitor that compiles a {@link CommunitySetMatchExpr} into a predicate on a {@link
+ * CommunitySet} and the {@link CommunityContext} it is evaluated under.
+ *
+ * <p>References to named {@link CommunitySetMatchExpr}s and {@link CommunityMatchExpr}s are
+ * resolved once, at compile time, and composite expressions become flat lists of compiled operands.
+ * An ACL or disjunction of regexes over the same rendering is matched by a single {@link
+ * RegexListMatcher}, in one pass over the rendered community set. Expressions without a compiled
+ * form are evaluated by the {@link CommunitySetMatchExprEvaluator} of the context. A compiled
+ * predicate returns the same result as {@link CommunitySetMatchExprEvaluator} under any context
+ * with the named structures it was compiled against.
+ */
+final class CommunitySetMatchExprCompiler
+    implements CommunitySetMatchExprVisitor<BiPredicate<CommunitySet, CommunityContext>, Void> {
+
+  /**
+   * Compiles {@code expr} against the named {@link CommunitySetMatchExpr}s and {@link
+   * CommunityMatchExpr}s of {@code ctx}.
+   */
+  static @Nonnull BiPredicate<CommunitySet, CommunityContext> compile(
+      CommunitySetMatchExpr expr, CommunityContext ctx) {
+    return compile(expr, ctx, new HashMap<>(), new HashMap<>());
+  }
+
+  /**
+   * Compiles {@code expr} against the named {@link CommunitySetMatchExpr}s and {@link
+   * CommunityMatchExpr}s of {@code ctx}, putting the name of each one it refers to into {@code
+   * resolvedSetReferences} or {@code resolvedReferences} respectively, mapped to the expression it
+   * resolved to, or {@code null} if there was none. The compiled predicate remains valid for any
+   * context that resolves those names the same way.
+   */
+  static @Nonnull BiPredicate<CommunitySet, CommunityContext> compile(
+      CommunitySetMatchExpr expr,
+      CommunityContext ctx,
+      Map<String, CommunitySetMatchExpr> resolvedSetReferences,
+      Map<String, CommunityMatchExpr> resolvedReferences) {
+    return new CommunitySetMatchExprCompiler(
+            ctx.getCommunitySetMatchExprs(),
+            resolvedSetReferences,
+            new CommunityMatchExprCompiler(ctx.getCommunityMatchExprs(), resolvedReferences))
+        .compile(expr);
+  }
+
+  private CommunitySetMatchExprCompiler(
+      Map<String, CommunitySetMatchExpr> communitySetMatchExprs,
+      Map<String, CommunitySetMatchExpr> resolvedReferences,
+      CommunityMatchExprCompiler communityMatchExprCompiler) {
+    _communitySetMatchExprs = communitySetMatchExprs;
+    _resolvedReferences = resolvedReferences;
+    _communityMatchExprCompiler = communityMatchExprCompiler;
+    _compiledReferences = new HashMap<>();
+  }
+
+  private @Nonnull BiPredicate<CommunitySet, CommunityContext> compile(
+      CommunitySetMatchExpr expr) {
+    return expr.accept(this, null);
+  }
+
+  @Override
+  public @Nonnull BiPredicate<CommunitySet, CommunityContext> visitCommunitySetAcl(
+      CommunitySetAcl communitySetAcl, Void arg) {
+    List<CommunitySetAclLine> lines = communitySetAcl.getLines();
+    boolean[] permits = new boolean[lines.size()];
+    for (int i = 0; i < permits.length; i++) {
+      permits[i] = lines.get(i).getAction() == LineAction.PERMIT;
+    }
+    RegexMatcher regexMatcher =
+        RegexMatcher.of(
+            lines.stream()
+                .map(CommunitySetAclLine::getCommunitySetMatchExpr)
+                .collect(ImmutableList.toImmutableList()));
+    if (regexMatcher != null) {
+      return (communitySet, ctx) -> {
+        int line = regexMatcher.firstMatch(communitySet);
+        return line >= 0 && permits[line];
+      };
+    }
+    List<BiPredicate<CommunitySet, CommunityContext>> matchers =
+        lines.stream()
+            .map(line -> compile(line.getCommunitySetMatchExpr()))
+            .collect(ImmutableList.toImmutableList());
+    return (communitySet, ctx) -> {
+      for (int i = 0; i < permits.length; i++) {
+        if (matchers.get(i).test(communitySet, ctx)) {
+          return permits[i];
+        }
+      }
+      return false;
+    };
+  }
+
+  @Override
+  public @Nonnull BiPredicate<CommunitySet, CommunityContext> visitCommunitySetMatchAll(
+      CommunitySetMatchAll communitySetMatchAll, Void arg) {
+    List<BiPredicate<CommunitySet, CommunityContext>> conjuncts =
+        compileAll(communitySetMatchAll.getExprs());
+    return (communitySet, ctx) -> {
+      for (BiPredicate<CommunitySet, CommunityContext> conjunct : conjuncts) {
+        if (!conjunct.test(communitySet, ctx)) {
+          return false;
+        }
+      }
+      return true;
+    };
+  }
+
+  @Override
+  public @Nonnull BiPredicate<CommunitySet, CommunityContext> visitCommunitySetMatchAny(
+      CommunitySetMatchAny communitySetMatchAny, Void arg) {
+    RegexMatcher regexMatcher = RegexMatcher.of(communitySetMatchAny.getExprs());
+    if (regexMatcher != null) {
+      return (communitySet, ctx) -> regexMatcher.firstMatch(communitySet) >= 0;
+    }
+    List<BiPredicate<CommunitySet, CommunityContext>> disjuncts =
+        compileAll(communitySetMatchAny.getExprs());
+    return (communitySet, ctx) -> {
+      for (BiPredicate<CommunitySet, CommunityContext> disjunct : disjuncts) {
+        if (disjunct.test(communitySet, ctx)) {
+          return true;
+        }
+      }
+      return false;
+    };
+  }
+
+  @Override
+  public @Nonnull BiPredicate<CommunitySet, CommunityContext> visitCommunitySetMatchExprReference(
+      CommunitySetMatchExprReference communitySetMatchExprReference, Void arg) {
+    String name = communitySetMatchExprReference.getName();
+    BiPredicate<CommunitySet, CommunityContext> compiled = _compiledReferences.get(name);
+    if (compiled != null) {
+      return compiled;
+    }
+    CommunitySetMatchExpr expr = _communitySetMatchExprs.get(name);
+    _resolvedReferences.put(name, expr);
+    // conversion to VI should guarantee expr is not null; if not, fail as the evaluator does.
+    compiled = expr != null ? compile(expr) : interpret(communitySetMatchExprReference);
+    _compiledReferences.put(name, compiled);
+    return compiled;
+  }
+
+  @Override
+  public @Nonnull BiPredicate<CommunitySet, CommunityContext> visitCommunitySetMatchRegex(
+      CommunitySetMatchRegex communitySetMatchRegex, Void arg) {
+    RegexMatcher regexMatcher = RegexMatcher.of(ImmutableList.of(communitySetMatchRegex));
+    if (regexMatcher != null) {
+      return (communitySet, ctx) -> regexMatcher.firstMatch(communitySet) >= 0;
+    }
+    return interpret(communitySetMatchRegex);
+  }
+
+  @Override
+  public @Nonnull BiPredicate<CommunitySet, CommunityContext> visitCommunitySetNot(
+      CommunitySetNot communitySetNot, Void arg) {
+    return compile(communitySetNot.getExpr()).negate();
+  }
+
+  @Override
+  public @Nonnull BiPredicate<CommunitySet, CommunityContext> visitHasCommunity(
+      HasCommunity hasCommunity, Void arg) {
+    BiPredicate<Community, CommunityContext> communityMatcher =
+        _communityMatchExprCompiler.compile(hasCommunity.getExpr());
+    return (communitySet, ctx) -> {
+      for (Community community : communitySet.getCommunities()) {
+        if (communityMatcher.test(community, ctx)) {
+          return true;
+        }
+      }
+      return false;
+    };
+  }
+
+  @Override
+  public @Nonnull BiPredicate<CommunitySet, CommunityContext> visitHasSize(
+      HasSize hasSize, Void arg) {
+    return interpret(hasSize);
+  }
+
+  private @Nonnull List<BiPredicate<CommunitySet, CommunityContext>> compileAll(
+      Collection<CommunitySetMatchExpr> exprs) {
+    return exprs.stream().map(this::compile).collect(ImmutableList.toImmutableList());
+  }
+
+  /**
+   * Matches community sets against a list of regexes over the same {@link CommunitySetRendering}.
+   */
+  private static final class RegexMatcher {
+
+    /**
+     * Returns a matcher for {@code exprs} if they are all {@link CommunitySetMatchRegex}es over the
+     * same rendering with valid regexes, or {@code null} otherwise.
+     */
+    static @Nullable RegexMatcher of(Collection<? extends CommunitySetMatchExpr> exprs) {
+      CommunitySetRendering rendering = null;
+      ImmutableList.Builder<String> regexes = ImmutableList.builder();
+      for (CommunitySetMatchExpr expr : exprs) {
+        if (!(expr instanceof CommunitySetMatchRegex)) {
+          return null;
+        }
+        CommunitySetMatchRegex regex = (CommunitySetMatchRegex) expr;
+        if (rendering == null) {
+          rendering = regex.getCommunitySetRendering();
+        } else if (!rendering.equals(regex.getCommunitySetRendering())) {
+          return null;
+        }
+        regexes.add(regex.getRegex());
+      }
+      if (rendering == null) {
+        return null;
+      }
+      try {
+        return new RegexMatcher(rendering, RegexListMatcher.of(regexes.build()));
+      } catch (RuntimeException e) {
+        // Fail only if the regex is evaluated, as the evaluator does.
+        return null;
+      }
+    }
+
+    /** Returns the index of the first regex matching {@code communitySet}, or {@code -1}. */
+    int firstMatch(CommunitySet communitySet) {
+      return _matcher.firstMatch(
+          _rendering.accept(CommunitySetToRegexInputString.instance(), communitySet));
+    }
+
+    private RegexMatcher(CommunitySetRendering rendering, RegexListMatcher matcher) {
+      _rendering = rendering;
+      _matcher = matcher;
+    }
+
+    private final @Nonnull CommunitySetRendering _rendering;
+    private final @Nonnull RegexListMatcher _matcher;
+  }
+
+  /** Returns a predicate that evaluates {@code expr} by the evaluator of the context. */
+  private static @Nonnull BiPredicate<CommunitySet, CommunityContext> interpret(
+      CommunitySetMatchExpr expr) {
+    return (communitySet, ctx) ->
+        expr.accept(ctx.getCommunitySetMatchExprEvaluator(), communitySet);
+  }
+
+  private final @Nonnull Map<String, CommunitySetMatchExpr> _communitySetMatchExprs;
+  private final @Nonnull Map<String, CommunitySetMatchExpr> _resolvedReferences;
+  private final @Nonnull CommunityMatchExprCompiler _communityMatchExprCompiler;
+  private final @Nonnull Map<String, BiPredicate<CommunitySet, CommunityContext>>
+      _compiledReferences;
+}
@@ -5,7 +5,10 @@ import static com.google.common.base.Preconditions.checkArgument;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.base.MoreObjects.ToStringHelper;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Objects;
+import java.util.function.BiPredicate;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import org.batfish.datamodel.routing_policy.Environment;
@@ -31,11 +34,24 @@ public final class MatchCommunities extends BooleanExpr {
   public @Nonnull Result evaluate(Environment environment) {
     CommunityContext ctx = CommunityContext.fromEnvironment(environment);
     CommunitySet communitySet = _communitySetExpr.accept(CommunitySetExprEvaluator.instance(), ctx);
-    boolean ret =
-        _communitySetMatchExpr.accept(ctx.getCommunitySetMatchExprEvaluator(), communitySet);
+    boolean ret = compiledMatchExpr(ctx).test(communitySet, ctx);
     return Result.builder().setBooleanValue(ret).build();
   }
 
+  /**
+   * Returns {@link #_communitySetMatchExpr} compiled against the named structures of {@code ctx},
+   * compiling it only when those it refers to differ from the previous compilation.
+   */
+  private @Nonnull BiPredicate<CommunitySet, CommunityContext> compiledMatchExpr(
+      CommunityContext ctx) {
+    CompiledMatchExpr compiled = _compiledMatchExpr;
+    if (compiled == null || !compiled.isValidFor(ctx)) {
+      compiled = new CompiledMatchExpr(ctx, _communitySetMatchExpr);
+      _compiledMatchExpr = compiled;
+    }
+    return compiled._matcher;
+  }
+
   @JsonProperty(PROP_COMMUNITY_SET_EXPR)
   public @Nonnull CommunitySetExpr getCommunitySetExpr() {
     return _communitySetExpr;
@@ -86,4 +102,45 @@ public final class MatchCommunities extends BooleanExpr {
 
   private final @Nonnull CommunitySetExpr _communitySetExpr;
   private final @Nonnull CommunitySetMatchExpr _communitySetMatchExpr;
+
+  /** A {@link CommunitySetMatchExpr} compiled against the named structures of a context. */
+  private static final class CompiledMatchExpr {
+    private CompiledMatchExpr(CommunityContext ctx, CommunitySetMatchExpr expr) {
+      Map<String, CommunitySetMatchExpr> resolvedSetReferences = new HashMap<>();
+      Map<String, CommunityMatchExpr> resolvedReferences = new HashMap<>();
+      _matcher =
+          CommunitySetMatchExprCompiler.compile(
+              expr, ctx, resolvedSetReferences, resolvedReferences);
+      _resolvedSetReferences = resolvedSetReferences;
+      _resolvedReferences = resolvedReferences;
+    }
+
+    /**
+     * Returns whether {@code ctx} resolves every reference the same way as the context compiled
+     * against. The named structures are mutable, so this is checked on every evaluation.
+     */
+    private boolean isValidFor(CommunityContext ctx) {
+      return resolvesSame(ctx.getCommunitySetMatchExprs(), _resolvedSetReferences)
+          && resolvesSame(ctx.getCommunityMatchExprs(), _resolvedReferences);
+    }
+
+    private static <T> boolean resolvesSame(
+        Map<String, T> namedExprs, Map<String, T> resolvedReferences) {
+      for (Map.Entry<String, T> reference : resolvedReferences.entrySet()) {
+        if (namedExprs.get(reference.getKey()) != reference.getValue()) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /** Each named set match expression referred to, mapped to what it resolved to, or null */
+    private final @Nonnull Map<String, CommunitySetMatchExpr> _resolvedSetReferences;
+    /** Each named match expression referred to, mapped to what it resolved to, or null */
+    private final @Nonnull Map<String, CommunityMatchExpr> _resolvedReferences;
+    private final @Nonnull BiPredicate<CommunitySet, CommunityContext> _matcher;
+  }
+
+  // Compiled on first evaluation, when the named structures it refers to are known.
+  private transient volatile @Nullable CompiledMatchExpr _compiledMatchExpr;
 }
@@ -27,6 +27,7 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.OutputStream;
 import java.io.PushbackInputStream;
@@ -64,7 +65,6 @@ import net.jpountz.lz4.LZ4FrameInputStream;
 import net.jpountz.lz4.LZ4FrameOutputStream;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
-import org.apache.commons.lang3.SerializationUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.batfish.common.BatfishException;
@@ -77,6 +77,7 @@ import org.batfish.common.runtime.SnapshotRuntimeData;
 import org.batfish.common.topology.L3Adjacencies;
 import org.batfish.common.topology.Layer1Topology;
 import org.batfish.common.util.BatfishObjectMapper;
+import org.batfish.common.util.NameInterner;
 import org.batfish.common.util.ZipUtility;
 import org.batfish.datamodel.Configuration;
 import org.batfish.datamodel.DataPlane;
@@ -142,6 +143,7 @@ public class FileBasedStorage implements StorageProvider {
   private static final String RELPATH_SNAPSHOT_ZIP_FILE = "snapshot.zip";
   private static final String RELPATH_DATA_PLANE = "dp";
   private static final String RELPATH_DATA_PLANE_FORWARDING_ANALYSIS = "forwarding_analysis";
+  private static final String RELPATH_DATA_PLANE_CHECKPOINTS = "dp_checkpoints";
   private static final String RELPATH_SERIALIZED_ENVIRONMENT_BGP_TABLES = "bgp_processed";
   private static final String RELPATH_ENVIRONMENT_BGP_TABLES_ANSWER = "bgp_answer";
   private static final String RELPATH_PARSE_ANSWER_PATH = "parse_answer";
@@ -550,7 +552,11 @@ public class FileBasedStorage implements StorageProvider {
         throw new BatfishException(
             String.format("Could not detect format of the file %s", sanitizedInputFile));
       }
-      return SerializationUtils.deserialize(ois);
+      // Names are repeated across objects and files; share one copy of each.
+      ObjectInputStream in = closer.register(NameInterner.newInterningObjectInputStream(ois));
+      @SuppressWarnings("unchecked")
+      S ret = (S) in.readObject();
+      return ret;
     } catch (Exception e) {
       throw new BatfishException(
           String.format("Failed to deserialize object from file %s", sanitizedInputFile), e);
@@ -1584,6 +1590,28 @@ public class FileBasedStorage implements StorageProvider {
     return Files.exists(getDataPlanePath(snapshot));
   }
 
+  @MustBeClosed
+  @Override
+  public @Nonnull InputStream loadDataPlaneCheckpoint(NetworkSnapshot snapshot, String key)
+      throws FileNotFoundException, IOException {
+    Path checkpointPath = getDataPlaneCheckpointPath(snapshot, key);
+    if (!Files.exists(checkpointPath)) {
+      throw new FileNotFoundException(String.format("Could not load: %s", checkpointPath));
+    }
+    return Files.newInputStream(checkpointPath);
+  }
+
+  @Override
+  public void storeDataPlaneCheckpoint(
+      InputStream inputStream, NetworkSnapshot snapshot, String key) throws IOException {
+    writeStreamToFile(inputStream, getDataPlaneCheckpointPath(snapshot, key));
+  }
+
+  @Override
+  public void deleteDataPlaneCheckpoints(NetworkSnapshot snapshot) throws IOException {
+    deleteDirectory(getDataPlaneCheckpointsDir(snapshot));
+  }
+
   @MustBeClosed
   @Override
   public @Nonnull Stream<String> listInputEnvironmentBgpTableKeys(NetworkSnapshot snapshot)
@@ -1674,20 +1702,6 @@ public class FileBasedStorage implements StorageProvider {
     deleteDirectory(getEnvironmentBgpTablesPath(snapshot));
   }
 
-  @Override
-  public @Nonnull Optional<String> loadExternalBgpAnnouncementsFile(NetworkSnapshot snapshot)
-      throws IOException {
-    Path path =
-        getSnapshotInputObjectPath(
-            snapshot.getNetwork(),
-            snapshot.getSnapshot(),
-            BfConsts.RELPATH_EXTERNAL_BGP_ANNOUNCEMENTS);
-    if (!Files.exists(path)) {
-      return Optional.empty();
-    }
-    return Optional.of(readFileToString(path, UTF_8));
-  }
-
   private @Nonnull Path getEnvironmentBgpTablesPath(NetworkSnapshot snapshot) {
     return getSnapshotOutputDir(snapshot.getNetwork(), snapshot.getSnapshot())
         .resolve(RELPATH_SERIALIZED_ENVIRONMENT_BGP_TABLES);
@@ -1706,6 +1720,15 @@ public class FileBasedStorage implements StorageProvider {
     return getDataPlanePath(snapshot).resolve(RELPATH_DATA_PLANE_FORWARDING_ANALYSIS);
   }
 
+  private @Nonnull Path getDataPlaneCheckpointsDir(NetworkSnapshot snapshot) {
+    return getSnapshotOutputDir(snapshot.getNetwork(), snapshot.getSnapshot())
+        .resolve(RELPATH_DATA_PLANE_CHECKPOINTS);
+  }
+
+  private @Nonnull Path getDataPlaneCheckpointPath(NetworkSnapshot snapshot, String key) {
+    return getDataPlaneCheckpointsDir(snapshot).resolve(toBase64(key));
+  }
+
   private @Nonnull Path getReferenceLibraryPath(NetworkId network) {
     return getNetworkDir(network).resolve(BfConsts.RELPATH_REFERENCE_LIBRARY_PATH);
   }
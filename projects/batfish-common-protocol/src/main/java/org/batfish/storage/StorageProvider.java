@@ -715,6 +715,35 @@ public interface StorageProvider {
    */
   boolean hasDataPlane(NetworkSnapshot snapshot) throws IOException;
 
+  /**
+   * Provide a stream from which the data plane computation checkpoint stored for the given snapshot
+   * under the given key may be read. Checkpoints are internal to the data plane computation, and
+   * are not snapshot objects.
+   *
+   * @throws FileNotFoundException if no checkpoint is stored under the given key
+   * @throws IOException if there is an error reading the checkpoint
+   */
+  @MustBeClosed
+  @Nonnull
+  InputStream loadDataPlaneCheckpoint(NetworkSnapshot snapshot, String key)
+      throws FileNotFoundException, IOException;
+
+  /**
+   * Stores a data plane computation checkpoint for the given snapshot under the given key,
+   * replacing any checkpoint stored under that key.
+   *
+   * @throws IOException if there is an error writing the checkpoint
+   */
+  void storeDataPlaneCheckpoint(InputStream inputStream, NetworkSnapshot snapshot, String key)
+      throws IOException;
+
+  /**
+   * Deletes all data plane computation checkpoints stored for the given snapshot, if any.
+   *
+   * @throws IOException if there is an error deleting the checkpoints
+   */
+  void deleteDataPlaneCheckpoints(NetworkSnapshot snapshot) throws IOException;
+
   /**
    * Returns a list of snapshot input object keys corresponding to environment BGP tables.
    *
@@ -786,15 +815,6 @@ public interface StorageProvider {
    */
   void deleteEnvironmentBgpTables(NetworkSnapshot snapshot) throws IOException;
 
-  /**
-   * Loads the content of the external BGP announcements input file for the given snapshot, or
-   * returns {@link Optional#empty} if the snapshot does not contain one.
-   *
-   * @throws IOException if there is an error
-   */
-  @Nonnull
-  Optional<String> loadExternalBgpAnnouncementsFile(NetworkSnapshot snapshot) throws IOException;
-
   /**
    * Loads the {@link ConversionContext} for the given {@link NetworkSnapshot}, if present.
    *
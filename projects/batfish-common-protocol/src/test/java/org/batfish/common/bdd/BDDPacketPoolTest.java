@@ -0,0 +1,123 @@
+package org.batfish.common.bdd;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Test;
+
+/** Tests of {@link BDDPacketPool}. */
+public class BDDPacketPoolTest {
+
+  @Test
+  public void testReuse() {
+    BDDPacketPool pool = new BDDPacketPool(BDDPacket::new, 1, Integer.MAX_VALUE);
+    BDDPacket pkt;
+    try (BDDPacketPool.Lease lease = pool.lease()) {
+      pkt = lease.getPacket();
+    }
+    assertThat(pool.getNumIdle(), equalTo(1));
+    try (BDDPacketPool.Lease lease = pool.lease()) {
+      assertThat(lease.getPacket(), sameInstance(pkt));
+      assertThat(pool.getNumIdle(), equalTo(0));
+    }
+    assertThat(pool.getHits(), equalTo(1L));
+    assertThat(pool.getMisses(), equalTo(1L));
+    assertThat(pool.getDiscards(), equalTo(0L));
+    assertThat(pool.getPeakLiveNodes(), greaterThan(0));
+  }
+
+  @Test
+  public void testReleaseAllocatedVariables() {
+    BDDPacketPool pool = new BDDPacketPool(BDDPacket::new, 1, Integer.MAX_VALUE);
+    int var;
+    int varBeforePacketVars;
+    try (BDDPacketPool.Lease lease = pool.lease()) {
+      BDDPacket pkt = lease.getPacket();
+      var = pkt.allocateBDDBit("foo").var();
+      varBeforePacketVars = pkt.allocateBDDBit("bar", true).var();
+    }
+    try (BDDPacketPool.Lease lease = pool.lease()) {
+      BDDPacket pkt = lease.getPacket();
+      assertThat(pkt.allocateBDDBit("baz").var(), equalTo(var));
+      assertThat(pkt.allocateBDDBit("qux", true).var(), equalTo(varBeforePacketVars));
+    }
+  }
+
+  @Test
+  public void testDiscardTooManyLiveNodes() {
+    BDDPacketPool pool = new BDDPacketPool(BDDPacket::new, 1, 1);
+    BDDPacket pkt;
+    try (BDDPacketPool.Lease lease = pool.lease()) {
+      pkt = lease.getPacket();
+    }
+    assertThat(pool.getNumIdle(), equalTo(0));
+    assertThat(pool.getDiscards(), equalTo(1L));
+    try (BDDPacketPool.Lease lease = pool.lease()) {
+      assertThat(lease.getPacket(), not(sameInstance(pkt)));
+    }
+  }
+
+  @Test
+  public void testDiscardTooManyIdle() {
+    BDDPacketPool pool = new BDDPacketPool(BDDPacket::new, 1, Integer.MAX_VALUE);
+    BDDPacketPool.Lease lease1 = pool.lease();
+    BDDPacketPool.Lease lease2 = pool.lease();
+    lease1.close();
+    lease2.close();
+    assertThat(pool.getNumIdle(), equalTo(1));
+    assertThat(pool.getDiscards(), equalTo(1L));
+  }
+
+  @Test
+  public void testEvictIdle() {
+    AtomicLong nanoTime = new AtomicLong();
+    BDDPacketPool pool =
+        new BDDPacketPool(
+            BDDPacket::new, 2, Integer.MAX_VALUE, Duration.ofNanos(10), nanoTime::get);
+    BDDPacketPool.Lease lease1 = pool.lease();
+    BDDPacketPool.Lease lease2 = pool.lease();
+    lease1.close();
+    nanoTime.set(5);
+    BDDPacket pkt2 = lease2.getPacket();
+    lease2.close();
+    assertThat(pool.getNumIdle(), equalTo(2));
+
+    // the first packet has been idle for 12ns, the second for 7ns
+    nanoTime.set(12);
+    try (BDDPacketPool.Lease lease = pool.lease()) {
+      assertThat(pool.getEvictions(), equalTo(1L));
+      assertThat(pool.getNumIdle(), equalTo(0));
+      assertThat(lease.getPacket(), sameInstance(pkt2));
+    }
+    assertThat(pool.getNumIdle(), equalTo(1));
+  }
+
+  @Test
+  public void testCloseFromOtherThread() throws InterruptedException {
+    BDDPacketPool pool = new BDDPacketPool(BDDPacket::new, 1, Integer.MAX_VALUE);
+    BDDPacketPool.Lease lease = pool.lease();
+    AtomicReference<Throwable> thrown = new AtomicReference<>();
+    Thread thread =
+        new Thread(
+            () -> {
+              try {
+                lease.close();
+              } catch (Throwable t) {
+                thrown.set(t);
+              }
+            });
+    thread.start();
+    thread.join();
+    assertThat(thrown.get(), instanceOf(IllegalStateException.class));
+    assertThat(pool.getNumIdle(), equalTo(0));
+    lease.close();
+    assertThat(pool.getNumIdle(), equalTo(1));
+  }
+}
@@ -220,6 +220,22 @@ public class IBatfishTestAdapter implements IBatfish {
     throw new UnsupportedOperationException();
   }
 
+  @Override
+  public InputStream getDataPlaneCheckpoint(NetworkSnapshot snapshot, String key) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void putDataPlaneCheckpoint(NetworkSnapshot snapshot, String key, InputStream stream)
+      throws IOException {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void deleteDataPlaneCheckpoints(NetworkSnapshot snapshot) throws IOException {
+    throw new UnsupportedOperationException();
+  }
+
   @Override
   public NetworkId getContainerName() {
     throw new UnsupportedOperationException();
@@ -327,11 +343,6 @@ public class IBatfishTestAdapter implements IBatfish {
     throw new UnsupportedOperationException();
   }
 
-  @Override
-  public @Nullable String readExternalBgpAnnouncementsFile(NetworkSnapshot snapshot) {
-    throw new UnsupportedOperationException();
-  }
-
   @Override
   public void registerAnswerer(
       String questionName,
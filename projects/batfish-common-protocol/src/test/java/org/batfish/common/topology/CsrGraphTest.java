@@ -0,0 +1,111 @@
+package org.batfish.common.topology;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.graph.EndpointPair;
+import com.google.common.graph.GraphBuilder;
+import com.google.common.graph.MutableGraph;
+import com.google.common.testing.EqualsTester;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.Test;
+
+/** Tests of {@link CsrGraph}. */
+public class CsrGraphTest {
+
+  private static CsrGraph.Builder<String> builder() {
+    return CsrGraph.builder(Comparator.naturalOrder());
+  }
+
+  @Test
+  public void testNeighbors() {
+    CsrGraph<String> graph =
+        builder()
+            .putEdge("b", "c")
+            .putEdge("b", "a")
+            .putEdge("c", "b")
+            .putEdge("b", "a")
+            .addNode("d")
+            .build();
+
+    assertThat(graph.nodes(), contains("a", "b", "c", "d"));
+    assertThat(graph.numNodes(), equalTo(4));
+    assertThat(graph.numEdges(), equalTo(3));
+    assertThat(graph.successors("b"), contains("a", "c"));
+    assertThat(graph.predecessors("b"), contains("c"));
+    assertThat(graph.adjacentNodes("b"), contains("a", "c"));
+    assertThat(graph.adjacentNodes("a"), contains("b"));
+    assertThat(graph.successors("d"), empty());
+    assertThat(graph.successors("missing"), empty());
+    assertThat(graph.adjacentNodes("missing"), empty());
+    assertTrue(graph.hasEdge("c", "b"));
+    assertFalse(graph.hasEdge("a", "b"));
+    assertFalse(graph.hasEdge("missing", "b"));
+
+    int b = graph.id("b");
+    assertThat(graph.node(b), equalTo("b"));
+    assertThat(graph.outDegree(b), equalTo(2));
+    assertThat(graph.inDegree(b), equalTo(1));
+    assertThat(graph.id("missing"), equalTo(-1));
+    List<String> successors = new ArrayList<>();
+    graph.forEachSuccessor(b, v -> successors.add(graph.node(v)));
+    assertThat(successors, contains("a", "c"));
+    List<String> predecessors = new ArrayList<>();
+    graph.forEachPredecessor(graph.id("a"), u -> predecessors.add(graph.node(u)));
+    assertThat(predecessors, contains("b"));
+  }
+
+  @Test
+  public void testEdgeStream() {
+    CsrGraph<String> graph =
+        builder().putEdge("c", "a").putEdge("a", "c").putEdge("a", "b").build();
+    assertThat(
+        graph.edgeStream().collect(Collectors.toList()),
+        contains(
+            EndpointPair.ordered("a", "b"),
+            EndpointPair.ordered("a", "c"),
+            EndpointPair.ordered("c", "a")));
+  }
+
+  @Test
+  public void testCopyOf() {
+    MutableGraph<String> guavaGraph = GraphBuilder.directed().build();
+    guavaGraph.putEdge("b", "a");
+    guavaGraph.addNode("c");
+    assertThat(
+        CsrGraph.copyOf(guavaGraph, Comparator.naturalOrder()),
+        equalTo(builder().addNode("c").putEdge("b", "a").build()));
+  }
+
+  @Test
+  public void testEdgesNotIn() {
+    CsrGraph<String> abc = builder().putEdge("a", "b").putEdge("b", "c").build();
+    CsrGraph<String> abd = builder().putEdge("a", "b").putEdge("b", "d").build();
+    assertThat(abc.edgesNotIn(abd), contains(EndpointPair.ordered("b", "c")));
+    assertThat(abd.edgesNotIn(abc), contains(EndpointPair.ordered("b", "d")));
+    assertThat(abc.edgesNotIn(abc), empty());
+    assertThat(
+        abc.edgesNotIn(builder().build()),
+        contains(EndpointPair.ordered("a", "b"), EndpointPair.ordered("b", "c")));
+  }
+
+  @Test
+  public void testEquals() {
+    new EqualsTester()
+        .addEqualityGroup(
+            builder().putEdge("a", "b").build(),
+            builder().putEdge("a", "b").putEdge("a", "b").build(),
+            builder().addNode("b").putEdge("a", "b").build())
+        .addEqualityGroup(builder().putEdge("b", "a").build())
+        .addEqualityGroup(builder().putEdge("a", "b").addNode("c").build())
+        .addEqualityGroup(builder().build())
+        .testEquals();
+  }
+}
@@ -0,0 +1,42 @@
+package org.batfish.common.topology.broadcast;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+
+import java.util.stream.IntStream;
+import org.junit.Test;
+
+/** Tests of {@link ConcurrentUnionFind}. */
+public class ConcurrentUnionFindTest {
+
+  @Test
+  public void testUnion() {
+    ConcurrentUnionFind uf = new ConcurrentUnionFind(5);
+    assertThat(uf.size(), equalTo(5));
+    assertThat(uf.find(3), equalTo(3));
+
+    uf.union(3, 1);
+    uf.union(4, 3);
+    assertThat(uf.find(4), equalTo(uf.find(1)));
+    assertThat(uf.find(0), not(equalTo(uf.find(1))));
+    assertThat(uf.find(2), not(equalTo(uf.find(1))));
+
+    // Roots are the smallest element of each set.
+    assertThat(uf.find(4), equalTo(1));
+  }
+
+  @Test
+  public void testConcurrentUnion() {
+    int size = 100_000;
+    ConcurrentUnionFind uf = new ConcurrentUnionFind(size);
+    // Union all even numbers together and all odd numbers together, in parallel and in an order
+    // that creates contention on the roots.
+    IntStream.range(2, size).parallel().forEach(i -> uf.union(i, i - 2));
+    int evenRoot = uf.find(0);
+    int oddRoot = uf.find(1);
+    assertThat(evenRoot, not(equalTo(oddRoot)));
+    IntStream.range(0, size)
+        .forEach(i -> assertThat(uf.find(i), equalTo(i % 2 == 0 ? evenRoot : oddRoot)));
+  }
+}
@@ -25,9 +25,14 @@ import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Multimaps;
+import com.google.common.collect.Range;
 import com.google.common.collect.Sets;
 import java.util.Arrays;
 import java.util.Collection;
@@ -761,6 +766,96 @@ public class L3AdjacencyComputerTest {
     return ImmutableMap.of(c1.getHostname(), c1, c2.getHostname(), c2, c3.getHostname(), c3);
   }
 
+  /** Asserts that {@code domains} partitions the L3 interfaces the same way as flooding does. */
+  private static void assertSameDomainsAsFlooding(
+      L3AdjacencyComputer l3, Map<NodeInterfacePair, Integer> domains) {
+    assertThat(partition(domains), equalTo(partition(l3.findAllBroadcastDomainsByFlooding())));
+  }
+
+  private static Set<Set<NodeInterfacePair>> partition(Map<NodeInterfacePair, Integer> domains) {
+    Multimap<Integer, NodeInterfacePair> byDomain =
+        Multimaps.invertFrom(Multimaps.forMap(domains), HashMultimap.create());
+    return byDomain.asMap().values().stream()
+        .map(ImmutableSet::copyOf)
+        .collect(ImmutableSet.toImmutableSet());
+  }
+
+  @Test
+  public void testComputeCandidateVlans() {
+    NetworkFactory nf = new NetworkFactory();
+    Configuration c = nf.configurationBuilder().build();
+    nf.interfaceBuilder().setOwner(c).setType(InterfaceType.VLAN).setVlan(5).build();
+    nf.interfaceBuilder()
+        .setOwner(c)
+        .setType(PHYSICAL)
+        .setSwitchport(true)
+        .setSwitchportMode(SwitchportMode.ACCESS)
+        .setAccessVlan(3)
+        .build();
+    nf.interfaceBuilder()
+        .setOwner(c)
+        .setType(PHYSICAL)
+        .setSwitchport(true)
+        .setSwitchportMode(SwitchportMode.TRUNK)
+        .setAllowedVlans(IntegerSpace.of(Range.closed(1, 100)))
+        .setNativeVlan(7)
+        .build();
+    nf.interfaceBuilder().setOwner(c).setType(LOGICAL).setEncapsulationVlan(9).build();
+    nf.interfaceBuilder().setOwner(c).setType(InterfaceType.VLAN).setVlan(3).build();
+
+    // Trunk allowed vlans are not candidates, only vlans in which frames can originate.
+    assertThat(
+        L3AdjacencyComputer.computeCandidateVlans(ImmutableMap.of(c.getHostname(), c)),
+        equalTo(new int[] {3, 5, 7, 9}));
+  }
+
+  @Test
+  public void testE2e_trunk() {
+    // s1 and s2 are connected by a trunk allowing vlans 10-20 with native vlan 10. Each has IRBs
+    // in vlans 10 and 20, and s2 also has an IRB in vlan 30, which the trunk does not carry.
+    NetworkFactory nf = new NetworkFactory();
+    Configuration s1 = nf.configurationBuilder().setHostname("s1").build();
+    Configuration s2 = nf.configurationBuilder().setHostname("s2").build();
+    for (Configuration c : ImmutableList.of(s1, s2)) {
+      nf.interfaceBuilder()
+          .setOwner(c)
+          .setName("trunk")
+          .setType(PHYSICAL)
+          .setSwitchport(true)
+          .setSwitchportMode(SwitchportMode.TRUNK)
+          .setAllowedVlans(IntegerSpace.of(Range.closed(10, 20)))
+          .setNativeVlan(10)
+          .build();
+      for (int vlan : new int[] {10, 20, 30}) {
+        if (c == s1 && vlan == 30) {
+          continue;
+        }
+        nf.interfaceBuilder()
+            .setOwner(c)
+            .setName("Vlan" + vlan)
+            .setType(InterfaceType.VLAN)
+            .setVlan(vlan)
+            .setAddress(ConcreteInterfaceAddress.parse(String.format("10.0.%d.1/24", vlan)))
+            .build();
+      }
+    }
+    Map<String, Configuration> configs =
+        ImmutableMap.of(s1.getHostname(), s1, s2.getHostname(), s2);
+    L3AdjacencyComputer l3 =
+        new L3AdjacencyComputer(configs, Layer1Topologies.empty(), VxlanTopology.EMPTY);
+    Map<NodeInterfacePair, Integer> domains = l3.findAllBroadcastDomains();
+    assertSameDomainsAsFlooding(l3, domains);
+    assertThat(domains, aMapWithSize(5));
+    assertThat(
+        partition(domains),
+        containsInAnyOrder(
+            ImmutableSet.of(
+                NodeInterfacePair.of("s1", "Vlan10"), NodeInterfacePair.of("s2", "Vlan10")),
+            ImmutableSet.of(
+                NodeInterfacePair.of("s1", "Vlan20"), NodeInterfacePair.of("s2", "Vlan20")),
+            ImmutableSet.of(NodeInterfacePair.of("s2", "Vlan30"))));
+  }
+
   @Test
   public void testE2e_noL1() {
     Map<String, Configuration> configs = simple3InterfaceNetwork();
@@ -768,6 +863,7 @@ public class L3AdjacencyComputerTest {
     L3AdjacencyComputer l3 =
         new L3AdjacencyComputer(configs, Layer1Topologies.empty(), VxlanTopology.EMPTY);
     Map<NodeInterfacePair, Integer> domains = l3.findAllBroadcastDomains();
+    assertSameDomainsAsFlooding(l3, domains);
     assertThat("all interfaces have a domain", domains, aMapWithSize(3));
     assertThat("all interfaces in same domain", ImmutableSet.copyOf(domains.values()), hasSize(1));
   }
@@ -789,6 +885,7 @@ public class L3AdjacencyComputerTest {
             Layer1TopologiesFactory.create(physical, Layer1Topology.EMPTY, configs),
             VxlanTopology.EMPTY);
     Map<NodeInterfacePair, Integer> domains = l3.findAllBroadcastDomains();
+    assertSameDomainsAsFlooding(l3, domains);
     assertThat("all interfaces have a domain", domains, aMapWithSize(3));
     assertThat("connected ifaces in same domain", domains.get(n1), equalTo(domains.get(n3)));
     assertThat(
@@ -813,6 +910,7 @@ public class L3AdjacencyComputerTest {
             Layer1TopologiesFactory.create(physical, Layer1Topology.EMPTY, configs),
             VxlanTopology.EMPTY);
     Map<NodeInterfacePair, Integer> domains = l3.findAllBroadcastDomains();
+    assertSameDomainsAsFlooding(l3, domains);
     assertThat("all interfaces have a domain", domains, aMapWithSize(3));
     assertThat("global hub ifaces in same domain", domains.get(n2), equalTo(domains.get(n3)));
     assertThat(
@@ -832,6 +930,7 @@ public class L3AdjacencyComputerTest {
     L3AdjacencyComputer l3 =
         new L3AdjacencyComputer(configs, Layer1Topologies.empty(), VxlanTopology.EMPTY);
     Map<NodeInterfacePair, Integer> domains = l3.findAllBroadcastDomains();
+    assertSameDomainsAsFlooding(l3, domains);
     assertThat("all interfaces have a domain", domains, aMapWithSize(3));
     assertThat(
         "unencapsulated interface in same domain", domains.get(n2), equalTo(domains.get(n3)));
@@ -1030,6 +1129,7 @@ public class L3AdjacencyComputerTest {
     L3AdjacencyComputer l3 =
         new L3AdjacencyComputer(configurations, layer1Topologies, vxlanTopology);
     Map<NodeInterfacePair, Integer> bds = l3.findAllBroadcastDomains();
+    assertSameDomainsAsFlooding(l3, bds);
 
     assertThat(bds.get(NodeInterfacePair.of(h11i)), equalTo(bds.get(NodeInterfacePair.of(h21i))));
     assertThat(bds.get(NodeInterfacePair.of(h12i)), equalTo(bds.get(NodeInterfacePair.of(h22i))));
@@ -13,7 +13,7 @@ public class TraversalTest {
   private static Set<L3Interface> getDomain(L3Interface iface) {
     Set<L3Interface> ret = new HashSet<>();
     Set<NodeAndData<?, ?>> visited = new HashSet<>();
-    iface.originate(ret, visited);
+    iface.originate(ret, visited::add);
     return ret;
   }
 
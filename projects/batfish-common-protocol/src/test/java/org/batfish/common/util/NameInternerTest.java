@@ -0,0 +1,48 @@
+package org.batfish.common.util;
+
+import static org.batfish.common.util.NameInterner.MAX_NAME_LENGTH;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.List;
+import org.apache.commons.lang3.SerializationUtils;
+import org.junit.Test;
+
+/** Tests of {@link NameInterner}. */
+public class NameInternerTest {
+
+  /** Returns a new string equal to {@code s}. */
+  private static String copy(String s) {
+    return new String(s.toCharArray());
+  }
+
+  @Test
+  public void testIntern() {
+    String name = NameInterner.intern(copy("GigabitEthernet0/0"));
+    assertThat(NameInterner.intern(copy("GigabitEthernet0/0")), sameInstance(name));
+  }
+
+  @Test
+  public void testInterningObjectInputStream() throws IOException, ClassNotFoundException {
+    String longString = Strings.repeat("x", MAX_NAME_LENGTH + 1);
+    byte[] serialized =
+        SerializationUtils.serialize(ImmutableList.of(copy("node1"), copy("node1"), longString));
+
+    List<?> deserialized;
+    try (ObjectInputStream in =
+        NameInterner.newInterningObjectInputStream(new ByteArrayInputStream(serialized))) {
+      deserialized = (List<?>) in.readObject();
+    }
+    assertThat(deserialized, equalTo(ImmutableList.of("node1", "node1", longString)));
+    assertThat(deserialized.get(0), sameInstance(NameInterner.intern("node1")));
+    assertThat(deserialized.get(1), sameInstance(deserialized.get(0)));
+    assertThat(deserialized.get(2), not(sameInstance(NameInterner.intern(longString))));
+  }
+}
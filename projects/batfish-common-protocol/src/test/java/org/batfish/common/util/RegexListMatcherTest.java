@@ -0,0 +1,144 @@
+package org.batfish.common.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import org.junit.Test;
+
+/** Tests of {@link RegexListMatcher}. */
+public final class RegexListMatcherTest {
+
+  private static final List<String> INPUTS =
+      ImmutableList.of("", "1", "12", "1 2", "2 1", "3 {1,2}", "65000:100", "a\nb", "\u00e9");
+
+  /** Characters that random regexes and inputs are made of. */
+  private static final String RANDOM_CHARS = "12a :";
+
+  private static final List<String> RANDOM_CLASSES =
+      ImmutableList.of(".", "\\d", "\\s", "\\w", "\\W", "[12]", "[^1 ]", "[0-9a]", "[a-z:]");
+
+  private static final List<String> RANDOM_QUANTIFIERS =
+      ImmutableList.of("*", "+", "?", "{2}", "{0,2}", "{1,3}", "{2,}", "*?", "+?", "??");
+
+  /** Asserts that {@code regexes} are matched as by {@link java.util.regex} on all inputs. */
+  private static void assertMatchesPatterns(List<String> regexes) {
+    assertMatchesPatterns(regexes, INPUTS);
+  }
+
+  /** Asserts that {@code regexes} are matched as by {@link java.util.regex} on {@code inputs}. */
+  private static void assertMatchesPatterns(List<String> regexes, List<String> inputs) {
+    RegexListMatcher matcher = RegexListMatcher.of(regexes);
+    for (String input : inputs) {
+      int expected = -1;
+      for (int i = 0; i < regexes.size(); i++) {
+        if (Pattern.compile(regexes.get(i)).matcher(input).find()) {
+          expected = i;
+          break;
+        }
+      }
+      assertThat(regexes + " on " + input, matcher.firstMatch(input), equalTo(expected));
+    }
+  }
+
+  @Test
+  public void testFirstMatch() {
+    RegexListMatcher matcher =
+        RegexListMatcher.of(ImmutableList.of("^1 ", "(^|[ ,{}])2($|[ ,{}])", "^[0-9]+$"));
+    assertTrue(matcher.usesDfa("1 2"));
+    assertThat(matcher.firstMatch("1 2"), equalTo(0));
+    assertThat(matcher.firstMatch("3 {1,2}"), equalTo(1));
+    assertThat(matcher.firstMatch("12"), equalTo(2));
+    assertThat(matcher.firstMatch("3 4"), equalTo(-1));
+    assertTrue(matcher.anyMatch("2"));
+    assertFalse(matcher.anyMatch("22 3"));
+  }
+
+  @Test
+  public void testMatchesPatterns() {
+    assertMatchesPatterns(ImmutableList.of("^$", "^^1", "1$$", "2^", "$^"));
+    assertMatchesPatterns(ImmutableList.of("[^0-9 ]", "\\d{2,}", "(?:1|2)+? ?\\{"));
+    assertMatchesPatterns(ImmutableList.of("[-,]", "\\W", ".:1", "\\s\\S"));
+    assertMatchesPatterns(ImmutableList.of("(^| ){2}1", "(1)\\1", "(?i)A"));
+  }
+
+  /**
+   * Returns a random regex over {@link #RANDOM_CHARS} with anchors, character classes, quantified
+   * groups, and alternations nested at most {@code depth} deep.
+   */
+  private static String randomRegex(Random random, int depth) {
+    return switch (depth == 0 ? random.nextInt(5) : random.nextInt(8)) {
+      case 0, 1 -> String.valueOf(RANDOM_CHARS.charAt(random.nextInt(RANDOM_CHARS.length())));
+      case 2, 3 -> RANDOM_CLASSES.get(random.nextInt(RANDOM_CLASSES.size()));
+      case 4 -> random.nextBoolean() ? "^" : "$";
+      case 5 -> randomRegex(random, depth - 1) + randomRegex(random, depth - 1);
+      case 6 -> "(" + randomRegex(random, depth - 1) + "|" + randomRegex(random, depth - 1) + ")";
+      default ->
+          "(?:"
+              + randomRegex(random, depth - 1)
+              + ")"
+              + RANDOM_QUANTIFIERS.get(random.nextInt(RANDOM_QUANTIFIERS.size()));
+    };
+  }
+
+  private static String randomInput(Random random) {
+    StringBuilder input = new StringBuilder();
+    for (int length = random.nextInt(9); input.length() < length; ) {
+      input.append(RANDOM_CHARS.charAt(random.nextInt(RANDOM_CHARS.length())));
+    }
+    return input.toString();
+  }
+
+  @Test
+  public void testMatchesPatternsRandomized() {
+    Random random = new Random(0);
+    for (int i = 0; i < 300; i++) {
+      List<String> regexes = new ArrayList<>();
+      for (int numRegexes = 1 + random.nextInt(3); regexes.size() < numRegexes; ) {
+        regexes.add(randomRegex(random, 3));
+      }
+      List<String> inputs = new ArrayList<>();
+      for (int j = 0; j < 30; j++) {
+        inputs.add(randomInput(random));
+      }
+      assertMatchesPatterns(regexes, inputs);
+    }
+  }
+
+  @Test
+  public void testUnsupportedFallsBackToPatterns() {
+    // Java stops repeating a group once an iteration matches the empty string
+    assertFalse(RegexListMatcher.of(ImmutableList.of("(^| ){2}1")).usesDfa("1"));
+    // backreferences, lookaround, flags, and class intersections have no translation
+    assertFalse(RegexListMatcher.of(ImmutableList.of("1", "(1)\\1")).usesDfa("1"));
+    assertFalse(RegexListMatcher.of(ImmutableList.of("(?= )")).usesDfa("1"));
+    assertFalse(RegexListMatcher.of(ImmutableList.of("(?i)a")).usesDfa("1"));
+    assertFalse(RegexListMatcher.of(ImmutableList.of("[0-9&&[^1]]")).usesDfa("1"));
+    // the DFA would need a state for each subset of the last 60 positions that were 1
+    RegexListMatcher exponential = RegexListMatcher.of(ImmutableList.of("1.{60}"));
+    assertFalse(exponential.usesDfa("1"));
+    assertThat(exponential.firstMatch("1" + Strings.repeat(" ", 60)), equalTo(0));
+    assertThat(exponential.firstMatch("1" + Strings.repeat(" ", 59)), equalTo(-1));
+    assertTrue(RegexListMatcher.of(ImmutableList.of("^1.{60}")).usesDfa("1"));
+    // empty, multi-line, and non-ASCII inputs
+    RegexListMatcher matcher = RegexListMatcher.of(ImmutableList.of("1"));
+    assertTrue(matcher.usesDfa("1"));
+    assertFalse(matcher.usesDfa(""));
+    assertFalse(matcher.usesDfa("1\n"));
+    assertFalse(matcher.usesDfa("\u00e9"));
+  }
+
+  @Test
+  public void testInvalidRegex() {
+    assertThrows(PatternSyntaxException.class, () -> RegexListMatcher.of(ImmutableList.of("(")));
+  }
+}
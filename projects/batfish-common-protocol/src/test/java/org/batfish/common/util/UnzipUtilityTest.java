@@ -7,10 +7,14 @@ import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.fail;
 
+import com.google.common.base.Strings;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 import org.junit.Rule;
@@ -61,6 +65,106 @@ public class UnzipUtilityTest {
     assertThat("output file contents", Files.readAllBytes(file.toPath()), equalTo(contents));
   }
 
+  @Test
+  public void testUnzipParallel() throws IOException {
+    File zip = _folder.newFile("parallel");
+    int numFiles = 50;
+    try (FileOutputStream fos = new FileOutputStream(zip);
+        ZipOutputStream out = new ZipOutputStream(fos)) {
+      out.putNextEntry(new ZipEntry("configs/"));
+      for (int i = 0; i < numFiles; i++) {
+        out.putNextEntry(new ZipEntry("configs/r" + i + ".cfg"));
+        out.write(("hostname r" + i).getBytes());
+      }
+    }
+
+    File dest = _folder.newFolder("dest");
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try (FileInputStream fis = new FileInputStream(zip)) {
+      UnzipUtility.unzip(fis, dest.toPath(), executor, 32);
+    } finally {
+      executor.shutdown();
+    }
+
+    File configs = dest.toPath().resolve("configs").toFile();
+    assertThat(configs.list().length, equalTo(numFiles));
+    for (int i = 0; i < numFiles; i++) {
+      assertThat(
+          Files.readAllBytes(configs.toPath().resolve("r" + i + ".cfg")),
+          equalTo(("hostname r" + i).getBytes()));
+    }
+  }
+
+  @Test
+  public void testUnzipParallelDuplicateEntries() throws IOException {
+    File zip = _folder.newFile("duplicates");
+    int numEntries = 20;
+    try (FileOutputStream fos = new FileOutputStream(zip);
+        ZipOutputStream out = new ZipOutputStream(fos)) {
+      // distinct entry names that all resolve to the same file
+      for (int i = 0; i < numEntries; i++) {
+        out.putNextEntry(new ZipEntry(Strings.repeat("./", i) + "file.txt"));
+        out.write(("contents " + i).getBytes());
+      }
+    }
+
+    File dest = _folder.newFolder("dest");
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try (FileInputStream fis = new FileInputStream(zip)) {
+      UnzipUtility.unzip(fis, dest.toPath(), executor, 1024);
+    } finally {
+      executor.shutdown();
+    }
+
+    assertThat(
+        Files.readAllBytes(dest.toPath().resolve("file.txt")),
+        equalTo(("contents " + (numEntries - 1)).getBytes()));
+  }
+
+  @Test
+  public void testUnzipParallelLargeEntry() throws IOException {
+    File zip = _folder.newFile("large");
+    byte[] large = Strings.repeat("0123456789", 100).getBytes();
+    try (FileOutputStream fos = new FileOutputStream(zip);
+        ZipOutputStream out = new ZipOutputStream(fos)) {
+      out.putNextEntry(new ZipEntry("small.txt"));
+      out.write("small".getBytes());
+      out.putNextEntry(new ZipEntry("large.txt"));
+      out.write(large);
+    }
+
+    File dest = _folder.newFolder("dest");
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try (FileInputStream fis = new FileInputStream(zip)) {
+      UnzipUtility.unzip(fis, dest.toPath(), executor, 64);
+    } finally {
+      executor.shutdown();
+    }
+
+    assertThat(
+        Files.readAllBytes(dest.toPath().resolve("small.txt")), equalTo("small".getBytes()));
+    assertThat(Files.readAllBytes(dest.toPath().resolve("large.txt")), equalTo(large));
+  }
+
+  @Test
+  public void testUnzipParallelPathViolation() throws IOException {
+    File pathViolation = _folder.newFile("pathViolation");
+    try (FileOutputStream fos = new FileOutputStream(pathViolation);
+        ZipOutputStream out = new ZipOutputStream(fos)) {
+      out.putNextEntry(new ZipEntry("../../file.txt"));
+      out.write("contents".getBytes());
+    }
+
+    File dest = _folder.newFolder("dest");
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    _thrown.expect(instanceOf(IOException.class));
+    try (FileInputStream fis = new FileInputStream(pathViolation)) {
+      UnzipUtility.unzip(fis, dest.toPath(), executor, 1);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
   @Test
   public void testUnzipPathViolation() throws IOException {
     File pathViolation = _folder.newFile("pathViolation");
@@ -22,6 +22,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.function.BiPredicate;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import javax.annotation.Nonnull;
@@ -140,6 +141,27 @@ public class PrefixTrieMultiMapTest {
     assertThat(ptm1.longestPrefixMatch(Ip.parse("1.1.1.130")), equalTo(ImmutableSet.of(2)));
   }
 
+  @Test
+  public void testLongestPrefixMatchAccepted() {
+    PrefixTrieMultiMap<Integer> ptm = new PrefixTrieMultiMap<>();
+    ptm.put(Prefix.parse("1.1.1.0/24"), 1);
+    ptm.put(Prefix.parse("1.1.1.128/25"), 2);
+    ptm.put(Prefix.parse("1.1.1.129/32"), 3);
+    Ip ip = Ip.parse("1.1.1.129");
+    BiPredicate<Set<Integer>, Integer> atMost =
+        (elements, max) -> elements.iterator().next() <= max;
+
+    assertThat(ptm.longestPrefixMatch(ip, 32, atMost, 3), equalTo(ImmutableSet.of(3)));
+    // Skips prefixes whose elements are not accepted.
+    assertThat(ptm.longestPrefixMatch(ip, 32, atMost, 2), equalTo(ImmutableSet.of(2)));
+    assertThat(ptm.longestPrefixMatch(ip, 32, atMost, 1), equalTo(ImmutableSet.of(1)));
+    assertThat(ptm.longestPrefixMatch(ip, 32, atMost, 0), empty());
+    // Respects the maximum prefix length.
+    assertThat(ptm.longestPrefixMatch(ip, 31, atMost, 3), equalTo(ImmutableSet.of(2)));
+    assertThat(ptm.longestPrefixMatch(ip, 8, atMost, 3), empty());
+    assertThat(new PrefixTrieMultiMap<Integer>().longestPrefixMatch(ip, 32, atMost, 3), empty());
+  }
+
   @Test
   public void testPutAtRoot() {
     PrefixTrieMultiMap<Integer> map = new PrefixTrieMultiMap<>();
@@ -0,0 +1,77 @@
+package org.batfish.datamodel.routing_policy.as_path;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Range;
+import java.util.List;
+import java.util.function.BiPredicate;
+import org.batfish.datamodel.AsPath;
+import org.batfish.datamodel.AsSet;
+import org.batfish.datamodel.routing_policy.expr.IntComparator;
+import org.batfish.datamodel.routing_policy.expr.IntComparison;
+import org.batfish.datamodel.routing_policy.expr.LiteralInt;
+import org.junit.Test;
+
+/** Test of {@link AsPathMatchExprCompiler}. */
+public final class AsPathMatchExprCompilerTest {
+
+  private static final List<AsPath> AS_PATHS =
+      ImmutableList.of(
+          AsPath.empty(),
+          AsPath.ofSingletonAsSets(2L, 5L),
+          AsPath.ofSingletonAsSets(1L, 2L, 5L),
+          AsPath.ofSingletonAsSets(3L),
+          AsPath.ofAsSets(AsSet.of(1L), AsSet.of(2L, 3L)));
+
+  private static AsPathContext context(AsPath asPath) {
+    return AsPathContext.builder()
+        .setAsPathMatchExprs(
+            ImmutableMap.of(
+                "short",
+                HasAsPathLength.of(new IntComparison(IntComparator.LE, new LiteralInt(1)))))
+        .setInputAsPath(asPath)
+        .build();
+  }
+
+  /** Asserts that the compiled {@code expr} agrees with the evaluator on all AS paths. */
+  private static void assertCompiledMatchesEvaluator(AsPathMatchExpr expr) {
+    BiPredicate<AsPath, AsPathContext> compiled =
+        AsPathMatchExprCompiler.compile(expr, context(AsPath.empty()));
+    for (AsPath asPath : AS_PATHS) {
+      AsPathContext ctx = context(asPath);
+      assertThat(
+          asPath.toString(),
+          compiled.test(asPath, ctx),
+          equalTo(expr.accept(ctx.getAsPathMatchExprEvaluator(), asPath)));
+    }
+  }
+
+  @Test
+  public void testCompile() {
+    assertCompiledMatchesEvaluator(
+        AsPathMatchAny.of(
+            ImmutableList.of(
+                AsPathMatchRegex.of("^2 5"),
+                AsPathMatchExprReference.of("short"),
+                AsSetsMatchingRanges.of(false, true, ImmutableList.of(Range.singleton(5L))))));
+  }
+
+  @Test
+  public void testCompileRegexes() {
+    assertCompiledMatchesEvaluator(AsPathMatchRegex.of("(^|[ ,{}])2($|[ ,{}])"));
+    // matched by a single automaton
+    assertCompiledMatchesEvaluator(
+        AsPathMatchAny.of(
+            ImmutableList.of(
+                AsPathMatchRegex.of("^$"),
+                AsPathMatchRegex.of("^1 "),
+                AsPathMatchRegex.of("\\{"))));
+    // a regex without an automaton translation
+    assertCompiledMatchesEvaluator(
+        AsPathMatchAny.of(
+            ImmutableList.of(AsPathMatchRegex.of("5$"), AsPathMatchRegex.of("(?<= )3"))));
+  }
+}
@@ -9,9 +9,12 @@ import static org.junit.Assert.assertTrue;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.testing.EqualsTester;
+import java.util.HashMap;
+import java.util.Map;
 import org.apache.commons.lang3.SerializationUtils;
 import org.batfish.common.util.BatfishObjectMapper;
 import org.batfish.datamodel.AsPath;
+import org.batfish.datamodel.Bgpv4Route;
 import org.batfish.datamodel.Configuration;
 import org.batfish.datamodel.ConnectedRoute;
 import org.batfish.datamodel.NetworkFactory;
@@ -66,6 +69,26 @@ public final class MatchAsPathTest {
             .getBooleanValue());
   }
 
+  @Test
+  public void testEvaluateAfterNamedStructureReplaced() {
+    NetworkFactory nf = new NetworkFactory();
+    Configuration c = nf.configurationBuilder().build();
+    Map<String, AsPathMatchExpr> asPathMatchExprs = new HashMap<>();
+    asPathMatchExprs.put("a", AsPathMatchRegex.of("^5$"));
+    c.setAsPathMatchExprs(asPathMatchExprs);
+    MatchAsPath expr = MatchAsPath.of(InputAsPath.instance(), AsPathMatchExprReference.of("a"));
+    Bgpv4Route route =
+        testBuilder().setAsPath(AsPath.ofSingletonAsSets(5L)).setNetwork(Prefix.ZERO).build();
+
+    assertTrue(
+        expr.evaluate(Environment.builder(c).setOriginalRoute(route).build()).getBooleanValue());
+
+    // replacing a referenced structure in place must not reuse the previous compilation
+    asPathMatchExprs.put("a", AsPathMatchRegex.of("^6$"));
+    assertFalse(
+        expr.evaluate(Environment.builder(c).setOriginalRoute(route).build()).getBooleanValue());
+  }
+
   @Test
   public void testJavaSerialization() {
     MatchAsPath obj =
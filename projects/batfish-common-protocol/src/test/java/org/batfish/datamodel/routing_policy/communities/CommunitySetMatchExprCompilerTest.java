@@ -0,0 +1,119 @@
+package org.batfish.datamodel.routing_policy.communities;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.util.List;
+import java.util.function.BiPredicate;
+import org.batfish.datamodel.LineAction;
+import org.batfish.datamodel.bgp.community.ExtendedCommunity;
+import org.batfish.datamodel.bgp.community.LargeCommunity;
+import org.batfish.datamodel.bgp.community.StandardCommunity;
+import org.batfish.datamodel.routing_policy.expr.IntComparator;
+import org.batfish.datamodel.routing_policy.expr.IntComparison;
+import org.batfish.datamodel.routing_policy.expr.LiteralInt;
+import org.junit.Test;
+
+/** Test of {@link CommunitySetMatchExprCompiler}. */
+public final class CommunitySetMatchExprCompilerTest {
+
+  private static final CommunityContext CTX =
+      CommunityContext.builder()
+          .setCommunityMatchExprs(
+              ImmutableMap.of(
+                  "low1",
+                  new CommunityMatchAll(
+                      ImmutableList.of(
+                          AllStandardCommunities.instance(),
+                          new CommunityMatchRegex(ColonSeparatedRendering.instance(), ":1$")))))
+          .setCommunitySetMatchExprs(
+              ImmutableMap.of(
+                  "hasLow1", new HasCommunity(new CommunityMatchExprReference("low1"))))
+          .build();
+
+  private static final List<CommunitySet> COMMUNITY_SETS =
+      ImmutableList.of(
+          CommunitySet.empty(),
+          CommunitySet.of(StandardCommunity.of(1, 1)),
+          CommunitySet.of(StandardCommunity.of(1, 2)),
+          CommunitySet.of(StandardCommunity.of(1, 1), StandardCommunity.of(2, 2)),
+          CommunitySet.of(ExtendedCommunity.target(1L, 1L)),
+          CommunitySet.of(LargeCommunity.of(1L, 1L, 1L), StandardCommunity.of(3, 3)));
+
+  /** Asserts that the compiled {@code expr} agrees with the evaluator on all community sets. */
+  private static void assertCompiledMatchesEvaluator(CommunitySetMatchExpr expr) {
+    BiPredicate<CommunitySet, CommunityContext> compiled =
+        CommunitySetMatchExprCompiler.compile(expr, CTX);
+    for (CommunitySet communitySet : COMMUNITY_SETS) {
+      assertThat(
+          communitySet.toString(),
+          compiled.test(communitySet, CTX),
+          equalTo(expr.accept(CTX.getCommunitySetMatchExprEvaluator(), communitySet)));
+    }
+  }
+
+  @Test
+  public void testCompile() {
+    assertCompiledMatchesEvaluator(new CommunitySetMatchExprReference("hasLow1"));
+    HasSize atLeastTwo = new HasSize(new IntComparison(IntComparator.GE, new LiteralInt(2)));
+    assertCompiledMatchesEvaluator(
+        new CommunitySetAcl(
+            ImmutableList.of(
+                new CommunitySetAclLine(
+                    LineAction.DENY, new HasCommunity(RouteTargetExtendedCommunities.instance())),
+                new CommunitySetAclLine(
+                    LineAction.PERMIT,
+                    new CommunitySetMatchAny(
+                        ImmutableList.of(
+                            new CommunitySetNot(new CommunitySetMatchExprReference("hasLow1")),
+                            atLeastTwo))))));
+    assertCompiledMatchesEvaluator(
+        new CommunitySetMatchAll(
+            ImmutableList.of(
+                new HasCommunity(
+                    new CommunityMatchAny(
+                        ImmutableList.of(
+                            new CommunityIs(StandardCommunity.of(2, 2)),
+                            AllLargeCommunities.instance()))),
+                new CommunitySetMatchRegex(
+                    new TypesFirstAscendingSpaceSeparated(ColonSeparatedRendering.instance()),
+                    "^[0-9]"))));
+  }
+
+  @Test
+  public void testCompileRegexes() {
+    CommunitySetRendering rendering =
+        new TypesFirstAscendingSpaceSeparated(ColonSeparatedRendering.instance());
+    // ACLs and disjunctions of regexes over one rendering are each matched by a single automaton
+    assertCompiledMatchesEvaluator(
+        new CommunitySetAcl(
+            ImmutableList.of(
+                new CommunitySetAclLine(
+                    LineAction.DENY, new CommunitySetMatchRegex(rendering, "(^| )1:2( |$)")),
+                new CommunitySetAclLine(
+                    LineAction.PERMIT, new CommunitySetMatchRegex(rendering, ":[12]( |$)")))));
+    assertCompiledMatchesEvaluator(
+        new CommunitySetMatchAny(
+            ImmutableList.of(
+                new CommunitySetMatchRegex(rendering, "^$"),
+                new CommunitySetMatchRegex(rendering, "(^| )1:1:1( |$)"))));
+    assertCompiledMatchesEvaluator(
+        new HasCommunity(
+            new CommunityAcl(
+                ImmutableList.of(
+                    new CommunityAclLine(
+                        LineAction.DENY,
+                        new CommunityMatchRegex(ColonSeparatedRendering.instance(), "^2:")),
+                    new CommunityAclLine(
+                        LineAction.PERMIT,
+                        new CommunityMatchRegex(ColonSeparatedRendering.instance(), "\\d$"))))));
+    // a regex without an automaton translation
+    assertCompiledMatchesEvaluator(
+        new CommunitySetMatchAny(
+            ImmutableList.of(
+                new CommunitySetMatchRegex(rendering, "^$"),
+                new CommunitySetMatchRegex(rendering, "(\\d)\\1"))));
+  }
+}
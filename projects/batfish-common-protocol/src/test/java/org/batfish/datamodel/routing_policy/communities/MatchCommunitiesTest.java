@@ -7,6 +7,8 @@ import static org.junit.Assert.assertTrue;
 
 import com.google.common.collect.ImmutableMap;
 import com.google.common.testing.EqualsTester;
+import java.util.HashMap;
+import java.util.Map;
 import org.apache.commons.lang3.SerializationUtils;
 import org.batfish.common.util.BatfishObjectMapper;
 import org.batfish.datamodel.Configuration;
@@ -70,4 +72,24 @@ public final class MatchCommunitiesTest {
 
     assertFalse(notMatching.evaluate(env).getBooleanValue());
   }
+
+  @Test
+  public void testEvaluateAfterNamedStructureReplaced() {
+    Configuration c = new Configuration("h", ConfigurationFormat.CISCO_IOS);
+    Map<String, CommunityMatchExpr> communityMatchExprs = new HashMap<>();
+    communityMatchExprs.put("b", new CommunityIs(StandardCommunity.of(1L)));
+    c.setCommunityMatchExprs(communityMatchExprs);
+    c.setCommunitySetMatchExprs(
+        ImmutableMap.of("a", new HasCommunity(new CommunityMatchExprReference("b"))));
+    MatchCommunities expr =
+        new MatchCommunities(
+            new LiteralCommunitySet(CommunitySet.of(StandardCommunity.of(1L))),
+            new CommunitySetMatchExprReference("a"));
+
+    assertTrue(expr.evaluate(Environment.builder(c).build()).getBooleanValue());
+
+    // replacing a referenced structure in place must not reuse the previous compilation
+    communityMatchExprs.put("b", new CommunityIs(StandardCommunity.of(2L)));
+    assertFalse(expr.evaluate(Environment.builder(c).build()).getBooleanValue());
+  }
 }
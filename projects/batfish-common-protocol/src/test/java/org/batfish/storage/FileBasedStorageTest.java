@@ -488,6 +488,33 @@ public final class FileBasedStorageTest {
                 new StoredObjectMetadata(dir1 + "/" + file1, file1Contents.getBytes().length))));
   }
 
+  @Test
+  public void testDataPlaneCheckpoints() throws IOException {
+    NetworkSnapshot snapshot =
+        new NetworkSnapshot(new NetworkId("network"), new SnapshotId("snapshot"));
+    _storage.storeDataPlaneCheckpoint(
+        new ByteArrayInputStream("first".getBytes()), snapshot, "key");
+    _storage.storeDataPlaneCheckpoint(
+        new ByteArrayInputStream("second".getBytes()), snapshot, "key");
+
+    try (InputStream inputStream = _storage.loadDataPlaneCheckpoint(snapshot, "key")) {
+      assertThat(IOUtils.toString(inputStream, UTF_8.name()), equalTo("second"));
+    }
+    // checkpoints are not snapshot extended objects
+    _storage.storeSnapshotObject(
+        new ByteArrayInputStream("object".getBytes()),
+        snapshot.getNetwork(),
+        snapshot.getSnapshot(),
+        "object");
+    assertThat(
+        _storage.getSnapshotExtendedObjectsMetadata(snapshot.getNetwork(), snapshot.getSnapshot()),
+        contains(new StoredObjectMetadata("object", "object".getBytes().length)));
+
+    _storage.deleteDataPlaneCheckpoints(snapshot);
+    _thrown.expect(FileNotFoundException.class);
+    _storage.loadDataPlaneCheckpoint(snapshot, "key").close();
+  }
+
   @Test
   public void testGetSnapshotExtendedObjectsMetadataNonExistentInput() throws IOException {
     NetworkId network = new NetworkId("network");
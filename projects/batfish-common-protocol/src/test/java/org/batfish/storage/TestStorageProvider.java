@@ -496,6 +496,23 @@ public class TestStorageProvider implements StorageProvider {
     throw new UnsupportedOperationException();
   }
 
+  @Override
+  public @Nonnull InputStream loadDataPlaneCheckpoint(NetworkSnapshot snapshot, String key)
+      throws IOException {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void storeDataPlaneCheckpoint(
+      InputStream inputStream, NetworkSnapshot snapshot, String key) throws IOException {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void deleteDataPlaneCheckpoints(NetworkSnapshot snapshot) throws IOException {
+    throw new UnsupportedOperationException();
+  }
+
   @Override
   public @Nonnull Stream<String> listInputEnvironmentBgpTableKeys(NetworkSnapshot snapshot)
       throws IOException {
@@ -546,12 +563,6 @@ public class TestStorageProvider implements StorageProvider {
     throw new UnsupportedOperationException();
   }
 
-  @Override
-  public @Nonnull Optional<String> loadExternalBgpAnnouncementsFile(NetworkSnapshot snapshot)
-      throws IOException {
-    throw new UnsupportedOperationException();
-  }
-
   @Override
   public @Nonnull ParseVendorConfigurationAnswerElement loadParseVendorConfigurationAnswerElement(
       NetworkSnapshot snapshot) throws IOException {
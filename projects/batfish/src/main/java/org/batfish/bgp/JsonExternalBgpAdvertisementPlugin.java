@@ -1,10 +1,16 @@
 package org.batfish.bgp;
 
-import com.fasterxml.jackson.annotation.JsonProperty;
+import static org.batfish.common.BfConsts.RELPATH_EXTERNAL_BGP_ANNOUNCEMENTS;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.auto.service.AutoService;
+import com.google.common.annotations.VisibleForTesting;
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.LinkedHashSet;
-import java.util.List;
 import java.util.Set;
 import org.batfish.common.BatfishException;
 import org.batfish.common.NetworkSnapshot;
@@ -16,33 +22,54 @@ import org.batfish.datamodel.BgpAdvertisement;
 @AutoService(Plugin.class)
 public class JsonExternalBgpAdvertisementPlugin extends ExternalBgpAdvertisementPlugin {
 
-  private static class Announcements {
-    @JsonProperty("Announcements")
-    List<BgpAdvertisement> _announcements;
-  }
+  private static final String PROP_ANNOUNCEMENTS = "Announcements";
 
   @Override
   protected void externalBgpAdvertisementPluginInitialize() {}
 
   @Override
   public Set<BgpAdvertisement> loadExternalBgpAdvertisements(NetworkSnapshot snapshot) {
-    String externalBgpAnnouncementsFileContents =
-        _batfish.readExternalBgpAnnouncementsFile(snapshot);
-    if (externalBgpAnnouncementsFileContents != null) {
-      // Populate advertSet with BgpAdvertisements that
-      // gets passed to populatePrecomputedBgpAdvertisements.
-      // See populatePrecomputedBgpAdvertisements for the things that get
-      // extracted from these advertisements.
+    // Populate advertSet with BgpAdvertisements that
+    // gets passed to populatePrecomputedBgpAdvertisements.
+    // See populatePrecomputedBgpAdvertisements for the things that get
+    // extracted from these advertisements.
+    try (InputStream stream =
+        _batfish.getSnapshotInputObject(snapshot, RELPATH_EXTERNAL_BGP_ANNOUNCEMENTS)) {
+      return readAnnouncements(stream);
+    } catch (FileNotFoundException e) {
+      return new LinkedHashSet<>();
+    } catch (IOException e) {
+      throw new BatfishException("Error processing external BGP advertisements file", e);
+    }
+  }
 
-      try {
-        Announcements parsedAdverts =
-            BatfishObjectMapper.mapper()
-                .readValue(externalBgpAnnouncementsFileContents, Announcements.class);
-        return new LinkedHashSet<>(parsedAdverts._announcements);
-      } catch (IOException e) {
-        throw new BatfishException("Error processing external BGP advertisements file", e);
+  /**
+   * Reads the announcements in the given external BGP announcements JSON one at a time, so that
+   * neither the file contents nor the full list of parsed announcements is held in memory.
+   */
+  @VisibleForTesting
+  static Set<BgpAdvertisement> readAnnouncements(InputStream stream) throws IOException {
+    ObjectMapper mapper = BatfishObjectMapper.mapper();
+    Set<BgpAdvertisement> advertSet = new LinkedHashSet<>();
+    try (JsonParser parser = mapper.getFactory().createParser(stream)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw new IOException("Expected a JSON object of external BGP announcements");
+      }
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String field = parser.currentName();
+        JsonToken value = parser.nextToken();
+        if (!field.equals(PROP_ANNOUNCEMENTS) || value == JsonToken.VALUE_NULL) {
+          parser.skipChildren();
+          continue;
+        }
+        if (value != JsonToken.START_ARRAY) {
+          throw new IOException("Expected an array of external BGP announcements");
+        }
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+          advertSet.add(mapper.readValue(parser, BgpAdvertisement.class));
+        }
       }
     }
-    return new LinkedHashSet<>();
+    return advertSet;
   }
 }
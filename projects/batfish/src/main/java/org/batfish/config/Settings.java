@@ -30,6 +30,8 @@ public final class Settings extends BaseSettings implements GrammarSettings {
 
   private static final String ARG_PARSE_REUSE = "parsereuse";
 
+  private static final String ARG_PARSER_WARMUP_DIR = "parserwarmupdir";
+
   private static final String ARG_EXIT_ON_FIRST_ERROR = "ee";
 
   private static final String ARG_FLATTEN = "flatten";
@@ -52,6 +54,8 @@ public final class Settings extends BaseSettings implements GrammarSettings {
 
   private static final String ARG_MAX_PARSE_TREE_PRINT_LENGTH = "maxparsetreeprintlength";
 
+  private static final String ARG_MAX_IN_FLIGHT_JOB_COST = "maxinflightjobcost";
+
   private static final String ARG_MAX_RUNTIME_MS = "maxruntime";
 
   private static final String ARG_NO_SHUFFLE = "noshuffle";
@@ -252,10 +256,30 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     return _config.getInt(ARG_MAX_PARSE_TREE_PRINT_LENGTH);
   }
 
+  /**
+   * Returns the maximum total {@link org.batfish.job.BatfishJob#getEstimatedCost() estimated cost}
+   * of jobs the job executor may run concurrently, or a non-positive value for no limit.
+   */
+  public long getMaxInFlightJobCost() {
+    return _config.getLong(ARG_MAX_IN_FLIGHT_JOB_COST);
+  }
+
   public int getMaxRuntimeMs() {
     return _config.getInt(ARG_MAX_RUNTIME_MS);
   }
 
+  /**
+   * Returns the directory of representative configuration files to parse at service startup in
+   * order to warm up parser prediction caches, or {@code null} if warm-up is disabled.
+   */
+  public @Nullable Path getParserWarmupDir() {
+    String dir = _config.getString(ARG_PARSER_WARMUP_DIR);
+    if (dir == null) {
+      return null;
+    }
+    return Paths.get(dir);
+  }
+
   public boolean getPrecomputeAutocomplete() {
     return _config.getBoolean(ARG_PRECOMPUTE_AUTOCOMPLETE);
   }
@@ -390,10 +414,12 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     setDefaultProperty(ARG_MAX_PARSER_CONTEXT_LINES, 10);
     setDefaultProperty(ARG_MAX_PARSER_CONTEXT_TOKENS, 10);
     setDefaultProperty(ARG_MAX_PARSE_TREE_PRINT_LENGTH, 0);
+    setDefaultProperty(ARG_MAX_IN_FLIGHT_JOB_COST, 0L);
     setDefaultProperty(ARG_MAX_RUNTIME_MS, 0);
     setDefaultProperty(ARG_CHECK_BGP_REACHABILITY, true);
     setDefaultProperty(ARG_NO_SHUFFLE, false);
     setDefaultProperty(ARG_PARSE_REUSE, false);
+    setDefaultProperty(ARG_PARSER_WARMUP_DIR, null);
     setDefaultProperty(ARG_PRECOMPUTE_AUTOCOMPLETE, true);
     setDefaultProperty(ARG_PRINT_PARSE_TREES, false);
     setDefaultProperty(ARG_PRINT_PARSE_TREE_LINE_NUMS, false);
@@ -534,12 +560,23 @@ public final class Settings extends BaseSettings implements GrammarSettings {
             + "(<= 0 is treated as no limit)",
         ARGNAME_NUMBER);
 
+    addOption(
+        ARG_MAX_IN_FLIGHT_JOB_COST,
+        "maximum total estimated cost (e.g. input characters) of concurrently running jobs "
+            + "(<= 0 is treated as no limit)",
+        ARGNAME_NUMBER);
+
     addOption(ARG_MAX_RUNTIME_MS, "maximum time (in ms) to allow a task to run", ARGNAME_NUMBER);
 
     addBooleanOption(ARG_NO_SHUFFLE, "do not shuffle parallel jobs");
 
     addBooleanOption(ARG_PARSE_REUSE, "reuse parse results when appropriate");
 
+    addOption(
+        ARG_PARSER_WARMUP_DIR,
+        "directory of configuration files to parse at service startup to warm up parser caches",
+        ARGNAME_PATH);
+
     addBooleanOption(ARG_PRECOMPUTE_AUTOCOMPLETE, "pre-compute autocomplete results");
 
     addBooleanOption(ARG_PRINT_PARSE_TREES, "print parse trees");
@@ -692,6 +729,7 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     getIntOptionValue(ARG_MAX_PARSER_CONTEXT_LINES);
     getIntOptionValue(ARG_MAX_PARSER_CONTEXT_TOKENS);
     getIntOptionValue(ARG_MAX_PARSE_TREE_PRINT_LENGTH);
+    getLongOptionValue(ARG_MAX_IN_FLIGHT_JOB_COST);
     getIntOptionValue(ARG_MAX_RUNTIME_MS);
     getBooleanOptionValue(ARG_PRINT_PARSE_TREES);
     getBooleanOptionValue(ARG_PRINT_PARSE_TREE_LINE_NUMS);
@@ -702,6 +740,7 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     getBooleanOptionValue(BfConsts.COMMAND_PARSE_VENDOR_SPECIFIC);
     getBooleanOptionValue(ARG_NO_SHUFFLE);
     getBooleanOptionValue(ARG_PARSE_REUSE);
+    getPathOptionValue(ARG_PARSER_WARMUP_DIR);
     getStringOptionValue(BfConsts.ARG_SNAPSHOT_NAME);
     getPathOptionValue(BfConsts.ARG_STORAGE_BASE);
     getStringOptionValue(BfConsts.ARG_TASK_PLUGIN);
@@ -770,6 +809,10 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     _config.setProperty(ARG_MAX_PARSE_TREE_PRINT_LENGTH, maxParseTreePrintLength);
   }
 
+  public void setMaxInFlightJobCost(long maxInFlightJobCost) {
+    _config.setProperty(ARG_MAX_IN_FLIGHT_JOB_COST, maxInFlightJobCost);
+  }
+
   public void setMaxRuntimeMs(int runtimeMs) {
     _config.setProperty(ARG_MAX_RUNTIME_MS, runtimeMs);
   }
@@ -784,6 +827,11 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     _config.setProperty(ARG_PRINT_PARSE_TREE_LINE_NUMS, printParseTreeLineNums);
   }
 
+  public void setParserWarmupDir(@Nullable Path parserWarmupDir) {
+    _config.setProperty(
+        ARG_PARSER_WARMUP_DIR, parserWarmupDir != null ? parserWarmupDir.toString() : null);
+  }
+
   public void setRunMode(RunMode runMode) {
     _config.setProperty(ARG_RUN_MODE, runMode.toString());
   }
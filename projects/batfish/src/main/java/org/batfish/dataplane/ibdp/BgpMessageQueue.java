@@ -0,0 +1,83 @@
+package org.batfish.dataplane.ibdp;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.batfish.dataplane.rib.RouteAdvertisement;
+
+/**
+ * The incoming {@link RouteAdvertisement}s of one BGP session, backed by an array rather than by a
+ * linked list node per message.
+ *
+ * <p>The sender adds each batch of advertisements at once, and the receiver {@link #drain drains}
+ * all of them at once. Only the last advertisement of each route is delivered: merging a route
+ * into a RIB and withdrawing it again, or the reverse, leaves the RIB as the last advertisement
+ * alone does. The delivered advertisements keep the relative order of those last advertisements,
+ * so arrival-order tie breaking is unaffected.
+ */
+@ParametersAreNonnullByDefault
+final class BgpMessageQueue<R> {
+
+  private @Nonnull List<RouteAdvertisement<R>> _advertisements = new ArrayList<>();
+
+  /** Adds the given advertisements to the end of the queue. */
+  void addAll(Stream<RouteAdvertisement<R>> advertisements) {
+    // Evaluate the (possibly lazy) stream before locking, so the receiver is not blocked by it.
+    List<RouteAdvertisement<R>> batch = advertisements.collect(Collectors.toList());
+    if (batch.isEmpty()) {
+      return;
+    }
+    synchronized (this) {
+      _advertisements.addAll(batch);
+    }
+  }
+
+  /**
+   * Removes all advertisements from the queue, and returns the last advertisement of each route in
+   * the order they were added.
+   */
+  @Nonnull
+  List<RouteAdvertisement<R>> drain() {
+    List<RouteAdvertisement<R>> advertisements;
+    synchronized (this) {
+      if (_advertisements.isEmpty()) {
+        return ImmutableList.of();
+      }
+      advertisements = _advertisements;
+      _advertisements = new ArrayList<>();
+    }
+    return coalesce(advertisements);
+  }
+
+  synchronized boolean isEmpty() {
+    return _advertisements.isEmpty();
+  }
+
+  /** Returns the queued advertisements, in the order they were added, without removing them. */
+  synchronized @Nonnull Stream<RouteAdvertisement<R>> stream() {
+    return ImmutableList.copyOf(_advertisements).stream();
+  }
+
+  /** Returns the last advertisement of each route in {@code advertisements}, in order. */
+  private static <R> @Nonnull List<RouteAdvertisement<R>> coalesce(
+      List<RouteAdvertisement<R>> advertisements) {
+    if (advertisements.size() < 2) {
+      return advertisements;
+    }
+    Set<R> seen = new HashSet<>();
+    List<RouteAdvertisement<R>> lastAdvertisements = new ArrayList<>(advertisements.size());
+    for (RouteAdvertisement<R> advertisement : Lists.reverse(advertisements)) {
+      if (seen.add(advertisement.getRoute())) {
+        lastAdvertisements.add(advertisement);
+      }
+    }
+    return Lists.reverse(lastAdvertisements);
+  }
+}
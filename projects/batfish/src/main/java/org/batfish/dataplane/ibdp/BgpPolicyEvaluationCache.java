@@ -0,0 +1,234 @@
+package org.batfish.dataplane.ibdp;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.common.annotations.VisibleForTesting;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Predicate;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.batfish.datamodel.AbstractRouteDecorator;
+import org.batfish.datamodel.BgpRoute;
+import org.batfish.datamodel.BgpSessionProperties;
+import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.route.nh.NextHop;
+import org.batfish.datamodel.route.nh.NextHopDiscard;
+import org.batfish.datamodel.routing_policy.Environment.Direction;
+import org.batfish.datamodel.routing_policy.RoutingPolicy;
+
+/**
+ * Internal iBDP implementation. Memoizes the evaluation of BGP import and export policies on a
+ * single BGP routing process.
+ *
+ * <p>On a single device, the result of a policy is determined by its input route (including the
+ * source VRF of an annotated route), the output route attributes before the policy runs, the BGP
+ * session properties, the direction, and the successful tracks. All but the tracks form the cache
+ * key; the owner must {@link #invalidateAll() invalidate} the cache when the tracks change. A hit
+ * replays the output route attributes of the earlier evaluation instead of running the policy.
+ *
+ * <p>Output route builders need not have a next hop: export policies run on builders whose next hop
+ * was cleared, and usually leave it unset. Route attributes are therefore captured as {@link
+ * RouteAttributes}, which record whether the next hop is set.
+ */
+@ParametersAreNonnullByDefault
+final class BgpPolicyEvaluationCache {
+
+  private static final Logger LOGGER = LogManager.getLogger(BgpPolicyEvaluationCache.class);
+
+  /**
+   * The maximum number of evaluations remembered across all BGP routing processes of a node, so
+   * that nodes with many VRFs do not remember many times more than nodes with one.
+   */
+  private static final long MAXIMUM_SIZE_PER_NODE = 1 << 14;
+
+  /** The maximum number of evaluations remembered by a BGP routing process, however many VRFs. */
+  private static final long MINIMUM_SIZE = 1 << 8;
+
+  /**
+   * Returns a cache for one of the BGP routing processes on the node with the given configuration.
+   * Hit and miss counts are only recorded if debug logging is enabled.
+   */
+  static @Nonnull BgpPolicyEvaluationCache forProcessOn(Configuration c) {
+    long bgpVrfs = c.getVrfs().values().stream().filter(vrf -> vrf.getBgpProcess() != null).count();
+    return new BgpPolicyEvaluationCache(
+        Math.max(MINIMUM_SIZE, MAXIMUM_SIZE_PER_NODE / Math.max(bgpVrfs, 1)),
+        LOGGER.isDebugEnabled());
+  }
+
+  /** Logs the total hits and misses of the given caches, if debug logging is enabled. */
+  static void logStatistics(Collection<BgpPolicyEvaluationCache> caches) {
+    if (!LOGGER.isDebugEnabled()) {
+      return;
+    }
+    long hits = 0;
+    long misses = 0;
+    for (BgpPolicyEvaluationCache cache : caches) {
+      hits += cache.getHitCount();
+      misses += cache.getMissCount();
+    }
+    LOGGER.debug("BGP policy evaluation cache: {} hits, {} misses", hits, misses);
+  }
+
+  @VisibleForTesting
+  BgpPolicyEvaluationCache(long maximumSize, boolean recordStats) {
+    Caffeine<Object, Object> builder = Caffeine.newBuilder().maximumSize(maximumSize);
+    _cache = (recordStats ? builder.recordStats() : builder).build();
+  }
+
+  /**
+   * Processes a BGP route by a routing policy, as {@link RoutingPolicy#processBgpRoute} does.
+   *
+   * <p>Returns a builder with the output route attributes if the policy accepts the route, or
+   * {@code null} if it rejects it. The returned builder may differ from {@code outputRouteBuilder},
+   * which must not be used after this call.
+   */
+  <B extends BgpRoute.Builder<B, R>, R extends BgpRoute<B, R>> @Nullable B process(
+      RoutingPolicy policy,
+      AbstractRouteDecorator inputRoute,
+      B outputRouteBuilder,
+      @Nullable BgpSessionProperties sessionProperties,
+      Direction direction,
+      Predicate<String> successfulTrack) {
+    Key key =
+        new Key(
+            policy.getName(),
+            direction,
+            inputRoute,
+            RouteAttributes.of(outputRouteBuilder),
+            sessionProperties);
+    Optional<RouteAttributes> cachedOutput = _cache.getIfPresent(key);
+    if (cachedOutput != null) {
+      return cachedOutput.map(RouteAttributes::<B, R>toBuilder).orElse(null);
+    }
+    boolean accept =
+        policy.processBgpRoute(
+            inputRoute, outputRouteBuilder, sessionProperties, direction, successfulTrack);
+    _cache.put(
+        key, accept ? Optional.of(RouteAttributes.of(outputRouteBuilder)) : Optional.empty());
+    return accept ? outputRouteBuilder : null;
+  }
+
+  /** Returns the maximum number of evaluations this cache remembers. */
+  @VisibleForTesting
+  long getMaximumSize() {
+    return _cache.policy().eviction().orElseThrow().getMaximum();
+  }
+
+  /** Forgets all evaluations, e.g. because the successful tracks changed. */
+  void invalidateAll() {
+    _cache.invalidateAll();
+  }
+
+  /** Returns the number of policy evaluations answered from the cache, if recorded. */
+  long getHitCount() {
+    return _cache.stats().hitCount();
+  }
+
+  /** Returns the number of policy evaluations that ran the policy, if recorded. */
+  long getMissCount() {
+    return _cache.stats().missCount();
+  }
+
+  /** The attributes of a BGP route builder, which may lack a next hop. */
+  private static final class RouteAttributes {
+
+    /** Captures the attributes of {@code builder}, leaving it unchanged. */
+    static <B extends BgpRoute.Builder<B, R>, R extends BgpRoute<B, R>> RouteAttributes of(
+        B builder) {
+      if (builder.getNextHop() != null) {
+        return new RouteAttributes(builder.build(), true);
+      }
+      // Builders reject a missing next hop, so build with a placeholder and restore the builder.
+      R route = builder.setNextHop(PLACEHOLDER_NEXT_HOP).build();
+      builder.clearNextHop();
+      return new RouteAttributes(route, false);
+    }
+
+    /** Returns a new builder with the captured attributes. */
+    @SuppressWarnings("unchecked") // Captured routes have the class of the keyed output route.
+    <B extends BgpRoute.Builder<B, R>, R extends BgpRoute<B, R>> B toBuilder() {
+      B builder = ((R) _route).toBuilder();
+      return _hasNextHop ? builder : builder.clearNextHop();
+    }
+
+    private RouteAttributes(BgpRoute<?, ?> route, boolean hasNextHop) {
+      _route = route;
+      _hasNextHop = hasNextHop;
+    }
+
+    @Override
+    public boolean equals(@Nullable Object o) {
+      if (this == o) {
+        return true;
+      } else if (!(o instanceof RouteAttributes)) {
+        return false;
+      }
+      RouteAttributes that = (RouteAttributes) o;
+      return _hasNextHop == that._hasNextHop && _route.equals(that._route);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * _route.hashCode() + Boolean.hashCode(_hasNextHop);
+    }
+
+    private static final NextHop PLACEHOLDER_NEXT_HOP = NextHopDiscard.instance();
+
+    /** The captured route, with {@link #PLACEHOLDER_NEXT_HOP} if the next hop was unset. */
+    private final @Nonnull BgpRoute<?, ?> _route;
+    private final boolean _hasNextHop;
+  }
+
+  private static final class Key {
+    private final @Nonnull String _policyName;
+    private final @Nonnull Direction _direction;
+    private final @Nonnull AbstractRouteDecorator _inputRoute;
+    private final @Nonnull RouteAttributes _outputRoute;
+    private final @Nullable BgpSessionProperties _sessionProperties;
+    private final int _hashCode;
+
+    private Key(
+        String policyName,
+        Direction direction,
+        AbstractRouteDecorator inputRoute,
+        RouteAttributes outputRoute,
+        @Nullable BgpSessionProperties sessionProperties) {
+      _policyName = policyName;
+      _direction = direction;
+      _inputRoute = inputRoute;
+      _outputRoute = outputRoute;
+      _sessionProperties = sessionProperties;
+      _hashCode =
+          Objects.hash(
+              _policyName, _direction.ordinal(), _inputRoute, _outputRoute, _sessionProperties);
+    }
+
+    @Override
+    public boolean equals(@Nullable Object o) {
+      if (this == o) {
+        return true;
+      } else if (!(o instanceof Key)) {
+        return false;
+      }
+      Key that = (Key) o;
+      return _hashCode == that._hashCode
+          && _direction == that._direction
+          && _policyName.equals(that._policyName)
+          && _inputRoute.equals(that._inputRoute)
+          && _outputRoute.equals(that._outputRoute)
+          && Objects.equals(_sessionProperties, that._sessionProperties);
+    }
+
+    @Override
+    public int hashCode() {
+      return _hashCode;
+    }
+  }
+
+  private final @Nonnull Cache<Key, Optional<RouteAttributes>> _cache;
+}
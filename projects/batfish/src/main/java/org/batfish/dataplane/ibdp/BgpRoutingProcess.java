@@ -14,7 +14,7 @@ import static org.batfish.datamodel.OriginMechanism.NETWORK;
 import static org.batfish.datamodel.OriginMechanism.REDISTRIBUTE;
 import static org.batfish.datamodel.routing_policy.Environment.Direction.IN;
 import static org.batfish.datamodel.routing_policy.Environment.Direction.OUT;
-import static org.batfish.dataplane.ibdp.DataplaneUtil.messageQueueStream;
+import static org.batfish.dataplane.ibdp.DataplaneUtil.bgpMessageQueueStream;
 import static org.batfish.dataplane.protocols.BgpProtocolHelper.toBgpv4Route;
 import static org.batfish.dataplane.protocols.BgpProtocolHelper.transformBgpRouteOnImport;
 import static org.batfish.dataplane.rib.RibDelta.importDeltaToBuilder;
@@ -40,11 +40,9 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.Queue;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
 import java.util.function.Function;
 import java.util.function.Predicate;
@@ -169,6 +167,10 @@ final class BgpRoutingProcess implements RoutingProcess<BgpTopology, BgpRoute<?,
   private final @Nonnull PrefixTrieMultiMap<BgpAggregate> _aggregates;
 
   private final @Nonnull RoutingPolicies _policies;
+
+  /** Memoized evaluations of the BGP import and export policies in {@link #_policies}. */
+  private final @Nonnull BgpPolicyEvaluationCache _policyEvaluationCache;
+
   private final @Nonnull String _hostname;
 
   /** Name of our VRF */
@@ -196,13 +198,13 @@ final class BgpRoutingProcess implements RoutingProcess<BgpTopology, BgpRoute<?,
    * address family
    */
   @VisibleForTesting @Nonnull
-  SortedMap<EdgeId, Queue<RouteAdvertisement<EvpnType3Route>>> _evpnType3IncomingRoutes;
+  SortedMap<EdgeId, BgpMessageQueue<EvpnType3Route>> _evpnType3IncomingRoutes;
 
   /**
    * Incoming EVPN type 5 advertisements into this router from each BGP neighbor that speaks EVPN
    * address family
    */
-  @Nonnull SortedMap<EdgeId, Queue<RouteAdvertisement<EvpnType5Route>>> _evpnType5IncomingRoutes;
+  @Nonnull SortedMap<EdgeId, BgpMessageQueue<EvpnType5Route>> _evpnType5IncomingRoutes;
 
   /**
    * External BGP announcements to be processed upon the first iteration of BGP on this node.
@@ -382,6 +384,7 @@ final class BgpRoutingProcess implements RoutingProcess<BgpTopology, BgpRoute<?,
     _c = configuration;
     _hostname = configuration.getHostname();
     _policies = RoutingPolicies.from(configuration);
+    _policyEvaluationCache = BgpPolicyEvaluationCache.forProcessOn(configuration);
     _vrfName = vrfName;
     _mainRib = mainRib;
     _topology = topology;
@@ -547,9 +550,9 @@ final class BgpRoutingProcess implements RoutingProcess<BgpTopology, BgpRoute<?,
         getEdgeIdStream(graph, BgpPeerConfig::getEvpnAddressFamily, Type.EVPN)
             .collect(ImmutableList.toImmutableList());
     _evpnType3IncomingRoutes =
-        toImmutableSortedMap(evpnEdgeIds, Function.identity(), e -> new ConcurrentLinkedQueue<>());
+        toImmutableSortedMap(evpnEdgeIds, Function.identity(), e -> new BgpMessageQueue<>());
     _evpnType5IncomingRoutes =
-        toImmutableSortedMap(evpnEdgeIds, Function.identity(), e -> new ConcurrentLinkedQueue<>());
+        toImmutableSortedMap(evpnEdgeIds, Function.identity(), e -> new BgpMessageQueue<>());
   }
 
   /**
@@ -805,8 +808,8 @@ final class BgpRoutingProcess implements RoutingProcess<BgpTopology, BgpRoute<?,
     assert _evpnType5DeltaBuilder.isEmpty();
     return
     // Message queues
-    !_evpnType3IncomingRoutes.values().stream().allMatch(Queue::isEmpty)
-        || !_evpnType5IncomingRoutes.values().stream().allMatch(Queue::isEmpty)
+    !_evpnType3IncomingRoutes.values().stream().allMatch(BgpMessageQueue::isEmpty)
+        || !_evpnType5IncomingRoutes.values().stream().allMatch(BgpMessageQueue::isEmpty)
         // Outgoing message deltas. We need to send these to neighbors.
         || !_ebgpv4DeltaPrev.isEmpty()
         || !_ebgpv4DeltaPrevBestPath.isEmpty()
@@ -1022,13 +1025,13 @@ final class BgpRoutingProcess implements RoutingProcess<BgpTopology, BgpRoute<?,
 
       // Process route through import policy, if one exists
       String importPolicyName = ourBgpConfig.getIpv4UnicastAddressFamily().getImportPolicy();
-      boolean acceptIncoming = true;
       // TODO: ensure there is always an import policy
       if (importPolicyName != null) {
         RoutingPolicy importPolicy = _policies.get(importPolicyName).orElse(null);
         if (importPolicy != null) {
-          acceptIncoming =
-              importPolicy.processBgpRoute(
+          transformedIncomingRouteBuilder =
+              _policyEvaluationCache.process(
+                  importPolicy,
                   remoteRoute,
                   transformedIncomingRouteBuilder,
                   ourSessionProperties,
@@ -1036,7 +1039,7 @@ final class BgpRoutingProcess implements RoutingProcess<BgpTopology, BgpRoute<?,
                   _successfulWatchedTracks::contains);
         }
       }
-      if (!acceptIncoming) {
+      if (transformedIncomingRouteBuilder == null) {
         // Route could not be imported due to routing policy
         _prefixTracer.filtered(
             remoteRoute.getNetwork(),
@@ -1534,10 +1537,10 @@ final class BgpRoutingProcess implements RoutingProcess<BgpTopology, BgpRoute<?,
   /** Process incoming EVPN type 3 messages, across all neighbors */
   private DeltaPair<EvpnType3Route> processEvpnType3Messages(NetworkConfigurations nc) {
     DeltaPair<EvpnType3Route> deltaPair = DeltaPair.empty();
-    for (Entry<EdgeId, Queue<RouteAdvertisement<EvpnType3Route>>> entry :
+    for (Entry<EdgeId, BgpMessageQueue<EvpnType3Route>> entry :
         _evpnType3IncomingRoutes.entrySet()) {
       EdgeId edge = entry.getKey();
-      Queue<RouteAdvertisement<EvpnType3Route>> queue = entry.getValue();
+      BgpMessageQueue<EvpnType3Route> queue = entry.getValue();
       deltaPair =
           deltaPair.union(processEvpnMessagesFromNeighbor(edge, queue, nc, EvpnType3Route.class));
     }
@@ -1547,10 +1550,10 @@ final class BgpRoutingProcess implements RoutingProcess<BgpTopology, BgpRoute<?,
   /** Process incoming EVPN type 5 messages, across all neighbors */
   private @Nonnull DeltaPair<EvpnType5Route> processEvpnType5Messages(NetworkConfigurations nc) {
     DeltaPair<EvpnType5Route> deltaPair = DeltaPair.empty();
-    for (Entry<EdgeId, Queue<RouteAdvertisement<EvpnType5Route>>> entry :
+    for (Entry<EdgeId, BgpMessageQueue<EvpnType5Route>> entry :
         _evpnType5IncomingRoutes.entrySet()) {
       EdgeId edge = entry.getKey();
-      Queue<RouteAdvertisement<EvpnType5Route>> queue = entry.getValue();
+      BgpMessageQueue<EvpnType5Route> queue = entry.getValue();
       deltaPair =
           deltaPair.union(processEvpnMessagesFromNeighbor(edge, queue, nc, EvpnType5Route.class));
     }
@@ -1561,7 +1564,7 @@ final class BgpRoutingProcess implements RoutingProcess<BgpTopology, BgpRoute<?,
   private <B extends EvpnRoute.Builder<B, R>, R extends EvpnRoute<B, R>>
       DeltaPair<R> processEvpnMessagesFromNeighbor(
           EdgeId edge,
-          Queue<RouteAdvertisement<R>> queue,
+          BgpMessageQueue<R> queue,
           NetworkConfigurations nc,
           Class<R> clazz) {
     BgpPeerConfigId ourConfigId = edge.head();
@@ -1574,8 +1577,7 @@ final class BgpRoutingProcess implements RoutingProcess<BgpTopology, BgpRoute<?,
         getRib(clazz, ourSessionProperties.isEbgp() ? RibType.EBGP : RibType.IBGP);
     RibDelta.Builder<R> toAdvertise = RibDelta.builder();
     RibDelta.Builder<R> toMerge = RibDelta.builder();
-    while (!queue.isEmpty()) {
-      RouteAdvertisement<R> routeAdvertisement = queue.remove();
+    for (RouteAdvertisement<R> routeAdvertisement : queue.drain()) {
       R route = routeAdvertisement.getRoute();
       B transformedBuilder =
           transformBgpRouteOnImport(
@@ -1774,15 +1776,16 @@ final class BgpRoutingProcess implements RoutingProcess<BgpTopology, BgpRoute<?,
     }
 
     // Process transformed outgoing route by the export policy
-    boolean shouldExport =
-        exportPolicy.processBgpRoute(
+    transformedOutgoingRouteBuilder =
+        _policyEvaluationCache.process(
+            exportPolicy,
             exportCandidate,
             transformedOutgoingRouteBuilder,
             ourSessionProperties,
             Direction.OUT,
             _successfulWatchedTracks::contains);
 
-    if (!shouldExport) {
+    if (transformedOutgoingRouteBuilder == null) {
       // This route could not be exported due to export policy
       _prefixTracer.filtered(
           exportCandidate.getNetwork(),
@@ -2149,11 +2152,12 @@ final class BgpRoutingProcess implements RoutingProcess<BgpTopology, BgpRoute<?,
    * Identifies the given external advertisements for this node and saves them. They will be
    * processed at the start of the BGP computation.
    *
-   * @param externalAdverts a set of external BGP advertisements
+   * @param externalAdverts external BGP advertisements, including at least those for this node
    * @param ipVrfOwners mapping of IPs to their owners in our network
    */
   void stageExternalAdvertisements(
-      Set<BgpAdvertisement> externalAdverts, Map<Ip, Map<String, Set<String>>> ipVrfOwners) {
+      Collection<BgpAdvertisement> externalAdverts,
+      Map<Ip, Map<String, Set<String>>> ipVrfOwners) {
     // Retain only advertisements that are valid, and stage them for processing once we start up.
     _externalAdvertisements =
         externalAdverts.stream()
@@ -2216,17 +2220,17 @@ final class BgpRoutingProcess implements RoutingProcess<BgpTopology, BgpRoute<?,
     return Streams.concat(
             Stream.of(
                 // RIBs
-                _bgpv4Rib.getRoutes(),
-                _evpnType3Rib.getRoutes(),
-                _evpnType5Rib.getRoutes(),
+                _bgpv4Rib.getRoutesHashCode(),
+                _evpnType3Rib.getRoutesHashCode(),
+                _evpnType5Rib.getRoutesHashCode(),
                 // Outgoing RIB deltas
                 _ebgpv4DeltaPrev,
                 _ebgpv4DeltaPrevBestPath,
                 _bgpv4DeltaPrev,
                 _bgpv4DeltaPrevBestPath),
             // Message queues
-            messageQueueStream(_evpnType3IncomingRoutes),
-            messageQueueStream(_evpnType5IncomingRoutes))
+            bgpMessageQueueStream(_evpnType3IncomingRoutes),
+            bgpMessageQueueStream(_evpnType5IncomingRoutes))
         .collect(toOrderedHashCode());
   }
 
@@ -2499,6 +2503,10 @@ final class BgpRoutingProcess implements RoutingProcess<BgpTopology, BgpRoute<?,
     _successfulWatchedTracks = computeSuccessfulWatchedTracks(trackMethodEvaluatorProvider);
     _successfulWatchedTracksChanged =
         !_successfulWatchedTracks.equals(_successfulWatchedTracksPrev);
+    if (_successfulWatchedTracksChanged) {
+      // Policies may match on tracks, so their memoized results are no longer valid.
+      _policyEvaluationCache.invalidateAll();
+    }
     if (_successfulWatchedTracksChanged && !_exportFromBgpRib) {
       // Sanity check that we are calling this method prior to its own execution schedule in the
       // iteration, and prior to any other node's execution schedule that touches this node.
@@ -2579,9 +2587,9 @@ final class BgpRoutingProcess implements RoutingProcess<BgpTopology, BgpRoute<?,
    */
   private void enqueueEvpnType3Routes(
       @Nonnull EdgeId edgeId, @Nonnull Stream<RouteAdvertisement<EvpnType3Route>> routes) {
-    Queue<RouteAdvertisement<EvpnType3Route>> q = _evpnType3IncomingRoutes.get(edgeId);
+    BgpMessageQueue<EvpnType3Route> q = _evpnType3IncomingRoutes.get(edgeId);
     assert q != null; // Invariant of the session being up
-    routes.forEach(q::add);
+    q.addAll(routes);
   }
 
   /**
@@ -2591,9 +2599,9 @@ final class BgpRoutingProcess implements RoutingProcess<BgpTopology, BgpRoute<?,
    */
   private void enqueueEvpnType5Routes(
       @Nonnull EdgeId edgeId, @Nonnull Stream<RouteAdvertisement<EvpnType5Route>> routes) {
-    Queue<RouteAdvertisement<EvpnType5Route>> q = _evpnType5IncomingRoutes.get(edgeId);
+    BgpMessageQueue<EvpnType5Route> q = _evpnType5IncomingRoutes.get(edgeId);
     assert q != null; // Invariant of the session being up
-    routes.forEach(q::add);
+    q.addAll(routes);
   }
 
   /** Return a BGP routing process for a given {@link BgpPeerConfigId} */
@@ -2670,6 +2678,12 @@ final class BgpRoutingProcess implements RoutingProcess<BgpTopology, BgpRoute<?,
     return _bgpv4Rib.getNumBestPathRoutes();
   }
 
+  /** Return the memoized evaluations of this process's BGP import and export policies. */
+  @Nonnull
+  BgpPolicyEvaluationCache getPolicyEvaluationCache() {
+    return _policyEvaluationCache;
+  }
+
   @VisibleForTesting
   @Nonnull
   Builder<Bgpv4Route> getBgpv4DeltaBuilder() {
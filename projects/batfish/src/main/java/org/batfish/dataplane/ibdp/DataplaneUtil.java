@@ -160,5 +160,10 @@ public final class DataplaneUtil {
     return input.entrySet().stream().flatMap(DataplaneUtil::edgeQueueStream);
   }
 
+  static <E, R> Stream<Object> bgpMessageQueueStream(Map<E, BgpMessageQueue<R>> input) {
+    return input.entrySet().stream()
+        .flatMap(entry -> Streams.concat(Stream.of(entry.getKey()), entry.getValue().stream()));
+  }
+
   private DataplaneUtil() {}
 }
@@ -596,7 +596,7 @@ final class EigrpRoutingProcess implements RoutingProcess<EigrpTopology, EigrpRo
     assert _queuedForRedistribution.isEmpty(); // expected invariant
     assert _initializationDelta.isEmpty(); // expected invariant
     return Streams.concat(
-            Stream.of(_rib),
+            Stream.of(_rib.getRoutesHashCode()),
             messageQueueStream(_incomingInternalRoutes),
             messageQueueStream(_incomingExternalRoutes),
             _changeSet.build().stream())
@@ -1,5 +1,6 @@
 package org.batfish.dataplane.ibdp;
 
+import static java.util.stream.Collectors.groupingBy;
 import static java.util.stream.Collectors.toSet;
 import static org.batfish.common.topology.TopologyUtil.computeLayer2Topology;
 import static org.batfish.common.topology.TopologyUtil.computeLayer3Topology;
@@ -24,24 +25,33 @@ import com.google.common.collect.ImmutableTable;
 import com.google.common.collect.Sets;
 import com.google.common.collect.Table;
 import com.google.common.collect.Table.Cell;
+import com.google.common.graph.EndpointPair;
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.TreeSet;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.batfish.common.BdpOscillationException;
 import org.batfish.common.plugin.DataPlanePlugin.ComputeDataPlaneResult;
 import org.batfish.common.plugin.TracerouteEngine;
+import org.batfish.common.topology.CsrGraph;
 import org.batfish.common.topology.GlobalBroadcastNoPointToPoint;
 import org.batfish.common.topology.HybridL3Adjacencies;
 import org.batfish.common.topology.IpOwners;
@@ -52,6 +62,7 @@ import org.batfish.common.topology.TunnelTopology;
 import org.batfish.common.topology.broadcast.BroadcastL3Adjacencies;
 import org.batfish.datamodel.AbstractRoute;
 import org.batfish.datamodel.BgpAdvertisement;
+import org.batfish.datamodel.BgpPeerConfigId;
 import org.batfish.datamodel.Bgpv4Route;
 import org.batfish.datamodel.Configuration;
 import org.batfish.datamodel.Edge;
@@ -62,6 +73,7 @@ import org.batfish.datamodel.NetworkConfigurations;
 import org.batfish.datamodel.Topology;
 import org.batfish.datamodel.answers.IncrementalBdpAnswerElement;
 import org.batfish.datamodel.bgp.BgpTopology;
+import org.batfish.datamodel.collections.NodeInterfacePair;
 import org.batfish.datamodel.eigrp.EigrpTopology;
 import org.batfish.datamodel.eigrp.EigrpTopologyUtils;
 import org.batfish.datamodel.ipsec.IpsecTopology;
@@ -257,6 +269,65 @@ final class IncrementalBdpEngine {
         .build();
   }
 
+  /**
+   * Logs the edges gained and lost by the BGP and layer-3 topologies in an iteration. This copies
+   * both topologies into {@link CsrGraph}s, so it is only called when debug logging is enabled.
+   */
+  private static void logTopologyChanges(TopologyContext current, TopologyContext next) {
+    BgpTopology currentBgp = current.getBgpTopology();
+    BgpTopology nextBgp = next.getBgpTopology();
+    if (!currentBgp.equals(nextBgp)) {
+      compareEdges(toCsrGraph(currentBgp), toCsrGraph(nextBgp))
+          .ifPresent(s -> LOGGER.debug("BGP topology: {}", s));
+    }
+    Topology currentL3 = current.getLayer3Topology();
+    Topology nextL3 = next.getLayer3Topology();
+    if (!currentL3.equals(nextL3)) {
+      compareEdges(toCsrGraph(currentL3), toCsrGraph(nextL3))
+          .ifPresent(s -> LOGGER.debug("Layer-3 topology: {}", s));
+    }
+  }
+
+  private static @Nonnull CsrGraph<BgpPeerConfigId> toCsrGraph(BgpTopology topology) {
+    return CsrGraph.copyOf(topology.getGraph().asGraph(), Comparator.naturalOrder());
+  }
+
+  private static @Nonnull CsrGraph<NodeInterfacePair> toCsrGraph(Topology topology) {
+    CsrGraph.Builder<NodeInterfacePair> graph = CsrGraph.builder(Comparator.naturalOrder());
+    topology.getEdges().forEach(edge -> graph.putEdge(edge.getTail(), edge.getHead()));
+    return graph.build();
+  }
+
+  /** Helper method used to sample the change in edges across iterations. */
+  @VisibleForTesting
+  static <N> @Nonnull Optional<String> compareEdges(CsrGraph<N> current, CsrGraph<N> next) {
+    if (current.equals(next)) {
+      return Optional.empty();
+    }
+    List<EndpointPair<N>> gained = next.edgesNotIn(current);
+    List<EndpointPair<N>> lost = current.edgesNotIn(next);
+    if (gained.isEmpty() && lost.isEmpty()) {
+      // Only isolated nodes changed.
+      return Optional.empty();
+    } else if (gained.isEmpty()) {
+      return Optional.of(
+          String.format(
+              "lost %d including %s", lost.size(), lost.size() > 3 ? lost.subList(0, 3) : lost));
+    } else if (lost.isEmpty()) {
+      return Optional.of(
+          String.format(
+              "gained %d including %s",
+              gained.size(), gained.size() > 3 ? gained.subList(0, 3) : gained));
+    }
+    return Optional.of(
+        String.format(
+            "gained %d including %s, lost %d including %s",
+            gained.size(),
+            gained.size() > 3 ? gained.subList(0, 3) : gained,
+            lost.size(),
+            lost.size() > 3 ? lost.subList(0, 3) : lost));
+  }
+
   /** Helper method used to sample the change in tracks across iterations. */
   @VisibleForTesting
   static <T> @Nonnull Optional<String> compareTracks(
@@ -300,6 +371,28 @@ final class IncrementalBdpEngine {
       TopologyContext initialTopologyContext,
       Set<BgpAdvertisement> externalAdverts,
       IpOwners initialIpOwners) {
+    return computeDataPlane(
+        configurations,
+        initialTopologyContext,
+        externalAdverts,
+        initialIpOwners,
+        null,
+        null);
+  }
+
+  /**
+   * Computes the data plane, resuming from {@code resumeFrom} if it is non-null and matches the
+   * given configurations, and passing a {@link TopologyIterationCheckpoint} to {@code
+   * checkpointWriter}, if it is non-null, before the first topology iteration unless resuming, and
+   * at the end of every unconverged topology iteration.
+   */
+  ComputeDataPlaneResult computeDataPlane(
+      Map<String, Configuration> configurations,
+      TopologyContext initialTopologyContext,
+      Set<BgpAdvertisement> externalAdverts,
+      IpOwners initialIpOwners,
+      @Nullable TopologyIterationCheckpoint resumeFrom,
+      @Nullable Consumer<TopologyIterationCheckpoint> checkpointWriter) {
     LOGGER.info("Computing Data Plane using iBDP");
 
     Map<Ip, Map<String, Set<String>>> initialIpVrfOwners = initialIpOwners.getIpVrfOwners();
@@ -327,51 +420,123 @@ final class IncrementalBdpEngine {
     computeIgpDataPlane(nodes, vrs, initialTopologyContext, answerElement);
 
     LOGGER.info("Initialize virtual routers before topology fixed point");
+    // Index external advertisements by destination, so each router only filters its own.
+    Map<String, List<BgpAdvertisement>> externalAdvertsByHostname =
+        externalAdverts.stream().collect(groupingBy(BgpAdvertisement::getDstNode));
     vrs.parallelStream()
         .forEach(
-            vr -> vr.initForEgpComputationBeforeTopologyLoop(externalAdverts, initialIpVrfOwners));
+            vr ->
+                vr.initForEgpComputationBeforeTopologyLoop(
+                    externalAdvertsByHostname.getOrDefault(vr.getHostname(), ImmutableList.of()),
+                    initialIpVrfOwners));
 
     /*
      * Perform a fixed-point computation, in which every round the topology is updated based
      * on what we have learned in the previous round.
      */
-    // Since the topology iterations are incremental, clear fields that are pruned to get the real
-    // topology. They are not actually yet included in topologies.
-    TopologyContext priorTopologyContext =
-        initialTopologyContext.toBuilder()
-            .setIpsecTopology(IpsecTopology.EMPTY)
-            .setTunnelTopology(TunnelTopology.EMPTY)
-            .setVxlanTopology(VxlanTopology.EMPTY)
-            .build();
-    PartialDataplane currentDataplane =
-        nextDataplane(priorTopologyContext, nodes, vrs, initialIpOwners);
-
-    TopologyContext currentTopologyContext =
-        nextTopologyContext(
-            priorTopologyContext,
-            currentDataplane,
-            initialTopologyContext,
-            networkConfigurations,
-            initialIpVrfOwners);
     Map<String, Collection<TrackRoute>> trackRoutesByHostname = collectTrackRoutes(configurations);
     Map<String, Collection<TrackReachability>> trackReachabilitiesByHostname =
         collectTrackReachabilities(configurations);
-    Table<String, TrackReachability, Boolean> currentTrackReachabilityResults =
-        nextTrackReachabilityResults(
-            currentDataplane,
-            currentTopologyContext,
-            configurations,
-            trackReachabilitiesByHostname);
-    Table<String, TrackRoute, Boolean> currentTrackRouteResults =
-        nextTrackRouteResults(trackRoutesByHostname, nodes);
-    DataPlaneTrackMethodEvaluatorProvider currentTrackMethodEvaluatorProvider =
-        nextTrackMethodEvaluatorProvider(currentTrackReachabilityResults, currentTrackRouteResults);
-    DataPlaneIpOwners currentIpOwners =
-        new DataPlaneIpOwners(
-            configurations,
-            currentTopologyContext.getL3Adjacencies(),
-            currentTrackMethodEvaluatorProvider);
+    PartialDataplane currentDataplane;
+    TopologyContext currentTopologyContext;
+    Table<String, TrackReachability, Boolean> currentTrackReachabilityResults;
+    Table<String, TrackRoute, Boolean> currentTrackRouteResults;
+    DataPlaneTrackMethodEvaluatorProvider currentTrackMethodEvaluatorProvider;
+    DataPlaneIpOwners currentIpOwners;
     int topologyIterations = 0;
+    TopologyIterationCheckpoint checkpoint = null;
+    Optional<List<TopologyContext>> resumedTopologyContexts =
+        resumeFrom == null || !resumeFrom.getHostnames().equals(nodes.keySet())
+            ? Optional.empty()
+            : readCheckpointedTopologyContexts(resumeFrom, initialTopologyContext);
+    if (resumedTopologyContexts.isPresent()) {
+      assert resumeFrom != null;
+      LOGGER.info(
+          "Resuming from checkpoint after topology iteration {}",
+          resumeFrom.getTopologyIterations());
+      // Replay the EGP computation of the completed iterations on their checkpointed inputs, so the
+      // routes are the same as if the computation had not been interrupted.
+      List<TopologyContext> topologyContexts = resumedTopologyContexts.get();
+      while (true) {
+        currentTopologyContext = topologyContexts.get(topologyIterations);
+        currentTrackReachabilityResults =
+            resumeFrom.getTrackReachabilityResults(topologyIterations);
+        currentTrackRouteResults = resumeFrom.getTrackRouteResults(topologyIterations);
+        currentTrackMethodEvaluatorProvider =
+            nextTrackMethodEvaluatorProvider(
+                currentTrackReachabilityResults, currentTrackRouteResults);
+        currentIpOwners =
+            new DataPlaneIpOwners(
+                configurations,
+                currentTopologyContext.getL3Adjacencies(),
+                currentTrackMethodEvaluatorProvider);
+        if (topologyIterations == resumeFrom.getTopologyIterations()) {
+          break;
+        }
+        topologyIterations++;
+        LOGGER.info("Replaying topology iteration {}", topologyIterations);
+        if (computeNonMonotonicPortionOfDataPlane(
+            nodes,
+            vrs,
+            answerElement,
+            currentTopologyContext,
+            initialTopologyContext.getLayer3Topology(),
+            currentIpOwners,
+            networkConfigurations,
+            currentTrackMethodEvaluatorProvider)) {
+          LOGGER.error("Network has no stable solution");
+          throw new BdpOscillationException("Network has no stable solution");
+        }
+        updateLayer3Vnis(vrs);
+      }
+      // The next iteration computes the dataplane before it is needed.
+      currentDataplane = null;
+      if (checkpointWriter != null) {
+        checkpoint = resumeFrom;
+      }
+    } else {
+      // Since the topology iterations are incremental, clear fields that are pruned to get the
+      // real topology. They are not actually yet included in topologies.
+      TopologyContext priorTopologyContext =
+          initialTopologyContext.toBuilder()
+              .setIpsecTopology(IpsecTopology.EMPTY)
+              .setTunnelTopology(TunnelTopology.EMPTY)
+              .setVxlanTopology(VxlanTopology.EMPTY)
+              .build();
+      currentDataplane = nextDataplane(priorTopologyContext, nodes, vrs, initialIpOwners);
+
+      currentTopologyContext =
+          nextTopologyContext(
+              priorTopologyContext,
+              currentDataplane,
+              initialTopologyContext,
+              networkConfigurations,
+              initialIpVrfOwners);
+      currentTrackReachabilityResults =
+          nextTrackReachabilityResults(
+              currentDataplane,
+              currentTopologyContext,
+              configurations,
+              trackReachabilitiesByHostname);
+      currentTrackRouteResults = nextTrackRouteResults(trackRoutesByHostname, nodes);
+      currentTrackMethodEvaluatorProvider =
+          nextTrackMethodEvaluatorProvider(
+              currentTrackReachabilityResults, currentTrackRouteResults);
+      currentIpOwners =
+          new DataPlaneIpOwners(
+              configurations,
+              currentTopologyContext.getL3Adjacencies(),
+              currentTrackMethodEvaluatorProvider);
+      if (checkpointWriter != null) {
+        checkpoint =
+            new TopologyIterationCheckpoint(
+                nodes.keySet(),
+                currentTopologyContext,
+                currentTrackReachabilityResults,
+                currentTrackRouteResults);
+        checkpointWriter.accept(checkpoint);
+      }
+    }
     boolean converged = false;
     while (!converged && topologyIterations++ < MAX_TOPOLOGY_ITERATIONS) {
       LOGGER.info("Starting topology iteration {}", topologyIterations);
@@ -421,6 +586,9 @@ final class IncrementalBdpEngine {
       if (!currentTopologyContext.equals(nextTopologyContext)) {
         converged = false;
         LOGGER.info("Topologies changed in this iteration");
+        if (LOGGER.isDebugEnabled()) {
+          logTopologyChanges(currentTopologyContext, nextTopologyContext);
+        }
       }
       Optional<String> reachabilityDiff =
           compareTracks(currentTrackReachabilityResults, nextTrackReachabilityResults);
@@ -439,6 +607,13 @@ final class IncrementalBdpEngine {
       currentTrackReachabilityResults = nextTrackReachabilityResults;
       currentTrackRouteResults = nextTrackRouteResults;
       currentIpOwners = nextIpOwners;
+      if (!converged && checkpointWriter != null) {
+        assert checkpoint != null;
+        checkpoint =
+            checkpoint.withNextIteration(
+                currentTopologyContext, currentTrackReachabilityResults, currentTrackRouteResults);
+        checkpointWriter.accept(checkpoint);
+      }
     }
 
     if (!converged) {
@@ -453,6 +628,12 @@ final class IncrementalBdpEngine {
     // TODO: Properly finalize topologies, IpOwners, etc.
     LOGGER.info("Finalizing dataplane");
     answerElement.setVersion(BatfishVersion.getVersionStatic());
+    BgpPolicyEvaluationCache.logStatistics(
+        vrs.stream()
+            .map(VirtualRouter::getBgpRoutingProcess)
+            .filter(Objects::nonNull)
+            .map(BgpRoutingProcess::getPolicyEvaluationCache)
+            .collect(ImmutableList.toImmutableList()));
     IncrementalDataPlane finalDataplane =
         IncrementalDataPlane.builder()
             .setNodes(nodes)
@@ -461,6 +642,20 @@ final class IncrementalBdpEngine {
     return new IbdpResult(answerElement, finalDataplane, currentTopologyContext, nodes);
   }
 
+  private static @Nonnull Optional<List<TopologyContext>> readCheckpointedTopologyContexts(
+      TopologyIterationCheckpoint checkpoint, TopologyContext initialTopologyContext) {
+    ImmutableList.Builder<TopologyContext> topologyContexts = ImmutableList.builder();
+    try {
+      for (int i = 0; i <= checkpoint.getTopologyIterations(); i++) {
+        topologyContexts.add(checkpoint.toTopologyContext(i, initialTopologyContext));
+      }
+      return Optional.of(topologyContexts.build());
+    } catch (IOException e) {
+      LOGGER.warn("Ignoring data plane checkpoint that cannot be read", e);
+      return Optional.empty();
+    }
+  }
+
   private @Nonnull Table<String, TrackRoute, Boolean> nextTrackRouteResults(
       Map<String, Collection<TrackRoute>> trackRoutesByHostname, SortedMap<String, Node> nodes) {
     ImmutableTable.Builder<String, TrackRoute, Boolean> trackRouteResults =
@@ -865,8 +1060,13 @@ final class IncrementalBdpEngine {
      */
 
     Map<Integer, SortedSet<Integer>> iterationsByHashCode = new HashMap<>();
+    // Per-node hashcodes of each iteration, in the order of hostnames, to localize oscillations
+    List<String> hostnames = ImmutableList.copyOf(nodes.keySet());
+    Map<Integer, int[]> nodeHashCodesByIteration = new HashMap<>();
 
     Schedule currentSchedule = _settings.getScheduleName();
+    // Nodes involved in oscillations so far, which are processed one at a time
+    Set<String> serializedNodes = new HashSet<>();
 
     // Go into iteration mode, until the routes converge (or oscillation is detected)
     do {
@@ -875,7 +1075,8 @@ final class IncrementalBdpEngine {
       LOGGER.info("Compute schedule");
       // Compute node schedule
       IbdpSchedule schedule =
-          IbdpSchedule.getSchedule(_settings, currentSchedule, nodes, topologyContext);
+          IbdpSchedule.getSchedule(
+              _settings, currentSchedule, nodes, topologyContext, serializedNodes);
 
       // (Re)initialization of dependent route calculation
       //  Since this is a local step, coloring not required.
@@ -897,6 +1098,12 @@ final class IncrementalBdpEngine {
       vrs.parallelStream().forEach(VirtualRouter::updateResolvableRoutes);
       queueRoutesForCrossVrfLeaking(vrs);
 
+      if (_numIterations == 1 && _settings.getIsisSpf()) {
+        // IS-IS propagation then only has to handle the routes the SPF does not compute.
+        LOGGER.info("Compute IS-IS routes with SPF");
+        IsisLevelSpf.computeRoutes(vrs, nodes, networkConfigurations);
+      }
+
       // compute dependent routes for each allowable set of nodes until we cover all nodes
       int nodeSet = 0;
       while (schedule.hasNext()) {
@@ -923,24 +1130,33 @@ final class IncrementalBdpEngine {
       computeIterationStatistics(vrs, ae, _numIterations);
 
       // This hashcode uniquely identifies the iteration (i.e., network state)
-      int iterationHashCode = computeIterationHashCode(vrs);
+      int[] nodeHashCodes = computeNodeHashCodes(nodes, hostnames);
+      nodeHashCodesByIteration.put(_numIterations, nodeHashCodes);
+      int iterationHashCode = Arrays.stream(nodeHashCodes).sum();
       SortedSet<Integer> iterationsWithThisHashCode =
           iterationsByHashCode.computeIfAbsent(iterationHashCode, h -> new TreeSet<>());
 
-      if (iterationsWithThisHashCode.isEmpty()) {
-        iterationsWithThisHashCode.add(_numIterations);
-      } else {
-        // If oscillation detected, switch to a more restrictive schedule
-        if (currentSchedule != Schedule.NODE_SERIALIZED) {
-          LOGGER.debug(
-              "Switching to a more restrictive schedule {}, iteration {}",
-              Schedule.NODE_SERIALIZED,
-              _numIterations);
-          currentSchedule = Schedule.NODE_SERIALIZED;
-        } else {
+      if (!iterationsWithThisHashCode.isEmpty()) {
+        // If oscillation detected, serialize the nodes involved in it
+        Set<String> oscillatingNodes =
+            getOscillatingNodes(
+                hostnames,
+                nodeHashCodesByIteration,
+                iterationsWithThisHashCode.last(),
+                _numIterations,
+                topologyContext);
+        if (serializedNodes.containsAll(oscillatingNodes)) {
           return true; // Found an oscillation
         }
+        serializedNodes.addAll(oscillatingNodes);
+        LOGGER.debug(
+            "Switching {} of {} nodes to schedule {}, iteration {}",
+            serializedNodes.size(),
+            hostnames.size(),
+            Schedule.NODE_SERIALIZED,
+            _numIterations);
       }
+      iterationsWithThisHashCode.add(_numIterations);
     } while (hasNotReachedRoutingFixedPoint(vrs));
 
     ae.setDependentRoutesIterations(_numIterations);
@@ -954,14 +1170,62 @@ final class IncrementalBdpEngine {
   }
 
   /**
-   * Compute the hashcode that uniquely identifies the state of the network at a given iteration
+   * Compute the hashcodes that together uniquely identify the state of the network at a given
+   * iteration: one per node, summed over its virtual routers
    *
-   * @param vrs all virtual routers in the network
-   * @return integer hashcode
+   * @param nodes all nodes in the network
+   * @param hostnames the hostnames of all nodes, in the order of the returned hashcodes
+   * @return integer hashcode of each node
    */
-  private int computeIterationHashCode(List<VirtualRouter> vrs) {
+  private int[] computeNodeHashCodes(Map<String, Node> nodes, List<String> hostnames) {
     LOGGER.info("Iteration {}: Compute hashCode", _numIterations);
-    return vrs.parallelStream().mapToInt(VirtualRouter::computeIterationHashCode).sum();
+    return hostnames.parallelStream()
+        .mapToInt(
+            hostname ->
+                nodes.get(hostname).getVirtualRouters().stream()
+                    .mapToInt(VirtualRouter::computeIterationHashCode)
+                    .sum())
+        .toArray();
+  }
+
+  /**
+   * Returns the hostnames of the nodes involved in an oscillation, given that the network state at
+   * {@code iteration} repeats the state at {@code previousIteration}: the nodes whose state changed
+   * in between, and their BGP neighbors. If no node state changed, returns all nodes.
+   */
+  @VisibleForTesting
+  static @Nonnull Set<String> getOscillatingNodes(
+      List<String> hostnames,
+      Map<Integer, int[]> nodeHashCodesByIteration,
+      int previousIteration,
+      int iteration,
+      TopologyContext topologyContext) {
+    int[] nodeHashCodes = nodeHashCodesByIteration.get(iteration);
+    Set<String> changedNodes = new HashSet<>();
+    for (int i = previousIteration + 1; i < iteration; i++) {
+      int[] intermediateHashCodes = nodeHashCodesByIteration.get(i);
+      for (int n = 0; n < hostnames.size(); n++) {
+        if (intermediateHashCodes[n] != nodeHashCodes[n]) {
+          changedNodes.add(hostnames.get(n));
+        }
+      }
+    }
+    if (changedNodes.isEmpty()) {
+      return ImmutableSet.copyOf(hostnames);
+    }
+    ImmutableSet.Builder<String> oscillatingNodes = ImmutableSet.builder();
+    oscillatingNodes.addAll(changedNodes);
+    for (EndpointPair<BgpPeerConfigId> edge :
+        topologyContext.getBgpTopology().getGraph().edges()) {
+      String source = edge.source().getHostname();
+      String target = edge.target().getHostname();
+      if (changedNodes.contains(source)) {
+        oscillatingNodes.add(target);
+      } else if (changedNodes.contains(target)) {
+        oscillatingNodes.add(source);
+      }
+    }
+    return oscillatingNodes.build();
   }
 
   private static void computeIterationStatistics(
@@ -1007,6 +1271,11 @@ final class IncrementalBdpEngine {
    * @return the number of iterations it took for internal OSPF routes to converge
    */
   private int initOspfInternalRoutes(Map<String, Node> allNodes, OspfTopology ospfTopology) {
+    if (_settings.getOspfSpf()) {
+      // Intra-area routes are then already converged, so iterations only propagate the rest.
+      LOGGER.info("OSPF internal: Computing intra-area routes");
+      OspfIntraAreaSpf.computeIntraAreaRoutes(allNodes, ospfTopology);
+    }
     int ospfInternalIterations = 0;
     boolean dirty = true;
 
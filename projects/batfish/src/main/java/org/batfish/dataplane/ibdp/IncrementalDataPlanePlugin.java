@@ -1,8 +1,21 @@
 package org.batfish.dataplane.ibdp;
 
 import com.google.auto.service.AutoService;
+import com.google.common.util.concurrent.Uninterruptibles;
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.apache.commons.lang3.SerializationException;
+import org.apache.commons.lang3.SerializationUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.batfish.common.NetworkSnapshot;
@@ -13,6 +26,7 @@ import org.batfish.datamodel.BgpAdvertisement;
 import org.batfish.datamodel.Configuration;
 import org.batfish.datamodel.answers.IncrementalBdpAnswerElement;
 import org.batfish.datamodel.isis.IsisTopology;
+import org.batfish.version.BatfishVersion;
 
 /** A batfish plugin that registers the Incremental Batfish Data Plane (ibdp) Engine. */
 @AutoService(Plugin.class)
@@ -23,6 +37,7 @@ public final class IncrementalDataPlanePlugin extends DataPlanePlugin {
   public static final String PLUGIN_NAME = "ibdp";
 
   private IncrementalBdpEngine _engine;
+  private IncrementalDataPlaneSettings _settings;
 
   public IncrementalDataPlanePlugin() {}
 
@@ -47,12 +62,36 @@ public final class IncrementalDataPlanePlugin extends DataPlanePlugin {
             .setTunnelTopology(topologyProvider.getInitialTunnelTopology(snapshot))
             .build();
 
-    ComputeDataPlaneResult answer =
-        _engine.computeDataPlane(
-            configurations,
-            topologyContext,
-            externalAdverts,
-            topologyProvider.getInitialIpOwners(snapshot));
+    ComputeDataPlaneResult answer;
+    if (_settings.getCheckpoint()) {
+      String checkpointKey = getCheckpointKey();
+      // Checkpoints are written in the background, in order, while the computation continues.
+      ExecutorService checkpointExecutor = Executors.newSingleThreadExecutor();
+      try {
+        answer =
+            _engine.computeDataPlane(
+                configurations,
+                topologyContext,
+                externalAdverts,
+                topologyProvider.getInitialIpOwners(snapshot),
+                loadCheckpoint(snapshot, checkpointKey),
+                checkpoint ->
+                    checkpointExecutor.execute(
+                        () -> storeCheckpoint(checkpoint, snapshot, checkpointKey)));
+      } finally {
+        checkpointExecutor.shutdown();
+        Uninterruptibles.awaitTerminationUninterruptibly(checkpointExecutor);
+      }
+      // The computation is complete, so its checkpoints will not be resumed from.
+      deleteCheckpoints(snapshot);
+    } else {
+      answer =
+          _engine.computeDataPlane(
+              configurations,
+              topologyContext,
+              externalAdverts,
+              topologyProvider.getInitialIpOwners(snapshot));
+    }
     _logger.infof(
         "Generated data-plane for snapshot:%s; iterations:%s",
         snapshot.getSnapshot(),
@@ -60,11 +99,100 @@ public final class IncrementalDataPlanePlugin extends DataPlanePlugin {
     return answer;
   }
 
+  /**
+   * Returns the key of the checkpoints written by this Batfish version with the current settings of
+   * the computation, so that checkpoints written by another version or with other settings are not
+   * resumed from.
+   */
+  private @Nonnull String getCheckpointKey() {
+    int settingsHash =
+        Objects.hash(
+            _settings.getScheduleName().name(),
+            _settings.getColoringType().name(),
+            _settings.getIsisSpf(),
+            _settings.getOspfSpf());
+    return String.format("%s_%08x", BatfishVersion.getVersionStatic(), settingsHash);
+  }
+
+  /**
+   * Returns the key under which the entry of a checkpoint for the topology iteration after {@code
+   * completedIterations} is stored.
+   */
+  private static @Nonnull String getEntryKey(String checkpointKey, int completedIterations) {
+    return String.format("%s_%d", checkpointKey, completedIterations);
+  }
+
+  /**
+   * Returns the last checkpoint of the data plane computation for the snapshot, if any. The entries
+   * of a checkpoint are stored in order, so it ends before the first entry that cannot be loaded.
+   */
+  private @Nullable TopologyIterationCheckpoint loadCheckpoint(
+      NetworkSnapshot snapshot, String checkpointKey) {
+    TopologyIterationCheckpoint checkpoint;
+    try (InputStream stream =
+        _batfish.getDataPlaneCheckpoint(snapshot, getEntryKey(checkpointKey, 0))) {
+      checkpoint = SerializationUtils.deserialize(stream);
+    } catch (FileNotFoundException e) {
+      return null;
+    } catch (IOException | SerializationException | ClassCastException e) {
+      LOGGER.warn("Ignoring data plane checkpoint that cannot be loaded", e);
+      return null;
+    }
+    while (true) {
+      String entryKey = getEntryKey(checkpointKey, checkpoint.getTopologyIterations() + 1);
+      try (InputStream stream = _batfish.getDataPlaneCheckpoint(snapshot, entryKey)) {
+        checkpoint =
+            checkpoint.withNextIteration(
+                SerializationUtils.<TopologyIterationCheckpoint.IterationInput>deserialize(stream));
+      } catch (FileNotFoundException e) {
+        return checkpoint;
+      } catch (IOException | SerializationException | ClassCastException e) {
+        LOGGER.warn("Ignoring data plane checkpoint entry that cannot be loaded", e);
+        return checkpoint;
+      }
+    }
+  }
+
+  /**
+   * Stores the entry of the last topology iteration of the checkpoint, so that each iteration is
+   * only written once. The first entry is the checkpoint before any iteration.
+   */
+  private void storeCheckpoint(
+      TopologyIterationCheckpoint checkpoint, NetworkSnapshot snapshot, String checkpointKey) {
+    int topologyIterations = checkpoint.getTopologyIterations();
+    try {
+      Serializable entry;
+      if (topologyIterations == 0) {
+        // A new computation, so later entries of an earlier one must not be loaded after this one.
+        _batfish.deleteDataPlaneCheckpoints(snapshot);
+        entry = checkpoint;
+      } else {
+        entry = checkpoint.getIterationInput(topologyIterations);
+      }
+      _batfish.putDataPlaneCheckpoint(
+          snapshot,
+          getEntryKey(checkpointKey, topologyIterations),
+          new ByteArrayInputStream(SerializationUtils.serialize(entry)));
+      LOGGER.info("Stored data plane checkpoint after topology iteration {}", topologyIterations);
+    } catch (IOException | SerializationException e) {
+      // A missing checkpoint only costs recomputation, so do not fail the computation.
+      LOGGER.warn("Failed to store data plane checkpoint", e);
+    }
+  }
+
+  private void deleteCheckpoints(NetworkSnapshot snapshot) {
+    try {
+      _batfish.deleteDataPlaneCheckpoints(snapshot);
+    } catch (IOException e) {
+      // A stale checkpoint is only resumed from if the data plane is recomputed.
+      LOGGER.warn("Failed to delete data plane checkpoints", e);
+    }
+  }
+
   @Override
   protected void dataPlanePluginInitialize() {
-    _engine =
-        new IncrementalBdpEngine(
-            new IncrementalDataPlaneSettings(_batfish.getSettingsConfiguration()));
+    _settings = new IncrementalDataPlaneSettings(_batfish.getSettingsConfiguration());
+    _engine = new IncrementalBdpEngine(_settings);
   }
 
   @Override
@@ -16,7 +16,10 @@ public final class IncrementalDataPlaneSettings {
 
   private Configuration _config;
 
+  public static final String PROP_CHECKPOINT = "checkpoint";
   public static final String PROP_COLORING = "coloring";
+  public static final String PROP_ISIS_SPF = "isisSpf";
+  public static final String PROP_OSPF_SPF = "ospfSpf";
   public static final String PROP_SCHEDULE = "schedule";
 
   /**
@@ -47,7 +50,10 @@ public final class IncrementalDataPlaneSettings {
 
   /** Initialize defaults for all properties */
   private void initDefaults() {
+    _config.setProperty(PROP_CHECKPOINT, false);
     _config.setProperty(PROP_COLORING, SATURATION.toString());
+    _config.setProperty(PROP_ISIS_SPF, true);
+    _config.setProperty(PROP_OSPF_SPF, false);
     _config.setProperty(PROP_SCHEDULE, NODE_COLORED.toString());
   }
 
@@ -63,4 +69,28 @@ public final class IncrementalDataPlaneSettings {
   public Coloring getColoringType() {
     return Coloring.valueOf(_config.getString(PROP_COLORING));
   }
+
+  /**
+   * Whether to checkpoint the computation after every topology iteration, and to resume from the
+   * last checkpoint of the snapshot, if any
+   */
+  public boolean getCheckpoint() {
+    return _config.getBoolean(PROP_CHECKPOINT);
+  }
+
+  /**
+   * Whether to compute IS-IS routes with a shortest path first computation at each level before
+   * IS-IS route propagation in the first iteration
+   */
+  public boolean getIsisSpf() {
+    return _config.getBoolean(PROP_ISIS_SPF);
+  }
+
+  /**
+   * Whether to compute OSPF intra-area routes with a shortest path first computation before OSPF
+   * route propagation iterations
+   */
+  public boolean getOspfSpf() {
+    return _config.getBoolean(PROP_OSPF_SPF);
+  }
 }
@@ -0,0 +1,301 @@
+package org.batfish.dataplane.ibdp;
+
+import static com.google.common.base.MoreObjects.firstNonNull;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
+
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Set;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.batfish.datamodel.Interface;
+import org.batfish.datamodel.IsisRoute;
+import org.batfish.datamodel.NetworkConfigurations;
+import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.isis.IsisEdge;
+import org.batfish.datamodel.isis.IsisInterfaceLevelSettings;
+import org.batfish.datamodel.isis.IsisInterfaceMode;
+import org.batfish.datamodel.isis.IsisInterfaceSettings;
+import org.batfish.datamodel.isis.IsisLevel;
+import org.batfish.datamodel.isis.IsisProcess;
+import org.batfish.dataplane.rib.RouteAdvertisement;
+
+/**
+ * Computes IS-IS routes with a shortest path first (SPF) computation at each level, rather than by
+ * exchanging route advertisements between {@link VirtualRouter virtual routers} until they
+ * converge.
+ *
+ * <p>A route learned from a neighbor has the neighbor's metric plus the cost of the receiving
+ * interface at the route's level. So at each level, the distance from every router to every other
+ * router is computed with Dijkstra's algorithm, where an adjacency costs as much as the interface
+ * of the router that receives routes over it. A router's best metric for a network is the least
+ * distance to a router originating the network plus that router's metric for it. Since routes
+ * carry the system ID and area of their originator, a router holds one route per originator that
+ * achieves its best metric, and learns those routes from every neighbor whose own best metric plus
+ * the adjacency cost equals its best metric.
+ *
+ * <p>The routes are installed by queueing, on the incoming IS-IS edges of each router, the
+ * advertisements it would receive from its neighbors once converged, so import processing is
+ * unchanged. The following are left to iterative propagation, which starts from the computed
+ * routes:
+ *
+ * <ul>
+ *   <li>Routes advertised by overloaded routers, which carry the overload bit and so are less
+ *       preferred than any route computed here.
+ *   <li>Redistributed routes, which are only known once the main RIB is populated. They compete
+ *       with the computed routes by the usual IS-IS route preference.
+ *   <li>Level 1 routes that L1L2 routers leak into level 2. These are handled as a post-pass: once
+ *       the level 1 routes are installed, L1L2 routers leak them as usual, and networks that are
+ *       originated at level 1 are not computed at level 2.
+ * </ul>
+ */
+@ParametersAreNonnullByDefault
+final class IsisLevelSpf {
+
+  /** The direction of an IS-IS adjacency over which one router receives routes from another */
+  private static final class Adjacency {
+    private final @Nonnull VirtualRouter _receiver;
+    private final @Nonnull VirtualRouter _sender;
+
+    /** The edge on which {@link #_receiver} receives advertisements from {@link #_sender} */
+    private final @Nonnull IsisEdge _edge;
+
+    /** The cost {@link #_receiver} adds to routes received over this adjacency */
+    private final long _cost;
+
+    private Adjacency(VirtualRouter receiver, VirtualRouter sender, IsisEdge edge, long cost) {
+      _receiver = receiver;
+      _sender = sender;
+      _edge = edge;
+      _cost = cost;
+    }
+  }
+
+  /**
+   * Computes the IS-IS routes of all {@code vrs} at both levels, and queues them as advertisements
+   * on the incoming IS-IS edges of the receiving routers. Must be called before any IS-IS route is
+   * exported.
+   */
+  static void computeRoutes(
+      List<VirtualRouter> vrs, Map<String, Node> allNodes, NetworkConfigurations nc) {
+    Map<VirtualRouter, List<IsisRoute>> level1Routes = new IdentityHashMap<>();
+    Map<VirtualRouter, List<IsisRoute>> level2Routes = new IdentityHashMap<>();
+    for (VirtualRouter vr : vrs) {
+      level1Routes.put(vr, ImmutableList.copyOf(vr.computeIsisOriginatedRoutes(IsisLevel.LEVEL_1)));
+      level2Routes.put(vr, ImmutableList.copyOf(vr.computeIsisOriginatedRoutes(IsisLevel.LEVEL_2)));
+    }
+    // Level 1 routes of L1L2 routers are leaked into level 2 during iterative propagation, and
+    // compete there with level 2 routes to the same networks.
+    Set<Prefix> level1Networks =
+        level1Routes.values().stream()
+            .flatMap(List::stream)
+            .filter(r -> !r.getAttach())
+            .map(IsisRoute::getNetwork)
+            .collect(toImmutableSet());
+    level2Routes.replaceAll(
+        (vr, routes) ->
+            routes.stream()
+                .filter(r -> !level1Networks.contains(r.getNetwork()))
+                .collect(toImmutableList()));
+
+    computeLevel(level1Routes, getAdjacencies(IsisLevel.LEVEL_1, vrs, allNodes, nc));
+    computeLevel(level2Routes, getAdjacencies(IsisLevel.LEVEL_2, vrs, allNodes, nc));
+  }
+
+  /** Returns the adjacencies over which routes of the given level are propagated. */
+  private static @Nonnull List<Adjacency> getAdjacencies(
+      IsisLevel level,
+      List<VirtualRouter> vrs,
+      Map<String, Node> allNodes,
+      NetworkConfigurations nc) {
+    List<Adjacency> adjacencies = new ArrayList<>();
+    for (VirtualRouter sender : vrs) {
+      IsisProcess proc = sender._vrf.getIsisProcess();
+      if (proc == null || proc.getOverload()) {
+        continue;
+      }
+      // Like VirtualRouter#queueOutgoingIsisRoutes: routers send routes over the reverse of their
+      // incoming edges, on levels active on their interface and included in the circuit type.
+      for (IsisEdge senderEdge : sender._isisIncomingRoutes.keySet()) {
+        if (!senderEdge.getCircuitType().includes(level)
+            || !isActive(senderEdge.getNode2().getInterface(nc), level)) {
+          continue;
+        }
+        IsisEdge edge = senderEdge.reverse();
+        Interface receivingInterface = edge.getNode2().getInterface(nc);
+        // Like VirtualRouter#propagateIsisRoutes
+        IsisInterfaceLevelSettings receivingSettings = getLevelSettings(receivingInterface, level);
+        if (receivingSettings == null || receivingSettings.getMode() != IsisInterfaceMode.ACTIVE) {
+          continue;
+        }
+        VirtualRouter receiver =
+            allNodes
+                .get(edge.getNode2().getNode())
+                .getVirtualRouterOrThrow(receivingInterface.getVrfName());
+        if (!receiver._isisIncomingRoutes.containsKey(edge)) {
+          continue;
+        }
+        adjacencies.add(
+            new Adjacency(
+                receiver,
+                sender,
+                edge,
+                firstNonNull(receivingSettings.getCost(), IsisRoute.DEFAULT_METRIC)));
+      }
+    }
+    return adjacencies;
+  }
+
+  private static boolean isActive(Interface iface, IsisLevel level) {
+    IsisInterfaceLevelSettings settings = getLevelSettings(iface, level);
+    return settings != null && settings.getMode() == IsisInterfaceMode.ACTIVE;
+  }
+
+  private static @Nullable IsisInterfaceLevelSettings getLevelSettings(
+      Interface iface, IsisLevel level) {
+    IsisInterfaceSettings settings = iface.getIsis();
+    if (settings == null) {
+      return null;
+    }
+    return level == IsisLevel.LEVEL_1 ? settings.getLevel1() : settings.getLevel2();
+  }
+
+  /**
+   * Computes the routes of one level, given the routes each router originates at that level, and
+   * queues the advertisements each router receives from its neighbors once converged.
+   */
+  private static void computeLevel(
+      Map<VirtualRouter, List<IsisRoute>> originatedRoutesByRouter, List<Adjacency> adjacencies) {
+    Map<VirtualRouter, Integer> routerIds = new IdentityHashMap<>();
+    List<VirtualRouter> routers = new ArrayList<>();
+    Stream.concat(
+            originatedRoutesByRouter.keySet().stream(),
+            adjacencies.stream().flatMap(a -> Stream.of(a._receiver, a._sender)))
+        .filter(router -> !routerIds.containsKey(router))
+        .forEach(
+            router -> {
+              routerIds.put(router, routers.size());
+              routers.add(router);
+            });
+    int numRouters = routers.size();
+    List<List<Adjacency>> adjacenciesByReceiver = new ArrayList<>(numRouters);
+    for (int i = 0; i < numRouters; i++) {
+      adjacenciesByReceiver.add(new ArrayList<>());
+    }
+    adjacencies.forEach(a -> adjacenciesByReceiver.get(routerIds.get(a._receiver)).add(a));
+
+    Map<Prefix, Integer> networkIds = new HashMap<>();
+    List<IsisRoute> originatedRoutes = new ArrayList<>();
+    List<Integer> originators = new ArrayList<>();
+    originatedRoutesByRouter.forEach(
+        (router, routes) ->
+            routes.forEach(
+                route -> {
+                  networkIds.putIfAbsent(route.getNetwork(), networkIds.size());
+                  originatedRoutes.add(route);
+                  originators.add(routerIds.get(router));
+                }));
+    int numNetworks = networkIds.size();
+
+    // The best metric of every router for every network, or Long.MAX_VALUE if unreachable, and
+    // the routes every router advertises: one per originator achieving its best metric.
+    long[][] metrics = new long[numRouters][];
+    IsisRoute[][] advertisedRoutes = new IsisRoute[numRouters][];
+    IntStream.range(0, numRouters)
+        .parallel()
+        .forEach(
+            router -> {
+              long[] distances =
+                  shortestDistances(router, adjacenciesByReceiver, numRouters, routerIds);
+              long[] routerMetrics = new long[numNetworks];
+              Arrays.fill(routerMetrics, Long.MAX_VALUE);
+              for (int i = 0; i < originatedRoutes.size(); i++) {
+                long distance = distances[originators.get(i)];
+                if (distance == Long.MAX_VALUE) {
+                  continue;
+                }
+                IsisRoute route = originatedRoutes.get(i);
+                int network = networkIds.get(route.getNetwork());
+                routerMetrics[network] =
+                    Math.min(routerMetrics[network], distance + route.getMetric());
+              }
+              List<IsisRoute> advertised = new ArrayList<>();
+              for (int i = 0; i < originatedRoutes.size(); i++) {
+                long distance = distances[originators.get(i)];
+                IsisRoute route = originatedRoutes.get(i);
+                long metric = routerMetrics[networkIds.get(route.getNetwork())];
+                if (distance != Long.MAX_VALUE && distance + route.getMetric() == metric) {
+                  // The receiver sets its own admin, metric, and next hop
+                  advertised.add(route.toBuilder().setMetric(metric).build());
+                }
+              }
+              metrics[router] = routerMetrics;
+              advertisedRoutes[router] = advertised.toArray(new IsisRoute[0]);
+            });
+
+    IntStream.range(0, numRouters)
+        .parallel()
+        .forEach(
+            receiver -> {
+              long[] receiverMetrics = metrics[receiver];
+              for (Adjacency adjacency : adjacenciesByReceiver.get(receiver)) {
+                int sender = routerIds.get(adjacency._sender);
+                Queue<RouteAdvertisement<IsisRoute>> queue =
+                    adjacency._receiver._isisIncomingRoutes.get(adjacency._edge);
+                for (IsisRoute route : advertisedRoutes[sender]) {
+                  int network = networkIds.get(route.getNetwork());
+                  if (metrics[sender][network] + adjacency._cost == receiverMetrics[network]) {
+                    queue.add(new RouteAdvertisement<>(route));
+                  }
+                }
+              }
+            });
+  }
+
+  /**
+   * Returns the distance from {@code source} to every router, or {@link Long#MAX_VALUE} for
+   * unreachable routers, where the distance over an adjacency is the cost its receiver adds.
+   */
+  private static @Nonnull long[] shortestDistances(
+      int source,
+      List<List<Adjacency>> adjacenciesByReceiver,
+      int numRouters,
+      Map<VirtualRouter, Integer> routerIds) {
+    long[] distances = new long[numRouters];
+    Arrays.fill(distances, Long.MAX_VALUE);
+    distances[source] = 0;
+    // Entries are {distance, router}. Stale entries are skipped rather than removed.
+    PriorityQueue<long[]> queue = new PriorityQueue<>(Comparator.comparingLong(e -> e[0]));
+    queue.add(new long[] {0, source});
+    while (!queue.isEmpty()) {
+      long[] entry = queue.remove();
+      int router = (int) entry[1];
+      if (entry[0] > distances[router]) {
+        continue;
+      }
+      for (Adjacency adjacency : adjacenciesByReceiver.get(router)) {
+        int neighbor = routerIds.get(adjacency._sender);
+        long distance = entry[0] + adjacency._cost;
+        if (distance < distances[neighbor]) {
+          distances[neighbor] = distance;
+          queue.add(new long[] {distance, neighbor});
+        }
+      }
+    }
+    return distances;
+  }
+
+  private IsisLevelSpf() {}
+}
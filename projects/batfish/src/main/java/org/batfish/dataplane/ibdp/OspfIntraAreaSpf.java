@@ -0,0 +1,304 @@
+package org.batfish.dataplane.ibdp;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.batfish.datamodel.Interface;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.OspfIntraAreaRoute;
+import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.ospf.OspfNeighborConfigId;
+import org.batfish.datamodel.ospf.OspfSessionProperties;
+import org.batfish.datamodel.ospf.OspfTopology;
+import org.batfish.datamodel.ospf.OspfTopology.EdgeId;
+import org.batfish.datamodel.route.nh.NextHopDiscard;
+import org.batfish.datamodel.route.nh.NextHopIp;
+
+/**
+ * Computes OSPF intra-area routes with a shortest path first (SPF) computation, rather than by
+ * exchanging route advertisements between {@link OspfRoutingProcess processes} until they
+ * converge.
+ *
+ * <p>A route learned from a neighbor has the neighbor's metric plus the cost of the receiving
+ * interface. A process keeps the intra-area routes of all its areas in one RIB, which prefers lower
+ * metrics regardless of area, and advertises a route only to neighbors in the route's area. So for
+ * each network, a shortest path search over the adjacencies of all areas computes every process's
+ * best metric and the routes it keeps with that metric, where a route only crosses adjacencies in
+ * its own area. An area border router whose best route for a network is in one area therefore does
+ * not advertise the network into its other areas. Routes are distinguished by all attributes that
+ * survive advertisement, so a process keeps one route for each distinct route that reaches it with
+ * its best metric, whichever routers originated them.
+ *
+ * <p>The routes are installed by replaying, through {@link
+ * OspfRoutingProcess#initializeIntraAreaRoutesFromSpf}, the advertisements each process would
+ * receive from its neighbors once converged, so import processing is unchanged. Areas in which any
+ * adjacency has an inbound distribute list are left to iterative propagation, since a distribute
+ * list policy may modify the routes it lets through. So are the networks originated in those areas,
+ * in all areas, since their routes in different areas compete in the same RIBs.
+ */
+@ParametersAreNonnullByDefault
+final class OspfIntraAreaSpf {
+
+  /** The direction of an OSPF adjacency over which one process receives routes from another */
+  private static final class Adjacency {
+    private final int _receiver;
+    private final int _sender;
+    private final long _area;
+
+    /** The edge on which {@link #_receiver} receives advertisements from {@link #_sender} */
+    private final @Nonnull EdgeId _edge;
+
+    /** The next hop IP {@link #_sender} sets on routes it advertises over this adjacency */
+    private final @Nonnull Ip _nextHopIp;
+
+    /** The cost {@link #_receiver} adds to routes received over this adjacency */
+    private final long _cost;
+
+    private Adjacency(int receiver, int sender, long area, EdgeId edge, Ip nextHopIp, long cost) {
+      _receiver = receiver;
+      _sender = sender;
+      _area = area;
+      _edge = edge;
+      _nextHopIp = nextHopIp;
+      _cost = cost;
+    }
+  }
+
+  /** An intra-area route a process originates, i.e., one of its initial intra-area routes. */
+  private static final class Origination {
+    private final int _router;
+    private final long _metric;
+
+    /** The route with its {@link OspfIntraAreaSpf#normalize varying attributes} cleared */
+    private final @Nonnull OspfIntraAreaRoute _route;
+
+    private Origination(int router, OspfIntraAreaRoute route) {
+      _router = router;
+      _metric = route.getMetric();
+      _route = normalize(route);
+    }
+  }
+
+  /**
+   * Computes the intra-area routes of all OSPF processes in {@code allNodes}, and installs them in
+   * the processes. The processes must have been initialized, but must not have executed any
+   * iteration yet.
+   */
+  static void computeIntraAreaRoutes(Map<String, Node> allNodes, OspfTopology topology) {
+    Map<OspfRoutingProcess, Integer> routerIds = new IdentityHashMap<>();
+    List<OspfRoutingProcess> routers = new ArrayList<>();
+    List<Adjacency> adjacencies = new ArrayList<>();
+    Set<Long> areasWithDistributeLists = new HashSet<>();
+    for (EdgeId edge : topology.edges()) {
+      // Like OspfRoutingProcess#sendOutIntraAreaRoutesPerEdge: the head of an incoming edge sends
+      // its routes to the tail, which receives them on the reverse edge.
+      OspfSessionProperties session = topology.getSession(edge).orElseThrow(AssertionError::new);
+      OspfRoutingProcess sender = getProcess(edge.getHead(), allNodes);
+      OspfRoutingProcess receiver = getProcess(edge.getTail(), allNodes);
+      String receivingInterface = edge.getTail().getInterfaceName();
+      adjacencies.add(
+          new Adjacency(
+              getRouterId(receiver, routerIds, routers),
+              getRouterId(sender, routerIds, routers),
+              session.getArea(),
+              edge.reverse(),
+              session.getIpLink().getIp2(),
+              receiver.getIncrementalCost(receivingInterface, false)));
+      Interface iface =
+          allNodes
+              .get(edge.getTail().getHostname())
+              .getConfiguration()
+              .getAllInterfaces()
+              .get(receivingInterface);
+      if (iface != null && iface.getOspfInboundDistributeListPolicy() != null) {
+        areasWithDistributeLists.add(session.getArea());
+      }
+    }
+    int numRouters = routers.size();
+    List<List<Adjacency>> adjacenciesBySender = new ArrayList<>(numRouters);
+    for (int i = 0; i < numRouters; i++) {
+      adjacenciesBySender.add(new ArrayList<>());
+    }
+    adjacencies.stream()
+        .filter(a -> !areasWithDistributeLists.contains(a._area))
+        .forEach(a -> adjacenciesBySender.get(a._sender).add(a));
+
+    Set<Prefix> iterativeNetworks = new HashSet<>();
+    SortedMap<Prefix, List<Origination>> originationsByNetwork = new TreeMap<>();
+    for (int router = 0; router < numRouters; router++) {
+      for (OspfIntraAreaRoute route : routers.get(router).getIntraAreaRoutes()) {
+        if (areasWithDistributeLists.contains(route.getArea())) {
+          iterativeNetworks.add(route.getNetwork());
+        } else {
+          originationsByNetwork
+              .computeIfAbsent(route.getNetwork(), n -> new ArrayList<>())
+              .add(new Origination(router, route));
+        }
+      }
+    }
+    originationsByNetwork.keySet().removeAll(iterativeNetworks);
+
+    List<List<Entry<Adjacency, OspfIntraAreaRoute>>> results =
+        originationsByNetwork.values().parallelStream()
+            .map(originations -> computeAdvertisements(originations, adjacenciesBySender, routers))
+            .collect(Collectors.toList());
+
+    // Each process receives advertisements for many networks, so install them once all are done.
+    Map<OspfRoutingProcess, SortedMap<EdgeId, List<OspfIntraAreaRoute>>> advertisements =
+        new IdentityHashMap<>();
+    for (List<Entry<Adjacency, OspfIntraAreaRoute>> result : results) {
+      for (Entry<Adjacency, OspfIntraAreaRoute> advertisement : result) {
+        Adjacency adjacency = advertisement.getKey();
+        advertisements
+            .computeIfAbsent(routers.get(adjacency._receiver), p -> new TreeMap<>())
+            .computeIfAbsent(adjacency._edge, e -> new ArrayList<>())
+            .add(advertisement.getValue());
+      }
+    }
+    advertisements.entrySet().parallelStream()
+        .forEach(e -> e.getKey().initializeIntraAreaRoutesFromSpf(e.getValue()));
+  }
+
+  private static @Nonnull OspfRoutingProcess getProcess(
+      OspfNeighborConfigId neighbor, Map<String, Node> allNodes) {
+    OspfRoutingProcess process =
+        allNodes
+            .get(neighbor.getHostname())
+            .getVirtualRouterOrThrow(neighbor.getVrfName())
+            .getOspfProcesses()
+            .get(neighbor.getProcName());
+    assert process != null; // Otherwise the edge should not have been established
+    return process;
+  }
+
+  private static int getRouterId(
+      OspfRoutingProcess process,
+      Map<OspfRoutingProcess, Integer> routerIds,
+      List<OspfRoutingProcess> routers) {
+    return routerIds.computeIfAbsent(
+        process,
+        p -> {
+          routers.add(p);
+          return routers.size() - 1;
+        });
+  }
+
+  /**
+   * Returns {@code route} with the attributes that differ between the copies of a route held by
+   * different processes, i.e., metric, next hop, admin, and non-routing and non-forwarding bits,
+   * set to fixed values.
+   */
+  private static @Nonnull OspfIntraAreaRoute normalize(OspfIntraAreaRoute route) {
+    return route.toBuilder()
+        .setMetric(0L)
+        .setNextHop(NextHopDiscard.instance())
+        .setAdmin(0)
+        .setNonRouting(true)
+        .setNonForwarding(false)
+        .build();
+  }
+
+  /**
+   * Returns the advertisements of a single network that processes receive from their neighbors
+   * once converged, given the routes originated for it, as pairs of receiving adjacency and route.
+   */
+  private static @Nonnull List<Entry<Adjacency, OspfIntraAreaRoute>> computeAdvertisements(
+      List<Origination> originations,
+      List<List<Adjacency>> adjacenciesBySender,
+      List<OspfRoutingProcess> routers) {
+    // The best metric of every router, or Long.MAX_VALUE if it has no route.
+    long[] metrics = new long[routers.size()];
+    Arrays.fill(metrics, Long.MAX_VALUE);
+    // The normalized routes each router keeps with its best metric
+    Map<Integer, Set<OspfIntraAreaRoute>> bestRoutes = new HashMap<>();
+    // Entries are {metric, router}. Stale entries are skipped rather than removed.
+    PriorityQueue<long[]> queue = new PriorityQueue<>(Comparator.comparingLong(e -> e[0]));
+    for (Origination origination : originations) {
+      int router = origination._router;
+      if (update(router, origination._metric, Set.of(origination._route), metrics, bestRoutes)) {
+        queue.add(new long[] {origination._metric, router});
+      }
+    }
+    while (!queue.isEmpty()) {
+      long[] entry = queue.remove();
+      int router = (int) entry[1];
+      if (entry[0] != metrics[router]) {
+        continue;
+      }
+      // A router is processed again if it gains routes with the same metric, e.g., over an
+      // adjacency with cost 0, so that its neighbors receive them too.
+      for (Adjacency adjacency : adjacenciesBySender.get(router)) {
+        Set<OspfIntraAreaRoute> sent = routesInArea(bestRoutes.get(router), adjacency._area);
+        long metric = metrics[router] + adjacency._cost;
+        if (!sent.isEmpty() && update(adjacency._receiver, metric, sent, metrics, bestRoutes)) {
+          queue.add(new long[] {metric, adjacency._receiver});
+        }
+      }
+    }
+
+    List<Entry<Adjacency, OspfIntraAreaRoute>> advertisements = new ArrayList<>();
+    for (Entry<Integer, Set<OspfIntraAreaRoute>> senderRoutes : bestRoutes.entrySet()) {
+      int sender = senderRoutes.getKey();
+      long senderMetric = metrics[sender];
+      for (Adjacency adjacency : adjacenciesBySender.get(sender)) {
+        if (senderMetric + adjacency._cost != metrics[adjacency._receiver]) {
+          continue;
+        }
+        // Like OspfRoutingProcess#transformIntraAreaRoutesOnExport
+        for (OspfIntraAreaRoute route : routesInArea(senderRoutes.getValue(), adjacency._area)) {
+          advertisements.add(
+              new SimpleImmutableEntry<>(
+                  adjacency,
+                  route.toBuilder()
+                      .setMetric(senderMetric)
+                      .setNextHop(NextHopIp.of(adjacency._nextHopIp))
+                      .setAdmin(routers.get(sender).getIntraAreaAdmin())
+                      .build()));
+        }
+      }
+    }
+    return advertisements;
+  }
+
+  /**
+   * Offers {@code routes} with {@code metric} to {@code router}, keeping them as the intra-area RIB
+   * would. Returns whether the routes kept by {@code router} changed.
+   */
+  private static boolean update(
+      int router,
+      long metric,
+      Set<OspfIntraAreaRoute> routes,
+      long[] metrics,
+      Map<Integer, Set<OspfIntraAreaRoute>> bestRoutes) {
+    if (metric < metrics[router]) {
+      metrics[router] = metric;
+      bestRoutes.put(router, new LinkedHashSet<>(routes));
+      return true;
+    }
+    return metric == metrics[router] && bestRoutes.get(router).addAll(routes);
+  }
+
+  private static @Nonnull Set<OspfIntraAreaRoute> routesInArea(
+      Set<OspfIntraAreaRoute> routes, long area) {
+    return routes.stream()
+        .filter(r -> r.getArea() == area)
+        .collect(Collectors.toCollection(LinkedHashSet::new));
+  }
+
+  private OspfIntraAreaSpf() {}
+}
@@ -14,6 +14,7 @@ import java.util.AbstractMap.SimpleEntry;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
@@ -357,6 +358,56 @@ final class OspfRoutingProcess implements RoutingProcess<OspfTopology, OspfRoute
     _changeset.from(RibDelta.importRibDelta(_ospfRib, intraAreaDelta));
   }
 
+  /** Returns the routes in the intra-area RIB. */
+  @Nonnull
+  Set<OspfIntraAreaRoute> getIntraAreaRoutes() {
+    return _intraAreaRib.getRoutes();
+  }
+
+  /** Returns the administrative distance of the intra-area routes this process installs. */
+  int getIntraAreaAdmin() {
+    return _process.getAdminCosts().get(RoutingProtocol.OSPF);
+  }
+
+  /**
+   * Installs the intra-area routes computed by {@link OspfIntraAreaSpf}, given as the
+   * advertisements received from neighbors once converged, by receiving edge.
+   *
+   * <p>The advertisements are processed as if they were received, but the resulting intra-area
+   * routes are not re-advertised, since neighbors install their own. Resulting inter-area routes
+   * are advertised along with the routes from initialization.
+   */
+  void initializeIntraAreaRoutesFromSpf(
+      Map<EdgeId, List<OspfIntraAreaRoute>> advertisementsByEdge) {
+    RibDelta.Builder<OspfIntraAreaRoute> intraAreaDelta = RibDelta.builder();
+    RibDelta.Builder<OspfInterAreaRoute> interAreaDelta = RibDelta.builder();
+    advertisementsByEdge.forEach(
+        (edgeId, routes) -> {
+          assert _intraAreaIncomingRoutes.containsKey(edgeId);
+          String ifaceName = edgeId.getHead().getInterfaceName();
+          long incrementalCost = getIncrementalCost(ifaceName, false);
+          routes.forEach(
+              route ->
+                  processIntraAreaAdvertisement(
+                      intraAreaDelta,
+                      interAreaDelta,
+                      ifaceName,
+                      incrementalCost,
+                      RouteAdvertisement.adding(route)));
+        });
+    RibDelta<OspfInterAreaRoute> interArea = interAreaDelta.build();
+    _initializationDelta =
+        new InternalDelta(
+            _initializationDelta._intraArea,
+            RibDelta.<OspfInterAreaRoute>builder()
+                .from(_initializationDelta._interArea)
+                .from(interArea)
+                .build(),
+            _initializationDelta._internalSummary);
+    _changeset.from(RibDelta.importRibDelta(_ospfRib, intraAreaDelta.build()));
+    _changeset.from(RibDelta.importRibDelta(_ospfRib, interArea));
+  }
+
   /** Initialize inter-area routes based the initial intra-area routes. */
   @VisibleForTesting
   @Nonnull
@@ -1702,7 +1753,7 @@ final class OspfRoutingProcess implements RoutingProcess<OspfTopology, OspfRoute
             _activatedGeneratedRoutes.stream(),
             // RIB state
             Stream.of(_intraAreaRib, _interAreaRib, _internalSummaryRib, _type1Rib, _type2Rib)
-                .map(AbstractRib::getRoutes))
+                .map(AbstractRib::getRoutesHashCode))
         .collect(toOrderedHashCode());
   }
 
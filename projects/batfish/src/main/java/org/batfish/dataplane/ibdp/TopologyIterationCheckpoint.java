@@ -0,0 +1,218 @@
+package org.batfish.dataplane.ibdp;
+
+import static org.batfish.common.util.BatfishObjectMapper.writeStringRuntimeError;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableTable;
+import com.google.common.collect.Table;
+import com.google.common.graph.MutableValueGraph;
+import com.google.common.graph.ValueGraph;
+import com.google.common.graph.ValueGraphBuilder;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.List;
+import java.util.Set;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.batfish.common.topology.L3Adjacencies;
+import org.batfish.common.topology.TunnelTopology;
+import org.batfish.common.util.BatfishObjectMapper;
+import org.batfish.datamodel.Edge;
+import org.batfish.datamodel.IpsecPeerConfigId;
+import org.batfish.datamodel.IpsecSession;
+import org.batfish.datamodel.Topology;
+import org.batfish.datamodel.bgp.BgpTopology;
+import org.batfish.datamodel.eigrp.EigrpTopology;
+import org.batfish.datamodel.ipsec.IpsecTopology;
+import org.batfish.datamodel.tracking.TrackReachability;
+import org.batfish.datamodel.tracking.TrackRoute;
+import org.batfish.datamodel.vxlan.VxlanTopology;
+
+/**
+ * The inputs of the topology iterations the {@link IncrementalBdpEngine} has completed, from which
+ * the computation can resume.
+ *
+ * <p>Routing state is not included, since it lives in RIBs and queues that are not serializable.
+ * Instead, a checkpoint records the topologies and track results each topology iteration started
+ * from. On resume, the EGP computation is replayed on those inputs in order, which leaves the
+ * routes as they were after the last completed iteration, while the data plane and topology
+ * computations between iterations are skipped. Topologies that are not {@link Serializable} are
+ * stored as JSON, and the IPsec and tunnel topologies, which are pruned from the initial
+ * topologies, are stored as their retained edges.
+ *
+ * <p>The inputs of each iteration are an {@link IterationInput} that can be stored on its own, so a
+ * checkpoint can be written incrementally: the checkpoint before the first iteration, and then the
+ * input of each later iteration via {@link #getIterationInput(int)}.
+ */
+@ParametersAreNonnullByDefault
+final class TopologyIterationCheckpoint implements Serializable {
+
+  /** A retained edge of the IPsec topology */
+  private static final class IpsecEdge implements Serializable {
+    private final @Nonnull String _hostnameU;
+    private final @Nonnull String _peerConfigU;
+    private final @Nonnull String _hostnameV;
+    private final @Nonnull String _peerConfigV;
+
+    private IpsecEdge(IpsecPeerConfigId nodeU, IpsecPeerConfigId nodeV) {
+      _hostnameU = nodeU.getHostName();
+      _peerConfigU = nodeU.getIpsecPeerConfigName();
+      _hostnameV = nodeV.getHostName();
+      _peerConfigV = nodeV.getIpsecPeerConfigName();
+    }
+  }
+
+  /** The topologies and track results a topology iteration started from */
+  static final class IterationInput implements Serializable {
+    private final @Nonnull String _bgpTopology;
+    private final @Nonnull String _eigrpTopology;
+    private final @Nonnull List<IpsecEdge> _ipsecEdges;
+    private final @Nonnull L3Adjacencies _l3Adjacencies;
+    private final @Nonnull String _layer3Topology;
+    private final @Nonnull Set<Edge> _tunnelEdges;
+    private final @Nonnull String _vxlanTopology;
+    private final @Nonnull Table<String, TrackReachability, Boolean> _trackReachabilityResults;
+    private final @Nonnull Table<String, TrackRoute, Boolean> _trackRouteResults;
+
+    private IterationInput(
+        TopologyContext topologyContext,
+        Table<String, TrackReachability, Boolean> trackReachabilityResults,
+        Table<String, TrackRoute, Boolean> trackRouteResults) {
+      _bgpTopology = writeStringRuntimeError(topologyContext.getBgpTopology());
+      _eigrpTopology = writeStringRuntimeError(topologyContext.getEigrpTopology());
+      _ipsecEdges =
+          topologyContext.getIpsecTopology().getGraph().edges().stream()
+              .map(edge -> new IpsecEdge(edge.nodeU(), edge.nodeV()))
+              .collect(ImmutableList.toImmutableList());
+      _l3Adjacencies = topologyContext.getL3Adjacencies();
+      _layer3Topology = writeStringRuntimeError(topologyContext.getLayer3Topology());
+      _tunnelEdges = topologyContext.getTunnelTopology().asEdgeSet();
+      _vxlanTopology = writeStringRuntimeError(topologyContext.getVxlanTopology());
+      _trackReachabilityResults = ImmutableTable.copyOf(trackReachabilityResults);
+      _trackRouteResults = ImmutableTable.copyOf(trackRouteResults);
+    }
+  }
+
+  private final @Nonnull Set<String> _hostnames;
+  private final @Nonnull List<IterationInput> _iterationInputs;
+
+  /**
+   * Creates a checkpoint before the first topology iteration, which starts from the given {@code
+   * topologyContext} and track results.
+   */
+  TopologyIterationCheckpoint(
+      Set<String> hostnames,
+      TopologyContext topologyContext,
+      Table<String, TrackReachability, Boolean> trackReachabilityResults,
+      Table<String, TrackRoute, Boolean> trackRouteResults) {
+    this(
+        ImmutableSet.copyOf(hostnames),
+        ImmutableList.of(
+            new IterationInput(topologyContext, trackReachabilityResults, trackRouteResults)));
+  }
+
+  private TopologyIterationCheckpoint(
+      Set<String> hostnames, List<IterationInput> iterationInputs) {
+    _hostnames = hostnames;
+    _iterationInputs = iterationInputs;
+  }
+
+  /**
+   * Returns a checkpoint after one more topology iteration, whose successor starts from the given
+   * {@code topologyContext} and track results.
+   */
+  @Nonnull
+  TopologyIterationCheckpoint withNextIteration(
+      TopologyContext topologyContext,
+      Table<String, TrackReachability, Boolean> trackReachabilityResults,
+      Table<String, TrackRoute, Boolean> trackRouteResults) {
+    return withNextIteration(
+        new IterationInput(topologyContext, trackReachabilityResults, trackRouteResults));
+  }
+
+  /**
+   * Returns a checkpoint after one more topology iteration, whose successor starts from the given
+   * {@code input}, as returned by {@link #getIterationInput(int)}.
+   */
+  @Nonnull
+  TopologyIterationCheckpoint withNextIteration(IterationInput input) {
+    return new TopologyIterationCheckpoint(
+        _hostnames,
+        ImmutableList.<IterationInput>builder().addAll(_iterationInputs).add(input).build());
+  }
+
+  /** The number of topology iterations completed when this checkpoint was taken */
+  int getTopologyIterations() {
+    return _iterationInputs.size() - 1;
+  }
+
+  /** The hostnames of the nodes in the data plane, to validate the checkpoint against */
+  @Nonnull
+  Set<String> getHostnames() {
+    return _hostnames;
+  }
+
+  /** The inputs the topology iteration after {@code completedIterations} started from */
+  @Nonnull
+  IterationInput getIterationInput(int completedIterations) {
+    return _iterationInputs.get(completedIterations);
+  }
+
+  /**
+   * The track reachability results the topology iteration after {@code completedIterations}
+   * started from
+   */
+  @Nonnull
+  Table<String, TrackReachability, Boolean> getTrackReachabilityResults(int completedIterations) {
+    return _iterationInputs.get(completedIterations)._trackReachabilityResults;
+  }
+
+  /**
+   * The track route results the topology iteration after {@code completedIterations} started from
+   */
+  @Nonnull
+  Table<String, TrackRoute, Boolean> getTrackRouteResults(int completedIterations) {
+    return _iterationInputs.get(completedIterations)._trackRouteResults;
+  }
+
+  /**
+   * Returns the {@link TopologyContext} the topology iteration after {@code completedIterations}
+   * started from, given the {@code initialTopologyContext} of the computation.
+   *
+   * @throws IOException if a checkpointed topology cannot be read
+   */
+  @Nonnull
+  TopologyContext toTopologyContext(int completedIterations, TopologyContext initialTopologyContext)
+      throws IOException {
+    IterationInput input = _iterationInputs.get(completedIterations);
+    ValueGraph<IpsecPeerConfigId, IpsecSession> initialIpsecGraph =
+        initialTopologyContext.getIpsecTopology().getGraph();
+    MutableValueGraph<IpsecPeerConfigId, IpsecSession> ipsecGraph =
+        ValueGraphBuilder.directed().allowsSelfLoops(false).build();
+    for (IpsecEdge edge : input._ipsecEdges) {
+      IpsecPeerConfigId nodeU = new IpsecPeerConfigId(edge._peerConfigU, edge._hostnameU);
+      IpsecPeerConfigId nodeV = new IpsecPeerConfigId(edge._peerConfigV, edge._hostnameV);
+      if (!initialIpsecGraph.hasEdgeConnecting(nodeU, nodeV)) {
+        throw new IOException("Checkpointed IPsec edge is not in the initial topology");
+      }
+      ipsecGraph.putEdgeValue(
+          nodeU, nodeV, initialIpsecGraph.edgeValue(nodeU, nodeV).orElseThrow(IOException::new));
+    }
+    TunnelTopology.Builder tunnelTopology = TunnelTopology.builder();
+    input._tunnelEdges.forEach(edge -> tunnelTopology.add(edge.getTail(), edge.getHead()));
+    return initialTopologyContext.toBuilder()
+        .setBgpTopology(
+            BatfishObjectMapper.mapper().readValue(input._bgpTopology, BgpTopology.class))
+        .setEigrpTopology(
+            BatfishObjectMapper.mapper().readValue(input._eigrpTopology, EigrpTopology.class))
+        .setIpsecTopology(new IpsecTopology(ipsecGraph))
+        .setL3Adjacencies(input._l3Adjacencies)
+        .setLayer3Topology(
+            BatfishObjectMapper.mapper().readValue(input._layer3Topology, Topology.class))
+        .setTunnelTopology(tunnelTopology.build())
+        .setVxlanTopology(
+            BatfishObjectMapper.mapper().readValue(input._vxlanTopology, VxlanTopology.class))
+        .build();
+  }
+}
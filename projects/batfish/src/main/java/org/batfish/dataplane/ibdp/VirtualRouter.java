@@ -23,6 +23,7 @@ import com.google.common.collect.ImmutableSortedMap;
 import com.google.common.collect.Multimaps;
 import com.google.common.collect.Ordering;
 import com.google.common.collect.SetMultimap;
+import com.google.common.collect.Sets;
 import com.google.common.collect.Streams;
 import com.google.common.graph.Network;
 import java.util.AbstractMap.SimpleEntry;
@@ -194,7 +195,10 @@ public final class VirtualRouter {
   StaticRib _staticConditionalRib;
 
   /** FIB (forwarding information base) built from the main RIB */
-  private Fib _fib;
+  private FibImpl _fib;
+
+  /** The routes of the main RIB when {@link #_fib} was computed */
+  private @Nullable Set<AnnotatedRoute<AbstractRoute>> _fibRoutes;
 
   /** RIB containing generated routes */
   private Rib _generatedRib;
@@ -445,7 +449,8 @@ public final class VirtualRouter {
    * relationships (i.e., purely local), but is allowed to process external bgp advertisements.
    */
   void initForEgpComputationBeforeTopologyLoop(
-      Set<BgpAdvertisement> externalAdverts, Map<Ip, Map<String, Set<String>>> ipVrfOwners) {
+      Collection<BgpAdvertisement> externalAdverts,
+      Map<Ip, Map<String, Set<String>>> ipVrfOwners) {
     /*
     Merge post-IGP main rib in to a mainRibDelta.
     This effectively makes the entire IGP computation a "previous round".
@@ -696,10 +701,22 @@ public final class VirtualRouter {
     return trackMethodEvaluator.visit(method);
   }
 
-  /** Compute the FIB from the main RIB */
+  /**
+   * Compute the FIB from the main RIB. If a FIB was computed before, only the entries affected by
+   * the main RIB changes since then are computed again.
+   */
   public void computeFib() {
-    _fib = null; // free the old one.
-    _fib = new FibImpl(_mainRib, _resolutionRestriction);
+    Set<AnnotatedRoute<AbstractRoute>> routes = _mainRib.getRoutes();
+    if (_fib == null || _fibRoutes == null) {
+      _fib = new FibImpl(_mainRib, _resolutionRestriction);
+    } else if (routes != _fibRoutes) {
+      Set<Prefix> changedNetworks =
+          Sets.symmetricDifference(routes, _fibRoutes).stream()
+              .map(AnnotatedRoute::getNetwork)
+              .collect(ImmutableSet.toImmutableSet());
+      _fib = FibImpl.update(_fib, _mainRib, _resolutionRestriction, changedNetworks);
+    }
+    _fibRoutes = routes;
   }
 
   void initBgpAggregateRoutes() {
@@ -927,40 +944,10 @@ public final class VirtualRouter {
     }
     RibDelta.Builder<IsisRoute> d1 = RibDelta.builder();
     RibDelta.Builder<IsisRoute> d2 = RibDelta.builder();
-    /*
-     * init L1 and L2 routes from connected routes
-     */
-    int l1Admin = RoutingProtocol.ISIS_L1.getDefaultAdministrativeCost(_c.getConfigurationFormat());
-    int l2Admin = RoutingProtocol.ISIS_L2.getDefaultAdministrativeCost(_c.getConfigurationFormat());
-    IsisLevelSettings l1Settings = proc.getLevel1();
-    IsisLevelSettings l2Settings = proc.getLevel2();
-    IsisRoute.Builder ifaceRouteBuilder =
-        new IsisRoute.Builder()
-            .setArea(proc.getNetAddress().getAreaIdString())
-            .setSystemId(proc.getNetAddress().getSystemIdString());
-    _c.getActiveInterfaces(_vrf.getName())
-        .values()
-        .forEach(
-            iface ->
-                generateAllIsisInterfaceRoutes(
-                    d1, d2, l1Admin, l2Admin, l1Settings, l2Settings, ifaceRouteBuilder, iface));
-
-    // export default route for L1 neighbors on L1L2 routers that are not overloaded
-    if (l1Settings != null && l2Settings != null && !proc.getOverload()) {
-      IsisRoute defaultRoute =
-          new IsisRoute.Builder()
-              .setAdmin(l1Admin)
-              .setArea(proc.getNetAddress().getAreaIdString())
-              .setAttach(true)
-              .setLevel(IsisLevel.LEVEL_1)
-              .setMetric(0L)
-              .setNetwork(Prefix.ZERO)
-              .setNextHopIp(Route.UNSET_ROUTE_NEXT_HOP_IP)
-              .setProtocol(RoutingProtocol.ISIS_L1)
-              .setSystemId(proc.getNetAddress().getSystemIdString())
-              .build();
-      d1.from(_isisL1Rib.mergeRouteGetDelta(defaultRoute));
-    }
+    computeIsisOriginatedRoutes(IsisLevel.LEVEL_1)
+        .forEach(r -> d1.from(_isisL1Rib.mergeRouteGetDelta(r)));
+    computeIsisOriginatedRoutes(IsisLevel.LEVEL_2)
+        .forEach(r -> d2.from(_isisL2Rib.mergeRouteGetDelta(r)));
 
     if (numIterations == 1) {
       // Add initial routes from main rib
@@ -1011,31 +998,57 @@ public final class VirtualRouter {
   }
 
   /**
-   * Generate IS-IS L1/L2 routes from a given interface and merge them into appropriate L1/L2 RIBs.
+   * Returns the IS-IS routes this router originates at the given level, other than redistributed
+   * routes: routes to the networks of its IS-IS interfaces and, on L1L2 routers that are not
+   * overloaded, the level 1 default route.
    */
-  private void generateAllIsisInterfaceRoutes(
-      Builder<IsisRoute> d1,
-      Builder<IsisRoute> d2,
-      int l1Admin,
-      int l2Admin,
-      @Nullable IsisLevelSettings l1Settings,
-      @Nullable IsisLevelSettings l2Settings,
-      IsisRoute.Builder routeBuilder,
-      Interface iface) {
-    IsisInterfaceSettings ifaceSettings = iface.getIsis();
-    if (ifaceSettings == null) {
-      return;
+  @Nonnull
+  Set<IsisRoute> computeIsisOriginatedRoutes(IsisLevel level) {
+    IsisProcess proc = _vrf.getIsisProcess();
+    if (proc == null) {
+      return ImmutableSet.of();
+    }
+    IsisLevelSettings levelSettings =
+        level == IsisLevel.LEVEL_1 ? proc.getLevel1() : proc.getLevel2();
+    if (levelSettings == null) {
+      return ImmutableSet.of();
     }
-    IsisInterfaceLevelSettings ifaceL1Settings = ifaceSettings.getLevel1();
-    IsisInterfaceLevelSettings ifaceL2Settings = ifaceSettings.getLevel2();
-    if (ifaceL1Settings != null && l1Settings != null) {
-      generateIsisInterfaceRoutesPerLevel(l1Admin, routeBuilder, iface, IsisLevel.LEVEL_1)
-          .forEach(r -> d1.from(_isisL1Rib.mergeRouteGetDelta(r)));
+    int admin =
+        (level == IsisLevel.LEVEL_1 ? RoutingProtocol.ISIS_L1 : RoutingProtocol.ISIS_L2)
+            .getDefaultAdministrativeCost(_c.getConfigurationFormat());
+    ImmutableSet.Builder<IsisRoute> routes = ImmutableSet.builder();
+    IsisRoute.Builder ifaceRouteBuilder =
+        new IsisRoute.Builder()
+            .setArea(proc.getNetAddress().getAreaIdString())
+            .setSystemId(proc.getNetAddress().getSystemIdString());
+    for (Interface iface : _c.getActiveInterfaces(_vrf.getName()).values()) {
+      IsisInterfaceSettings ifaceSettings = iface.getIsis();
+      if (ifaceSettings == null) {
+        continue;
+      }
+      IsisInterfaceLevelSettings ifaceLevelSettings =
+          level == IsisLevel.LEVEL_1 ? ifaceSettings.getLevel1() : ifaceSettings.getLevel2();
+      if (ifaceLevelSettings != null) {
+        routes.addAll(generateIsisInterfaceRoutesPerLevel(admin, ifaceRouteBuilder, iface, level));
+      }
     }
-    if (ifaceL2Settings != null && l2Settings != null) {
-      generateIsisInterfaceRoutesPerLevel(l2Admin, routeBuilder, iface, IsisLevel.LEVEL_2)
-          .forEach(r -> d2.from(_isisL2Rib.mergeRouteGetDelta(r)));
+
+    // export default route for L1 neighbors on L1L2 routers that are not overloaded
+    if (level == IsisLevel.LEVEL_1 && proc.getLevel2() != null && !proc.getOverload()) {
+      routes.add(
+          new IsisRoute.Builder()
+              .setAdmin(admin)
+              .setArea(proc.getNetAddress().getAreaIdString())
+              .setAttach(true)
+              .setLevel(IsisLevel.LEVEL_1)
+              .setMetric(0L)
+              .setNetwork(Prefix.ZERO)
+              .setNextHopIp(Route.UNSET_ROUTE_NEXT_HOP_IP)
+              .setProtocol(RoutingProtocol.ISIS_L1)
+              .setSystemId(proc.getNetAddress().getSystemIdString())
+              .build());
     }
+    return routes.build();
   }
 
   /**
@@ -1440,7 +1453,7 @@ public final class VirtualRouter {
   int computeIterationHashCode() {
     return Streams.concat(
             // RIB State
-            Stream.of(_mainRib.getRoutes()),
+            Stream.of(_mainRib.getRoutesHashCode()),
             // Message queues
             messageQueueStream(_isisIncomingRoutes),
             messageQueueStream(_crossVrfIncomingRoutes),
@@ -2,9 +2,12 @@ package org.batfish.dataplane.ibdp.schedule;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import org.batfish.common.BatfishException;
 import org.batfish.dataplane.ibdp.IncrementalDataPlaneSettings;
 import org.batfish.dataplane.ibdp.Node;
@@ -79,6 +82,45 @@ public abstract class IbdpSchedule implements Iterator<Map<String, Node>> {
       Schedule schedule,
       Map<String, Node> allNodes,
       TopologyContext topologyContext) {
+    return getSchedule(settings, schedule, allNodes, topologyContext, ImmutableSet.of());
+  }
+
+  /**
+   * Create a new schedule based on type and the set of all nodes in the network, that processes
+   * the given nodes one at a time
+   *
+   * @param settings {@link IncrementalDataPlaneSettings}
+   * @param schedule {@link Schedule} to use for nodes that are not serialized
+   * @param allNodes map of all nodes in the network
+   * @param topologyContext the various network topologies
+   * @param serializedNodes hostnames of nodes to process one at a time, after all other nodes
+   * @return a new {@link IbdpSchedule}
+   * @throws BatfishException if the schedule type specified is unsupported
+   */
+  public static IbdpSchedule getSchedule(
+      IncrementalDataPlaneSettings settings,
+      Schedule schedule,
+      Map<String, Node> allNodes,
+      TopologyContext topologyContext,
+      Set<String> serializedNodes) {
+    if (serializedNodes.isEmpty()) {
+      return getScheduleForNodes(settings, schedule, allNodes, topologyContext);
+    }
+    Map<String, Node> otherNodes = Maps.filterKeys(allNodes, n -> !serializedNodes.contains(n));
+    if (otherNodes.isEmpty()) {
+      return new NodeSerializedSchedule(allNodes);
+    }
+    return new PartiallySerializedSchedule(
+        allNodes,
+        serializedNodes,
+        getScheduleForNodes(settings, schedule, otherNodes, topologyContext));
+  }
+
+  private static IbdpSchedule getScheduleForNodes(
+      IncrementalDataPlaneSettings settings,
+      Schedule schedule,
+      Map<String, Node> allNodes,
+      TopologyContext topologyContext) {
     return switch (schedule) {
       case ALL -> new MaxParallelSchedule(allNodes);
       case NODE_SERIALIZED -> new NodeSerializedSchedule(allNodes);
@@ -90,11 +90,18 @@ public final class NodeColoredSchedule extends IbdpSchedule {
 
     // Process BGP connections
     for (EndpointPair<BgpPeerConfigId> edge : topologyContext.getBgpTopology().getGraph().edges()) {
-      _graph.addEdge(edge.source().getHostname(), edge.target().getHostname());
+      addEdge(edge.source().getHostname(), edge.target().getHostname());
     }
     // Process OSPF edges
     for (EdgeId edge : topologyContext.getOspfTopology().edges()) {
-      _graph.addEdge(edge.getTail().getHostname(), edge.getHead().getHostname());
+      addEdge(edge.getTail().getHostname(), edge.getHead().getHostname());
+    }
+  }
+
+  /** Adds an edge between the given nodes, unless one of them is not scheduled */
+  private void addEdge(String node1, String node2) {
+    if (_graph.containsVertex(node1) && _graph.containsVertex(node2)) {
+      _graph.addEdge(node1, node2);
     }
   }
 
@@ -0,0 +1,51 @@
+package org.batfish.dataplane.ibdp.schedule;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import org.batfish.dataplane.ibdp.Node;
+
+/**
+ * A dataplane computation schedule that processes messages at a subset of nodes one node at a
+ * time, like {@link NodeSerializedSchedule}, and at all other nodes according to another schedule.
+ * Used to serialize only the nodes involved in an oscillation.
+ */
+public final class PartiallySerializedSchedule extends IbdpSchedule {
+
+  private final IbdpSchedule _otherNodesSchedule;
+  private final Iterator<Entry<String, Node>> _serializedNodeIterator;
+
+  /**
+   * Create a new schedule
+   *
+   * @param nodes all nodes in the network
+   * @param serializedNodes hostnames of the nodes to process one at a time
+   * @param otherNodesSchedule the schedule for all nodes not in {@code serializedNodes}
+   */
+  PartiallySerializedSchedule(
+      Map<String, Node> nodes, Set<String> serializedNodes, IbdpSchedule otherNodesSchedule) {
+    super(nodes);
+    _otherNodesSchedule = otherNodesSchedule;
+    _serializedNodeIterator =
+        ImmutableMap.copyOf(Maps.filterKeys(nodes, serializedNodes::contains))
+            .entrySet()
+            .iterator();
+  }
+
+  @Override
+  public boolean hasNext() {
+    return _otherNodesSchedule.hasNext() || _serializedNodeIterator.hasNext();
+  }
+
+  @Override
+  public Map<String, Node> next() {
+    if (_otherNodesSchedule.hasNext()) {
+      return _otherNodesSchedule.next();
+    }
+    Entry<String, Node> e = _serializedNodeIterator.next();
+    return ImmutableMap.of(e.getKey(), e.getValue());
+  }
+}
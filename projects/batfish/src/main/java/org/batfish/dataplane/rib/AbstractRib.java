@@ -36,6 +36,12 @@ public abstract class AbstractRib<R extends AbstractRouteDecorator> implements G
   /** Memoized set of all routes in this RIB */
   private @Nullable transient Set<R> _allRoutes;
 
+  /**
+   * Sum of the hash codes of all routes in {@link #_tree}, maintained from the deltas of every
+   * change to it.
+   */
+  private int _routesHashCode;
+
   /**
    * Keep a (insert ordered) set of alternative routes. Used to update the RIB if best routes are
    * withdrawn.
@@ -126,6 +132,7 @@ public abstract class AbstractRib<R extends AbstractRouteDecorator> implements G
   public final void clear() {
     _tree.clear();
     _allRoutes = null;
+    _routesHashCode = 0;
   }
 
   @Override
@@ -168,6 +175,26 @@ public abstract class AbstractRib<R extends AbstractRouteDecorator> implements G
     return ImmutableSet.copyOf(_tree.getRoutes());
   }
 
+  /**
+   * Returns an order-independent hash code of all routes stored in this RIB, equal to {@code
+   * getRoutes().hashCode()} unless {@link #computeRoutes()} is overridden. Unlike that, it is
+   * maintained as routes are added and removed, so it does not collect the routes after the RIB
+   * has changed.
+   *
+   * <p>Subclasses that override {@link #computeRoutes()} to select among the stored routes should
+   * override this to also cover that selection.
+   */
+  public int getRoutesHashCode() {
+    return _routesHashCode;
+  }
+
+  private void updateRoutesHashCode(RibDelta<R> delta) {
+    for (RouteAdvertisement<R> action : delta.getActions()) {
+      int routeHashCode = action.getRoute().hashCode();
+      _routesHashCode += action.isWithdrawn() ? -routeHashCode : routeHashCode;
+    }
+  }
+
   @Override
   public @Nonnull Set<R> getBackupRoutes() {
     return Optional.ofNullable(_backupRoutes)
@@ -217,6 +244,7 @@ public abstract class AbstractRib<R extends AbstractRouteDecorator> implements G
     if (!delta.isEmpty()) {
       // A change to routes has been made
       _allRoutes = null;
+      updateRoutesHashCode(delta);
     }
     return delta;
   }
@@ -247,6 +275,7 @@ public abstract class AbstractRib<R extends AbstractRouteDecorator> implements G
     if (!delta.isEmpty()) {
       // A change to routes has been made
       _allRoutes = null;
+      updateRoutesHashCode(delta);
     }
     return delta;
   }
@@ -78,6 +78,9 @@ public abstract class BgpRib<R extends BgpRoute<?, ?>> extends AbstractRib<R> {
   // evicted
   protected final @Nonnull Map<Prefix, R> _bestPaths;
 
+  /** Sum of the hash codes of the routes in {@link #_bestPaths}, maintained as they change. */
+  private int _bestPathsHashCode;
+
   /**
    * This logical clock helps us keep track when routes were merged into the RIB to determine their
    * age. It's incremented each time a route is merged into the RIB.
@@ -464,11 +467,31 @@ public abstract class BgpRib<R extends BgpRoute<?, ?>> extends AbstractRib<R> {
     Set<R> remainingBestPaths = super.getRoutes(prefix);
     if (remainingBestPaths.isEmpty()) {
       // Remove best path and return
-      _bestPaths.remove(prefix);
+      updateBestPathsHashCode(_bestPaths.remove(prefix), null);
       return;
     }
     R best = Collections.max(remainingBestPaths, this::bestPathComparator);
-    _bestPaths.put(prefix, best);
+    updateBestPathsHashCode(_bestPaths.put(prefix, best), best);
+  }
+
+  private void updateBestPathsHashCode(@Nullable R oldBest, @Nullable R newBest) {
+    if (oldBest != null) {
+      _bestPathsHashCode -= oldBest.hashCode();
+    }
+    if (newBest != null) {
+      _bestPathsHashCode += newBest.hashCode();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Also covers the best path for each prefix, which can change while the stored routes do not,
+   * e.g. when a route is withdrawn and re-learned under {@link BgpTieBreaker#ARRIVAL_ORDER}.
+   */
+  @Override
+  public int getRoutesHashCode() {
+    return 31 * super.getRoutesHashCode() + _bestPathsHashCode;
   }
 
   /**
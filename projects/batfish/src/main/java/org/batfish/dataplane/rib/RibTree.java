@@ -93,14 +93,24 @@ final class RibTree<R extends AbstractRouteDecorator> implements Serializable {
     return _root.get(route.getNetwork()).contains(route);
   }
 
-  private boolean hasAllowedForwardingRoute(Set<R> routes, ResolutionRestriction<R> restriction) {
-    return routes.stream()
-        .anyMatch(r -> !r.getAbstractRoute().getNonForwarding() && restriction.test(r));
+  private static <R extends AbstractRouteDecorator> boolean hasAllowedForwardingRoute(
+      Set<R> routes, ResolutionRestriction<R> restriction) {
+    for (R r : routes) {
+      if (!r.getAbstractRoute().getNonForwarding() && restriction.test(r)) {
+        return true;
+      }
+    }
+    return false;
   }
 
-  private boolean onlyAllowedForwardingRoutes(Set<R> routes, ResolutionRestriction<R> restriction) {
-    return routes.stream()
-        .noneMatch(r -> r.getAbstractRoute().getNonForwarding() || !restriction.test(r));
+  private static <R extends AbstractRouteDecorator> boolean onlyAllowedForwardingRoutes(
+      Set<R> routes, ResolutionRestriction<R> restriction) {
+    for (R r : routes) {
+      if (r.getAbstractRoute().getNonForwarding() || !restriction.test(r)) {
+        return false;
+      }
+    }
+    return true;
   }
 
   /**
@@ -109,22 +119,22 @@ final class RibTree<R extends AbstractRouteDecorator> implements Serializable {
    * specified maximum.
    *
    * <p>Returns the empty set if there are no forwarding routes that match.
+   *
+   * <p>Only allocates if the matching prefix also has routes that are non-forwarding or do not
+   * match the restriction.
    */
   @Nonnull
   Set<R> getLongestPrefixMatch(
       Ip address, int maxPrefixLength, ResolutionRestriction<R> restriction) {
-    for (int pl = maxPrefixLength; pl >= 0; pl--) {
-      Set<R> routes = _root.longestPrefixMatch(address, pl);
-      if (hasAllowedForwardingRoute(routes, restriction)) {
-        if (onlyAllowedForwardingRoutes(routes, restriction)) {
-          return routes;
-        }
-        return routes.stream()
-            .filter(r -> !r.getAbstractRoute().getNonForwarding() && restriction.test(r))
-            .collect(ImmutableSet.toImmutableSet());
-      }
+    Set<R> routes =
+        _root.longestPrefixMatch(
+            address, maxPrefixLength, RibTree::hasAllowedForwardingRoute, restriction);
+    if (routes.isEmpty() || onlyAllowedForwardingRoutes(routes, restriction)) {
+      return routes;
     }
-    return ImmutableSet.of();
+    return routes.stream()
+        .filter(r -> !r.getAbstractRoute().getNonForwarding() && restriction.test(r))
+        .collect(ImmutableSet.toImmutableSet());
   }
 
   /** Equivalent to {@link #getRoutes()}.{@link Set#size}. */
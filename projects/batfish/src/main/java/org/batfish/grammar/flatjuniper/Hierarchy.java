@@ -7,6 +7,7 @@ import static org.batfish.grammar.flatjuniper.JuniperListPaths.getJuniperListPat
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableList.Builder;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import java.util.ArrayList;
@@ -74,7 +75,13 @@ final class Hierarchy {
    */
   boolean inheritGroups(Flat_juniper_configurationContext ctx) {
     HierarchyPath globalPath = new HierarchyPath();
-    return inheritGroups(ctx, _masterTree._root, globalPath, ImmutableList.of(), ImmutableSet.of());
+    return inheritGroups(
+        ctx,
+        _masterTree._root,
+        globalPath,
+        ImmutableList.of(),
+        ImmutableSet.of(),
+        ImmutableMap.of());
   }
 
   /**
@@ -91,13 +98,19 @@ final class Hierarchy {
    * </ol>
    *
    * Returns {@code true} iff the hierarchy was modified.
+   *
+   * <p>{@code ancestralGroupNodes} maps each applicable ancestral group to the node of its group
+   * tree matching {@code inheritorNodePath}. Group tree matches are extended one level at a time as
+   * the main tree is walked, rather than re-matched from the root of each group tree at every node.
+   * Nodes with no applicable group node are left untouched.
    */
   private boolean inheritGroups(
       Flat_juniper_configurationContext ctx,
       HierarchyNode inheritorNode,
       HierarchyPath inheritorNodePath,
       List<String> ancestralPrioritizedGroups,
-      Set<String> ancestralExceptGroups) {
+      Set<String> ancestralExceptGroups,
+      Map<String, HierarchyNode> ancestralGroupNodes) {
     List<String> prioritizedGroups =
         inheritorNode.prependPrioritizedGroups(ancestralPrioritizedGroups);
     Set<String> exceptGroups =
@@ -107,24 +120,78 @@ final class Hierarchy {
                 .addAll(inheritorNode._exceptGroups)
                 .addAll(ancestralExceptGroups)
                 .build();
-    boolean isListNode = IS_LIST_PATH_TREE.isListPath(inheritorNodePath);
-    // Inherit just the immediate children that should be added to this node.
-    boolean modified =
-        isListNode
-            ? inheritGroupsIntoListNode(
-                ctx, inheritorNode, inheritorNodePath, prioritizedGroups, exceptGroups)
-            : inheritGroupsIntoNonListNode(
-                ctx, inheritorNode, inheritorNodePath, prioritizedGroups, exceptGroups);
+    Map<String, HierarchyNode> groupNodes =
+        getApplicableGroupNodes(
+            inheritorNode, inheritorNodePath, exceptGroups, ancestralGroupNodes);
+    boolean modified = false;
+    if (!groupNodes.isEmpty()) {
+      // Inherit just the immediate children that should be added to this node.
+      boolean isListNode = IS_LIST_PATH_TREE.isListPath(inheritorNodePath);
+      modified =
+          isListNode
+              ? inheritGroupsIntoListNode(
+                  ctx, inheritorNode, inheritorNodePath, prioritizedGroups, groupNodes)
+              : inheritGroupsIntoNonListNode(
+                  ctx, inheritorNode, inheritorNodePath, prioritizedGroups, groupNodes);
+    }
     // Now that this level is done, recursively inherit at all of this node's children.
     for (HierarchyChildNode child : inheritorNode._children.values()) {
+      Map<String, HierarchyNode> childGroupNodes = getChildGroupNodes(groupNodes, child);
       inheritorNodePath._nodes.add(child);
       modified =
-          inheritGroups(ctx, child, inheritorNodePath, prioritizedGroups, exceptGroups) || modified;
+          inheritGroups(
+                  ctx, child, inheritorNodePath, prioritizedGroups, exceptGroups, childGroupNodes)
+              || modified;
       inheritorNodePath._nodes.remove(inheritorNodePath._nodes.size() - 1);
     }
     return modified;
   }
 
+  /**
+   * Returns the group nodes applicable at {@code inheritorNode}: the ancestral group nodes, minus
+   * groups excluded at this node, plus group nodes for groups applied at this node.
+   */
+  private @Nonnull Map<String, HierarchyNode> getApplicableGroupNodes(
+      HierarchyNode inheritorNode,
+      HierarchyPath inheritorNodePath,
+      Set<String> exceptGroups,
+      Map<String, HierarchyNode> ancestralGroupNodes) {
+    if (inheritorNode._appliedGroups.isEmpty() && inheritorNode._exceptGroups.isEmpty()) {
+      return ancestralGroupNodes;
+    }
+    Map<String, HierarchyNode> groupNodes = new HashMap<>(ancestralGroupNodes);
+    groupNodes.keySet().removeAll(inheritorNode._exceptGroups);
+    for (String group : inheritorNode._appliedGroups) {
+      if (groupNodes.containsKey(group)) {
+        continue;
+      }
+      HierarchyNode groupNode = findApplicableGroupNode(inheritorNodePath, group, exceptGroups);
+      if (groupNode != null) {
+        groupNodes.put(group, groupNode);
+      }
+    }
+    return groupNodes;
+  }
+
+  /**
+   * Returns the group nodes matching the path to {@code child}, given the group nodes matching the
+   * path to its parent.
+   */
+  private static @Nonnull Map<String, HierarchyNode> getChildGroupNodes(
+      Map<String, HierarchyNode> parentGroupNodes, HierarchyChildNode child) {
+    if (parentGroupNodes.isEmpty()) {
+      return ImmutableMap.of();
+    }
+    Map<String, HierarchyNode> childGroupNodes = new HashMap<>();
+    for (Entry<String, HierarchyNode> entry : parentGroupNodes.entrySet()) {
+      HierarchyNode childGroupNode = entry.getValue().getFirstMatchingChildNode(child);
+      if (childGroupNode != null) {
+        childGroupNodes.put(entry.getKey(), childGroupNode);
+      }
+    }
+    return childGroupNodes;
+  }
+
   /**
    * Inherit groups applied at this node whose children are either a scalar value, or whose order
    * does not matter. Returns {@code true} iff the hierarchy was modified.
@@ -134,7 +201,7 @@ final class Hierarchy {
       HierarchyNode inheritorNode,
       HierarchyPath inheritorNodePath,
       List<String> prioritizedGroups,
-      Set<String> exceptGroups) {
+      Map<String, HierarchyNode> groupNodes) {
     // save old children and lines of old children
     Map<String, HierarchyChildNode> oldChildren = inheritorNode._children;
     Map<String, ParseTree> oldChildrenLines = new HashMap<>();
@@ -147,7 +214,7 @@ final class Hierarchy {
     // clear children and inherit from groups
     inheritorNode.resetChildren();
     for (String group : Lists.reverse(prioritizedGroups)) {
-      HierarchyNode groupNode = findApplicableGroupNode(inheritorNodePath, group, exceptGroups);
+      HierarchyNode groupNode = groupNodes.get(group);
       if (groupNode == null) {
         continue;
       }
@@ -230,10 +297,10 @@ final class Hierarchy {
       HierarchyNode inheritorNode,
       HierarchyPath globalPath,
       List<String> prioritizedGroups,
-      Set<String> exceptGroups) {
+      Map<String, HierarchyNode> groupNodes) {
     boolean modified = false;
     for (String group : prioritizedGroups) {
-      HierarchyNode groupNode = findApplicableGroupNode(globalPath, group, exceptGroups);
+      HierarchyNode groupNode = groupNodes.get(group);
       if (groupNode == null) {
         continue;
       }
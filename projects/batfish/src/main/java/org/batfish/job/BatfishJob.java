@@ -1,7 +1,9 @@
 package org.batfish.job;
 
 import java.util.concurrent.Callable;
+import javax.annotation.Nullable;
 import org.batfish.common.BatfishLogger;
+import org.batfish.common.NetworkSnapshot;
 import org.batfish.config.Settings;
 
 public abstract class BatfishJob<R extends BatfishJobResult<?, ?>> implements Callable<R> {
@@ -14,4 +16,26 @@ public abstract class BatfishJob<R extends BatfishJobResult<?, ?>> implements Ca
     _settings = settings;
     _logger = new BatfishLogger(_settings.getLogLevel(), _settings.getTimestamp());
   }
+
+  /**
+   * Returns an estimate of the time and memory needed to run this job, relative to other jobs of
+   * the same type. {@link BatfishJobExecutor} starts jobs with higher estimates first, and may
+   * limit the total estimated cost of concurrently running jobs.
+   */
+  public long getEstimatedCost() {
+    return 0L;
+  }
+
+  /**
+   * Returns the input this job processes, such as a file or node name, to identify the job in logs,
+   * or {@code null} if there is none.
+   */
+  public @Nullable String getId() {
+    return null;
+  }
+
+  /** Returns the snapshot this job processes, or {@code null} if it is not known. */
+  public @Nullable NetworkSnapshot getSnapshot() {
+    return null;
+  }
 }
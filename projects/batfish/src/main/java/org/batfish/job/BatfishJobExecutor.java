@@ -1,16 +1,23 @@
 package org.batfish.job;
 
 import com.google.common.base.Throwables;
+import com.google.common.collect.Maps;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.batfish.common.BatfishException;
 import org.batfish.common.BatfishLogger;
+import org.batfish.common.NetworkSnapshot;
 import org.batfish.config.Settings;
 import org.batfish.datamodel.answers.AnswerElement;
 import org.batfish.main.BatchManager;
@@ -112,24 +119,48 @@ public class BatfishJobExecutor {
     ExecutorService pool = createExecutorService();
     ExecutorCompletionService<JobResultT> completionService = new ExecutorCompletionService<>(pool);
 
-    if (!_settings.getSequential() && _settings.getShuffleJobs()) {
-      Collections.shuffle(jobs);
-    }
-
-    for (JobT job : jobs) {
-      completionService.submit(job);
+    if (!_settings.getSequential()) {
+      if (_settings.getShuffleJobs()) {
+        Collections.shuffle(jobs);
+      }
+      // Start the most expensive jobs first, so that a few large jobs scheduled last do not leave
+      // a long single-threaded tail. The sort is stable, so equal-cost jobs stay shuffled.
+      jobs.sort(Comparator.comparingLong((JobT job) -> job.getEstimatedCost()).reversed());
     }
 
     initializeJobsStats(jobs, description);
+    long maxInFlightCost = _settings.getMaxInFlightJobCost();
+    Map<Future<JobResultT>, JobT> inFlightJobs = new HashMap<>();
+    long inFlightCost = 0L;
+    int nextJob = 0;
+    List<Entry<String, Long>> elapsedTimes = new ArrayList<>(jobs.size());
     boolean processingError = false;
     List<BatfishException> failureCauses = new ArrayList<>();
     try {
       for (int i = 0; i < jobs.size(); i++) {
+        // Submit jobs until the in-flight cost limit is reached. At least one job is always in
+        // flight, so that a job whose cost alone exceeds the limit can still run.
+        while (nextJob < jobs.size()) {
+          JobT job = jobs.get(nextJob);
+          long cost = job.getEstimatedCost();
+          if (!inFlightJobs.isEmpty()
+              && maxInFlightCost > 0
+              && inFlightCost + cost > maxInFlightCost) {
+            break;
+          }
+          inFlightJobs.put(completionService.submit(job), job);
+          inFlightCost += cost;
+          nextJob++;
+        }
 
+        JobT job;
         JobResultT result = null;
         try {
           // getting the result of the job
-          result = completionService.take().get();
+          Future<JobResultT> completed = completionService.take();
+          job = inFlightJobs.remove(completed);
+          inFlightCost -= job.getEstimatedCost();
+          result = completed.get();
         } catch (InterruptedException e) {
           throw new BatfishException("Job didn't finish", e);
         } catch (ExecutionException e) {
@@ -138,6 +169,7 @@ public class BatfishJobExecutor {
         }
 
         markJobCompleted();
+        elapsedTimes.add(Maps.immutableEntry(describeJob(job), result.getElapsedTime()));
         boolean jobResultError =
             handleJobResult(result, output, answerElement, failureCauses, haltOnProcessingError);
         if (jobResultError) {
@@ -147,6 +179,7 @@ public class BatfishJobExecutor {
     } finally {
       pool.shutdown();
     }
+    logSlowestJobs(elapsedTimes);
 
     if (processingError) {
       handleProcessingError(jobs, failureCauses, haltOnProcessingError);
@@ -155,6 +188,34 @@ public class BatfishJobExecutor {
     }
   }
 
+  /** Logs the elapsed time of the slowest jobs, to help identify what dominates a batch. */
+  private void logSlowestJobs(List<Entry<String, Long>> elapsedTimes) {
+    if (!_logger.isActive(BatfishLogger.LEVEL_INFO) || elapsedTimes.isEmpty()) {
+      return;
+    }
+    elapsedTimes.sort(Entry.<String, Long>comparingByValue().reversed());
+    StringBuilder sb = new StringBuilder("Slowest jobs:\n");
+    int numToLog = Math.min(NUM_SLOWEST_JOBS_TO_LOG, elapsedTimes.size());
+    for (Entry<String, Long> entry : elapsedTimes.subList(0, numToLog)) {
+      sb.append(String.format("\t%s: %s\n", getTime(entry.getValue()), entry.getKey()));
+    }
+    _logger.info(sb.toString());
+  }
+
+  /** Returns the type, ID, and snapshot of the job, to identify it in logs. */
+  private static String describeJob(BatfishJob<?> job) {
+    StringBuilder sb = new StringBuilder(job.getClass().getSimpleName());
+    String id = job.getId();
+    if (id != null) {
+      sb.append(' ').append(id);
+    }
+    NetworkSnapshot snapshot = job.getSnapshot();
+    if (snapshot != null) {
+      sb.append(String.format(" (snapshot %s)", snapshot.getSnapshot()));
+    }
+    return sb.toString();
+  }
+
   private ExecutorService createExecutorService() {
     if (_settings.getSequential()) {
       return Executors.newSingleThreadExecutor();
@@ -264,6 +325,8 @@ public class BatfishJobExecutor {
     _finishedPercent = 100 * ((double) _finishedJobs) / _totalJobs;
   }
 
+  private static final int NUM_SLOWEST_JOBS_TO_LOG = 10;
+
   // Visible only for testing.
   static final String JOB_FAILURE_MESSAGE = "Fatal exception due to failure of at least one job";
 }
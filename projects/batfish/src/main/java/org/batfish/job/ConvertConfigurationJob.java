@@ -133,6 +133,11 @@ public class ConvertConfigurationJob extends BatfishJob<ConvertConfigurationResu
     _name = name;
   }
 
+  @Override
+  public String getId() {
+    return _name;
+  }
+
   /**
    * Sanity checks the given map from name-of-thing to thing-with-name for name consistency. If the
    * names are not consistent, warns and does not convert them.
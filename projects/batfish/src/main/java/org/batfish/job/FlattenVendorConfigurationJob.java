@@ -28,6 +28,11 @@ public class FlattenVendorConfigurationJob extends BatfishJob<FlattenVendorConfi
     _warnings = warnings;
   }
 
+  @Override
+  public String getId() {
+    return _inputFile.toString();
+  }
+
   @Override
   public FlattenVendorConfigurationResult call() {
     long startTime = System.currentTimeMillis();
@@ -48,6 +48,22 @@ public class ParseEnvironmentBgpTableJob extends BatfishJob<ParseEnvironmentBgpT
     _warnings = warnings;
   }
 
+  /** Returns the number of characters in the BGP table text. */
+  @Override
+  public long getEstimatedCost() {
+    return _objectText.length();
+  }
+
+  @Override
+  public String getId() {
+    return _key;
+  }
+
+  @Override
+  public NetworkSnapshot getSnapshot() {
+    return _snapshot;
+  }
+
   @Override
   public ParseEnvironmentBgpTableResult call() {
     long startTime = System.currentTimeMillis();
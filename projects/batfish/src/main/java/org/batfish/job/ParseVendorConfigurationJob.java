@@ -787,6 +787,22 @@ public class ParseVendorConfigurationJob extends BatfishJob<ParseVendorConfigura
     return fromResult(result, System.currentTimeMillis() - startTime);
   }
 
+  /** Returns the total number of characters in the files of this job. */
+  @Override
+  public long getEstimatedCost() {
+    return _fileTexts.values().stream().mapToLong(String::length).sum();
+  }
+
+  @Override
+  public String getId() {
+    return jobFilenamesToString(_fileTexts.keySet());
+  }
+
+  @Override
+  public NetworkSnapshot getSnapshot() {
+    return _snapshot;
+  }
+
   /**
    * Returns a map from file name to its text content. The map has one entry for each file that is
    * part of this parsing job.
@@ -0,0 +1,124 @@
+package org.batfish.job;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.ImmutableSortedMap;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.batfish.common.BatfishException;
+import org.batfish.common.BatfishLogger;
+import org.batfish.common.NetworkSnapshot;
+import org.batfish.common.Warnings;
+import org.batfish.config.Settings;
+import org.batfish.datamodel.ConfigurationFormat;
+import org.batfish.identifiers.NetworkId;
+import org.batfish.identifiers.SnapshotId;
+
+/**
+ * Warms up the ANTLR prediction caches of the vendor configuration parsers.
+ *
+ * <p>ANTLR-generated parsers and lexers share their DFA prediction caches statically across all
+ * instances of the same grammar, so the first files parsed by a fresh JVM are several times slower
+ * than later ones. Parsing a corpus of representative configuration files once, before any real
+ * work arrives, populates those caches for every grammar exercised by the corpus.
+ *
+ * <p>The DFA caches themselves cannot be serialized, so the corpus directory (see {@link
+ * Settings#getParserWarmupDir()}) is what is persisted across workers.
+ */
+@ParametersAreNonnullByDefault
+public final class ParserWarmup {
+
+  private static final NetworkSnapshot WARMUP_SNAPSHOT =
+      new NetworkSnapshot(new NetworkId("__parser_warmup"), new SnapshotId("__parser_warmup"));
+
+  /**
+   * Reads every regular, non-hidden file under {@code dir} as UTF-8 text. Returns a map from path
+   * relative to {@code dir} to file text.
+   */
+  public static @Nonnull SortedMap<String, String> readCorpus(Path dir) {
+    SortedMap<String, String> corpus = new TreeMap<>();
+    try (Stream<Path> paths = Files.walk(dir)) {
+      for (Path path : (Iterable<Path>) paths::iterator) {
+        if (!Files.isRegularFile(path) || path.getFileName().toString().startsWith(".")) {
+          continue;
+        }
+        corpus.put(dir.relativize(path).toString(), new String(Files.readAllBytes(path), UTF_8));
+      }
+    } catch (IOException e) {
+      throw new BatfishException(
+          String.format("Failed to read parser warm-up corpus from %s", dir), e);
+    }
+    return corpus;
+  }
+
+  /**
+   * Parses each file in {@code corpus} independently, detecting its format. Parse failures are
+   * ignored, since even a failed parse populates the prediction caches.
+   *
+   * @return total time in milliseconds spent parsing files of each detected format
+   */
+  public static @Nonnull SortedMap<ConfigurationFormat, Long> warmUp(
+      Settings settings, Map<String, String> corpus) {
+    SortedMap<ConfigurationFormat, Long> elapsedByFormat = new TreeMap<>();
+    Warnings.Settings warningSettings = new Warnings.Settings(false, false, false);
+    corpus.forEach(
+        (filename, text) -> {
+          ParseVendorConfigurationJob job =
+              new ParseVendorConfigurationJob(
+                  settings,
+                  WARMUP_SNAPSHOT,
+                  ImmutableSortedMap.of(filename, text),
+                  warningSettings,
+                  ConfigurationFormat.UNKNOWN,
+                  ImmutableMultimap.of());
+          long startTime = System.currentTimeMillis();
+          ParseResult result = job.parse();
+          elapsedByFormat.merge(
+              result.getFormat(), System.currentTimeMillis() - startTime, Long::sum);
+        });
+    return ImmutableSortedMap.copyOf(elapsedByFormat);
+  }
+
+  /**
+   * If {@link Settings#getParserWarmupDir()} is set, starts a daemon thread that warms up the
+   * parsers using the files in that directory. Returns the started thread, or {@code null}.
+   */
+  public static @Nullable Thread startInBackground(Settings settings, BatfishLogger logger) {
+    Path warmupDir = settings.getParserWarmupDir();
+    if (warmupDir == null) {
+      return null;
+    }
+    Settings warmupSettings = new Settings(settings);
+    warmupSettings.setThrowOnLexerError(false);
+    warmupSettings.setThrowOnParserError(false);
+    Thread thread =
+        new Thread(
+            () -> {
+              try {
+                long startTime = System.currentTimeMillis();
+                SortedMap<String, String> corpus = readCorpus(warmupDir);
+                SortedMap<ConfigurationFormat, Long> elapsed = warmUp(warmupSettings, corpus);
+                logger.infof(
+                    "Parser warm-up of %d files finished in %d ms. Time per format (ms): %s\n",
+                    corpus.size(), System.currentTimeMillis() - startTime, elapsed);
+              } catch (Exception e) {
+                logger.errorf("Parser warm-up failed: %s\n", e.getMessage());
+              }
+            },
+            "parser-warmup");
+    thread.setDaemon(true);
+    thread.start();
+    return thread;
+  }
+
+  private ParserWarmup() {}
+}
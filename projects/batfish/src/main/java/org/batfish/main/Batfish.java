@@ -1728,15 +1728,6 @@ public class Batfish extends PluginConsumer implements IBatfish {
             });
   }
 
-  @Override
-  public @Nullable String readExternalBgpAnnouncementsFile(NetworkSnapshot snapshot) {
-    try {
-      return _storage.loadExternalBgpAnnouncementsFile(snapshot).orElse(null);
-    } catch (IOException e) {
-      throw new UncheckedIOException(e);
-    }
-  }
-
   /**
    * Read Iptable Files for each host in the keyset of {@code hostConfigurations}, and store the
    * contents in {@code iptablesData}. Each task fails if the Iptables file specified by host does
@@ -2020,6 +2011,24 @@ public class Batfish extends PluginConsumer implements IBatfish {
     return _storage.loadSnapshotInputObject(snapshot.getNetwork(), snapshot.getSnapshot(), key);
   }
 
+  @MustBeClosed
+  @Override
+  public @Nonnull InputStream getDataPlaneCheckpoint(NetworkSnapshot snapshot, String key)
+      throws IOException {
+    return _storage.loadDataPlaneCheckpoint(snapshot, key);
+  }
+
+  @Override
+  public void putDataPlaneCheckpoint(NetworkSnapshot snapshot, String key, InputStream stream)
+      throws IOException {
+    _storage.storeDataPlaneCheckpoint(stream, snapshot, key);
+  }
+
+  @Override
+  public void deleteDataPlaneCheckpoints(NetworkSnapshot snapshot) throws IOException {
+    _storage.deleteDataPlaneCheckpoints(snapshot);
+  }
+
   private void repairEnvironmentBgpTables(NetworkSnapshot snapshot) {
     try {
       _storage.deleteParseEnvironmentBgpTablesAnswerElement(snapshot);
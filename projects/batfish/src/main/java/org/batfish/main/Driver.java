@@ -19,6 +19,7 @@ import org.batfish.common.Task;
 import org.batfish.config.Settings;
 import org.batfish.datamodel.answers.Answer;
 import org.batfish.datamodel.answers.AnswerStatus;
+import org.batfish.job.ParserWarmup;
 import org.glassfish.grizzly.http.server.HttpServer;
 
 @SuppressWarnings("restriction")
@@ -81,7 +82,7 @@ public class Driver {
     _mainSettings.setLogger(_mainLogger);
     switch (_mainSettings.getRunMode()) {
       case WORKER -> mainRunWorker();
-      case WORKSERVICE -> {}
+      case WORKSERVICE -> ParserWarmup.startInBackground(_mainSettings, _mainLogger);
     }
     _initialized = true;
   }
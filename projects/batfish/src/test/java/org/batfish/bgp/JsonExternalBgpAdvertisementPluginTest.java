@@ -0,0 +1,71 @@
+package org.batfish.bgp;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.batfish.bgp.JsonExternalBgpAdvertisementPlugin.readAnnouncements;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.sameInstance;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedSet;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import org.batfish.common.util.BatfishObjectMapper;
+import org.batfish.datamodel.AsPath;
+import org.batfish.datamodel.BgpAdvertisement;
+import org.batfish.datamodel.BgpAdvertisement.BgpAdvertisementType;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.OriginType;
+import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.RoutingProtocol;
+import org.batfish.datamodel.bgp.community.StandardCommunity;
+import org.junit.Test;
+
+/** Tests of {@link JsonExternalBgpAdvertisementPlugin}. */
+public class JsonExternalBgpAdvertisementPluginTest {
+
+  private static BgpAdvertisement advertisement(String network) {
+    return BgpAdvertisement.builder()
+        .setType(BgpAdvertisementType.EBGP_SENT)
+        .setNetwork(Prefix.parse(network))
+        .setNextHopIp(Ip.parse("10.0.0.1"))
+        .setSrcIp(Ip.parse("10.0.0.1"))
+        .setDstNode("border")
+        .setDstIp(Ip.parse("10.0.0.2"))
+        .setSrcProtocol(RoutingProtocol.AGGREGATE)
+        .setOriginType(OriginType.EGP)
+        .setAsPath(AsPath.ofSingletonAsSets(65001L))
+        .setCommunities(ImmutableSortedSet.of(StandardCommunity.of(65001, 1)))
+        .build();
+  }
+
+  private static Set<BgpAdvertisement> read(String json) throws IOException {
+    return readAnnouncements(new ByteArrayInputStream(json.getBytes(UTF_8)));
+  }
+
+  @Test
+  public void testReadAnnouncements() throws IOException {
+    BgpAdvertisement advert1 = advertisement("1.0.0.0/24");
+    BgpAdvertisement advert2 = advertisement("2.0.0.0/24");
+    String announcements =
+        BatfishObjectMapper.writeString(ImmutableList.of(advert1, advert2, advert1));
+    Set<BgpAdvertisement> adverts =
+        read(String.format("{\"Other\": {\"a\": [1]}, \"Announcements\": %s}", announcements));
+
+    assertThat(adverts, contains(advert1, advert2));
+    // Attributes shared by the announcements are deserialized into a single instance
+    List<BgpAdvertisement> advertList = ImmutableList.copyOf(adverts);
+    assertThat(
+        advertList.get(0).getCommunities(), sameInstance(advertList.get(1).getCommunities()));
+  }
+
+  @Test
+  public void testReadNoAnnouncements() throws IOException {
+    assertThat(read("{}"), empty());
+    assertThat(read("{\"Announcements\": null}"), empty());
+    assertThat(read("{\"Announcements\": []}"), empty());
+  }
+}
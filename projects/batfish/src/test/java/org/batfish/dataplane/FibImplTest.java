@@ -10,8 +10,10 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
@@ -29,6 +31,7 @@ import org.batfish.datamodel.FibEntry;
 import org.batfish.datamodel.FibForward;
 import org.batfish.datamodel.FibImpl;
 import org.batfish.datamodel.FibNextVrf;
+import org.batfish.datamodel.FibNullRoute;
 import org.batfish.datamodel.Interface;
 import org.batfish.datamodel.Ip;
 import org.batfish.datamodel.NetworkFactory;
@@ -239,6 +242,93 @@ public final class FibImplTest {
         contains(new FibEntry(FibNextVrf.of(nextVrf), ImmutableList.of(nextVrfRoute))));
   }
 
+  @Test
+  public void testRoutesSharingNextHopIp() {
+    Rib rib = new Rib();
+    ConnectedRoute connectedRoute = new ConnectedRoute(Prefix.parse("1.1.1.0/24"), "Eth1");
+    StaticRoute.Builder sb =
+        StaticRoute.testBuilder().setNextHopIp(Ip.parse("1.1.1.1")).setAdministrativeCost(1);
+    StaticRoute route1 = sb.setNetwork(Prefix.parse("2.2.2.0/24")).build();
+    StaticRoute route2 = sb.setNetwork(Prefix.parse("3.3.3.0/24")).build();
+    StaticRoute route3 = sb.setNetwork(Prefix.parse("4.4.4.0/24")).build();
+
+    rib.mergeRoute(annotateRoute(connectedRoute));
+    rib.mergeRoute(annotateRoute(route1));
+    rib.mergeRoute(annotateRoute(route2));
+    rib.mergeRoute(annotateRoute(route3));
+
+    Fib fib = new FibImpl(rib, alwaysTrue());
+    FibForward forward = FibForward.of(Ip.parse("1.1.1.1"), "Eth1");
+    assertThat(
+        fib.allEntries(),
+        containsInAnyOrder(
+            new FibEntry(FibForward.of(null, "Eth1"), ImmutableList.of(connectedRoute)),
+            new FibEntry(forward, ImmutableList.of(route1, connectedRoute)),
+            new FibEntry(forward, ImmutableList.of(route2, connectedRoute)),
+            new FibEntry(forward, ImmutableList.of(route3, connectedRoute))));
+  }
+
+  @Test
+  public void testRoutesSharingNextHopIpWithLoop() {
+    Rib rib = new Rib();
+    // Resolving the next hop of either route reaches loopRoute, which resolves to itself.
+    StaticRoute.Builder sb =
+        StaticRoute.testBuilder().setNextHopIp(Ip.parse("1.1.1.1")).setAdministrativeCost(1);
+    StaticRoute loopRoute = sb.setNetwork(Prefix.parse("1.1.1.1/32")).build();
+    StaticRoute route = sb.setNetwork(Prefix.parse("2.2.2.0/24")).build();
+
+    rib.mergeRoute(annotateRoute(loopRoute));
+    rib.mergeRoute(annotateRoute(route));
+
+    Fib fib = new FibImpl(rib, alwaysTrue());
+    assertThat(
+        fib.allEntries(),
+        containsInAnyOrder(
+            new FibEntry(FibNullRoute.INSTANCE, ImmutableList.of(loopRoute)),
+            new FibEntry(FibNullRoute.INSTANCE, ImmutableList.of(route, loopRoute))));
+  }
+
+  @Test
+  public void testUpdate() {
+    Rib rib = new Rib();
+    ConnectedRoute eth1Route = new ConnectedRoute(Prefix.parse("1.1.1.0/24"), "Eth1");
+    ConnectedRoute eth3Route = new ConnectedRoute(Prefix.parse("3.3.3.0/24"), "Eth3");
+    StaticRoute.Builder sb = StaticRoute.testBuilder().setAdministrativeCost(1);
+    StaticRoute viaEth1 =
+        sb.setNetwork(Prefix.parse("10.0.0.0/24")).setNextHopIp(Ip.parse("1.1.1.1")).build();
+    StaticRoute viaEth3 =
+        sb.setNetwork(Prefix.parse("20.0.0.0/24")).setNextHopIp(Ip.parse("3.3.3.3")).build();
+
+    rib.mergeRoute(annotateRoute(eth1Route));
+    rib.mergeRoute(annotateRoute(eth3Route));
+    rib.mergeRoute(annotateRoute(viaEth1));
+    rib.mergeRoute(annotateRoute(viaEth3));
+    FibImpl fib = new FibImpl(rib, alwaysTrue());
+
+    assertThat(FibImpl.update(fib, rib, alwaysTrue(), ImmutableSet.of()), sameInstance(fib));
+
+    // A more specific route for the next hop of viaEth1 changes its resolution.
+    StaticRoute eth2Route =
+        StaticRoute.testBuilder()
+            .setNetwork(Prefix.parse("1.1.1.0/25"))
+            .setNextHopInterface("Eth2")
+            .setAdministrativeCost(1)
+            .build();
+    rib.mergeRoute(annotateRoute(eth2Route));
+    FibImpl updated =
+        FibImpl.update(fib, rib, alwaysTrue(), ImmutableSet.of(eth2Route.getNetwork()));
+    assertThat(updated.allEntries(), equalTo(new FibImpl(rib, alwaysTrue()).allEntries()));
+    assertThat(
+        getTopLevelRoutesByInterface(updated, "Eth2"), containsInAnyOrder(eth2Route, viaEth1));
+    assertThat(getTopLevelRoutesByInterface(updated, "Eth1"), contains(eth1Route));
+
+    // Removing it restores the original resolution.
+    rib.removeRoute(annotateRoute(eth2Route));
+    FibImpl restored =
+        FibImpl.update(updated, rib, alwaysTrue(), ImmutableSet.of(eth2Route.getNetwork()));
+    assertThat(restored.allEntries(), equalTo(fib.allEntries()));
+  }
+
   @Test
   public void testResolutionWhenNextHopMatchesNonForwardingRoute() {
     Rib rib = new Rib();
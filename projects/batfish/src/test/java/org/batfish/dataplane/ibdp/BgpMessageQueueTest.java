@@ -0,0 +1,42 @@
+package org.batfish.dataplane.ibdp;
+
+import static org.batfish.dataplane.rib.RouteAdvertisement.adding;
+import static org.batfish.dataplane.rib.RouteAdvertisement.withdrawing;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.arrayContaining;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.stream.Stream;
+import org.junit.Test;
+
+/** Tests of {@link BgpMessageQueue}. */
+public final class BgpMessageQueueTest {
+
+  @Test
+  public void testDrainCoalesces() {
+    BgpMessageQueue<String> queue = new BgpMessageQueue<>();
+    assertTrue(queue.isEmpty());
+
+    queue.addAll(Stream.of(adding("a"), adding("b"), withdrawing("a")));
+    queue.addAll(Stream.of(withdrawing("c"), adding("c"), adding("d")));
+    assertFalse(queue.isEmpty());
+    // The stream of queued advertisements is not coalesced
+    assertThat(
+        queue.stream().toArray(),
+        arrayContaining(
+            adding("a"),
+            adding("b"),
+            withdrawing("a"),
+            withdrawing("c"),
+            adding("c"),
+            adding("d")));
+
+    // Only the last advertisement of each route is delivered, in order
+    assertThat(queue.drain(), contains(adding("b"), withdrawing("a"), adding("c"), adding("d")));
+    assertTrue(queue.isEmpty());
+    assertThat(queue.drain(), empty());
+  }
+}
@@ -0,0 +1,163 @@
+package org.batfish.dataplane.ibdp;
+
+import static org.batfish.datamodel.BgpProcess.testBgpProcess;
+import static org.batfish.datamodel.routing_policy.Environment.Direction.IN;
+import static org.batfish.datamodel.routing_policy.Environment.Direction.OUT;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+import com.google.common.collect.ImmutableList;
+import java.util.function.Predicate;
+import org.batfish.datamodel.Bgpv4Route;
+import org.batfish.datamodel.BgpSessionProperties;
+import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.ConfigurationFormat;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.NetworkFactory;
+import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.route.nh.NextHopDiscard;
+import org.batfish.datamodel.routing_policy.RoutingPolicy;
+import org.batfish.datamodel.routing_policy.expr.LiteralLong;
+import org.batfish.datamodel.routing_policy.expr.TrackSucceeded;
+import org.batfish.datamodel.routing_policy.statement.If;
+import org.batfish.datamodel.routing_policy.statement.SetLocalPreference;
+import org.batfish.datamodel.routing_policy.statement.Statements;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Tests of {@link BgpPolicyEvaluationCache}. */
+public final class BgpPolicyEvaluationCacheTest {
+
+  private static final Bgpv4Route ROUTE =
+      Bgpv4Route.testBuilder().setNetwork(Prefix.parse("10.0.0.0/24")).build();
+  private static final BgpSessionProperties SESSION =
+      BgpSessionProperties.builder()
+          .setLocalAs(1L)
+          .setRemoteAs(2L)
+          .setLocalIp(Ip.parse("1.1.1.1"))
+          .setRemoteIp(Ip.parse("2.2.2.2"))
+          .build();
+
+  private RoutingPolicy _policy;
+
+  @Before
+  public void setup() {
+    Configuration c =
+        new NetworkFactory()
+            .configurationBuilder()
+            .setConfigurationFormat(ConfigurationFormat.CISCO_IOS)
+            .build();
+    // Accept with local preference 300 if track t succeeds, otherwise reject
+    _policy =
+        RoutingPolicy.builder()
+            .setOwner(c)
+            .setName("policy")
+            .addStatement(
+                new If(
+                    new TrackSucceeded("t"),
+                    ImmutableList.of(
+                        new SetLocalPreference(new LiteralLong(300L)),
+                        Statements.ExitAccept.toStaticStatement()),
+                    ImmutableList.of(Statements.ExitReject.toStaticStatement())))
+            .build();
+  }
+
+  private Bgpv4Route.Builder process(
+      BgpPolicyEvaluationCache cache,
+      BgpSessionProperties session,
+      Predicate<String> successfulTrack) {
+    return cache.process(_policy, ROUTE, ROUTE.toBuilder(), session, IN, successfulTrack);
+  }
+
+  @Test
+  public void testForProcessOn() {
+    NetworkFactory nf = new NetworkFactory();
+    Configuration c =
+        nf.configurationBuilder().setConfigurationFormat(ConfigurationFormat.CISCO_IOS).build();
+    assertThat(BgpPolicyEvaluationCache.forProcessOn(c).getMaximumSize(), equalTo(1L << 14));
+
+    // Processes on a node with many BGP VRFs share its budget, down to a minimum
+    for (int i = 0; i < 4; i++) {
+      nf.vrfBuilder().setOwner(c).build().setBgpProcess(testBgpProcess(Ip.parse("1.1.1.1")));
+    }
+    nf.vrfBuilder().setOwner(c).build();
+    assertThat(BgpPolicyEvaluationCache.forProcessOn(c).getMaximumSize(), equalTo(1L << 12));
+    for (int i = 0; i < 100; i++) {
+      nf.vrfBuilder().setOwner(c).build().setBgpProcess(testBgpProcess(Ip.parse("1.1.1.1")));
+    }
+    assertThat(BgpPolicyEvaluationCache.forProcessOn(c).getMaximumSize(), equalTo(1L << 8));
+  }
+
+  @Test
+  public void testProcessReplaysOutputRoute() {
+    BgpPolicyEvaluationCache cache = new BgpPolicyEvaluationCache(16, true);
+    Bgpv4Route expected = ROUTE.toBuilder().setLocalPreference(300L).build();
+
+    assertThat(process(cache, SESSION, "t"::equals).build(), equalTo(expected));
+    assertThat(cache.getMissCount(), equalTo(1L));
+
+    // The policy result is replayed, even though the tracks passed in differ
+    assertThat(process(cache, SESSION, track -> false).build(), equalTo(expected));
+    assertThat(cache.getHitCount(), equalTo(1L));
+
+    // Session properties and direction are part of the key
+    BgpSessionProperties otherSession =
+        BgpSessionProperties.builder()
+            .setLocalAs(1L)
+            .setRemoteAs(3L)
+            .setLocalIp(Ip.parse("1.1.1.1"))
+            .setRemoteIp(Ip.parse("3.3.3.3"))
+            .build();
+    assertThat(process(cache, otherSession, "t"::equals).build(), equalTo(expected));
+    assertThat(
+        cache.process(_policy, ROUTE, ROUTE.toBuilder(), SESSION, OUT, "t"::equals).build(),
+        equalTo(expected));
+    assertThat(cache.getMissCount(), equalTo(3L));
+    assertThat(cache.getHitCount(), equalTo(1L));
+  }
+
+  @Test
+  public void testProcessAfterInvalidateAll() {
+    BgpPolicyEvaluationCache cache = new BgpPolicyEvaluationCache(16, true);
+
+    // Rejections are cached too
+    assertThat(process(cache, SESSION, track -> false), nullValue());
+    assertThat(process(cache, SESSION, track -> false), nullValue());
+    assertThat(cache.getHitCount(), equalTo(1L));
+
+    // Once the owner invalidates the cache, e.g. because the tracks changed, the policy is rerun
+    cache.invalidateAll();
+    assertThat(
+        process(cache, SESSION, "t"::equals).build(),
+        equalTo(ROUTE.toBuilder().setLocalPreference(300L).build()));
+    assertThat(cache.getMissCount(), equalTo(2L));
+  }
+
+  @Test
+  public void testProcessWithoutNextHop() {
+    // Export policies run on builders whose next hop was cleared, and usually leave it unset
+    BgpPolicyEvaluationCache cache = new BgpPolicyEvaluationCache(16, true);
+    for (int i = 0; i < 2; i++) {
+      Bgpv4Route.Builder output =
+          cache.process(
+              _policy, ROUTE, ROUTE.toBuilder().clearNextHop(), SESSION, OUT, "t"::equals);
+      assertThat(output.getNextHop(), nullValue());
+      assertThat(output.getLocalPreference(), equalTo(300L));
+    }
+    assertThat(cache.getMissCount(), equalTo(1L));
+    assertThat(cache.getHitCount(), equalTo(1L));
+
+    // An unset next hop is not confused with the next hop used to capture it
+    Bgpv4Route.Builder output =
+        cache.process(
+            _policy,
+            ROUTE,
+            ROUTE.toBuilder().setNextHop(NextHopDiscard.instance()),
+            SESSION,
+            OUT,
+            "t"::equals);
+    assertThat(output.getNextHop(), equalTo(NextHopDiscard.instance()));
+    assertThat(cache.getMissCount(), equalTo(2L));
+  }
+}
@@ -470,7 +470,7 @@ public class BgpRoutingProcessTest {
             node2));
 
     assertThat(
-        routingProcNode2._evpnType3IncomingRoutes.get(new BgpTopology.EdgeId(peer1Id, peer2Id)),
+        routingProcNode2._evpnType3IncomingRoutes.get(new EdgeId(peer1Id, peer2Id)).drain(),
         not(empty()));
   }
 
@@ -11,8 +11,10 @@ import static org.batfish.datamodel.tracking.TrackMethods.bgpRoute;
 import static org.batfish.datamodel.tracking.TrackMethods.negated;
 import static org.batfish.datamodel.tracking.TrackMethods.reachability;
 import static org.batfish.datamodel.tracking.TrackMethods.route;
+import static org.batfish.dataplane.ibdp.IncrementalBdpEngine.compareEdges;
 import static org.batfish.dataplane.ibdp.IncrementalBdpEngine.compareTracks;
 import static org.batfish.dataplane.ibdp.IncrementalBdpEngine.evaluateTrackRoute;
+import static org.batfish.dataplane.ibdp.IncrementalBdpEngine.getOscillatingNodes;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
@@ -21,16 +23,20 @@ import static org.hamcrest.Matchers.equalTo;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedMap;
 import com.google.common.collect.ImmutableSortedSet;
 import com.google.common.collect.ImmutableTable;
 import com.google.common.collect.Table;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import javax.annotation.ParametersAreNonnullByDefault;
 import org.batfish.common.plugin.DataPlanePlugin.ComputeDataPlaneResult;
+import org.batfish.common.topology.CsrGraph;
 import org.batfish.common.topology.GlobalBroadcastNoPointToPoint;
 import org.batfish.common.topology.IpOwnersBaseImpl;
 import org.batfish.datamodel.AbstractRoute;
@@ -53,6 +59,7 @@ import org.batfish.datamodel.RoutingProtocol;
 import org.batfish.datamodel.StaticRoute;
 import org.batfish.datamodel.Vrf;
 import org.batfish.datamodel.VrrpGroup;
+import org.batfish.datamodel.bgp.BgpTopology;
 import org.batfish.datamodel.bgp.LocalOriginationTypeTieBreaker;
 import org.batfish.datamodel.bgp.NextHopIpTieBreaker;
 import org.batfish.datamodel.route.nh.NextHopDiscard;
@@ -93,6 +100,32 @@ public final class IncrementalBdpEngineTest {
         equalTo("gained 1 including [B > 1], lost 1 including [A > 1]"));
   }
 
+  @Test
+  public void testCompareEdges() {
+    CsrGraph<String> ab = graph("a", "b");
+    CsrGraph<String> ac = graph("a", "c");
+    CsrGraph<String> abc = graph("a", "b", "a", "c");
+    CsrGraph<String> abWithIsolated =
+        CsrGraph.<String>builder(Comparator.naturalOrder()).putEdge("a", "b").addNode("z").build();
+
+    assertThat(compareEdges(ab, ab).orElse("equal"), equalTo("equal"));
+    assertThat(compareEdges(ab, abWithIsolated).orElse("equal"), equalTo("equal"));
+    assertThat(compareEdges(abc, ab).orElse("equal"), equalTo("lost 1 including [<a -> c>]"));
+    assertThat(compareEdges(ab, abc).orElse("equal"), equalTo("gained 1 including [<a -> c>]"));
+    assertThat(
+        compareEdges(ab, ac).orElse("equal"),
+        equalTo("gained 1 including [<a -> c>], lost 1 including [<a -> b>]"));
+  }
+
+  /** Returns a graph with edges given as alternating sources and targets. */
+  private static CsrGraph<String> graph(String... nodes) {
+    CsrGraph.Builder<String> graph = CsrGraph.builder(Comparator.naturalOrder());
+    for (int i = 0; i < nodes.length; i += 2) {
+      graph.putEdge(nodes[i], nodes[i + 1]);
+    }
+    return graph.build();
+  }
+
   @Test
   public void testEvaluateTrackRoute() {
     Configuration c =
@@ -467,6 +500,28 @@ public final class IncrementalBdpEngineTest {
                 .build()));
   }
 
+  @Test
+  public void testGetOscillatingNodes() {
+    List<String> hostnames = ImmutableList.of("r1", "r2", "r3");
+    TopologyContext topologyContext =
+        TopologyContext.builder().setBgpTopology(BgpTopology.EMPTY).build();
+    // Iteration 4 repeats iteration 2. Only r2 changed in between; r3 changed before.
+    Map<Integer, int[]> nodeHashCodesByIteration =
+        ImmutableMap.of(
+            1, new int[] {1, 1, 0},
+            2, new int[] {1, 2, 3},
+            3, new int[] {1, 5, 3},
+            4, new int[] {1, 2, 3});
+
+    assertThat(
+        getOscillatingNodes(hostnames, nodeHashCodesByIteration, 2, 4, topologyContext),
+        contains("r2"));
+    // Without any node changing in between, all nodes are considered oscillating
+    assertThat(
+        getOscillatingNodes(hostnames, nodeHashCodesByIteration, 3, 4, topologyContext),
+        containsInAnyOrder("r1", "r2", "r3"));
+  }
+
   @Test
   public void testKernelRoutesUpdatedMidDataPlane() {
     // Topology: r1 <=> r2
@@ -15,6 +15,7 @@ import static org.batfish.dataplane.ibdp.TestUtils.assertRoute;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasKey;
 
@@ -310,6 +311,10 @@ public class IsisTest {
    R5 are L1 only.
    */
   private IbdpResult computeDataPlane() {
+    return computeDataPlane(new IncrementalDataPlaneSettings());
+  }
+
+  private IbdpResult computeDataPlane(IncrementalDataPlaneSettings settings) {
     NetworkFactory nf = new NetworkFactory();
     Configuration.Builder cb =
         nf.configurationBuilder().setConfigurationFormat(ConfigurationFormat.CISCO_IOS);
@@ -457,7 +462,7 @@ public class IsisTest {
             r4,
             r5.getHostname(),
             r5);
-    IncrementalBdpEngine engine = new IncrementalBdpEngine(new IncrementalDataPlaneSettings());
+    IncrementalBdpEngine engine = new IncrementalBdpEngine(settings);
     Topology topology = TopologyUtil.synthesizeL3Topology(configurations);
     TopologyContext topologyContext =
         TopologyContext.builder()
@@ -547,6 +552,10 @@ public class IsisTest {
 
   /* Sets up a 4-node network. See details in testIsisOverload() */
   private IncrementalDataPlane setUpOverloadIsis() {
+    return setUpOverloadIsis(new IncrementalDataPlaneSettings());
+  }
+
+  private IncrementalDataPlane setUpOverloadIsis(IncrementalDataPlaneSettings settings) {
     NetworkFactory nf = new NetworkFactory();
     Configuration.Builder cb =
         nf.configurationBuilder().setConfigurationFormat(ConfigurationFormat.CISCO_IOS);
@@ -659,7 +668,7 @@ public class IsisTest {
     SortedMap<String, Configuration> configurations =
         ImmutableSortedMap.of(
             r1.getHostname(), r1, r2.getHostname(), r2, r3.getHostname(), r3, r4.getHostname(), r4);
-    IncrementalBdpEngine engine = new IncrementalBdpEngine(new IncrementalDataPlaneSettings());
+    IncrementalBdpEngine engine = new IncrementalBdpEngine(settings);
     Topology topology = TopologyUtil.synthesizeL3Topology(configurations);
     TopologyContext topologyContext =
         TopologyContext.builder()
@@ -729,6 +738,25 @@ public class IsisTest {
     assertIsisRoute(routes, RoutingProtocol.ISIS_L1, R2, r4LoopbackPrefix, 10, R4_TO_R2_IP, false);
   }
 
+  @Test
+  public void testIsisSpfMatchesIterativePropagation() {
+    IncrementalDataPlaneSettings iterative = new IncrementalDataPlaneSettings();
+    iterative.getConfig().setProperty(IncrementalDataPlaneSettings.PROP_ISIS_SPF, false);
+
+    // Both levels, with level 1 routes leaked into level 2
+    assertThat(
+        IncrementalBdpEngine.getRoutes(
+            (IncrementalDataPlane) computeDataPlane(new IncrementalDataPlaneSettings())._dataPlane),
+        equalTo(
+            IncrementalBdpEngine.getRoutes(
+                (IncrementalDataPlane) computeDataPlane(iterative)._dataPlane)));
+
+    // Overloaded router
+    assertThat(
+        IncrementalBdpEngine.getRoutes(setUpOverloadIsis(new IncrementalDataPlaneSettings())),
+        equalTo(IncrementalBdpEngine.getRoutes(setUpOverloadIsis(iterative))));
+  }
+
   @Ignore("https://github.com/batfish/batfish/issues/1703")
   @Test
   public void testLeakedRoutes() {
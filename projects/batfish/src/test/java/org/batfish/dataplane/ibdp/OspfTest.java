@@ -11,6 +11,8 @@ import static org.batfish.datamodel.ospf.OspfAreaSummary.SummaryRouteBehavior.NO
 import static org.batfish.datamodel.ospf.OspfTopologyUtils.computeOspfTopology;
 import static org.batfish.dataplane.ibdp.TestUtils.assertNoRoute;
 import static org.batfish.dataplane.ibdp.TestUtils.assertRoute;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSortedMap;
@@ -20,6 +22,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.SortedMap;
+import java.util.TreeMap;
 import javax.annotation.Nullable;
 import org.batfish.common.topology.IpOwnersBaseImpl;
 import org.batfish.common.topology.L3Adjacencies;
@@ -172,6 +175,38 @@ public class OspfTest {
       Long maxMetricTransitLinks,
       @Nullable SummaryRouteBehavior summaryR1L0Behavior,
       Long summarizeR1L0Metric) {
+    return getOspfRoutes(
+        new IncrementalDataPlaneSettings(),
+        areaA,
+        areaB,
+        areaC,
+        areaD,
+        areaE,
+        areaF,
+        areaG,
+        maxMetricExternalNetworks,
+        maxMetricStubNetworks,
+        maxMetricSummaryNetworks,
+        maxMetricTransitLinks,
+        summaryR1L0Behavior,
+        summarizeR1L0Metric);
+  }
+
+  private static SortedMap<String, SortedMap<String, Set<AbstractRoute>>> getOspfRoutes(
+      IncrementalDataPlaneSettings settings,
+      long areaA,
+      long areaB,
+      long areaC,
+      long areaD,
+      long areaE,
+      long areaF,
+      long areaG,
+      Long maxMetricExternalNetworks,
+      Long maxMetricStubNetworks,
+      Long maxMetricSummaryNetworks,
+      Long maxMetricTransitLinks,
+      @Nullable SummaryRouteBehavior summaryR1L0Behavior,
+      Long summarizeR1L0Metric) {
 
     String l0Name = "Loopback0";
     String l1Name = "Loopback1";
@@ -379,7 +414,13 @@ public class OspfTest {
             .put(c3.getHostname(), c3)
             .put(c4.getHostname(), c4)
             .build();
-    IncrementalBdpEngine engine = new IncrementalBdpEngine(new IncrementalDataPlaneSettings());
+    return computeOspfRoutes(settings, configurations);
+  }
+
+  /** Computes the data plane of the given configurations, and returns its main RIB routes. */
+  private static SortedMap<String, SortedMap<String, Set<AbstractRoute>>> computeOspfRoutes(
+      IncrementalDataPlaneSettings settings, SortedMap<String, Configuration> configurations) {
+    IncrementalBdpEngine engine = new IncrementalBdpEngine(settings);
     OspfTopologyUtils.initNeighborConfigs(NetworkConfigurations.of(configurations));
     Topology topology = TopologyUtil.synthesizeL3Topology(configurations);
     TopologyContext topologyContext =
@@ -1163,6 +1204,158 @@ public class OspfTest {
     assertNoRoute(routesByNode, C4_NAME, C2_E2_3_ADDRESS);
   }
 
+  private static IncrementalDataPlaneSettings ospfSpfSettings(boolean ospfSpf) {
+    IncrementalDataPlaneSettings settings = new IncrementalDataPlaneSettings();
+    settings.getConfig().setProperty(IncrementalDataPlaneSettings.PROP_OSPF_SPF, ospfSpf);
+    return settings;
+  }
+
+  /**
+   * Builds routers with a single OSPF process in the default VRF, for comparing the routes computed
+   * with and without {@link IncrementalDataPlaneSettings#PROP_OSPF_SPF}.
+   */
+  private static final class OspfSpfNetwork {
+    private final NetworkFactory _nf = new NetworkFactory();
+    private final SortedMap<String, Configuration> _configurations = new TreeMap<>();
+
+    /** Adds an OSPF interface with the given address, area, and cost to the router. */
+    OspfSpfNetwork addInterface(
+        String hostname, String address, long area, int cost, boolean passive) {
+      Configuration c = _configurations.computeIfAbsent(hostname, this::createRouter);
+      Vrf vrf = c.getDefaultVrf();
+      OspfProcess process = vrf.getOspfProcesses().get("1");
+      OspfArea ospfArea = process.getAreas().get(area);
+      if (ospfArea == null) {
+        ospfArea = _nf.ospfAreaBuilder().setNumber(area).setOspfProcess(process).build();
+      }
+      Interface iface =
+          _nf.interfaceBuilder()
+              .setOwner(c)
+              .setVrf(vrf)
+              .setAddress(ConcreteInterfaceAddress.parse(address))
+              .setOspfSettings(
+                  baseOspfSettings().setCost(cost).setAreaName(area).setPassive(passive).build())
+              .build();
+      ospfArea.addInterface(iface.getName());
+      return this;
+    }
+
+    private Configuration createRouter(String hostname) {
+      Configuration c =
+          _nf.configurationBuilder()
+              .setHostname(hostname)
+              .setConfigurationFormat(ConfigurationFormat.CISCO_IOS)
+              .build();
+      Vrf vrf = _nf.vrfBuilder().setOwner(c).setName(Configuration.DEFAULT_VRF_NAME).build();
+      _nf.ospfProcessBuilder()
+          .setVrf(vrf)
+          .setProcessId("1")
+          .setRouterId(Ip.create(_configurations.size() + 1))
+          .build();
+      return c;
+    }
+
+    /** Asserts that the routes are the same with and without SPF, and returns them. */
+    SortedMap<String, SortedMap<String, Set<AbstractRoute>>> computeOspfRoutesBothWays() {
+      SortedMap<String, SortedMap<String, Set<AbstractRoute>>> routes =
+          computeOspfRoutes(ospfSpfSettings(false), _configurations);
+      assertThat(computeOspfRoutes(ospfSpfSettings(true), _configurations), equalTo(routes));
+      return routes;
+    }
+  }
+
+  @Test
+  public void testOspfSpfSameNetworkInTwoAreas() {
+    /*
+     * r1 ---- r2 (ABR) ---- r3, originates 9.9.9.0/24 in area 0
+     *  area 1  |     area 0
+     *          | area 1, cost 2 at r2
+     *         r0, originates 9.9.9.0/24 in area 1
+     *
+     * The area 0 route is r2's best, so r2 does not advertise the network into area 1, and r1 only
+     * learns it as an inter-area route.
+     */
+    Prefix network = Prefix.parse("9.9.9.0/24");
+    SortedMap<String, SortedMap<String, Set<AbstractRoute>>> routes =
+        new OspfSpfNetwork()
+            .addInterface("r0", "10.20.0.1/24", 1L, 1, false)
+            .addInterface("r0", "9.9.9.1/24", 1L, 1, true)
+            .addInterface("r1", "10.12.0.1/24", 1L, 1, false)
+            .addInterface("r2", "10.12.0.2/24", 1L, 1, false)
+            .addInterface("r2", "10.20.0.2/24", 1L, 2, false)
+            .addInterface("r2", "10.23.0.2/24", 0L, 1, false)
+            .addInterface("r3", "10.23.0.3/24", 0L, 1, false)
+            .addInterface("r3", "9.9.9.3/24", 0L, 1, true)
+            .computeOspfRoutesBothWays();
+    assertRoute(routes, OSPF, "r2", network, 2L);
+    assertRoute(routes, OSPF_IA, "r1", network, 3L);
+  }
+
+  @Test
+  public void testOspfSpfSameNetworkFromSeveralRouters() {
+    /*
+     * r1 ---- r2 ---- r3, where r1 and r3 both originate 9.9.9.0/24
+     *         |
+     *         r4
+     *
+     * r2 learns the network from both r1 and r3, and r4 from r2.
+     */
+    Prefix network = Prefix.parse("9.9.9.0/24");
+    SortedMap<String, SortedMap<String, Set<AbstractRoute>>> routes =
+        new OspfSpfNetwork()
+            .addInterface("r1", "10.12.0.1/24", 0L, 1, false)
+            .addInterface("r1", "9.9.9.1/24", 0L, 1, true)
+            .addInterface("r2", "10.12.0.2/24", 0L, 1, false)
+            .addInterface("r2", "10.23.0.2/24", 0L, 1, false)
+            .addInterface("r2", "10.24.0.2/24", 0L, 1, false)
+            .addInterface("r3", "10.23.0.3/24", 0L, 1, false)
+            .addInterface("r3", "9.9.9.3/24", 0L, 1, true)
+            .addInterface("r4", "10.24.0.4/24", 0L, 1, false)
+            .computeOspfRoutesBothWays();
+    assertRoute(routes, OSPF, "r2", network, 2L, Ip.parse("10.12.0.1"));
+    assertRoute(routes, OSPF, "r2", network, 2L, Ip.parse("10.23.0.3"));
+    assertRoute(routes, OSPF, "r4", network, 3L);
+  }
+
+  @Test
+  public void testOspfSpfMatchesIterativePropagation() {
+    IncrementalDataPlaneSettings iterative = ospfSpfSettings(false);
+    for (long areaC : ImmutableList.of(0L, 1L)) {
+      assertThat(
+          getOspfRoutes(
+              ospfSpfSettings(true),
+              0L,
+              0L,
+              areaC,
+              1L,
+              1L,
+              2L,
+              2L,
+              MAX_METRIC_EXTERNAL_NETWORKS,
+              MAX_METRIC_STUB_NETWORKS,
+              MAX_METRIC_SUMMARY_NETWORKS,
+              null,
+              null,
+              null),
+          equalTo(
+              getOspfRoutes(
+                  iterative,
+                  0L,
+                  0L,
+                  areaC,
+                  1L,
+                  1L,
+                  2L,
+                  2L,
+                  MAX_METRIC_EXTERNAL_NETWORKS,
+                  MAX_METRIC_STUB_NETWORKS,
+                  MAX_METRIC_SUMMARY_NETWORKS,
+                  null,
+                  null,
+                  null)));
+    }
+  }
+
   @Test
   public void testOspfStubBehaviorBackboneRoutes() {
     // NSSA args don't really matter
@@ -0,0 +1,104 @@
+package org.batfish.dataplane.ibdp;
+
+import static org.batfish.datamodel.Configuration.DEFAULT_VRF_NAME;
+import static org.batfish.datamodel.tracking.TrackMethods.route;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.ImmutableTable;
+import com.google.common.graph.MutableValueGraph;
+import com.google.common.graph.ValueGraphBuilder;
+import java.io.IOException;
+import org.apache.commons.lang3.SerializationUtils;
+import org.batfish.common.topology.TunnelTopology;
+import org.batfish.datamodel.Edge;
+import org.batfish.datamodel.IpsecPeerConfigId;
+import org.batfish.datamodel.IpsecSession;
+import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.Topology;
+import org.batfish.datamodel.collections.NodeInterfacePair;
+import org.batfish.datamodel.ipsec.IpsecTopology;
+import org.batfish.datamodel.tracking.TrackRoute;
+import org.junit.Test;
+
+/** Test of {@link TopologyIterationCheckpoint}. */
+public final class TopologyIterationCheckpointTest {
+
+  @Test
+  public void testJavaSerialization() throws IOException {
+    IpsecPeerConfigId peer1 = new IpsecPeerConfigId("p1", "n1");
+    IpsecPeerConfigId peer2 = new IpsecPeerConfigId("p2", "n2");
+    IpsecPeerConfigId peer3 = new IpsecPeerConfigId("p3", "n3");
+    MutableValueGraph<IpsecPeerConfigId, IpsecSession> initialIpsecGraph =
+        ValueGraphBuilder.directed().allowsSelfLoops(false).build();
+    initialIpsecGraph.putEdgeValue(peer1, peer2, IpsecSession.builder().build());
+    initialIpsecGraph.putEdgeValue(peer1, peer3, IpsecSession.builder().build());
+    TopologyContext initialTopologyContext =
+        TopologyContext.builder().setIpsecTopology(new IpsecTopology(initialIpsecGraph)).build();
+
+    // The IPsec topology retains one of the initial edges
+    MutableValueGraph<IpsecPeerConfigId, IpsecSession> ipsecGraph =
+        ValueGraphBuilder.directed().allowsSelfLoops(false).build();
+    ipsecGraph.putEdgeValue(
+        peer1, peer2, initialIpsecGraph.edgeValue(peer1, peer2).orElseThrow(AssertionError::new));
+    TopologyContext topologyContext =
+        initialTopologyContext.toBuilder()
+            .setIpsecTopology(new IpsecTopology(ipsecGraph))
+            .setLayer3Topology(new Topology(ImmutableSortedSet.of(Edge.of("n1", "i1", "n2", "i2"))))
+            .setTunnelTopology(
+                TunnelTopology.builder()
+                    .add(NodeInterfacePair.of("n1", "t1"), NodeInterfacePair.of("n2", "t2"))
+                    .build())
+            .build();
+    TrackRoute trackRoute =
+        (TrackRoute) route(Prefix.parse("10.0.0.0/8"), ImmutableSet.of(), DEFAULT_VRF_NAME);
+    TopologyIterationCheckpoint checkpoint =
+        new TopologyIterationCheckpoint(
+                ImmutableSet.of("n1", "n2", "n3"),
+                initialTopologyContext,
+                ImmutableTable.of(),
+                ImmutableTable.of())
+            .withNextIteration(
+                topologyContext, ImmutableTable.of(), ImmutableTable.of("n1", trackRoute, true));
+
+    TopologyIterationCheckpoint clone = SerializationUtils.clone(checkpoint);
+    assertThat(clone.getTopologyIterations(), equalTo(1));
+    assertThat(clone.getHostnames(), equalTo(ImmutableSet.of("n1", "n2", "n3")));
+    assertThat(clone.getTrackReachabilityResults(1), equalTo(ImmutableTable.of()));
+    assertThat(clone.getTrackRouteResults(0), equalTo(ImmutableTable.of()));
+    assertThat(clone.getTrackRouteResults(1), equalTo(ImmutableTable.of("n1", trackRoute, true)));
+    assertThat(clone.toTopologyContext(0, initialTopologyContext), equalTo(initialTopologyContext));
+    assertThat(clone.toTopologyContext(1, initialTopologyContext), equalTo(topologyContext));
+  }
+
+  @Test
+  public void testStoreIterationInputsSeparately() throws IOException {
+    TopologyContext initialTopologyContext = TopologyContext.builder().build();
+    TopologyContext topologyContext =
+        initialTopologyContext.toBuilder()
+            .setLayer3Topology(new Topology(ImmutableSortedSet.of(Edge.of("n1", "i1", "n2", "i2"))))
+            .build();
+    TrackRoute trackRoute =
+        (TrackRoute) route(Prefix.parse("10.0.0.0/8"), ImmutableSet.of(), DEFAULT_VRF_NAME);
+    TopologyIterationCheckpoint initial =
+        new TopologyIterationCheckpoint(
+            ImmutableSet.of("n1", "n2"),
+            initialTopologyContext,
+            ImmutableTable.of(),
+            ImmutableTable.of());
+    TopologyIterationCheckpoint checkpoint =
+        initial.withNextIteration(
+            topologyContext, ImmutableTable.of(), ImmutableTable.of("n1", trackRoute, true));
+
+    // Store the initial checkpoint and the input of the next iteration on their own
+    TopologyIterationCheckpoint clone =
+        SerializationUtils.clone(initial)
+            .withNextIteration(SerializationUtils.clone(checkpoint.getIterationInput(1)));
+    assertThat(clone.getTopologyIterations(), equalTo(1));
+    assertThat(clone.getHostnames(), equalTo(ImmutableSet.of("n1", "n2")));
+    assertThat(clone.getTrackRouteResults(1), equalTo(ImmutableTable.of("n1", trackRoute, true)));
+    assertThat(clone.toTopologyContext(1, initialTopologyContext), equalTo(topologyContext));
+  }
+}
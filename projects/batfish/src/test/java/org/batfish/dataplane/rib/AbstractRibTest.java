@@ -16,6 +16,8 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
+import org.batfish.datamodel.AbstractRoute;
+import org.batfish.datamodel.AnnotatedRoute;
 import org.batfish.datamodel.BgpTieBreaker;
 import org.batfish.datamodel.Bgpv4Route;
 import org.batfish.datamodel.ConfigurationFormat;
@@ -462,6 +464,37 @@ public class AbstractRibTest {
     assertThat(_rib.getRoutes(), empty());
   }
 
+  @Test
+  public void testGetRoutesHashCode() {
+    // Use a RIB with backup routes, so that removals can also add routes
+    Rib rib = new Rib();
+    assertThat(rib.getRoutesHashCode(), equalTo(rib.getRoutes().hashCode()));
+
+    StaticRoute.Builder b =
+        StaticRoute.testBuilder().setNetwork(Prefix.parse("1.0.0.0/8")).setMetric(0L).setTag(0L);
+    AnnotatedRoute<AbstractRoute> worse = new AnnotatedRoute<>(b.setAdmin(2).build(), "vrf");
+    AnnotatedRoute<AbstractRoute> better = new AnnotatedRoute<>(b.setAdmin(1).build(), "vrf");
+    AnnotatedRoute<AbstractRoute> other =
+        new AnnotatedRoute<>(b.setNetwork(Prefix.parse("2.0.0.0/8")).build(), "vrf");
+
+    rib.mergeRouteGetDelta(worse);
+    rib.mergeRouteGetDelta(other);
+    assertThat(rib.getRoutesHashCode(), equalTo(rib.getRoutes().hashCode()));
+
+    // Replaces the worse route
+    rib.mergeRouteGetDelta(better);
+    assertThat(rib.getRoutes(), containsInAnyOrder(better, other));
+    assertThat(rib.getRoutesHashCode(), equalTo(rib.getRoutes().hashCode()));
+
+    // Restores the worse route from backups
+    rib.removeRouteGetDelta(better);
+    assertThat(rib.getRoutes(), containsInAnyOrder(worse, other));
+    assertThat(rib.getRoutesHashCode(), equalTo(rib.getRoutes().hashCode()));
+
+    rib.clear();
+    assertThat(rib.getRoutesHashCode(), equalTo(rib.getRoutes().hashCode()));
+  }
+
   @Test
   public void testBackupLogic() {
     // Use concrete BGP rib, BGP has easy preference knobs
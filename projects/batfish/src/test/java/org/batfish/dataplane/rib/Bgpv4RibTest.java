@@ -757,6 +757,37 @@ public class Bgpv4RibTest {
     assertThat(_bestPathRib.getUnannotatedRoutes(), contains(bestPath));
   }
 
+  @Test
+  public void testGetRoutesHashCodeArrivalOrder() {
+    _bestPathRib =
+        new Bgpv4Rib(
+            null,
+            BgpTieBreaker.ARRIVAL_ORDER,
+            1,
+            null,
+            false,
+            LocalOriginationTypeTieBreaker.NO_PREFERENCE,
+            NextHopIpTieBreaker.HIGHEST_NEXT_HOP_IP,
+            NextHopIpTieBreaker.HIGHEST_NEXT_HOP_IP,
+            ResolutionRestriction.alwaysTrue());
+    Bgpv4Route route1 = _rb.build();
+    Bgpv4Route route2 =
+        _rb.setOriginatorIp(Ip.parse("1.1.0.1"))
+            .setNextHop(NextHopIp.of(Ip.parse("1.1.0.1")))
+            .setReceivedFrom(ReceivedFromIp.of(Ip.parse("1.1.0.1")))
+            .build();
+    _bestPathRib.mergeRoute(route1);
+    _bestPathRib.mergeRoute(route2);
+    assertThat(_bestPathRib.getUnannotatedRoutes(), contains(route1));
+    int hashCode = _bestPathRib.getRoutesHashCode();
+
+    // Re-learning route1 leaves the same routes stored, but makes route2 the oldest and best path
+    _bestPathRib.removeRoute(route1);
+    _bestPathRib.mergeRoute(route1);
+    assertThat(_bestPathRib.getUnannotatedRoutes(), contains(route2));
+    assertThat(_bestPathRib.getRoutesHashCode(), not(equalTo(hashCode)));
+  }
+
   @Test
   public void testBestPathSelectionTieBreakingEbgpOnly() {
     _bestPathRib =
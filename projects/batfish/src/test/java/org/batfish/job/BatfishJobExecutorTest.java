@@ -1,13 +1,18 @@
 package org.batfish.job;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.junit.Assert.assertEquals;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import javax.annotation.Nullable;
 import org.batfish.common.BatfishException;
 import org.batfish.common.BatfishLogger;
 import org.batfish.common.BatfishLogger.BatfishLoggerHistory;
@@ -49,6 +54,45 @@ public class BatfishJobExecutorTest {
     assertEquals(output, Sets.newHashSet("result1", "result2"));
   }
 
+  @Test
+  public void testExecuteJobsLongestFirstWithinCostLimit() {
+    Settings settings = new Settings();
+    // Limit allows only one job in flight at a time, so jobs run in scheduling order.
+    settings.setMaxInFlightJobCost(1L);
+
+    List<String> started = Collections.synchronizedList(new ArrayList<>());
+    List<BfTestJob> jobs = new ArrayList<>();
+    jobs.add(new BfTestJob(settings, "small", 1L, started));
+    jobs.add(new BfTestJob(settings, "large", 3L, started));
+    jobs.add(new BfTestJob(settings, "medium", 2L, started));
+
+    Set<String> output = new HashSet<>();
+    BfTestAnswerElement ae = new BfTestAnswerElement();
+    BatfishJobExecutor.runJobsInExecutor(
+        settings, _logger, jobs, output, ae, false, TEST_EXECUTOR_DESC);
+
+    assertEquals(ImmutableList.of("large", "medium", "small"), started);
+    assertEquals(Sets.newHashSet("small", "medium", "large"), output);
+  }
+
+  @Test
+  public void testExecuteJobsLogsSlowestJobsById() {
+    Settings settings = new Settings();
+
+    List<BfTestJob> jobs = new ArrayList<>();
+    jobs.add(new BfTestJob(settings, "result1"));
+
+    Set<String> output = new HashSet<>();
+    BfTestAnswerElement ae = new BfTestAnswerElement();
+    BatfishJobExecutor.runJobsInExecutor(
+        settings, _logger, jobs, output, ae, false, TEST_EXECUTOR_DESC);
+
+    // Jobs are identified by type and ID, rather than by their results
+    assertThat(
+        _logger.getHistory().toString(BatfishLogger.LEVEL_INFO),
+        containsString(": BfTestJob result1\n"));
+  }
+
   @Test
   public void testHandleJobResultSuccess() {
     Settings settings = new Settings();
@@ -121,14 +165,36 @@ public class BatfishJobExecutorTest {
   /** Class for Batfish test job */
   private class BfTestJob extends BatfishJob<BfTestResult> {
     private String _testValue;
+    private final long _estimatedCost;
+    private final @Nullable List<String> _started;
 
     public BfTestJob(Settings settings, String testValue) {
+      this(settings, testValue, 0L, null);
+    }
+
+    public BfTestJob(
+        Settings settings, String testValue, long estimatedCost, @Nullable List<String> started) {
       super(settings);
       _testValue = testValue;
+      _estimatedCost = estimatedCost;
+      _started = started;
+    }
+
+    @Override
+    public long getEstimatedCost() {
+      return _estimatedCost;
+    }
+
+    @Override
+    public String getId() {
+      return _testValue;
     }
 
     @Override
     public BfTestResult call() {
+      if (_started != null) {
+        _started.add(_testValue);
+      }
       long startTime = System.currentTimeMillis();
       return new BfTestResult(
           System.currentTimeMillis() - startTime, _logger.getHistory(), _testValue);
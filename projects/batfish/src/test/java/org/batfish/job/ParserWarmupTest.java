@@ -0,0 +1,70 @@
+package org.batfish.job;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.nullValue;
+
+import com.google.common.collect.ImmutableMap;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SortedMap;
+import org.batfish.common.BatfishLogger;
+import org.batfish.config.Settings;
+import org.batfish.datamodel.ConfigurationFormat;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** Tests of {@link ParserWarmup}. */
+public class ParserWarmupTest {
+
+  @Rule public TemporaryFolder _folder = new TemporaryFolder();
+
+  @Test
+  public void testReadCorpus() throws IOException {
+    Path dir = _folder.newFolder().toPath();
+    Files.createDirectories(dir.resolve("configs"));
+    Files.write(dir.resolve("configs").resolve("r1.cfg"), "hostname r1\n".getBytes(UTF_8));
+    Files.write(dir.resolve(".hidden"), "ignored".getBytes(UTF_8));
+
+    SortedMap<String, String> corpus = ParserWarmup.readCorpus(dir);
+    assertThat(corpus.keySet(), contains("configs/r1.cfg"));
+    assertThat(corpus.get("configs/r1.cfg"), equalTo("hostname r1\n"));
+  }
+
+  @Test
+  public void testWarmUp() {
+    Settings settings = new Settings();
+    settings.setThrowOnLexerError(false);
+    settings.setThrowOnParserError(false);
+    String ios = "!RANCID-CONTENT-TYPE: cisco\nhostname r1\n";
+    SortedMap<ConfigurationFormat, Long> elapsed =
+        ParserWarmup.warmUp(settings, ImmutableMap.of("ios", ios, "empty", "\n"));
+    assertThat(elapsed, hasKey(ConfigurationFormat.CISCO_IOS));
+    assertThat(elapsed, hasKey(ConfigurationFormat.EMPTY));
+  }
+
+  @Test
+  public void testStartInBackgroundDisabled() {
+    Settings settings = new Settings();
+    assertThat(
+        ParserWarmup.startInBackground(settings, new BatfishLogger("debug", false)),
+        nullValue());
+  }
+
+  @Test
+  public void testStartInBackground() throws IOException, InterruptedException {
+    Path dir = _folder.newFolder().toPath();
+    String ios = "!RANCID-CONTENT-TYPE: cisco\nhostname r1\n";
+    Files.write(dir.resolve("r1.cfg"), ios.getBytes(UTF_8));
+    Settings settings = new Settings();
+    settings.setParserWarmupDir(dir);
+    Thread thread = ParserWarmup.startInBackground(settings, new BatfishLogger("debug", false));
+    assertThat(thread.isDaemon(), equalTo(true));
+    thread.join();
+  }
+}
@@ -15,12 +15,16 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Comparators;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedSet;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.errorprone.annotations.MustBeClosed;
 import java.io.ByteArrayInputStream;
 import java.io.File;
@@ -38,6 +42,7 @@ import java.nio.file.attribute.FileAttribute;
 import java.time.Instant;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashSet;
@@ -46,14 +51,18 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
 import java.util.UUID;
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.ThreadPoolExecutor.DiscardOldestPolicy;
@@ -89,6 +98,8 @@ import org.batfish.coordinator.config.Settings;
 import org.batfish.coordinator.id.IdManager;
 import org.batfish.coordinator.resources.ForkSnapshotBean;
 import org.batfish.datamodel.Edge;
+import org.batfish.datamodel.InitializationMetadata;
+import org.batfish.datamodel.InitializationMetadata.ProcessingStatus;
 import org.batfish.datamodel.SnapshotMetadata;
 import org.batfish.datamodel.SnapshotMetadataEntry;
 import org.batfish.datamodel.answers.Answer;
@@ -186,6 +197,38 @@ public class WorkMgr extends AbstractCoordinator {
   private static final Set<String> WELL_KNOWN_NETWORK_FILENAMES =
       ImmutableSet.of(BfConsts.RELPATH_REFERENCE_LIBRARY_PATH, BfConsts.RELPATH_NODE_ROLES_PATH);
 
+  /** Number of threads used to write the files of an uploaded snapshot. */
+  private static final int INGEST_THREADS = Math.min(8, Runtime.getRuntime().availableProcessors());
+
+  /** Maximum number of decompressed bytes of zip entries buffered in memory awaiting a write. */
+  private static final int INGEST_MAX_PENDING_BYTES = 64 << 20;
+
+  /**
+   * Maximum number of deserialized answers kept in memory, so that paging through a large answer
+   * does not deserialize it again for every page.
+   */
+  private static final int MAX_CACHED_ANSWERS = 8;
+
+  /**
+   * Maximum number of filtered and sorted views of each cached answer kept in memory, so that
+   * paging through a filtered answer does not filter and sort it again for every page.
+   */
+  private static final int MAX_CACHED_ROW_VIEWS = 4;
+
+  /**
+   * Maximum number of snapshots whose {@link CompletionMetadata} is kept in memory, so that
+   * autocomplete does not reload it from storage on every keystroke.
+   */
+  private static final int MAX_CACHED_COMPLETION_METADATA = 16;
+
+  /** Processing statuses after which a snapshot's completion metadata no longer changes. */
+  private static final Set<ProcessingStatus> COMPLETION_METADATA_FINAL_STATUSES =
+      Sets.immutableEnumSet(
+          ProcessingStatus.PARSED,
+          ProcessingStatus.DATAPLANING,
+          ProcessingStatus.DATAPLANING_FAIL,
+          ProcessingStatus.DATAPLANED);
+
   private static final String SNAPSHOT_PACKAGING_INSTRUCTIONS_URL =
       "https://batfish.readthedocs.io/en/latest/notebooks/interacting.html#Packaging-snapshot-data";
 
@@ -195,6 +238,11 @@ public class WorkMgr extends AbstractCoordinator {
   private WorkQueueMgr _workQueueMgr;
   private final StorageProvider _storage;
   private final ExecutorService _gcExecutor;
+  private final ExecutorService _ingestExecutor;
+  private final Cache<AnswerCacheKey, CachedAnswer> _answerCache;
+  private final Cache<String, Answer> _answerStringCache;
+  private final Cache<TableAnswerElement, Cache<AnswerRowsOptions, ProcessedRows>> _rowViewCache;
+  private final Cache<NetworkSnapshot, CachedCompletionMetadata> _completionMetadataCache;
 
   public WorkMgr(
       Settings settings,
@@ -212,6 +260,25 @@ public class WorkMgr extends AbstractCoordinator {
     _gcExecutor =
         new ThreadPoolExecutor(
             0, 1, 0L, TimeUnit.SECONDS, new ArrayBlockingQueue<>(1), new DiscardOldestPolicy());
+    // Shared by all snapshot uploads to extract and store input files in parallel. Idle threads
+    // time out so an idle coordinator holds none.
+    ThreadPoolExecutor ingestExecutor =
+        new ThreadPoolExecutor(
+            INGEST_THREADS,
+            INGEST_THREADS,
+            60L,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(),
+            new ThreadFactoryBuilder().setNameFormat("snapshot-ingest-%d").setDaemon(true).build());
+    ingestExecutor.allowCoreThreadTimeOut(true);
+    _ingestExecutor = ingestExecutor;
+    _answerCache = CacheBuilder.newBuilder().softValues().maximumSize(MAX_CACHED_ANSWERS).build();
+    _answerStringCache =
+        CacheBuilder.newBuilder().softValues().maximumSize(MAX_CACHED_ANSWERS).build();
+    // Weak keys are compared by identity, so views are only reused for the same deserialized table.
+    _rowViewCache = CacheBuilder.newBuilder().weakKeys().maximumSize(MAX_CACHED_ANSWERS).build();
+    _completionMetadataCache =
+        CacheBuilder.newBuilder().softValues().maximumSize(MAX_CACHED_COMPLETION_METADATA).build();
     _workExecutor = workExecutorCreator.apply(logger, settings);
   }
 
@@ -290,7 +357,53 @@ public class WorkMgr extends AbstractCoordinator {
       return null;
     }
     SnapshotId snapshotId = snapshotIdOpt.get();
-    return _storage.loadCompletionMetadata(networkId, snapshotId);
+    NetworkSnapshot networkSnapshot = new NetworkSnapshot(networkId, snapshotId);
+    // Read the version before the metadata, so that metadata rewritten meanwhile is not cached
+    // under a newer version.
+    Integer version = getCompletionMetadataVersion(networkId, snapshotId);
+    if (version == null) {
+      // Completion metadata is (re)computed during parsing
+      _completionMetadataCache.invalidate(networkSnapshot);
+      return _storage.loadCompletionMetadata(networkId, snapshotId);
+    }
+    CachedCompletionMetadata cached = _completionMetadataCache.getIfPresent(networkSnapshot);
+    if (cached != null && cached._version == version) {
+      return cached._completionMetadata;
+    }
+    CompletionMetadata completionMetadata = _storage.loadCompletionMetadata(networkId, snapshotId);
+    _completionMetadataCache.put(
+        networkSnapshot, new CachedCompletionMetadata(completionMetadata, version));
+    return completionMetadata;
+  }
+
+  /**
+   * Returns the version of the completion metadata of the snapshot, or {@code null} if it may still
+   * be (re)computed by parsing. The version is the number of processing status changes of the
+   * snapshot, so it changes whenever the snapshot is reparsed, even if parsing work is queued
+   * while the snapshot is still {@link ProcessingStatus#PARSED}.
+   */
+  private @Nullable Integer getCompletionMetadataVersion(
+      NetworkId networkId, SnapshotId snapshotId) {
+    InitializationMetadata metadata;
+    try {
+      metadata = _snapshotMetadataManager.getInitializationMetadata(networkId, snapshotId);
+    } catch (IOException e) {
+      return null;
+    }
+    return COMPLETION_METADATA_FINAL_STATUSES.contains(metadata.getProcessingStatus())
+        ? metadata.getStatusHistory().size()
+        : null;
+  }
+
+  /** Deserialized completion metadata, along with the version it was loaded at. */
+  private static final class CachedCompletionMetadata {
+    private final @Nonnull CompletionMetadata _completionMetadata;
+    private final int _version;
+
+    private CachedCompletionMetadata(CompletionMetadata completionMetadata, int version) {
+      _completionMetadata = completionMetadata;
+      _version = version;
+    }
   }
 
   public @Nullable List<AutocompleteSuggestion> autoComplete(
@@ -416,6 +529,7 @@ public class WorkMgr extends AbstractCoordinator {
       return false;
     }
     NetworkId networkId = networkIdOpt.get();
+    invalidateCachedAnswers(networkId, question);
     return _idManager.deleteQuestion(question, networkId);
   }
 
@@ -428,10 +542,34 @@ public class WorkMgr extends AbstractCoordinator {
   public @Nullable Answer getAnswer(
       String network, String snapshot, String question, @Nullable String referenceSnapshot)
       throws IOException {
-    String ansString = loadAnswer(network, snapshot, question, referenceSnapshot);
-    return ansString == null
-        ? null
-        : BatfishObjectMapper.mapper().readValue(ansString, Answer.class);
+    AnswerLocation location = getAnswerLocation(network, snapshot, question, referenceSnapshot);
+    NetworkId networkId = location._networkId;
+    SnapshotId snapshotId = location._snapshotId;
+    AnswerId answerId = location._answerId;
+    // No metadata means the question has not been answered
+    if (!_storage.hasAnswerMetadata(networkId, snapshotId, answerId)) {
+      return null;
+    }
+    AnswerMetadata metadata = _storage.loadAnswerMetadata(networkId, snapshotId, answerId);
+    AnswerCacheKey key = new AnswerCacheKey(networkId, question, answerId);
+    CachedAnswer cached = _answerCache.getIfPresent(key);
+    if (cached != null && cached._metadata.equals(metadata)) {
+      return cached._answer;
+    }
+    String ansString = _storage.loadAnswer(networkId, snapshotId, answerId);
+    Answer answer = BatfishObjectMapper.mapper().readValue(ansString, Answer.class);
+    if (answer.getStatus() == AnswerStatus.SUCCESS) {
+      _answerCache.put(key, new CachedAnswer(answer, metadata));
+    }
+    return answer;
+  }
+
+  /** Drops the cached answers of the given question, which is being redefined or deleted. */
+  private void invalidateCachedAnswers(NetworkId networkId, String question) {
+    _answerCache
+        .asMap()
+        .keySet()
+        .removeIf(key -> key._networkId.equals(networkId) && key._question.equals(question));
   }
 
   /** Get the answer string for the specified question. */
@@ -465,6 +603,81 @@ public class WorkMgr extends AbstractCoordinator {
   private @Nullable String loadAnswer(
       String network, String snapshot, String question, @Nullable String referenceSnapshot)
       throws IOException {
+    AnswerLocation location = getAnswerLocation(network, snapshot, question, referenceSnapshot);
+    NetworkId networkId = location._networkId;
+    SnapshotId snapshotId = location._snapshotId;
+    AnswerId answerId = location._answerId;
+    // No metadata means the question has not been answered
+    if (!_storage.hasAnswerMetadata(networkId, snapshotId, answerId)) {
+      return null;
+    }
+    return _storage.loadAnswer(networkId, snapshotId, answerId);
+  }
+
+  /** Storage location of an answer: its {@link AnswerId} and the network and snapshot it is in. */
+  private static final class AnswerLocation {
+    private final @Nonnull NetworkId _networkId;
+    private final @Nonnull SnapshotId _snapshotId;
+    private final @Nonnull AnswerId _answerId;
+
+    private AnswerLocation(NetworkId networkId, SnapshotId snapshotId, AnswerId answerId) {
+      _networkId = networkId;
+      _snapshotId = snapshotId;
+      _answerId = answerId;
+    }
+  }
+
+  /**
+   * Key of a cached answer: the question it answers, so that its answers are dropped when the
+   * question is redefined, and the {@link AnswerId}, which identifies the question instance and the
+   * snapshot and reference snapshot it was asked of.
+   */
+  private static final class AnswerCacheKey {
+    private final @Nonnull NetworkId _networkId;
+    private final @Nonnull String _question;
+    private final @Nonnull AnswerId _answerId;
+
+    private AnswerCacheKey(NetworkId networkId, String question, AnswerId answerId) {
+      _networkId = networkId;
+      _question = question;
+      _answerId = answerId;
+    }
+
+    @Override
+    public boolean equals(@Nullable Object o) {
+      if (this == o) {
+        return true;
+      } else if (!(o instanceof AnswerCacheKey)) {
+        return false;
+      }
+      AnswerCacheKey that = (AnswerCacheKey) o;
+      return _networkId.equals(that._networkId)
+          && _question.equals(that._question)
+          && _answerId.equals(that._answerId);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(_networkId, _question, _answerId);
+    }
+  }
+
+  /**
+   * A deserialized answer, along with the metadata stored with it. Answers are only reused while
+   * their stored metadata is unchanged, so an answer that is recomputed is reloaded.
+   */
+  private static final class CachedAnswer {
+    private final @Nonnull Answer _answer;
+    private final @Nonnull AnswerMetadata _metadata;
+
+    private CachedAnswer(Answer answer, AnswerMetadata metadata) {
+      _answer = answer;
+      _metadata = metadata;
+    }
+  }
+
+  private @Nonnull AnswerLocation getAnswerLocation(
+      String network, String snapshot, String question, @Nullable String referenceSnapshot) {
     Optional<NetworkId> networkIdOpt = _idManager.getNetworkId(network);
     checkArgument(networkIdOpt.isPresent(), "Missing network: '%s'", network);
     NetworkId networkId = networkIdOpt.get();
@@ -491,11 +704,7 @@ public class WorkMgr extends AbstractCoordinator {
     AnswerId answerId =
         _idManager.getAnswerId(
             networkId, snapshotId, questionId, networkNodeRolesId, referenceSnapshotId);
-    // No metadata means the question has not been answered
-    if (!_storage.hasAnswerMetadata(networkId, snapshotId, answerId)) {
-      return null;
-    }
-    return _storage.loadAnswer(networkId, snapshotId, answerId);
+    return new AnswerLocation(networkId, snapshotId, answerId);
   }
 
   /**
@@ -847,6 +1056,7 @@ public class WorkMgr extends AbstractCoordinator {
     boolean bgpTables = false;
     boolean roleData = false;
     boolean referenceLibraryData = false;
+    Map<Path, Path> filesToStore = new LinkedHashMap<>();
     for (Path subFile : subFileList) {
       String name = subFile.getFileName().toString();
       if (name.equals(BfConsts.RELPATH_ENVIRONMENT_BGP_TABLES)) {
@@ -872,38 +1082,57 @@ public class WorkMgr extends AbstractCoordinator {
       // Copy everything over
       try {
         if (Files.isDirectory(subFile)) {
-          Files.walk(subFile)
-              .filter(Files::isRegularFile)
-              .forEach(
-                  deepFile -> {
-                    try (InputStream srcFileStream = Files.newInputStream(deepFile)) {
-                      _storage.storeSnapshotInputObject(
-                          srcFileStream,
-                          subDir.relativize(deepFile).toString(),
-                          new NetworkSnapshot(networkId, snapshotId));
-                    } catch (IOException e) {
-                      throw new UncheckedIOException(
-                          String.format("Failed to copy: '%s'", subFile), e);
-                    }
-                  });
-        } else {
-          try (InputStream srcFileStream = Files.newInputStream(subFile)) {
-            _storage.storeSnapshotInputObject(
-                srcFileStream,
-                subFile.getFileName().toString(),
-                new NetworkSnapshot(networkId, snapshotId));
+          try (Stream<Path> deepFiles = Files.walk(subFile)) {
+            deepFiles
+                .filter(Files::isRegularFile)
+                .forEach(deepFile -> filesToStore.put(deepFile, subDir.relativize(deepFile)));
           }
+        } else {
+          filesToStore.put(subFile, subFile.getFileName());
         }
       } catch (IOException e) {
         throw new UncheckedIOException(String.format("Failed to copy: '%s'", subFile), e);
       }
     }
+    storeSnapshotInputObjects(filesToStore, new NetworkSnapshot(networkId, snapshotId));
     _logger.infof(
         "Environment data for snapshot:%s; bgpTables:%s, nodeRoles:%s referenceBooks:%s\n",
         snapshotName, bgpTables, roleData, referenceLibraryData);
     _idManager.assignSnapshot(snapshotName, networkId, snapshotId);
   }
 
+  /**
+   * Stores each file in {@code files} (a map from source file to its key relative to the snapshot
+   * input root) as an input object of {@code snapshot}, in parallel. Returns once every file has
+   * been stored.
+   */
+  private void storeSnapshotInputObjects(Map<Path, Path> files, NetworkSnapshot snapshot) {
+    List<Future<?>> stores = new ArrayList<>(files.size());
+    files.forEach(
+        (srcFile, key) ->
+            stores.add(
+                _ingestExecutor.submit(
+                    () -> {
+                      try (InputStream srcFileStream = Files.newInputStream(srcFile)) {
+                        _storage.storeSnapshotInputObject(srcFileStream, key.toString(), snapshot);
+                      } catch (IOException e) {
+                        throw new UncheckedIOException(
+                            String.format("Failed to copy: '%s'", srcFile), e);
+                      }
+                    })));
+    for (Future<?> store : stores) {
+      try {
+        store.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new BatfishException("Interrupted while storing snapshot input", e);
+      } catch (ExecutionException e) {
+        Throwables.throwIfUnchecked(e.getCause());
+        throw new BatfishException("Failed to store snapshot input", e.getCause());
+      }
+    }
+  }
+
   /**
    * Helper function to assert that the specified dir contains configs
    *
@@ -1405,6 +1634,7 @@ public class WorkMgr extends AbstractCoordinator {
     QuestionId questionId = _idManager.generateQuestionId();
     _storage.storeQuestion(questionJson, networkId, questionId);
     _idManager.assignQuestion(question, networkId, questionId);
+    invalidateCachedAnswers(networkId, question);
     return true;
   }
 
@@ -1451,7 +1681,7 @@ public class WorkMgr extends AbstractCoordinator {
 
     Path unzipDir = createTempDirectory("tr");
     try (InputStream zipStream = _storage.loadUploadSnapshotZip(uploadZipKey, networkId)) {
-      UnzipUtility.unzip(zipStream, unzipDir);
+      UnzipUtility.unzip(zipStream, unzipDir, _ingestExecutor, INGEST_MAX_PENDING_BYTES);
     } catch (IOException e) {
       throw new UncheckedIOException("Failed to extract uploaded zip", e);
     }
@@ -1486,8 +1716,7 @@ public class WorkMgr extends AbstractCoordinator {
       return answer;
     }
     try {
-      Answer rawAnswer =
-          BatfishObjectMapper.mapper().readValue(rawAnswerStr, new TypeReference<Answer>() {});
+      Answer rawAnswer = parseRawAnswer(rawAnswerStr);
       // If the AnswerStatus is not SUCCESS, the answer cannot have any AnswerElements related to
       // actual answers (but, e.g., it might have a BatfishStackTrace). Return that as-is.
       if (rawAnswer.getStatus() != AnswerStatus.SUCCESS) {
@@ -1513,8 +1742,7 @@ public class WorkMgr extends AbstractCoordinator {
       return answer;
     }
     try {
-      Answer rawAnswer =
-          BatfishObjectMapper.mapper().readValue(rawAnswerStr, new TypeReference<Answer>() {});
+      Answer rawAnswer = parseRawAnswer(rawAnswerStr);
       // If the AnswerStatus is not SUCCESS, the answer cannot have any AnswerElements related to
       // actual answers (but, e.g., it might have a BatfishStackTrace). Return that as-is.
       if (rawAnswer.getStatus() != AnswerStatus.SUCCESS) {
@@ -1528,6 +1756,23 @@ public class WorkMgr extends AbstractCoordinator {
     }
   }
 
+  /**
+   * Deserializes a raw answer. Successful answers are cached by their JSON text, so that paging
+   * through the same answer does not deserialize it again.
+   */
+  private @Nonnull Answer parseRawAnswer(String rawAnswerStr) throws IOException {
+    Answer cached = _answerStringCache.getIfPresent(rawAnswerStr);
+    if (cached != null) {
+      return cached;
+    }
+    Answer rawAnswer =
+        BatfishObjectMapper.mapper().readValue(rawAnswerStr, new TypeReference<Answer>() {});
+    if (rawAnswer.getStatus() == AnswerStatus.SUCCESS) {
+      _answerStringCache.put(rawAnswerStr, rawAnswer);
+    }
+    return rawAnswer;
+  }
+
   /** Filter the supplied rawAnswer based on the options provided */
   public Answer filterAnswer(Answer rawAnswer, AnswerRowsOptions options) {
     AnswerElement answerElement = rawAnswer.getAnswerElements().get(0);
@@ -1544,6 +1789,85 @@ public class WorkMgr extends AbstractCoordinator {
   @VisibleForTesting
   @Nonnull
   TableAnswerElement processAnswerTable(TableAnswerElement rawTable, AnswerRowsOptions options) {
+    ProcessedRows processedRows = getProcessedRows(rawTable, options);
+    TableAnswerElement table;
+    if (options.getColumns().isEmpty()) {
+      table = new TableAnswerElement(rawTable.getMetadata());
+    } else {
+      Map<String, ColumnMetadata> columnMap =
+          new LinkedHashMap<>(rawTable.getMetadata().toColumnMap());
+      columnMap.keySet().retainAll(options.getColumns());
+      List<ColumnMetadata> columnMetadata =
+          columnMap.values().stream().collect(ImmutableList.toImmutableList());
+      table =
+          new TableAnswerElement(
+              new TableMetadata(columnMetadata, rawTable.getMetadata().getTextDesc()));
+    }
+    // offset, truncate, and add to table
+    int pageEnd = pageEnd(processedRows, options);
+    for (int i = pageStart(processedRows, options); i < pageEnd; i++) {
+      table.addRow(processedRows._rows.get(i));
+    }
+    table.setSummary(copySummary(rawTable.getSummary()));
+    table.getSummary().setNumResults(processedRows._numResults);
+    return table;
+  }
+
+  /**
+   * Rows of a table answer after filtering, sorting, projection to the requested columns, and
+   * deduplication, but before paging.
+   */
+  private static final class ProcessedRows {
+    private final @Nonnull List<Row> _rows;
+    /** Index in the raw table of the row each processed row comes from. */
+    private final @Nonnull List<Integer> _rowIds;
+    /** Number of rows that match the filters. */
+    private final int _numResults;
+
+    private ProcessedRows(List<Row> rows, List<Integer> rowIds, int numResults) {
+      _rows = rows;
+      _rowIds = rowIds;
+      _numResults = numResults;
+    }
+  }
+
+  private static int pageStart(ProcessedRows processedRows, AnswerRowsOptions options) {
+    return Math.min(options.getRowOffset(), processedRows._rows.size());
+  }
+
+  private static int pageEnd(ProcessedRows processedRows, AnswerRowsOptions options) {
+    return (int)
+        Math.min(
+            (long) pageStart(processedRows, options) + options.getMaxRows(),
+            processedRows._rows.size());
+  }
+
+  /**
+   * Returns the rows of {@code rawTable} for {@code options} before paging, reusing them across
+   * requests for different pages of the same deserialized table.
+   */
+  private @Nonnull ProcessedRows getProcessedRows(
+      TableAnswerElement rawTable, AnswerRowsOptions options) {
+    AnswerRowsOptions unpaged =
+        new AnswerRowsOptions(
+            options.getColumns(),
+            options.getFilters(),
+            Integer.MAX_VALUE,
+            0,
+            options.getSortOrder(),
+            options.getUniqueRows());
+    return _rowViewCache
+        .asMap()
+        .computeIfAbsent(
+            rawTable, t -> CacheBuilder.newBuilder().maximumSize(MAX_CACHED_ROW_VIEWS).build())
+        .asMap()
+        .computeIfAbsent(unpaged, o -> processRows(rawTable, o));
+  }
+
+  private static @Nonnull ProcessedRows processRows(
+      TableAnswerElement rawTable, AnswerRowsOptions options) {
+    Map<Row, Integer> rowIds = Maps.newIdentityHashMap();
+    CommonUtil.forEachWithIndex(rawTable.getRowsList(), (i, row) -> rowIds.put(row, i));
     Map<String, ColumnMetadata> rawColumnMap = rawTable.getMetadata().toColumnMap();
     List<Row> filteredRows =
         rawTable.getRowsList().stream()
@@ -1555,37 +1879,30 @@ public class WorkMgr extends AbstractCoordinator {
       // sort using specified sort order
       rowStream = rowStream.sorted(buildComparator(rawColumnMap, options.getSortOrder()));
     }
-    TableAnswerElement table;
-    if (options.getColumns().isEmpty()) {
-      table = new TableAnswerElement(rawTable.getMetadata());
-    } else {
+    if (!options.getColumns().isEmpty()) {
       // project to desired columns
       rowStream =
-          rowStream.map(rawRow -> Row.builder().putAll(rawRow, options.getColumns()).build());
-      Map<String, ColumnMetadata> columnMap = new LinkedHashMap<>(rawColumnMap);
-      columnMap.keySet().retainAll(options.getColumns());
-      List<ColumnMetadata> columnMetadata =
-          columnMap.values().stream().collect(ImmutableList.toImmutableList());
-      table =
-          new TableAnswerElement(
-              new TableMetadata(columnMetadata, rawTable.getMetadata().getTextDesc()));
+          rowStream.map(
+              rawRow -> {
+                Row row = Row.builder().putAll(rawRow, options.getColumns()).build();
+                rowIds.put(row, rowIds.get(rawRow));
+                return row;
+              });
     }
     if (options.getUniqueRows()) {
       // uniquify if desired
       rowStream = rowStream.distinct();
     }
-    // offset, truncate, and add to table
-    rowStream.skip(options.getRowOffset()).limit(options.getMaxRows()).forEach(table::addRow);
-    table.setSummary(rawTable.getSummary() != null ? rawTable.getSummary() : new AnswerSummary());
-    table.getSummary().setNumResults(filteredRows.size());
-    return table;
+    List<Row> rows = rowStream.collect(ImmutableList.toImmutableList());
+    return new ProcessedRows(
+        rows,
+        rows.stream().map(rowIds::get).collect(ImmutableList.toImmutableList()),
+        filteredRows.size());
   }
 
   @VisibleForTesting
   @Nonnull
   TableView processAnswerTable2(TableAnswerElement rawTable, AnswerRowsOptions options) {
-    Map<Row, Integer> rowIds = Maps.newIdentityHashMap();
-    CommonUtil.forEachWithIndex(rawTable.getRowsList(), (i, row) -> rowIds.put(row, i));
     Map<String, ColumnMetadata> rawColumnMap = rawTable.getMetadata().toColumnMap();
 
     for (String c : options.getColumns()) {
@@ -1596,28 +1913,11 @@ public class WorkMgr extends AbstractCoordinator {
       }
     }
 
-    List<Row> filteredRows =
-        rawTable.getRowsList().stream()
-            .filter(row -> options.getFilters().stream().allMatch(filter -> filter.matches(row)))
-            .collect(ImmutableList.toImmutableList());
-
-    Stream<Row> rowStream = filteredRows.stream();
-    if (!options.getSortOrder().isEmpty()) {
-      // sort using specified sort order
-      rowStream = rowStream.sorted(buildComparator(rawColumnMap, options.getSortOrder()));
-    }
+    ProcessedRows processedRows = getProcessedRows(rawTable, options);
     TableMetadata tableMetadata;
     if (options.getColumns().isEmpty()) {
       tableMetadata = rawTable.getMetadata();
     } else {
-      // project to desired columns
-      rowStream =
-          rowStream.map(
-              rawRow -> {
-                Row row = Row.builder().putAll(rawRow, options.getColumns()).build();
-                rowIds.put(row, rowIds.get(rawRow));
-                return row;
-              });
       // TableMetadata requires at least one key. For simplicity, make them all keys.
       Map<String, ColumnMetadata> columnMap =
           options.getColumns().stream()
@@ -1638,27 +1938,33 @@ public class WorkMgr extends AbstractCoordinator {
           columnMap.values().stream().collect(ImmutableList.toImmutableList());
       tableMetadata = new TableMetadata(columnMetadata, rawTable.getMetadata().getTextDesc());
     }
-    if (options.getUniqueRows()) {
-      // uniquify if desired
-      rowStream = rowStream.distinct();
-    }
     // offset, truncate, and add to table
+    ImmutableList.Builder<TableViewRow> rows = ImmutableList.builder();
+    int pageEnd = pageEnd(processedRows, options);
+    for (int i = pageStart(processedRows, options); i < pageEnd; i++) {
+      rows.add(new TableViewRow(processedRows._rowIds.get(i), processedRows._rows.get(i)));
+    }
     TableView tableView =
-        new TableView(
-            options,
-            rowStream
-                .skip(options.getRowOffset())
-                .limit(options.getMaxRows())
-                .map(row -> new TableViewRow(rowIds.get(row), row))
-                .collect(ImmutableList.toImmutableList()),
-            tableMetadata,
-            rawTable.getWarnings());
-    tableView.setSummary(
-        rawTable.getSummary() != null ? rawTable.getSummary() : new AnswerSummary());
-    tableView.getSummary().setNumResults(filteredRows.size());
+        new TableView(options, rows.build(), tableMetadata, rawTable.getWarnings());
+    tableView.setSummary(copySummary(rawTable.getSummary()));
+    tableView.getSummary().setNumResults(processedRows._numResults);
     return tableView;
   }
 
+  /**
+   * Returns a copy of {@code summary} that may be modified without affecting the raw answer, which
+   * may be cached and shared across requests.
+   */
+  private static @Nonnull AnswerSummary copySummary(@Nullable AnswerSummary summary) {
+    return summary == null
+        ? new AnswerSummary()
+        : new AnswerSummary(
+            summary.getNotes(),
+            summary.getNumFailed(),
+            summary.getNumPassed(),
+            summary.getNumResults());
+  }
+
   @VisibleForTesting
   @Nonnull
   Comparator<Row> buildComparator(
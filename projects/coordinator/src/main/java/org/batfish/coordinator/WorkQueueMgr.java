@@ -4,9 +4,11 @@ import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import javax.annotation.Nonnull;
@@ -49,8 +51,13 @@ public class WorkQueueMgr {
   @GuardedBy("this")
   private WorkQueue _queueIncompleteWork;
 
+  /** Works handed out for assignment that may still be being assigned or run. */
+  @GuardedBy("this")
+  private Set<QueuedWork> _inFlightWork;
+
   WorkQueueMgr(BatfishLogger logger, SnapshotMetadataMgr snapshotMetadataManager) {
     _blockingWork = new HashSet<>();
+    _inFlightWork = new HashSet<>();
     _logger = logger;
     _snapshotMetadataManager = snapshotMetadataManager;
     _queueCompletedWork = new MemoryQueue();
@@ -280,16 +287,51 @@ public class WorkQueueMgr {
     };
   }
 
+  /**
+   * Returns the next unassigned work to assign, marking it {@link WorkStatusCode#TRYINGTOASSIGN},
+   * or {@code null} if there is none.
+   *
+   * <p>Work is shared fairly across networks: the work chosen is the oldest unassigned work of the
+   * network with the fewest works currently being assigned or run. So a burst of work queued for
+   * one network does not starve work subsequently queued for another.
+   *
+   * <p>In-flight works are counted from the works previously handed out here rather than from the
+   * whole queue, so the search stops at the first unassigned work of a network with nothing in
+   * flight.
+   */
   public @Nullable synchronized QueuedWork getWorkForAssignment() {
+    _inFlightWork.removeIf(work -> !isInFlight(work.getStatus()));
+    Map<NetworkId, Integer> inFlightByNetwork = new HashMap<>();
+    for (QueuedWork work : _inFlightWork) {
+      inFlightByNetwork.merge(work.getDetails().getNetworkId(), 1, Integer::sum);
+    }
 
+    QueuedWork next = null;
+    int nextInFlight = Integer.MAX_VALUE;
     for (QueuedWork work : _queueIncompleteWork) {
-      if (work.getStatus() == WorkStatusCode.UNASSIGNED) {
-        work.setStatus(WorkStatusCode.TRYINGTOASSIGN);
-        return work;
+      if (work.getStatus() != WorkStatusCode.UNASSIGNED) {
+        continue;
+      }
+      int inFlight = inFlightByNetwork.getOrDefault(work.getDetails().getNetworkId(), 0);
+      if (inFlight < nextInFlight) {
+        next = work;
+        nextInFlight = inFlight;
+        if (inFlight == 0) {
+          break;
+        }
       }
     }
+    if (next != null) {
+      next.setStatus(WorkStatusCode.TRYINGTOASSIGN);
+      _inFlightWork.add(next);
+    }
+    return next;
+  }
 
-    return null;
+  private static boolean isInFlight(WorkStatusCode status) {
+    return status == WorkStatusCode.TRYINGTOASSIGN
+        || status == WorkStatusCode.ASSIGNED
+        || status == WorkStatusCode.CHECKINGSTATUS;
   }
 
   public @Nonnull synchronized List<QueuedWork> getWorkForChecking() {
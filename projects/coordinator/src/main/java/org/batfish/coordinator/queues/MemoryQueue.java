@@ -1,6 +1,9 @@
 package org.batfish.coordinator.queues;
 
-import java.util.LinkedList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.UUID;
 import javax.annotation.Nullable;
 import org.batfish.coordinator.QueuedWork;
@@ -8,40 +11,51 @@ import org.batfish.coordinator.QueuedWork;
 // we don't synchronize on this queue
 // all synchronization is in inside WorkQueueMgr
 
-public class MemoryQueue extends LinkedList<QueuedWork> implements WorkQueue {
+/**
+ * A FIFO {@link WorkQueue} held in memory. Work is indexed by ID, so lookup and deletion take
+ * constant time.
+ */
+public class MemoryQueue implements WorkQueue {
+
+  private final Map<UUID, QueuedWork> _works = new LinkedHashMap<>();
 
   @Override
   public boolean delete(QueuedWork qWork) {
-    return remove(qWork);
+    return _works.remove(qWork.getId(), qWork);
   }
 
   @Override
   public @Nullable QueuedWork deque() {
-    if (size() == 0) {
+    Iterator<QueuedWork> it = _works.values().iterator();
+    if (!it.hasNext()) {
       return null;
     }
-
-    return pop();
+    QueuedWork work = it.next();
+    it.remove();
+    return work;
   }
 
   @Override
   public boolean enque(QueuedWork work) {
-    return add(work);
+    if (_works.containsKey(work.getId())) {
+      return false;
+    }
+    _works.put(work.getId(), work);
+    return true;
   }
 
   @Override
   public long getLength() {
-    return size();
+    return _works.size();
   }
 
   @Override
   public @Nullable QueuedWork getWork(UUID workItemId) {
-    for (QueuedWork work : this) {
-      if (work.getWorkItem().getId().equals(workItemId)) {
-        return work;
-      }
-    }
+    return _works.get(workItemId);
+  }
 
-    return null;
+  @Override
+  public Iterator<QueuedWork> iterator() {
+    return Collections.unmodifiableCollection(_works.values()).iterator();
   }
 }
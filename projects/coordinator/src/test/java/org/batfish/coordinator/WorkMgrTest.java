@@ -18,11 +18,13 @@ import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.emptyIterable;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.iterableWithSize;
 import static org.hamcrest.Matchers.lessThan;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.hamcrest.Matchers.startsWith;
 import static org.hamcrest.io.FileMatchers.anExistingFile;
 import static org.junit.Assert.assertFalse;
@@ -47,6 +49,7 @@ import java.nio.file.Paths;
 import java.time.Instant;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
@@ -57,6 +60,8 @@ import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
 import java.util.UUID;
+import java.util.function.Function;
+import javax.annotation.Nonnull;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.batfish.common.AnswerRowsOptions;
@@ -64,8 +69,10 @@ import org.batfish.common.BatfishException;
 import org.batfish.common.BfConsts;
 import org.batfish.common.ColumnFilter;
 import org.batfish.common.ColumnSortOption;
+import org.batfish.common.CompletionMetadata;
 import org.batfish.common.Container;
 import org.batfish.common.WorkItem;
+import org.batfish.common.autocomplete.NodeCompletionMetadata;
 import org.batfish.common.runtime.RuntimeData;
 import org.batfish.common.runtime.SnapshotRuntimeData;
 import org.batfish.common.util.BatfishObjectMapper;
@@ -76,8 +83,10 @@ import org.batfish.coordinator.resources.ForkSnapshotBean;
 import org.batfish.datamodel.Edge;
 import org.batfish.datamodel.Flow;
 import org.batfish.datamodel.FlowDisposition;
+import org.batfish.datamodel.InitializationMetadata.ProcessingStatus;
 import org.batfish.datamodel.Ip;
 import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.PrefixTrieMultiMap;
 import org.batfish.datamodel.SnapshotMetadata;
 import org.batfish.datamodel.SnapshotMetadataEntry;
 import org.batfish.datamodel.answers.Answer;
@@ -96,6 +105,7 @@ import org.batfish.datamodel.pojo.Node;
 import org.batfish.datamodel.pojo.Topology;
 import org.batfish.datamodel.questions.Question;
 import org.batfish.datamodel.questions.TestQuestion;
+import org.batfish.datamodel.questions.Variable;
 import org.batfish.datamodel.table.ColumnMetadata;
 import org.batfish.datamodel.table.Row;
 import org.batfish.datamodel.table.TableAnswerElement;
@@ -1174,6 +1184,69 @@ public final class WorkMgrTest {
             snapshotBaseName, snapshotNewName, null, null, null, null, null, null, null));
   }
 
+  private static @Nonnull CompletionMetadata completionMetadataWithNodes(String... nodes) {
+    return new CompletionMetadata(
+        ImmutableSet.of(),
+        ImmutableSet.of(),
+        new PrefixTrieMultiMap<>(),
+        ImmutableSet.of(),
+        ImmutableSet.of(),
+        Arrays.stream(nodes)
+            .collect(
+                ImmutableMap.toImmutableMap(
+                    Function.identity(), node -> new NodeCompletionMetadata(null))),
+        ImmutableSet.of(),
+        ImmutableSet.of(),
+        ImmutableSet.of(),
+        ImmutableSet.of(),
+        ImmutableSet.of());
+  }
+
+  @Test
+  public void testAutoCompleteCachesCompletionMetadata() throws IOException {
+    String network = "network";
+    String snapshot = "snapshot";
+    _manager.initNetwork(network, null);
+    WorkMgrTestUtils.initSnapshotWithTopology(network, snapshot, ImmutableSet.of());
+    NetworkId networkId = _idManager.getNetworkId(network).get();
+    SnapshotId snapshotId = _idManager.getSnapshotId(snapshot, networkId).get();
+
+    // Before parsing completes, completion metadata is always reloaded
+    _storage.storeCompletionMetadata(
+        completionMetadataWithNodes("n1", "n2"), networkId, snapshotId);
+    assertThat(
+        _manager.autoComplete(network, snapshot, Variable.Type.NODE_NAME, "", 10), hasSize(2));
+
+    // Once parsed, completion metadata is loaded once and reused
+    _snapshotMetadataManager.updateInitializationStatus(
+        networkId, snapshotId, ProcessingStatus.PARSED, null);
+    assertThat(
+        _manager.autoComplete(network, snapshot, Variable.Type.NODE_NAME, "", 10), hasSize(2));
+    _storage.storeCompletionMetadata(
+        completionMetadataWithNodes("n1", "n2", "n3"), networkId, snapshotId);
+    assertThat(
+        _manager.autoComplete(network, snapshot, Variable.Type.NODE_NAME, "", 10), hasSize(2));
+
+    // Reparsing invalidates the cached completion metadata
+    _snapshotMetadataManager.updateInitializationStatus(
+        networkId, snapshotId, ProcessingStatus.PARSING, null);
+    assertThat(
+        _manager.autoComplete(network, snapshot, Variable.Type.NODE_NAME, "", 10), hasSize(3));
+
+    // Reparsing invalidates the cached completion metadata, even if it was not seen in progress
+    _snapshotMetadataManager.updateInitializationStatus(
+        networkId, snapshotId, ProcessingStatus.PARSED, null);
+    assertThat(
+        _manager.autoComplete(network, snapshot, Variable.Type.NODE_NAME, "", 10), hasSize(3));
+    _storage.storeCompletionMetadata(completionMetadataWithNodes("n1"), networkId, snapshotId);
+    _snapshotMetadataManager.updateInitializationStatus(
+        networkId, snapshotId, ProcessingStatus.PARSING, null);
+    _snapshotMetadataManager.updateInitializationStatus(
+        networkId, snapshotId, ProcessingStatus.PARSED, null);
+    assertThat(
+        _manager.autoComplete(network, snapshot, Variable.Type.NODE_NAME, "", 10), hasSize(1));
+  }
+
   @Test
   public void testGetAnswer() throws IOException {
     String network = "network";
@@ -1193,6 +1266,44 @@ public final class WorkMgrTest {
     assertThat(ansString, equalTo(expectedAnswerString));
   }
 
+  @Test
+  public void testGetAnswerCached() throws IOException {
+    String network = "network";
+    String snapshot = "snapshot";
+    String questionName = "question";
+
+    Answer answer = new Answer();
+    answer.setStatus(AnswerStatus.SUCCESS);
+    answer.addAnswerElement(new StringAnswerElement("foo1"));
+    _manager.initNetwork(network, null);
+    uploadTestSnapshot(network, snapshot);
+    setupQuestionAndAnswer(network, snapshot, questionName, answer);
+
+    // Repeated requests for an unchanged answer reuse the deserialized answer
+    Answer ans = _manager.getAnswer(network, snapshot, questionName, null);
+    assertThat(_manager.getAnswer(network, snapshot, questionName, null), sameInstance(ans));
+
+    // Storing a new answer with different metadata invalidates it
+    IdManager idManager = _manager.getIdManager();
+    NetworkId networkId = idManager.getNetworkId(network).get();
+    SnapshotId snapshotId = idManager.getSnapshotId(snapshot, networkId).get();
+    QuestionId questionId = idManager.getQuestionId(questionName, networkId).get();
+    AnswerId answerId =
+        idManager.getAnswerId(
+            networkId, snapshotId, questionId, DEFAULT_NETWORK_NODE_ROLES_ID, null);
+    Answer newAnswer = Answer.failureAnswer("failed", null);
+    _storage.storeAnswer(
+        networkId, snapshotId, BatfishObjectMapper.writeString(newAnswer), answerId);
+    _storage.storeAnswerMetadata(
+        networkId,
+        snapshotId,
+        AnswerMetadataUtil.computeAnswerMetadata(newAnswer, Main.getLogger()),
+        answerId);
+    assertThat(
+        _manager.getAnswer(network, snapshot, questionName, null).getStatus(),
+        equalTo(AnswerStatus.FAILURE));
+  }
+
   @Test
   public void testGetAnswerNotFound() throws IOException {
     String network = "network";
@@ -1652,6 +1763,55 @@ public final class WorkMgrTest {
     assertThat(processedRows, equalTo(table.getRowsList()));
   }
 
+  @Test
+  public void testProcessAnswerRows2Pages() throws IOException {
+    String columnName = "n";
+    TableAnswerElement table =
+        new TableAnswerElement(
+            new TableMetadata(
+                ImmutableList.of(new ColumnMetadata(columnName, Schema.INTEGER, "foobar"))));
+    for (int i = 0; i < 5; i++) {
+      table.addRow(Row.of(columnName, i));
+    }
+    Answer answer = new Answer();
+    answer.addAnswerElement(table);
+    answer.setStatus(AnswerStatus.SUCCESS);
+    String answerStr = BatfishObjectMapper.writePrettyString(answer);
+
+    // Each page of the same sorted view keeps the ids of the rows in the raw table
+    List<Row> rows = table.getRowsList();
+    List<List<Integer>> pageIds = new ArrayList<>();
+    for (int rowOffset : ImmutableList.of(0, 2, 4, 6)) {
+      AnswerRowsOptions options =
+          new AnswerRowsOptions(
+              ImmutableSet.of(),
+              ImmutableList.of(),
+              2,
+              rowOffset,
+              ImmutableList.of(new ColumnSortOption(columnName, true)),
+              false);
+      TableView view =
+          (TableView) _manager.processAnswerRows2(answerStr, options).getAnswerElements().get(0);
+      assertThat(view.getSummary().getNumResults(), equalTo(5));
+      for (TableViewRow row : view.getRows()) {
+        assertThat(row.getRow(), equalTo(rows.get(row.getId())));
+      }
+      pageIds.add(
+          view.getRows().stream()
+              .map(TableViewRow::getId)
+              .collect(ImmutableList.toImmutableList()));
+    }
+
+    assertThat(
+        pageIds,
+        equalTo(
+            ImmutableList.of(
+                ImmutableList.of(4, 3),
+                ImmutableList.of(2, 1),
+                ImmutableList.of(0),
+                ImmutableList.of())));
+  }
+
   @Test
   public void testProcessAnswerRowsFailure() throws IOException {
     String columnName = "issue";
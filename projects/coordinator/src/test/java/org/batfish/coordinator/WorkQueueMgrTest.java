@@ -8,6 +8,7 @@ import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.iterableWithSize;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 
 import com.google.common.collect.ImmutableList;
@@ -449,6 +450,89 @@ public final class WorkQueueMgrTest {
     assertThat(works, equalTo(Collections.singletonList(work1)));
   }
 
+  @Test
+  public void getWorkForAssignmentFairAcrossNetworks() throws Exception {
+    String snapshot = "snapshot1";
+    String otherNetwork = "other";
+    initSnapshotMetadata(snapshot, ProcessingStatus.UNINITIALIZED);
+    Main.getWorkMgr().initNetwork(otherNetwork, null);
+    WorkMgrTestUtils.initSnapshotWithTopology(otherNetwork, snapshot, ImmutableSet.of());
+    initSnapshotMetadata(otherNetwork, snapshot, ProcessingStatus.UNINITIALIZED);
+    NetworkId otherNetworkId = _idManager.getNetworkId(otherNetwork).get();
+    WorkDetails.Builder builder =
+        WorkDetails.builder()
+            .setWorkType(WorkType.UNKNOWN)
+            .setNetworkId(_networkId)
+            .setSnapshotId(_idManager.getSnapshotId(snapshot, _networkId).get());
+    QueuedWork burst1 = new QueuedWork(new WorkItem(NETWORK, snapshot), builder.build());
+    QueuedWork burst2 = new QueuedWork(new WorkItem(NETWORK, snapshot), builder.build());
+    QueuedWork burst3 = new QueuedWork(new WorkItem(NETWORK, snapshot), builder.build());
+    QueuedWork other =
+        new QueuedWork(
+            new WorkItem(otherNetwork, snapshot),
+            builder
+                .setNetworkId(otherNetworkId)
+                .setSnapshotId(_idManager.getSnapshotId(snapshot, otherNetworkId).get())
+                .build());
+    _workQueueMgr.queueUnassignedWork(burst1);
+    _workQueueMgr.queueUnassignedWork(burst2);
+    _workQueueMgr.queueUnassignedWork(burst3);
+    _workQueueMgr.queueUnassignedWork(other);
+
+    // Oldest work goes first; then the other network, which has nothing in flight, gets a turn
+    // ahead of the rest of the burst.
+    assertSame(burst1, _workQueueMgr.getWorkForAssignment());
+    assertSame(other, _workQueueMgr.getWorkForAssignment());
+    assertSame(burst2, _workQueueMgr.getWorkForAssignment());
+    assertSame(burst3, _workQueueMgr.getWorkForAssignment());
+    assertNull(_workQueueMgr.getWorkForAssignment());
+  }
+
+  @Test
+  public void getWorkForAssignmentAfterAssignmentFailure() throws Exception {
+    String snapshot = "snapshot1";
+    initSnapshotMetadata(snapshot, ProcessingStatus.UNINITIALIZED);
+    WorkDetails details =
+        WorkDetails.builder()
+            .setWorkType(WorkType.UNKNOWN)
+            .setNetworkId(_networkId)
+            .setSnapshotId(_idManager.getSnapshotId(snapshot, _networkId).get())
+            .build();
+    QueuedWork work1 = new QueuedWork(new WorkItem(NETWORK, snapshot), details);
+    QueuedWork work2 = new QueuedWork(new WorkItem(NETWORK, snapshot), details);
+    _workQueueMgr.queueUnassignedWork(work1);
+    _workQueueMgr.queueUnassignedWork(work2);
+
+    // Once its assignment fails, the work no longer counts as in flight, and is retried first.
+    assertSame(work1, _workQueueMgr.getWorkForAssignment());
+    _workQueueMgr.markAssignmentFailure(work1);
+    assertSame(work1, _workQueueMgr.getWorkForAssignment());
+    assertSame(work2, _workQueueMgr.getWorkForAssignment());
+    assertNull(_workQueueMgr.getWorkForAssignment());
+  }
+
+  @Test
+  public void getWorkIndexedById() throws Exception {
+    String snapshot = "snapshot1";
+    initSnapshotMetadata(snapshot, ProcessingStatus.UNINITIALIZED);
+    WorkDetails details =
+        WorkDetails.builder()
+            .setWorkType(WorkType.UNKNOWN)
+            .setNetworkId(_networkId)
+            .setSnapshotId(_idManager.getSnapshotId(snapshot, _networkId).get())
+            .build();
+    QueuedWork work1 = new QueuedWork(new WorkItem(NETWORK, snapshot), details);
+    QueuedWork work2 = new QueuedWork(new WorkItem(NETWORK, snapshot), details);
+    _workQueueMgr.queueUnassignedWork(work1);
+    _workQueueMgr.queueUnassignedWork(work2);
+    _workQueueMgr.markAssignmentError(work1);
+
+    assertSame(work1, _workQueueMgr.getWork(work1.getId()));
+    assertSame(work2, _workQueueMgr.getWork(work2.getId()));
+    assertThat(_workQueueMgr.getLength(QueueType.COMPLETED), equalTo(1L));
+    assertThat(_workQueueMgr.getLength(QueueType.INCOMPLETE), equalTo(1L));
+  }
+
   @Test
   public void listIncompleteWorkForSpecificStatus() throws Exception {
     String snapshot = "snapshot1";
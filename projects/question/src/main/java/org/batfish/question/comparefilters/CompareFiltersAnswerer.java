@@ -20,6 +20,7 @@ import org.batfish.common.Answerer;
 import org.batfish.common.BatfishException;
 import org.batfish.common.NetworkSnapshot;
 import org.batfish.common.bdd.BDDPacket;
+import org.batfish.common.bdd.BDDPacketPool;
 import org.batfish.common.bdd.BDDSourceManager;
 import org.batfish.common.bdd.IpAccessListToBdd;
 import org.batfish.common.bdd.IpAccessListToBddImpl;
@@ -89,19 +90,22 @@ public class CompareFiltersAnswerer extends Answerer {
             currentFilters,
             entry -> referenceFilters.containsEntry(entry.getKey(), entry.getValue()));
 
-    BDDPacket bddPacket = new BDDPacket();
-    Multiset<Row> rows =
-        commonFilters.entries().stream()
-            .flatMap(
-                entry ->
-                    compareFilter(
-                        entry.getKey(),
-                        entry.getValue(),
-                        bddPacket,
-                        currentContext,
-                        referenceContext))
-            .map(filterDifference -> toRow(filterDifference, currentContext, referenceContext))
-            .collect(ImmutableMultiset.toImmutableMultiset());
+    Multiset<Row> rows;
+    try (BDDPacketPool.Lease lease = BDDPacketPool.getInstance().lease()) {
+      BDDPacket bddPacket = lease.getPacket();
+      rows =
+          commonFilters.entries().stream()
+              .flatMap(
+                  entry ->
+                      compareFilter(
+                          entry.getKey(),
+                          entry.getValue(),
+                          bddPacket,
+                          currentContext,
+                          referenceContext))
+              .map(filterDifference -> toRow(filterDifference, currentContext, referenceContext))
+              .collect(ImmutableMultiset.toImmutableMultiset());
+    }
 
     TableAnswerElement table = new TableAnswerElement(metadata());
     table.postProcessAnswer(_question, rows);
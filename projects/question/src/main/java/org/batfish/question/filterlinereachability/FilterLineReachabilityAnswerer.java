@@ -24,7 +24,7 @@ import java.util.stream.Collectors;
 import javax.annotation.ParametersAreNonnullByDefault;
 import org.batfish.common.Answerer;
 import org.batfish.common.NetworkSnapshot;
-import org.batfish.common.bdd.BDDPacket;
+import org.batfish.common.bdd.BDDPacketPool;
 import org.batfish.common.plugin.IBatfish;
 import org.batfish.datamodel.AclLine;
 import org.batfish.datamodel.Configuration;
@@ -452,9 +452,15 @@ public class FilterLineReachabilityAnswerer extends Answerer {
   private static List<UnreachableFilterLine> computeUnreachableFilterLines(
       List<AclSpecs> aclSpecs) {
     return aclSpecs.parallelStream()
-        .flatMap(
-            aclSpec ->
-                FilterLineReachabilityUtils.computeUnreachableFilterLines(aclSpec, new BDDPacket()))
+        .flatMap(aclSpec -> computeUnreachableFilterLines(aclSpec).stream())
         .collect(Collectors.toList());
   }
+
+  private static List<UnreachableFilterLine> computeUnreachableFilterLines(AclSpecs aclSpec) {
+    // Reuse packets across filters; results must be materialized before the lease is closed.
+    try (BDDPacketPool.Lease lease = BDDPacketPool.getInstance().lease()) {
+      return FilterLineReachabilityUtils.computeUnreachableFilterLines(aclSpec, lease.getPacket())
+          .collect(ImmutableList.toImmutableList());
+    }
+  }
 }
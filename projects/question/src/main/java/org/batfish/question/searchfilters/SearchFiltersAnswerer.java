@@ -9,10 +9,13 @@ import static org.batfish.question.testfilters.TestFiltersAnswerer.COL_FILTER_NA
 import static org.batfish.question.testfilters.TestFiltersAnswerer.COL_NODE;
 
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.collect.HashMultiset;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableMultiset;
 import com.google.common.collect.Multiset;
 import com.google.common.collect.Sets;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
@@ -26,10 +29,12 @@ import org.batfish.common.Answerer;
 import org.batfish.common.BatfishException;
 import org.batfish.common.NetworkSnapshot;
 import org.batfish.common.bdd.BDDPacket;
+import org.batfish.common.bdd.BDDPacketPool;
 import org.batfish.common.bdd.BDDSourceManager;
 import org.batfish.common.bdd.IpAccessListToBdd;
 import org.batfish.common.bdd.IpAccessListToBddImpl;
 import org.batfish.common.plugin.IBatfish;
+import org.batfish.datamodel.AclLine;
 import org.batfish.datamodel.Configuration;
 import org.batfish.datamodel.Flow;
 import org.batfish.datamodel.IpAccessList;
@@ -78,12 +83,12 @@ public final class SearchFiltersAnswerer extends Answerer {
 
     Map<String, Map<String, IpAccessList>> acls = getSpecifiedAcls(snapshot, question);
     Map<String, Map<String, IpAccessList>> refAcls = getSpecifiedAcls(reference, question);
-    Map<String, DiffConfigContext> configContexts =
-        getDiffConfigContexts(acls, refAcls, snapshot, reference, parameters);
+    Map<String, Map<String, DifferentialSearchFiltersResult>> diffResults =
+        getDiffResults(acls, refAcls, snapshot, reference, parameters, query);
 
-    for (Entry<String, DiffConfigContext> e : configContexts.entrySet()) {
+    for (Entry<String, Map<String, DifferentialSearchFiltersResult>> e : diffResults.entrySet()) {
       String hostname = e.getKey();
-      DiffConfigContext configContext = e.getValue();
+      Map<String, DifferentialSearchFiltersResult> resultsForNode = e.getValue();
       Map<String, IpAccessList> aclsForNode = acls.get(hostname);
       Map<String, IpAccessList> refAclsForNode = refAcls.get(hostname);
 
@@ -110,7 +115,7 @@ public final class SearchFiltersAnswerer extends Answerer {
         }
 
         // present in both snapshot
-        DifferentialSearchFiltersResult result = getDiffResult(acl, refAcl, configContext, query);
+        DifferentialSearchFiltersResult result = resultsForNode.get(aclName);
 
         Stream.of(result.getDecreasedFlow(), result.getIncreasedFlow())
             .filter(Optional::isPresent)
@@ -142,87 +147,125 @@ public final class SearchFiltersAnswerer extends Answerer {
       throw new BatfishException("No matching filters");
     }
 
-    Multiset<Row> rows = HashMultiset.create();
-
     /*
      * For each ACL, try to get a flow matching the query. If one exists, run traceFilter on that
-     * flow. Concatenate the answers for all flows into one big table.
+     * flow. Concatenate the answers for all flows into one big table. Nodes are searched in
+     * parallel, each with its own BDDPacket.
      */
     SearchFiltersParameters parameters = question.toSearchFiltersParameters();
     SearchFiltersQuery query = question.getQuery();
-    for (Entry<String, NonDiffConfigContext> e :
-        getConfigContexts(specifiedAcls, snapshot, parameters).entrySet()) {
-      String hostname = e.getKey();
-      NonDiffConfigContext configContext = e.getValue();
-      for (IpAccessList acl : specifiedAcls.get(hostname).values()) {
-        // Ensure that query is applicable to acl
-        if (!query.canQuery(acl)) {
-          continue;
-        }
+    Map<String, Configuration> configs = _batfish.loadConfigurations(snapshot);
+    Multiset<Row> rows =
+        specifiedAcls.entrySet().parallelStream()
+            .flatMap(
+                e ->
+                    searchNode(configs.get(e.getKey()), e.getValue(), snapshot, parameters, query)
+                        .stream())
+            .collect(ImmutableMultiset.toImmutableMultiset());
+
+    _tableAnswerElement = new TableAnswerElement(new TableMetadata(COLUMN_METADATA));
+    _tableAnswerElement.postProcessAnswer(question, rows);
+  }
 
+  /** Returns a row for each given ACL on config {@code c} that has a flow matching the query. */
+  private List<Row> searchNode(
+      Configuration c,
+      Map<String, IpAccessList> acls,
+      NetworkSnapshot snapshot,
+      SearchFiltersParameters parameters,
+      SearchFiltersQuery query) {
+    // Ensure that query is applicable to acl
+    List<IpAccessList> queryableAcls =
+        acls.values().stream().filter(query::canQuery).collect(ImmutableList.toImmutableList());
+    if (queryableAcls.isEmpty()) {
+      return ImmutableList.of();
+    }
+    try (BDDPacketPool.Lease lease = BDDPacketPool.getInstance().lease()) {
+      NonDiffConfigContext configContext =
+          new NonDiffConfigContext(
+              c, acls.keySet(), snapshot, _batfish, parameters, lease.getPacket());
+
+      // Identical ACLs on the same node match the same flows, so only search each once.
+      Map<List<AclLine>, Optional<Flow>> flowsByLines = new HashMap<>();
+      ImmutableList.Builder<Row> rows = ImmutableList.builder();
+      for (IpAccessList acl : queryableAcls) {
         // Generate representative flow for ACL, if one exists
-        Flow flow = configContext.getFlow(configContext.getReachBdd(acl, query));
-        if (flow == null) {
-          continue;
-        }
-
-        // Add result to table
-        rows.add(testFiltersRow(snapshot, hostname, acl.getName(), flow));
+        Optional<Flow> flow =
+            flowsByLines.computeIfAbsent(
+                acl.getLines(),
+                lines ->
+                    Optional.ofNullable(
+                        configContext.getFlow(configContext.getReachBdd(acl, query))));
+        flow.ifPresent(f -> rows.add(testFiltersRow(snapshot, c.getHostname(), acl.getName(), f)));
       }
-
-      _tableAnswerElement = new TableAnswerElement(new TableMetadata(COLUMN_METADATA));
-      _tableAnswerElement.postProcessAnswer(question, rows);
+      return rows.build();
     }
   }
 
   /**
-   * Given all specified ACLs on all configs of the given snapshot, returns a {@link
-   * NonDiffConfigContext} for each config.
+   * Given all specified ACLs in two snapshots, returns the {@link DifferentialSearchFiltersResult}
+   * for each ACL that can be queried in both snapshots, for each node in common between the two
+   * snapshots. Nodes are compared in parallel, each with its own BDDPacket.
    */
-  private Map<String, NonDiffConfigContext> getConfigContexts(
-      Map<String, Map<String, IpAccessList>> specifiedAcls,
+  private Map<String, Map<String, DifferentialSearchFiltersResult>> getDiffResults(
+      Map<String, Map<String, IpAccessList>> baseAcls,
+      Map<String, Map<String, IpAccessList>> refAcls,
       NetworkSnapshot snapshot,
-      SearchFiltersParameters parameters) {
-    Map<String, Configuration> configs = _batfish.loadConfigurations(snapshot);
-    BDDPacket pkt = new BDDPacket();
-    return specifiedAcls.entrySet().stream()
+      NetworkSnapshot reference,
+      SearchFiltersParameters parameters,
+      SearchFiltersQuery query) {
+    Map<String, Configuration> baseConfigs = _batfish.loadConfigurations(snapshot);
+    Map<String, Configuration> refConfigs = _batfish.loadConfigurations(reference);
+    return Sets.intersection(baseAcls.keySet(), refAcls.keySet()).parallelStream()
         .collect(
             ImmutableMap.toImmutableMap(
-                Entry::getKey,
-                e -> {
-                  Configuration c = configs.get(e.getKey());
-                  Set<String> aclNames = e.getValue().keySet();
-                  return new NonDiffConfigContext(c, aclNames, snapshot, _batfish, parameters, pkt);
-                }));
+                Function.identity(),
+                hostname ->
+                    getNodeDiffResults(
+                        baseConfigs.get(hostname),
+                        refConfigs.get(hostname),
+                        baseAcls.get(hostname),
+                        refAcls.get(hostname),
+                        snapshot,
+                        reference,
+                        parameters,
+                        query)));
   }
 
-  /**
-   * Given all specified ACLs in two snapshots, returns a {@link DiffConfigContext} for each config
-   * in common between the two snapshots.
-   */
-  private Map<String, DiffConfigContext> getDiffConfigContexts(
-      Map<String, Map<String, IpAccessList>> baseAcls,
-      Map<String, Map<String, IpAccessList>> refAcls,
+  /** Compares each ACL in common between two snapshots' versions of one node. */
+  private Map<String, DifferentialSearchFiltersResult> getNodeDiffResults(
+      Configuration c,
+      Configuration refC,
+      Map<String, IpAccessList> acls,
+      Map<String, IpAccessList> refAcls,
       NetworkSnapshot snapshot,
       NetworkSnapshot reference,
-      SearchFiltersParameters parameters) {
-    Map<String, Configuration> baseConfigs = _batfish.loadConfigurations(snapshot);
-    Map<String, Configuration> refConfigs = _batfish.loadConfigurations(reference);
-    BDDPacket pkt = new BDDPacket();
-
-    Set<String> commonNodes = Sets.intersection(baseAcls.keySet(), refAcls.keySet());
-    ImmutableMap.Builder<String, DiffConfigContext> configContexts = ImmutableMap.builder();
-    for (String hostname : commonNodes) {
-      Configuration c = baseConfigs.get(hostname);
-      Configuration refC = refConfigs.get(hostname);
-      Set<String> commonAcls =
-          Sets.intersection(baseAcls.get(hostname).keySet(), refAcls.get(hostname).keySet());
-      configContexts.put(
-          hostname,
+      SearchFiltersParameters parameters,
+      SearchFiltersQuery query) {
+    Set<String> commonAcls = Sets.intersection(acls.keySet(), refAcls.keySet());
+    try (BDDPacketPool.Lease lease = BDDPacketPool.getInstance().lease()) {
+      DiffConfigContext configContext =
           new DiffConfigContext(
-              c, refC, commonAcls, snapshot, reference, _batfish, parameters, pkt));
+              c, refC, commonAcls, snapshot, reference, _batfish, parameters, lease.getPacket());
+
+      // Identical pairs of ACLs on the same node have the same differences, so only compare once.
+      Map<List<List<AclLine>>, DifferentialSearchFiltersResult> resultsByLines = new HashMap<>();
+      ImmutableMap.Builder<String, DifferentialSearchFiltersResult> results =
+          ImmutableMap.builder();
+      for (String aclName : commonAcls) {
+        IpAccessList acl = acls.get(aclName);
+        IpAccessList refAcl = refAcls.get(aclName);
+        if (!query.canQuery(acl) || !query.canQuery(refAcl)) {
+          continue;
+        }
+        results.put(
+            aclName,
+            resultsByLines.computeIfAbsent(
+                ImmutableList.of(acl.getLines(), refAcl.getLines()),
+                lines -> getDiffResult(acl, refAcl, configContext, query)));
+      }
+      return results.build();
     }
-    return configContexts.build();
   }
 
   /**
@@ -341,6 +341,37 @@ public final class SearchFiltersTest {
                             COL_FILTER_NAME, equalTo(REJECT_ALL_ACL.getName()), Schema.STRING))))));
   }
 
+  @Test
+  public void testIdenticalAclsAnswer() {
+    NetworkFactory nf = new NetworkFactory();
+    Configuration c =
+        nf.configurationBuilder()
+            .setConfigurationFormat(ConfigurationFormat.CISCO_IOS)
+            .setHostname("B")
+            .build();
+    IpAccessList aclCopy =
+        IpAccessList.builder().setName("aclCopy").setLines(ACL.getLines()).build();
+    c.getIpAccessLists().putAll(ImmutableMap.of(ACL.getName(), ACL, aclCopy.getName(), aclCopy));
+    IBatfish batfish = new MockBatfish(c);
+
+    SearchFiltersQuestion question = new SearchFiltersQuestion();
+    SearchFiltersAnswerer answerer = new SearchFiltersAnswerer(question, batfish);
+    TableAnswerElement ae = (TableAnswerElement) answerer.answer(batfish.getSnapshot());
+
+    // Identical ACLs are searched once, but each gets its own row
+    assertThat(
+        ae,
+        hasRows(
+            containsInAnyOrder(
+                ImmutableList.of(
+                    allOf(
+                        hasColumn(COL_ACTION, equalTo("PERMIT"), Schema.STRING),
+                        hasColumn(COL_FILTER_NAME, equalTo(ACL.getName()), Schema.STRING)),
+                    allOf(
+                        hasColumn(COL_ACTION, equalTo("PERMIT"), Schema.STRING),
+                        hasColumn(COL_FILTER_NAME, equalTo(aclCopy.getName()), Schema.STRING))))));
+  }
+
   @Test
   public void testMatchSrcInterface() {
     MatchLineQuery matchLine0 = new MatchLineQuery(0);
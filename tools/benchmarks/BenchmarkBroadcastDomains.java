@@ -0,0 +1,162 @@
+package tools.benchmarks;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Range;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.batfish.common.topology.Layer1Edge;
+import org.batfish.common.topology.Layer1TopologiesFactory;
+import org.batfish.common.topology.Layer1Topology;
+import org.batfish.common.topology.broadcast.L3AdjacencyComputer;
+import org.batfish.datamodel.ConcreteInterfaceAddress;
+import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.ConfigurationFormat;
+import org.batfish.datamodel.IntegerSpace;
+import org.batfish.datamodel.InterfaceType;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.NetworkFactory;
+import org.batfish.datamodel.SwitchportMode;
+import org.batfish.datamodel.Vrf;
+import org.batfish.datamodel.collections.NodeInterfacePair;
+import org.batfish.datamodel.vxlan.VxlanTopology;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures broadcast domain computation on a synthetic campus: access switches with 48 access ports
+ * each, every port connected to a host, and every access switch trunked to a core switch with an
+ * IRB interface in every VLAN.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BenchmarkBroadcastDomains {
+  private static final int PORTS_PER_SWITCH = 48;
+  private static final int FIRST_VLAN = 100;
+
+  @Param({"50000"})
+  public int _numPorts;
+
+  @Param({"200"})
+  public int _numVlans;
+
+  private L3AdjacencyComputer _computer;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    NetworkFactory nf = new NetworkFactory();
+    ImmutableMap.Builder<String, Configuration> configs = ImmutableMap.builder();
+    ImmutableList.Builder<Layer1Edge> l1Edges = ImmutableList.builder();
+
+    Configuration core = newConfig(nf, "core");
+    configs.put(core.getHostname(), core);
+    for (int v = 0; v < _numVlans; v++) {
+      int vlan = FIRST_VLAN + v;
+      nf.interfaceBuilder()
+          .setOwner(core)
+          .setVrf(core.getDefaultVrf())
+          .setName("Vlan" + vlan)
+          .setType(InterfaceType.VLAN)
+          .setVlan(vlan)
+          .setAddress(ConcreteInterfaceAddress.create(Ip.create((10L << 24) + (v << 8) + 1), 24))
+          .build();
+    }
+
+    int numSwitches = (_numPorts + PORTS_PER_SWITCH - 1) / PORTS_PER_SWITCH;
+    int host = 0;
+    for (int s = 0; s < numSwitches; s++) {
+      Configuration sw = newConfig(nf, "access" + s);
+      configs.put(sw.getHostname(), sw);
+      String coreTrunk = "uplink" + s;
+      trunk(nf, core, coreTrunk);
+      trunk(nf, sw, "uplink");
+      addBidirectional(l1Edges, core.getHostname(), coreTrunk, sw.getHostname(), "uplink");
+
+      for (int p = 0; p < PORTS_PER_SWITCH && host < _numPorts; p++, host++) {
+        int v = host % _numVlans;
+        String port = "ge" + p;
+        nf.interfaceBuilder()
+            .setOwner(sw)
+            .setVrf(sw.getDefaultVrf())
+            .setName(port)
+            .setType(InterfaceType.PHYSICAL)
+            .setSwitchport(true)
+            .setSwitchportMode(SwitchportMode.ACCESS)
+            .setAccessVlan(FIRST_VLAN + v)
+            .build();
+
+        Configuration h = newConfig(nf, "host" + host);
+        configs.put(h.getHostname(), h);
+        nf.interfaceBuilder()
+            .setOwner(h)
+            .setVrf(h.getDefaultVrf())
+            .setName("eth0")
+            .setType(InterfaceType.PHYSICAL)
+            .setAddress(
+                ConcreteInterfaceAddress.create(
+                    Ip.create((10L << 24) + (v << 8) + 2 + host / _numVlans % 250), 24))
+            .build();
+        addBidirectional(l1Edges, sw.getHostname(), port, h.getHostname(), "eth0");
+      }
+    }
+
+    Map<String, Configuration> configMap = configs.build();
+    _computer =
+        new L3AdjacencyComputer(
+            configMap,
+            Layer1TopologiesFactory.create(
+                new Layer1Topology(l1Edges.build()), Layer1Topology.EMPTY, configMap),
+            VxlanTopology.EMPTY);
+  }
+
+  @Benchmark
+  public Map<NodeInterfacePair, Integer> unionFind() {
+    return _computer.findAllBroadcastDomains();
+  }
+
+  @Benchmark
+  public Map<NodeInterfacePair, Integer> flooding() {
+    return _computer.findAllBroadcastDomainsByFlooding();
+  }
+
+  private static Configuration newConfig(NetworkFactory nf, String hostname) {
+    Configuration c =
+        nf.configurationBuilder()
+            .setHostname(hostname)
+            .setConfigurationFormat(ConfigurationFormat.CISCO_IOS)
+            .build();
+    Vrf.builder().setName(Configuration.DEFAULT_VRF_NAME).setOwner(c).build();
+    return c;
+  }
+
+  private static void trunk(NetworkFactory nf, Configuration c, String name) {
+    nf.interfaceBuilder()
+        .setOwner(c)
+        .setVrf(c.getDefaultVrf())
+        .setName(name)
+        .setType(InterfaceType.PHYSICAL)
+        .setSwitchport(true)
+        .setSwitchportMode(SwitchportMode.TRUNK)
+        .setAllowedVlans(IntegerSpace.of(Range.closed(1, 4094)))
+        .setNativeVlan(1)
+        .build();
+  }
+
+  private static void addBidirectional(
+      ImmutableList.Builder<Layer1Edge> edges,
+      String host1,
+      String iface1,
+      String host2,
+      String iface2) {
+    edges.add(new Layer1Edge(host1, iface1, host2, iface2));
+    edges.add(new Layer1Edge(host2, iface2, host1, iface1));
+  }
+}
@@ -0,0 +1,90 @@
+package tools.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.batfish.common.Warnings;
+import org.batfish.config.Settings;
+import org.batfish.grammar.flatjuniper.FlatJuniperCombinedParser;
+import org.batfish.grammar.flatjuniper.PreprocessJuniperExtractor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures flat Juniper pre-processing (deactivation, group inheritance, apply-path) of a synthetic
+ * MX-style configuration with many interfaces, BGP neighbors, and wildcard {@code apply-groups}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BenchmarkJuniperPreprocess {
+
+  @Param({"1000", "10000"})
+  public int _numInterfaces;
+
+  private Settings _settings;
+  private String _configText;
+  private FlatJuniperCombinedParser _parser;
+  private ParserRuleContext _tree;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    _settings = new Settings();
+    _configText = generateConfig(_numInterfaces);
+  }
+
+  @Setup(Level.Invocation)
+  public void parse() {
+    // Pre-processing mutates the parse tree, so each invocation needs a fresh one.
+    _parser = new FlatJuniperCombinedParser(_configText, _settings, null);
+    _tree = _parser.parse();
+  }
+
+  @Benchmark
+  public String preprocess() {
+    PreprocessJuniperExtractor extractor =
+        new PreprocessJuniperExtractor(_parser, new Warnings(false, false, false));
+    extractor.processParseTree(_tree);
+    return extractor.getPreprocessedConfigurationText();
+  }
+
+  private static String generateConfig(int numInterfaces) {
+    StringBuilder sb = new StringBuilder();
+    sb.append("set system host-name mx-bench\n");
+    sb.append("set groups JUMBO interfaces <xe-*> mtu 9192\n");
+    sb.append("set groups JUMBO interfaces <xe-*> unit <*> family inet mtu 9000\n");
+    sb.append("set groups JUMBO interfaces <et-*> mtu 9192\n");
+    sb.append("set groups FILTERS interfaces <*> unit <*> family inet filter input-list PROTECT\n");
+    sb.append("set groups BGP protocols bgp group <*> hold-time 30\n");
+    sb.append("set groups BGP protocols bgp group <*> neighbor <*> bfd-liveness-detection");
+    sb.append(" minimum-interval 300\n");
+    sb.append("set apply-groups JUMBO\n");
+    sb.append("set apply-groups FILTERS\n");
+    sb.append("set apply-groups BGP\n");
+    sb.append("set firewall family inet filter PROTECT term t1 then accept\n");
+    sb.append("set policy-options prefix-list LOCAL apply-path");
+    sb.append(" \"interfaces <*> unit <*> family inet address <*>\"\n");
+    for (int i = 0; i < numInterfaces; i++) {
+      String name = String.format("xe-%d/%d/%d", i / 1024, (i / 64) % 16, i % 64);
+      String address = String.format("10.%d.%d.%d", i / 32768, (i / 128) % 256, (i % 128) * 2);
+      sb.append(String.format("set interfaces %s description \"link %d\"\n", name, i));
+      sb.append(
+          String.format("set interfaces %s unit 0 family inet address %s/31\n", name, address));
+      sb.append(
+          String.format(
+              "set protocols bgp group PEERS neighbor %s peer-as %d\n",
+              String.format("10.%d.%d.%d", i / 32768, (i / 128) % 256, (i % 128) * 2 + 1),
+              64512 + (i % 1000)));
+      if (i % 10 == 0) {
+        sb.append(String.format("deactivate interfaces %s description\n", name));
+      }
+    }
+    return sb.toString();
+  }
+}
@@ -0,0 +1,81 @@
+package tools.benchmarks;
+
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiPredicate;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.PrefixTrieMultiMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures restricted longest prefix match lookups, as done by next-hop resolution in RIBs, on a
+ * trie of random prefixes where half of the prefixes have no acceptable elements.
+ *
+ * <p>{@link #repeatedWalks()} is the lookup that was previously used by RIBs: a longest prefix
+ * match from the root for every prefix length until an acceptable match is found. {@link
+ * #singleWalk()} uses {@link PrefixTrieMultiMap#longestPrefixMatch(Ip, int, BiPredicate, Object)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BenchmarkLongestPrefixMatch {
+  private static final int NUM_LOOKUPS = 1024;
+
+  private static final BiPredicate<Set<Integer>, Integer> ACCEPT =
+      (elements, parity) -> elements.iterator().next() % 2 == parity;
+
+  @Param({"100000"})
+  public int _numPrefixes;
+
+  private PrefixTrieMultiMap<Integer> _trie;
+  private Ip[] _lookups;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    Random random = new Random(0);
+    _trie = new PrefixTrieMultiMap<>();
+    _trie.put(Prefix.ZERO, 0);
+    for (int i = 1; i <= _numPrefixes; i++) {
+      int length = 8 + random.nextInt(Prefix.MAX_PREFIX_LENGTH - 8 + 1);
+      _trie.put(Prefix.create(Ip.create(random.nextInt() & 0xFFFFFFFFL), length), i);
+    }
+    _lookups = new Ip[NUM_LOOKUPS];
+    for (int i = 0; i < NUM_LOOKUPS; i++) {
+      _lookups[i] = Ip.create(random.nextInt() & 0xFFFFFFFFL);
+    }
+  }
+
+  @Benchmark
+  public int repeatedWalks() {
+    int found = 0;
+    for (Ip ip : _lookups) {
+      for (int pl = Prefix.MAX_PREFIX_LENGTH; pl >= 0; pl--) {
+        Set<Integer> elements = _trie.longestPrefixMatch(ip, pl);
+        if (!elements.isEmpty() && ACCEPT.test(elements, 0)) {
+          found += elements.size();
+          break;
+        }
+      }
+    }
+    return found;
+  }
+
+  @Benchmark
+  public int singleWalk() {
+    int found = 0;
+    for (Ip ip : _lookups) {
+      found += _trie.longestPrefixMatch(ip, Prefix.MAX_PREFIX_LENGTH, ACCEPT, 0).size();
+    }
+    return found;
+  }
+}
@@ -0,0 +1,65 @@
+package tools.benchmarks;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import java.nio.file.Paths;
+import java.util.SortedMap;
+import java.util.concurrent.TimeUnit;
+import org.batfish.config.Settings;
+import org.batfish.datamodel.ConfigurationFormat;
+import org.batfish.job.ParserWarmup;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures time to parse a directory of configuration files in a freshly started JVM, with and
+ * without first warming up the parsers on a separate corpus via {@link ParserWarmup}.
+ *
+ * <p>Each measurement runs in its own fork with a single shot, so the ANTLR prediction caches start
+ * empty in every measurement.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(10)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+public class BenchmarkParserWarmup {
+  /** Directory of configuration files whose parse time is measured. */
+  @Param({"REQUIRED INPUT PARAM"})
+  public String configsDir;
+
+  /** Directory of configuration files used for warm-up, or empty to skip warm-up. */
+  @Param({""})
+  public String warmupDir;
+
+  private Settings _settings;
+  private SortedMap<String, String> _configs;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    _settings = new Settings();
+    _settings.setThrowOnLexerError(false);
+    _settings.setThrowOnParserError(false);
+    _configs = ParserWarmup.readCorpus(Paths.get(configsDir));
+    checkState(!_configs.isEmpty(), "No configs found in %s", configsDir);
+    if (!warmupDir.isEmpty()) {
+      ParserWarmup.warmUp(_settings, ParserWarmup.readCorpus(Paths.get(warmupDir)));
+    }
+  }
+
+  @Benchmark
+  public SortedMap<ConfigurationFormat, Long> parseConfigs() {
+    return ParserWarmup.warmUp(_settings, _configs);
+  }
+}